@@ -11,6 +11,8 @@
 
 package cz.zcu.kiv.dfs_simulator.model;
 
+import cz.zcu.kiv.dfs_simulator.model.cache.ClientCache;
+import cz.zcu.kiv.dfs_simulator.model.cache.ClientMetadataCache;
 import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
@@ -34,6 +36,14 @@ public class ModelClientNode extends ModelNode
      * Client's simulation plan (requests)
      */
     protected final SimulationPlan simulationPlan = new SimulationPlan();
+    /**
+     * Client's local read cache
+     */
+    protected final ClientCache clientCache = new ClientCache();
+    /**
+     * Client's cache of object locations
+     */
+    protected final ClientMetadataCache metadataCache = new ClientMetadataCache();
     
     /**
      * Creates new instance of a client node. Instance can be registered to 
@@ -72,12 +82,36 @@ public class ModelClientNode extends ModelNode
         return this.simulationPlan;
     }
     
+    /**
+     * Returns client's local read cache.
+     * 
+     * @return client's cache
+     */
+    public ClientCache getClientCache()
+    {
+        return this.clientCache;
+    }
+    
+    /**
+     * Returns client's cache of object locations.
+     * 
+     * @return client's metadata cache
+     */
+    public ClientMetadataCache getMetadataCache()
+    {
+        return this.metadataCache;
+    }
+    
     /**
      * {@inheritDoc}
      */
     @Override public List<StatePersistable> getPersistableChildren()
     {
-        return new ArrayList<>();
+        List<StatePersistable> children = new ArrayList<>();
+        children.add(this.clientCache);
+        children.add(this.metadataCache);
+        
+        return children;
     }
     
     /**
@@ -112,6 +146,10 @@ public class ModelClientNode extends ModelNode
                     throw new InvalidPersistedStateException(ex + ": " + state);
                 } 
             }
+            
+            // cache is optional (older saved states)
+            this.clientCache.restoreState(state.getElement(ClientCache.PERSISTABLE_NAME), logger);
+            this.metadataCache.restoreState(state.getElement(ClientMetadataCache.PERSISTABLE_NAME), logger);
        }
     }
     
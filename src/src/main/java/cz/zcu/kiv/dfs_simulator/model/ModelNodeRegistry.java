@@ -11,24 +11,23 @@
 
 package cz.zcu.kiv.dfs_simulator.model;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
- * Global registry of all instances of {@link ModelNode}.
+ * Global registry of all instances of {@link ModelNode}. Delegates to
+ * the {@link NodeRegistry} of the current {@link SimulationContext}.
  */
 public class ModelNodeRegistry
 {
     /**
-     * Mapping of node id to {@link ModelNode} instance
-     */
-    private static final Map<String, ModelNode> NODE_REGISTRY = new HashMap<>();
-    /**
-     * Node id counter
+     * Get registry of the current context.
+     * 
+     * @return node registry
      */
-    private static int nodeId = 1;
+    private static NodeRegistry registry()
+    {
+        return SimulationContext.getCurrent().getNodeRegistry();
+    }
     
     /**
      * Register {@code node} with automatically generated node id.
@@ -37,17 +36,7 @@ public class ModelNodeRegistry
      */
     public static void createNodeRegistration(ModelNode node)
     {
-        for(;;)
-        {
-            node.nodeID.set(getNextNodeId() + "");
-            
-            try
-            {
-                registerNode(node);
-                break;
-            }
-            catch(LabelException ex) {}
-        }
+        registry().createNodeRegistration(node);
     }
     
     /**
@@ -58,14 +47,7 @@ public class ModelNodeRegistry
      */
     public static void registerNode(ModelNode node) throws LabelException
     {
-        if(!NODE_REGISTRY.containsKey(node.getNodeID()))
-        {
-            NODE_REGISTRY.put(node.getNodeID(), node);
-        }
-        else
-        {
-            throw new LabelException("Attempting to register duplicate node with id " + node.getNodeID() + ".");
-        }
+        registry().registerNode(node);
     }
     
     /**
@@ -76,7 +58,7 @@ public class ModelNodeRegistry
      */
     public static ModelNode getNode(String nodeID)
     {
-        return NODE_REGISTRY.get(nodeID);
+        return registry().getNode(nodeID);
     }
     
     /**
@@ -89,22 +71,7 @@ public class ModelNodeRegistry
      */
     public static void renameNode(String newId, ModelNode node) throws LabelException
     {
-        if(newId.equals(node.getNodeID()))
-        {
-            return;
-        }
-        
-        if(!NODE_REGISTRY.containsKey(newId))
-        {
-            NODE_REGISTRY.remove(node.getNodeID());
-            NODE_REGISTRY.put(newId, node);
-            
-            node.nodeID.set(newId);
-        }
-        else
-        {
-            throw new LabelException("Attempting to register duplicate node with id " + newId + ".");
-        }
+        registry().renameNode(newId, node);
     }
     
     /**
@@ -114,8 +81,17 @@ public class ModelNodeRegistry
      */
     public static List<ModelServerNode> getServerNodes()
     {
-        return NODE_REGISTRY.values().stream().filter(
-                n -> n.getType() == NodeType.SERVER).map(n -> (ModelServerNode) n).collect(Collectors.toList());
+        return registry().getServerNodes();
+    }
+    
+    /**
+     * Get all nodes that have type of {@link NodeType#CLIENT}.
+     * 
+     * @return list of client nodes
+     */
+    public static List<ModelClientNode> getClientNodes()
+    {
+        return registry().getClientNodes();
     }
     
     /**
@@ -123,7 +99,7 @@ public class ModelNodeRegistry
      */
     public static void purge()
     {
-        NODE_REGISTRY.clear();
+        registry().purge();
     }
     
     /**
@@ -134,6 +110,6 @@ public class ModelNodeRegistry
      */
     public static int getNextNodeId()
     {
-        return nodeId++;
+        return registry().getNextNodeId();
     }
 }
@@ -16,6 +16,7 @@ import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
+import cz.zcu.kiv.dfs_simulator.model.metadata.MetadataService;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorageManager;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.ServerFileSystemManager;
@@ -49,12 +50,22 @@ public class ModelServerNode extends ModelNode
      * Manager of this server's file system
      */
     protected final ServerFileSystemManager fsManager;
+    /**
+     * Metadata service role of this server
+     */
+    protected final MetadataService metadataService = new MetadataService();
 
     /**
      * Root filesystem directory
      */
     protected final FsDirectory rootDir;
     
+    /**
+     * Server has failed during simulation - it cannot be reached and its 
+     * replicas are lost
+     */
+    protected boolean failed = false;
+    
     /**
      * Creates new instance of a server node. Instance can be registered to 
      * {@link ModelNodeRegistry} by setting {@code register} flag.
@@ -101,6 +112,26 @@ public class ModelServerNode extends ModelNode
         this(true);
     }
     
+    /**
+     * Checks if server has failed during simulation.
+     * 
+     * @return true if failed, false otherwise
+     */
+    public boolean isFailed()
+    {
+        return this.failed;
+    }
+    
+    /**
+     * Set if server has failed during simulation.
+     * 
+     * @param failed failed flag
+     */
+    public void setFailed(boolean failed)
+    {
+        this.failed = failed;
+    }
+    
     /**
      * Returns storage manager.
      * 
@@ -121,6 +152,16 @@ public class ModelServerNode extends ModelNode
         return this.fsManager;
     }
     
+    /**
+     * Returns metadata service role of this server.
+     * 
+     * @return metadata service
+     */
+    public MetadataService getMetadataService()
+    {
+        return this.metadataService;
+    }
+    
     /**
      * Returns root directory.
      * 
@@ -174,6 +215,7 @@ public class ModelServerNode extends ModelNode
         
         l.add(this.storageManager);
         l.add(this.fsManager);
+        l.add(this.metadataService);
         
         return l;
     }
@@ -215,6 +257,8 @@ public class ModelServerNode extends ModelNode
             
             this.storageManager.restoreState(state.getElement(this.storageManager.getPersistableName()), logger);
             this.fsManager.restoreState(state.getElement(this.fsManager.getPersistableName()), logger);
+            // older configurations do not contain metadata service
+            this.metadataService.restoreState(state.getElement(this.metadataService.getPersistableName()), logger);
        }
     }
     
@@ -0,0 +1,147 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of {@link ModelNode} instances of a single {@link SimulationContext}.
+ * Backed by a concurrent map, lookups do not take any locks.
+ */
+public class NodeRegistry
+{
+    /**
+     * Mapping of node id to {@link ModelNode} instance
+     */
+    private final Map<String, ModelNode> nodes = new ConcurrentHashMap<>();
+    /**
+     * Node id counter
+     */
+    private final AtomicInteger nodeId = new AtomicInteger(1);
+    
+    /**
+     * Register {@code node} with automatically generated node id.
+     * 
+     * @param node {@link ModelNode} instance to be registered
+     */
+    public void createNodeRegistration(ModelNode node)
+    {
+        for(;;)
+        {
+            node.nodeID.set(this.getNextNodeId() + "");
+            
+            try
+            {
+                this.registerNode(node);
+                break;
+            }
+            catch(LabelException ex) {}
+        }
+    }
+    
+    /**
+     * Register {@code node} with set node id.
+     * 
+     * @param node {@link ModelNode} instnace to be registered
+     * @throws LabelException thrown when an instance with set id already exists
+     */
+    public void registerNode(ModelNode node) throws LabelException
+    {
+        if(this.nodes.putIfAbsent(node.getNodeID(), node) != null)
+        {
+            throw new LabelException("Attempting to register duplicate node with id " + node.getNodeID() + ".");
+        }
+    }
+    
+    /**
+     * Find node by identifier.
+     * 
+     * @param nodeID node identifier
+     * @return if found, and instance of {@link ModelNode}, else null
+     */
+    public ModelNode getNode(String nodeID)
+    {
+        return this.nodes.get(nodeID);
+    }
+    
+    /**
+     * Rename an already registered node. If successful, {@code node} will have
+     * {@code newId} set as it's identifier.
+     * 
+     * @param newId new node identifier
+     * @param node registered {@link ModelNode} instance
+     * @throws LabelException thrown when an instance with {@code newId} already exists
+     */
+    public void renameNode(String newId, ModelNode node) throws LabelException
+    {
+        if(newId.equals(node.getNodeID()))
+        {
+            return;
+        }
+        
+        if(this.nodes.putIfAbsent(newId, node) == null)
+        {
+            this.nodes.remove(node.getNodeID(), node);
+            
+            node.nodeID.set(newId);
+        }
+        else
+        {
+            throw new LabelException("Attempting to register duplicate node with id " + newId + ".");
+        }
+    }
+    
+    /**
+     * Get all nodes that have type of {@link NodeType#SERVER}.
+     * 
+     * @return list of server nodes
+     */
+    public List<ModelServerNode> getServerNodes()
+    {
+        return this.nodes.values().stream().filter(
+                n -> n.getType() == NodeType.SERVER).map(n -> (ModelServerNode) n).collect(Collectors.toList());
+    }
+    
+    /**
+     * Get all nodes that have type of {@link NodeType#CLIENT}.
+     * 
+     * @return list of client nodes
+     */
+    public List<ModelClientNode> getClientNodes()
+    {
+        return this.nodes.values().stream().filter(
+                n -> n.getType() == NodeType.CLIENT).map(n -> (ModelClientNode) n).collect(Collectors.toList());
+    }
+    
+    /**
+     * Clear registry.
+     */
+    public void purge()
+    {
+        this.nodes.clear();
+    }
+    
+    /**
+     * Returns next node id. An instance could have already been MANUALLY
+     * registered with returned id.
+     * 
+     * @return node id
+     */
+    public int getNextNodeId()
+    {
+        return this.nodeId.getAndIncrement();
+    }
+}
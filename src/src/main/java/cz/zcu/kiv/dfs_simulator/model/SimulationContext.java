@@ -0,0 +1,136 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model;
+
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsObjectRegistry;
+import java.util.function.Supplier;
+
+/**
+ * Context owning registries of a single simulated model. The application
+ * works with the default context, parallel simulation workers can run
+ * in their own contexts (or share one) - static registry facades
+ * ({@link ModelNodeRegistry}, 
+ * {@link cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry})
+ * always use the context bound to the calling thread. Simulators and 
+ * optimizers are given their context explicitly and bind it to every 
+ * thread they run on, including pooled workers.
+ */
+public class SimulationContext
+{
+    /**
+     * Context used by threads that have not entered any other context
+     */
+    private static final SimulationContext DEFAULT_CONTEXT = new SimulationContext();
+    /**
+     * Context bound to each thread
+     */
+    private static final ThreadLocal<SimulationContext> CURRENT_CONTEXT = ThreadLocal.withInitial(() -> DEFAULT_CONTEXT);
+    
+    /**
+     * Registry of model nodes
+     */
+    private final NodeRegistry nodeRegistry = new NodeRegistry();
+    /**
+     * Registry of file system objects
+     */
+    private final FsObjectRegistry objectRegistry = new FsObjectRegistry();
+    
+    /**
+     * Get context bound to the calling thread.
+     * 
+     * @return current context
+     */
+    public static SimulationContext getCurrent()
+    {
+        return CURRENT_CONTEXT.get();
+    }
+    
+    /**
+     * Get default application context.
+     * 
+     * @return default context
+     */
+    public static SimulationContext getDefault()
+    {
+        return DEFAULT_CONTEXT;
+    }
+    
+    /**
+     * Run {@code task} in this context. The previous context of the calling
+     * thread is restored afterwards.
+     * 
+     * @param task task
+     */
+    public void run(Runnable task)
+    {
+        this.call(() ->
+        {
+            task.run();
+            
+            return null;
+        });
+    }
+    
+    /**
+     * Compute result of {@code task} in this context. The previous context
+     * of the calling thread is restored afterwards.
+     * 
+     * @param <T> result type
+     * @param task task
+     * @return task result
+     */
+    public <T> T call(Supplier<T> task)
+    {
+        SimulationContext previous = CURRENT_CONTEXT.get();
+        CURRENT_CONTEXT.set(this);
+        
+        try
+        {
+            return task.get();
+        }
+        finally
+        {
+            CURRENT_CONTEXT.set(previous);
+        }
+    }
+    
+    /**
+     * Clear registries of this context, releasing path identifiers held
+     * by its object registry. Context has to be cleared once it is no longer
+     * used.
+     */
+    public void clear()
+    {
+        this.nodeRegistry.purge();
+        this.objectRegistry.purge();
+    }
+    
+    /**
+     * Get registry of model nodes.
+     * 
+     * @return node registry
+     */
+    public NodeRegistry getNodeRegistry()
+    {
+        return this.nodeRegistry;
+    }
+    
+    /**
+     * Get registry of file system objects.
+     * 
+     * @return object registry
+     */
+    public FsObjectRegistry getObjectRegistry()
+    {
+        return this.objectRegistry;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+/**
+ * Single cached object.
+ */
+public class CacheEntry
+{
+    /**
+     * Path of cached object
+     */
+    protected final String path;
+    /**
+     * Size of cached object
+     */
+    protected final long bytes;
+    /**
+     * Simulation time at which object was inserted
+     */
+    protected final long insertTime;
+    /**
+     * Simulation time of last access
+     */
+    protected long lastAccessTime;
+    /**
+     * Number of cache hits of this entry
+     */
+    protected int hitCount = 0;
+    
+    /**
+     * Cache entry.
+     * 
+     * @param path path of cached object
+     * @param bytes size of cached object
+     * @param insertTime simulation time of insertion
+     */
+    public CacheEntry(String path, long bytes, long insertTime)
+    {
+        this.path = path;
+        this.bytes = bytes;
+        this.insertTime = insertTime;
+        this.lastAccessTime = insertTime;
+    }
+    
+    /**
+     * Record cache hit of this entry.
+     * 
+     * @param sTime simulation time
+     */
+    public void recordHit(long sTime)
+    {
+        this.hitCount++;
+        this.lastAccessTime = sTime;
+    }
+
+    /**
+     * Get path of cached object.
+     * 
+     * @return path
+     */
+    public String getPath()
+    {
+        return this.path;
+    }
+
+    /**
+     * Get size of cached object.
+     * 
+     * @return size in bytes
+     */
+    public long getBytes()
+    {
+        return this.bytes;
+    }
+
+    /**
+     * Get simulation time at which object was inserted.
+     * 
+     * @return insertion time
+     */
+    public long getInsertTime()
+    {
+        return this.insertTime;
+    }
+
+    /**
+     * Get simulation time of last access.
+     * 
+     * @return last access time
+     */
+    public long getLastAccessTime()
+    {
+        return this.lastAccessTime;
+    }
+
+    /**
+     * Get number of cache hits of this entry.
+     * 
+     * @return hit count
+     */
+    public int getHitCount()
+    {
+        return this.hitCount;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * Cache eviction policy - selects entry that will be evicted when cache
+ * runs out of space.
+ */
+public enum CacheEvictionPolicy
+{
+    /**
+     * Least recently used entry is evicted
+     */
+    LRU("LRU", Comparator.comparingLong(CacheEntry::getLastAccessTime)),
+    
+    /**
+     * Least frequently used entry is evicted (least recently used on tie)
+     */
+    LFU("LFU", Comparator.comparingInt(CacheEntry::getHitCount).thenComparingLong(CacheEntry::getLastAccessTime)),
+    
+    /**
+     * Oldest entry is evicted
+     */
+    FIFO("FIFO", Comparator.comparingLong(CacheEntry::getInsertTime));
+    
+    /**
+     * Policy name
+     */
+    private final String name;
+    /**
+     * Entry order - first entry is evicted first
+     */
+    private final Comparator<CacheEntry> evictionOrder;
+    
+    /**
+     * Cache eviction policy.
+     * 
+     * @param name policy name
+     * @param evictionOrder entry order - first entry is evicted first
+     */
+    private CacheEvictionPolicy(String name, Comparator<CacheEntry> evictionOrder)
+    {
+        this.name = name;
+        this.evictionOrder = evictionOrder;
+    }
+    
+    /**
+     * Select entry that should be evicted.
+     * 
+     * @param entries cached entries
+     * @return evicted entry or null if there are no entries
+     */
+    public CacheEntry selectVictim(Collection<? extends CacheEntry> entries)
+    {
+        if(entries.isEmpty())
+        {
+            return null;
+        }
+        
+        return Collections.min(entries, this.evictionOrder);
+    }
+    
+    /**
+     * Get policy name.
+     * 
+     * @return policy name
+     */
+    @Override public String toString()
+    {
+        return this.name;
+    }
+}
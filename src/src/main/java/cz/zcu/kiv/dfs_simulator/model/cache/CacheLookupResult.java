@@ -0,0 +1,56 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+/**
+ * Result of a cache lookup during simulation task.
+ */
+public enum CacheLookupResult
+{
+    /**
+     * Cache was not used
+     */
+    BYPASS("bypass"),
+    /**
+     * Object was served from cache
+     */
+    HIT("hit"),
+    /**
+     * Object was not cached
+     */
+    MISS("miss");
+    
+    /**
+     * Result name
+     */
+    private final String name;
+    
+    /**
+     * Cache lookup result.
+     * 
+     * @param name result name
+     */
+    private CacheLookupResult(String name)
+    {
+        this.name = name;
+    }
+    
+    /**
+     * Get result name.
+     * 
+     * @return result name
+     */
+    @Override public String toString()
+    {
+        return this.name;
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+
+/**
+ * Client-side read cache. Cached objects are served locally at 
+ * local bandwidth. Uploaded objects either invalidate cached entry or
+ * are written through the cache.
+ */
+public class ClientCache extends ObjectCache implements StatePersistable
+{
+    /**
+     * Persistable identificator
+     */
+    public static final String PERSISTABLE_NAME = "client_cache";
+    
+    /**
+     * Default cache capacity
+     */
+    public static final ByteSize DEFAULT_CAPACITY = new ByteSize(1, ByteSizeUnits.GB);
+    /**
+     * Default local bandwidth
+     */
+    public static final ByteSpeed DEFAULT_LOCAL_BANDWIDTH = new ByteSpeed(1000, ByteSpeedUnits.MBPS);
+    
+    /**
+     * Cache enabled flag
+     */
+    private final BooleanProperty enabled = new SimpleBooleanProperty(false);
+    /**
+     * Speed at which cached objects are served
+     */
+    private final ByteSpeed localBandwidth;
+    /**
+     * Write through flag - uploaded objects are cached (otherwise they
+     * only invalidate cached entries)
+     */
+    private final BooleanProperty writeThrough = new SimpleBooleanProperty(false);
+    
+    /**
+     * Client cache with default settings (disabled).
+     */
+    public ClientCache()
+    {
+        super(new ByteSize(DEFAULT_CAPACITY.bytesProperty().get(), ByteSizeUnits.B), CacheEvictionPolicy.LRU, 0);
+        
+        this.localBandwidth = new ByteSpeed(DEFAULT_LOCAL_BANDWIDTH.bpsProperty().get(), ByteSpeedUnits.BPS);
+    }
+    
+    /**
+     * Get writable {@link BooleanProperty} enabled flag.
+     * 
+     * @return enabled flag
+     */
+    public BooleanProperty enabledProperty()
+    {
+        return this.enabled;
+    }
+    
+    /**
+     * Checks if cache is enabled.
+     * 
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled.get();
+    }
+    
+    /**
+     * Get speed at which cached objects are served.
+     * 
+     * @return local bandwidth
+     */
+    public ByteSpeed getLocalBandwidth()
+    {
+        return this.localBandwidth;
+    }
+    
+    /**
+     * Get writable {@link BooleanProperty} write through flag.
+     * 
+     * @return write through flag
+     */
+    public BooleanProperty writeThroughProperty()
+    {
+        return this.writeThrough;
+    }
+    
+    /**
+     * Checks if uploaded objects are written through the cache.
+     * 
+     * @return true if written through, false if uploads only invalidate cache
+     */
+    public boolean isWriteThrough()
+    {
+        return this.writeThrough.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public List<StatePersistable> getPersistableChildren()
+    {
+        return new ArrayList<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public StatePersistableElement export(StatePersistenceLogger logger)
+    {
+        StatePersistableElement element = new StatePersistableElement(this.getPersistableName());
+        
+        element.addAttribute(new StatePersistableAttribute("enabled", "" + this.enabled.get()));
+        element.addAttribute(new StatePersistableAttribute("capacity", "" + this.capacity.bytesProperty().get()));
+        element.addAttribute(new StatePersistableAttribute("policy", this.evictionPolicy.get().name()));
+        element.addAttribute(new StatePersistableAttribute("ttl", "" + this.timeToLive.get()));
+        element.addAttribute(new StatePersistableAttribute("bandwidth", "" + this.localBandwidth.bpsProperty().get()));
+        element.addAttribute(new StatePersistableAttribute("write_through", "" + this.writeThrough.get()));
+        
+        return element;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void restoreState(StatePersistableElement state, StatePersistenceLogger logger, Object... args) throws InvalidPersistedStateException
+    {
+        if(state != null)
+        {
+            StatePersistableAttribute enabledAttr = state.getAttribute("enabled");
+            StatePersistableAttribute capacityAttr = state.getAttribute("capacity");
+            StatePersistableAttribute policyAttr = state.getAttribute("policy");
+            StatePersistableAttribute ttlAttr = state.getAttribute("ttl");
+            StatePersistableAttribute bandwidthAttr = state.getAttribute("bandwidth");
+            StatePersistableAttribute writeThroughAttr = state.getAttribute("write_through");
+            
+            if(enabledAttr == null || capacityAttr == null || policyAttr == null || 
+                    ttlAttr == null || bandwidthAttr == null || writeThroughAttr == null ||
+                    !Helper.isLong(capacityAttr.getValue()) || 
+                    !Helper.isLong(ttlAttr.getValue()) ||
+                    !Helper.isLong(bandwidthAttr.getValue()))
+            {
+                throw new InvalidPersistedStateException("Expected enabled, capacity, policy, ttl, bandwidth and write_through attributes (capacity, ttl and bandwidth of numeric type): " + state);
+            }
+            
+            try
+            {
+                this.evictionPolicy.set(CacheEvictionPolicy.valueOf(policyAttr.getValue()));
+            }
+            catch(IllegalArgumentException ex)
+            {
+                throw new InvalidPersistedStateException("Unknown cache eviction policy " + policyAttr.getValue() + ": " + state);
+            }
+            
+            this.enabled.set(Boolean.parseBoolean(enabledAttr.getValue()));
+            this.capacity.setBytes(Long.parseLong(capacityAttr.getValue()));
+            this.timeToLive.set(Long.parseLong(ttlAttr.getValue()));
+            this.localBandwidth.setBps(Long.parseLong(bandwidthAttr.getValue()));
+            this.writeThrough.set(Boolean.parseBoolean(writeThroughAttr.getValue()));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public String getPersistableName()
+    {
+        return PERSISTABLE_NAME;
+    }
+}
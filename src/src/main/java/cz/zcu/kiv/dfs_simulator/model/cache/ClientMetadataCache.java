@@ -0,0 +1,350 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
+/**
+ * Client-side cache of object locations (path to servers holding replicas).
+ * Downloads of cached objects skip the metadata server query. Cached 
+ * locations are not verified - when they become stale, the request is
+ * first sent to a server that no longer holds the object.
+ */
+public class ClientMetadataCache implements StatePersistable
+{
+    /**
+     * Persistable identificator
+     */
+    public static final String PERSISTABLE_NAME = "metadata_cache";
+    
+    /**
+     * Default maximum number of cached entries
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+    /**
+     * Default entry time to live (ms)
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 30000;
+    
+    /**
+     * Cache enabled flag
+     */
+    private final BooleanProperty enabled = new SimpleBooleanProperty(false);
+    /**
+     * Maximum number of cached entries
+     */
+    private final IntegerProperty capacity = new SimpleIntegerProperty(DEFAULT_CAPACITY);
+    /**
+     * Eviction policy
+     */
+    private final ObjectProperty<CacheEvictionPolicy> evictionPolicy = new SimpleObjectProperty<>(CacheEvictionPolicy.LRU);
+    /**
+     * Entry time to live (ms), non-positive value disables expiration
+     */
+    private final LongProperty timeToLive = new SimpleLongProperty(DEFAULT_TIME_TO_LIVE);
+    
+    /**
+     * Cached entries (path to entry)
+     */
+    private final Map<String, MetadataCacheEntry> entries = new HashMap<>();
+    
+    /**
+     * Number of cache hits
+     */
+    private long hitCount = 0;
+    /**
+     * Number of cache misses
+     */
+    private long missCount = 0;
+    /**
+     * Number of requests sent to a server that no longer held the object
+     */
+    private long misrouteCount = 0;
+    
+    /**
+     * Looks up locations of {@code object}. Expired entries are removed.
+     * Lookup is recorded as a hit or a miss.
+     * @param object looked up object
+     * @param sTime simulation time
+     * @return cached entry or null if locations are not cached
+     */
+    public MetadataCacheEntry lookup(FileSystemObject object, long sTime)
+    {
+        MetadataCacheEntry entry = this.entries.get(object.getFullPath());
+        
+        if(entry != null && this.isExpired(entry, sTime))
+        {
+            this.entries.remove(entry.getPath());
+            entry = null;
+        }
+        
+        if(entry != null)
+        {
+            entry.recordHit(sTime);
+            this.hitCount++;
+            
+            return entry;
+        }
+        
+        this.missCount++;
+        
+        return null;
+    }
+    
+    /**
+     * Insert (or replace) locations of {@code object}. Entries are evicted
+     * while the cache is full.
+     * @param object object
+     * @param locations servers holding the object
+     * @param sTime simulation time
+     */
+    public void insert(FileSystemObject object, Collection<ModelServerNode> locations, long sTime)
+    {
+        String path = object.getFullPath();
+        
+        this.entries.remove(path);
+        
+        while(!this.entries.isEmpty() && this.entries.size() >= this.capacity.get())
+        {
+            CacheEntry victim = this.evictionPolicy.get().selectVictim(this.entries.values());
+            this.entries.remove(victim.getPath());
+        }
+        
+        if(this.capacity.get() > 0)
+        {
+            this.entries.put(path, new MetadataCacheEntry(path, locations, sTime));
+        }
+    }
+    
+    /**
+     * Remove locations of object at {@code path} (if cached).
+     * @param path object path
+     */
+    public void invalidate(String path)
+    {
+        this.entries.remove(path);
+    }
+    
+    /**
+     * Record that a request has been sent to a cached location that
+     * no longer holds the object.
+     */
+    public void recordMisroute()
+    {
+        this.misrouteCount++;
+    }
+    
+    /**
+     * Remove all entries and reset statistics.
+     */
+    public void clear()
+    {
+        this.entries.clear();
+        this.hitCount = 0;
+        this.missCount = 0;
+        this.misrouteCount = 0;
+    }
+    
+    /**
+     * Checks if {@code entry} has expired.
+     * @param entry cache entry
+     * @param sTime simulation time
+     * @return true if expired, false otherwise
+     */
+    private boolean isExpired(CacheEntry entry, long sTime)
+    {
+        return (this.timeToLive.get() > 0 && (sTime - entry.getInsertTime()) > this.timeToLive.get());
+    }
+    
+    /**
+     * Get writable {@link BooleanProperty} enabled flag.
+     * @return enabled flag
+     */
+    public BooleanProperty enabledProperty()
+    {
+        return this.enabled;
+    }
+    
+    /**
+     * Checks if cache is enabled.
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled.get();
+    }
+    
+    /**
+     * Get writable {@link IntegerProperty} maximum number of cached entries.
+     * @return capacity
+     */
+    public IntegerProperty capacityProperty()
+    {
+        return this.capacity;
+    }
+    
+    /**
+     * Get writable {@link ObjectProperty} eviction policy.
+     * @return eviction policy
+     */
+    public ObjectProperty<CacheEvictionPolicy> evictionPolicyProperty()
+    {
+        return this.evictionPolicy;
+    }
+    
+    /**
+     * Get writable {@link LongProperty} entry time to live (ms). Non-positive
+     * value disables expiration.
+     * @return time to live
+     */
+    public LongProperty timeToLiveProperty()
+    {
+        return this.timeToLive;
+    }
+    
+    /**
+     * Get number of cached entries.
+     * @return entry count
+     */
+    public int getEntryCount()
+    {
+        return this.entries.size();
+    }
+    
+    /**
+     * Get number of cache hits.
+     * @return hit count
+     */
+    public long getHitCount()
+    {
+        return this.hitCount;
+    }
+    
+    /**
+     * Get number of cache misses.
+     * @return miss count
+     */
+    public long getMissCount()
+    {
+        return this.missCount;
+    }
+    
+    /**
+     * Get number of requests sent to a server that no longer held the object.
+     * @return misroute count
+     */
+    public long getMisrouteCount()
+    {
+        return this.misrouteCount;
+    }
+    
+    /**
+     * Get ratio of cache hits to all lookups.
+     * @return hit ratio (0 - 1)
+     */
+    public double getHitRatio()
+    {
+        long lookups = this.hitCount + this.missCount;
+        
+        if(lookups == 0)
+        {
+            return 0;
+        }
+        
+        return this.hitCount / (double) lookups;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public List<StatePersistable> getPersistableChildren()
+    {
+        return new ArrayList<>();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public StatePersistableElement export(StatePersistenceLogger logger)
+    {
+        StatePersistableElement element = new StatePersistableElement(this.getPersistableName());
+        
+        element.addAttribute(new StatePersistableAttribute("enabled", "" + this.enabled.get()));
+        element.addAttribute(new StatePersistableAttribute("capacity", "" + this.capacity.get()));
+        element.addAttribute(new StatePersistableAttribute("policy", this.evictionPolicy.get().name()));
+        element.addAttribute(new StatePersistableAttribute("ttl", "" + this.timeToLive.get()));
+        
+        return element;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void restoreState(StatePersistableElement state, StatePersistenceLogger logger, Object... args) throws InvalidPersistedStateException
+    {
+        if(state != null)
+        {
+            StatePersistableAttribute enabledAttr = state.getAttribute("enabled");
+            StatePersistableAttribute capacityAttr = state.getAttribute("capacity");
+            StatePersistableAttribute policyAttr = state.getAttribute("policy");
+            StatePersistableAttribute ttlAttr = state.getAttribute("ttl");
+            
+            if(enabledAttr == null || capacityAttr == null || policyAttr == null || ttlAttr == null ||
+                    !Helper.isInteger(capacityAttr.getValue()) || 
+                    !Helper.isLong(ttlAttr.getValue()))
+            {
+                throw new InvalidPersistedStateException("Expected enabled, capacity, policy and ttl attributes (capacity and ttl numeric): " + state);
+            }
+            
+            try
+            {
+                this.evictionPolicy.set(CacheEvictionPolicy.valueOf(policyAttr.getValue()));
+            }
+            catch(IllegalArgumentException ex)
+            {
+                throw new InvalidPersistedStateException("Unknown cache eviction policy " + policyAttr.getValue() + ": " + state);
+            }
+            
+            this.enabled.set(Boolean.parseBoolean(enabledAttr.getValue()));
+            this.capacity.set(Integer.parseInt(capacityAttr.getValue()));
+            this.timeToLive.set(Long.parseLong(ttlAttr.getValue()));
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public String getPersistableName()
+    {
+        return PERSISTABLE_NAME;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cached replica locations of a single object. Every entry takes one
+ * slot of metadata cache capacity.
+ */
+public class MetadataCacheEntry extends CacheEntry
+{
+    /**
+     * Servers holding the object at the time it was cached
+     */
+    protected final List<ModelServerNode> locations;
+    
+    /**
+     * Metadata cache entry.
+     * @param path path of cached object
+     * @param locations servers holding the object
+     * @param insertTime simulation time of insertion
+     */
+    public MetadataCacheEntry(String path, Collection<ModelServerNode> locations, long insertTime)
+    {
+        super(path, 1, insertTime);
+        
+        this.locations = new ArrayList<>(locations);
+    }
+    
+    /**
+     * Get servers holding the object at the time it was cached. Locations
+     * may be stale.
+     * @return cached locations
+     */
+    public List<ModelServerNode> getLocations()
+    {
+        return Collections.unmodifiableList(this.locations);
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import java.util.HashMap;
+import java.util.Map;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
+/**
+ * Bounded cache of file system objects (identified by their path). When
+ * cache runs out of space, entries are evicted using {@link CacheEvictionPolicy}.
+ * Entries can optionally expire after a given time to live.
+ */
+public class ObjectCache
+{
+    /**
+     * Cache capacity
+     */
+    protected final ByteSize capacity;
+    /**
+     * Eviction policy
+     */
+    protected final ObjectProperty<CacheEvictionPolicy> evictionPolicy;
+    /**
+     * Entry time to live (ms), non-positive value disables expiration
+     */
+    protected final LongProperty timeToLive;
+    
+    /**
+     * Cached entries (path to entry)
+     */
+    protected final Map<String, CacheEntry> entries = new HashMap<>();
+    /**
+     * Size of all cached entries
+     */
+    protected long usedBytes = 0;
+    
+    /**
+     * Number of cache hits
+     */
+    protected long hitCount = 0;
+    /**
+     * Number of cache misses
+     */
+    protected long missCount = 0;
+    /**
+     * Amount of data served from cache
+     */
+    protected long hitBytes = 0;
+    
+    /**
+     * Object cache.
+     * 
+     * @param capacity cache capacity
+     * @param evictionPolicy eviction policy
+     * @param timeToLive entry time to live (ms), non-positive value disables expiration
+     */
+    public ObjectCache(ByteSize capacity, CacheEvictionPolicy evictionPolicy, long timeToLive)
+    {
+        this.capacity = capacity;
+        this.evictionPolicy = new SimpleObjectProperty<>(evictionPolicy);
+        this.timeToLive = new SimpleLongProperty(timeToLive);
+    }
+    
+    /**
+     * Looks up {@code object} in cache. Object is found if it is cached, 
+     * cached entry has not expired and has the same size as {@code object}
+     * (otherwise the entry is stale and it is removed). Lookup is recorded
+     * as a hit or a miss.
+     * 
+     * @param object looked up object
+     * @param sTime simulation time
+     * @return true if object was found, false otherwise
+     */
+    public boolean lookup(FileSystemObject object, long sTime)
+    {
+        String path = object.getFullPath();
+        CacheEntry entry = this.entries.get(path);
+        
+        if(entry != null && (this.isExpired(entry, sTime) || 
+                entry.getBytes() != object.getSize().bytesProperty().get()))
+        {
+            this.removeEntry(entry);
+            entry = null;
+        }
+        
+        if(entry != null)
+        {
+            entry.recordHit(sTime);
+            this.hitCount++;
+            this.hitBytes += entry.getBytes();
+            
+            return true;
+        }
+        
+        this.missCount++;
+        
+        return false;
+    }
+    
+    /**
+     * Checks if {@code object} is cached without recording the lookup.
+     * 
+     * @param object object
+     * @param sTime simulation time
+     * @return true if object is cached, false otherwise
+     */
+    public boolean contains(FileSystemObject object, long sTime)
+    {
+        CacheEntry entry = this.entries.get(object.getFullPath());
+        
+        return (entry != null && !this.isExpired(entry, sTime) && 
+                entry.getBytes() == object.getSize().bytesProperty().get());
+    }
+    
+    /**
+     * Insert (or replace) {@code object} into cache. Entries are evicted
+     * until there is enough space for {@code object}. Objects larger than
+     * cache capacity are not cached.
+     * 
+     * @param object cached object
+     * @param sTime simulation time
+     */
+    public void insert(FileSystemObject object, long sTime)
+    {
+        String path = object.getFullPath();
+        long bytes = object.getSize().bytesProperty().get();
+        
+        this.invalidate(path);
+        
+        if(bytes > this.capacity.bytesProperty().get())
+        {
+            return;
+        }
+        
+        while((this.usedBytes + bytes) > this.capacity.bytesProperty().get())
+        {
+            CacheEntry victim = this.evictionPolicy.get().selectVictim(this.entries.values());
+            
+            if(victim == null)
+            {
+                return;
+            }
+            
+            this.removeEntry(victim);
+        }
+        
+        this.entries.put(path, new CacheEntry(path, bytes, sTime));
+        this.usedBytes += bytes;
+    }
+    
+    /**
+     * Remove object at {@code path} from cache (if cached).
+     * 
+     * @param path object path
+     */
+    public void invalidate(String path)
+    {
+        CacheEntry entry = this.entries.get(path);
+        
+        if(entry != null)
+        {
+            this.removeEntry(entry);
+        }
+    }
+    
+    /**
+     * Remove all entries and reset statistics.
+     */
+    public void clear()
+    {
+        this.entries.clear();
+        this.usedBytes = 0;
+        this.hitCount = 0;
+        this.missCount = 0;
+        this.hitBytes = 0;
+    }
+    
+    /**
+     * Checks if {@code entry} has expired.
+     * 
+     * @param entry cache entry
+     * @param sTime simulation time
+     * @return true if expired, false otherwise
+     */
+    private boolean isExpired(CacheEntry entry, long sTime)
+    {
+        return (this.timeToLive.get() > 0 && (sTime - entry.getInsertTime()) > this.timeToLive.get());
+    }
+    
+    /**
+     * Remove {@code entry} from cache.
+     * 
+     * @param entry cache entry
+     */
+    private void removeEntry(CacheEntry entry)
+    {
+        this.entries.remove(entry.getPath());
+        this.usedBytes -= entry.getBytes();
+    }
+    
+    /**
+     * Get cache capacity.
+     * 
+     * @return capacity
+     */
+    public ByteSize getCapacity()
+    {
+        return this.capacity;
+    }
+    
+    /**
+     * Get writable {@link ObjectProperty} eviction policy.
+     * 
+     * @return eviction policy
+     */
+    public ObjectProperty<CacheEvictionPolicy> evictionPolicyProperty()
+    {
+        return this.evictionPolicy;
+    }
+    
+    /**
+     * Get writable {@link LongProperty} entry time to live (ms). Non-positive
+     * value disables expiration.
+     * 
+     * @return time to live
+     */
+    public LongProperty timeToLiveProperty()
+    {
+        return this.timeToLive;
+    }
+    
+    /**
+     * Get size of all cached entries.
+     * 
+     * @return used size in bytes
+     */
+    public long getUsedBytes()
+    {
+        return this.usedBytes;
+    }
+    
+    /**
+     * Get number of cache hits.
+     * 
+     * @return hit count
+     */
+    public long getHitCount()
+    {
+        return this.hitCount;
+    }
+    
+    /**
+     * Get number of cache misses.
+     * 
+     * @return miss count
+     */
+    public long getMissCount()
+    {
+        return this.missCount;
+    }
+    
+    /**
+     * Get amount of data served from cache.
+     * 
+     * @return bytes served from cache
+     */
+    public long getHitBytes()
+    {
+        return this.hitBytes;
+    }
+    
+    /**
+     * Get ratio of cache hits to all lookups.
+     * 
+     * @return hit ratio (0 - 1)
+     */
+    public double getHitRatio()
+    {
+        long lookups = this.hitCount + this.missCount;
+        
+        if(lookups == 0)
+        {
+            return 0;
+        }
+        
+        return this.hitCount / (double) lookups;
+    }
+}
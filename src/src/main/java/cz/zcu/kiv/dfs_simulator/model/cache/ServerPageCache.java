@@ -0,0 +1,180 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+
+/**
+ * Server memory (page) cache. Sits in front of server storage devices,
+ * cached objects are read from a memory device with its own bandwidth
+ * instead of the storage device they are mounted on.
+ */
+public class ServerPageCache extends ObjectCache implements StatePersistable
+{
+    /**
+     * Persistable identificator
+     */
+    public static final String PERSISTABLE_NAME = "page_cache";
+    
+    /**
+     * Memory device id
+     */
+    public static final String MEMORY_DEVICE_ID = "ram";
+    
+    /**
+     * Default cache capacity
+     */
+    public static final ByteSize DEFAULT_CAPACITY = new ByteSize(4, ByteSizeUnits.GB);
+    /**
+     * Default memory bandwidth
+     */
+    public static final ByteSpeed DEFAULT_BANDWIDTH = new ByteSpeed(10000, ByteSpeedUnits.MBPS);
+    
+    /**
+     * Cache enabled flag
+     */
+    private final BooleanProperty enabled = new SimpleBooleanProperty(false);
+    /**
+     * Memory device (shares capacity with this cache)
+     */
+    private final ServerStorage memoryDevice;
+    
+    /**
+     * Page cache with default settings (disabled).
+     */
+    public ServerPageCache()
+    {
+        super(new ByteSize(DEFAULT_CAPACITY.bytesProperty().get(), ByteSizeUnits.B), CacheEvictionPolicy.LRU, 0);
+        
+        this.memoryDevice = new ServerStorage(MEMORY_DEVICE_ID, this.capacity, 
+                new ByteSpeed(DEFAULT_BANDWIDTH.bpsProperty().get(), ByteSpeedUnits.BPS));
+    }
+    
+    /**
+     * Get writable {@link BooleanProperty} enabled flag.
+     * 
+     * @return enabled flag
+     */
+    public BooleanProperty enabledProperty()
+    {
+        return this.enabled;
+    }
+    
+    /**
+     * Checks if cache is enabled.
+     * 
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled.get();
+    }
+    
+    /**
+     * Get memory device, from which cached objects are read.
+     * 
+     * @return memory device
+     */
+    public ServerStorage getMemoryDevice()
+    {
+        return this.memoryDevice;
+    }
+    
+    /**
+     * Get memory bandwidth.
+     * 
+     * @return memory bandwidth
+     */
+    public ByteSpeed getBandwidth()
+    {
+        return this.memoryDevice.getMaximumSpeed();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public List<StatePersistable> getPersistableChildren()
+    {
+        return new ArrayList<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public StatePersistableElement export(StatePersistenceLogger logger)
+    {
+        StatePersistableElement element = new StatePersistableElement(this.getPersistableName());
+        
+        element.addAttribute(new StatePersistableAttribute("enabled", "" + this.enabled.get()));
+        element.addAttribute(new StatePersistableAttribute("capacity", "" + this.capacity.bytesProperty().get()));
+        element.addAttribute(new StatePersistableAttribute("bandwidth", "" + this.getBandwidth().bpsProperty().get()));
+        element.addAttribute(new StatePersistableAttribute("policy", this.evictionPolicy.get().name()));
+        
+        return element;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void restoreState(StatePersistableElement state, StatePersistenceLogger logger, Object... args) throws InvalidPersistedStateException
+    {
+        if(state != null)
+        {
+            StatePersistableAttribute enabledAttr = state.getAttribute("enabled");
+            StatePersistableAttribute capacityAttr = state.getAttribute("capacity");
+            StatePersistableAttribute bandwidthAttr = state.getAttribute("bandwidth");
+            StatePersistableAttribute policyAttr = state.getAttribute("policy");
+            
+            if(enabledAttr == null || capacityAttr == null || bandwidthAttr == null || policyAttr == null ||
+                    !Helper.isLong(capacityAttr.getValue()) || 
+                    !Helper.isLong(bandwidthAttr.getValue()))
+            {
+                throw new InvalidPersistedStateException("Expected enabled, capacity, bandwidth and policy attributes (capacity and bandwidth of numeric type): " + state);
+            }
+            
+            try
+            {
+                this.evictionPolicy.set(CacheEvictionPolicy.valueOf(policyAttr.getValue()));
+            }
+            catch(IllegalArgumentException ex)
+            {
+                throw new InvalidPersistedStateException("Unknown cache eviction policy " + policyAttr.getValue() + ": " + state);
+            }
+            
+            this.enabled.set(Boolean.parseBoolean(enabledAttr.getValue()));
+            this.capacity.setBytes(Long.parseLong(capacityAttr.getValue()));
+            this.getBandwidth().setBps(Long.parseLong(bandwidthAttr.getValue()));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public String getPersistableName()
+    {
+        return PERSISTABLE_NAME;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.metadata;
+
+/**
+ * Operation processed by a {@link MetadataService}.
+ */
+public enum MetadataOperation
+{
+    /**
+     * Lookup of object locations
+     */
+    LOOKUP(false),
+    /**
+     * Creation of a new object
+     */
+    CREATE(true),
+    /**
+     * Change of object size (overwrite of an existing object)
+     */
+    RESIZE(true),
+    /**
+     * Registration of a new or removed replica
+     */
+    REPLICA_UPDATE(true);
+    
+    /**
+     * Operation modifies the namespace
+     */
+    private final boolean update;
+    
+    /**
+     * Metadata operation.
+     * 
+     * @param update operation modifies the namespace
+     */
+    private MetadataOperation(boolean update)
+    {
+        this.update = update;
+    }
+    
+    /**
+     * Checks if operation modifies the namespace.
+     * 
+     * @return true if operation is an update
+     */
+    public boolean isUpdate()
+    {
+        return this.update;
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.metadata;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleLongProperty;
+
+/**
+ * Metadata service role of a server. Server with enabled metadata service
+ * processes all object registry lookups and updates. Operations are 
+ * served one at a time in FIFO order, each taking a fixed service time,
+ * so bursts of metadata operations (e.g. many small files) are delayed
+ * by queueing.
+ */
+public class MetadataService implements StatePersistable
+{
+    /**
+     * Persistable identificator
+     */
+    public static final String PERSISTABLE_NAME = "metadata_service";
+    
+    /**
+     * Default service time of lookups (ms)
+     */
+    public static final long DEFAULT_LOOKUP_TIME = 1;
+    /**
+     * Default service time of updates (ms)
+     */
+    public static final long DEFAULT_UPDATE_TIME = 2;
+    
+    /**
+     * Metadata service enabled flag
+     */
+    private final BooleanProperty enabled = new SimpleBooleanProperty(false);
+    /**
+     * Service time of a single lookup (ms)
+     */
+    private final LongProperty lookupTime = new SimpleLongProperty(DEFAULT_LOOKUP_TIME);
+    /**
+     * Service time of a single update (ms)
+     */
+    private final LongProperty updateTime = new SimpleLongProperty(DEFAULT_UPDATE_TIME);
+    
+    /**
+     * Completion times of queued and currently served operations
+     */
+    private final ArrayDeque<Long> queue = new ArrayDeque<>();
+    /**
+     * Time at which the last queued operation will be completed
+     */
+    private long busyUntil = 0;
+    /**
+     * Number of processed operations
+     */
+    private int processedOperations = 0;
+    /**
+     * Total time operations have spent waiting in queue
+     */
+    private long totalQueueTime = 0;
+    /**
+     * Maximum observed queue length
+     */
+    private int maxQueueLength = 0;
+    
+    /**
+     * Find server acting as metadata server among {@code servers}. If more
+     * servers have metadata service enabled, the one with lowest ID is used.
+     * 
+     * @param servers servers
+     * @return metadata server or null if no server has metadata service enabled
+     */
+    public static ModelServerNode findMetadataServer(Collection<ModelServerNode> servers)
+    {
+        return servers.stream()
+                .filter(s -> !s.isFailed() && s.getMetadataService().isEnabled())
+                .min(Comparator.comparing(ModelServerNode::getNodeID))
+                .orElse(null);
+    }
+    
+    /**
+     * Get writable {@link BooleanProperty} enabled flag.
+     * 
+     * @return enabled flag
+     */
+    public BooleanProperty enabledProperty()
+    {
+        return this.enabled;
+    }
+    
+    /**
+     * Checks if metadata service is enabled.
+     * 
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled.get();
+    }
+    
+    /**
+     * Get writable {@link LongProperty} lookup service time (ms).
+     * 
+     * @return lookup service time
+     */
+    public LongProperty lookupTimeProperty()
+    {
+        return this.lookupTime;
+    }
+    
+    /**
+     * Get writable {@link LongProperty} update service time (ms).
+     * 
+     * @return update service time
+     */
+    public LongProperty updateTimeProperty()
+    {
+        return this.updateTime;
+    }
+    
+    /**
+     * Get service time of {@code operation}.
+     * 
+     * @param operation operation
+     * @return service time (ms)
+     */
+    public long getServiceTime(MetadataOperation operation)
+    {
+        return operation.isUpdate() ? this.updateTime.get() : this.lookupTime.get();
+    }
+    
+    /**
+     * Submit {@code operation} arriving at {@code sTime}. Operation is 
+     * served after all previously submitted operations.
+     * 
+     * @param operation operation
+     * @param sTime arrival time
+     * @return completion time
+     */
+    public long submit(MetadataOperation operation, long sTime)
+    {
+        this.pruneQueue(sTime);
+        
+        long start = Math.max(sTime, this.busyUntil);
+        
+        this.busyUntil = start + this.getServiceTime(operation);
+        this.queue.add(this.busyUntil);
+        
+        this.processedOperations++;
+        this.totalQueueTime += (start - sTime);
+        this.maxQueueLength = Math.max(this.maxQueueLength, this.queue.size());
+        
+        return this.busyUntil;
+    }
+    
+    /**
+     * Get number of operations waiting or being served at {@code sTime}.
+     * 
+     * @param sTime simulation time
+     * @return queue length
+     */
+    public int getQueueLength(long sTime)
+    {
+        this.pruneQueue(sTime);
+        
+        return this.queue.size();
+    }
+    
+    /**
+     * Remove operations completed before {@code sTime} from queue.
+     * 
+     * @param sTime simulation time
+     */
+    private void pruneQueue(long sTime)
+    {
+        while(!this.queue.isEmpty() && this.queue.peek() <= sTime)
+        {
+            this.queue.poll();
+        }
+    }
+    
+    /**
+     * Get number of processed operations.
+     * 
+     * @return processed operations
+     */
+    public int getProcessedOperations()
+    {
+        return this.processedOperations;
+    }
+    
+    /**
+     * Get total time operations have spent waiting in queue.
+     * 
+     * @return total queue time (ms)
+     */
+    public long getTotalQueueTime()
+    {
+        return this.totalQueueTime;
+    }
+    
+    /**
+     * Get maximum observed queue length.
+     * 
+     * @return maximum queue length
+     */
+    public int getMaxQueueLength()
+    {
+        return this.maxQueueLength;
+    }
+    
+    /**
+     * Clear queue and statistics (at the beginning of simulation).
+     */
+    public void reset()
+    {
+        this.queue.clear();
+        this.busyUntil = 0;
+        this.processedOperations = 0;
+        this.totalQueueTime = 0;
+        this.maxQueueLength = 0;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public List<StatePersistable> getPersistableChildren()
+    {
+        return new ArrayList<>();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public StatePersistableElement export(StatePersistenceLogger logger)
+    {
+        StatePersistableElement element = new StatePersistableElement(this.getPersistableName());
+        
+        element.addAttribute(new StatePersistableAttribute("enabled", "" + this.enabled.get()));
+        element.addAttribute(new StatePersistableAttribute("lookup_time", "" + this.lookupTime.get()));
+        element.addAttribute(new StatePersistableAttribute("update_time", "" + this.updateTime.get()));
+        
+        return element;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void restoreState(StatePersistableElement state, StatePersistenceLogger logger, Object... args) throws InvalidPersistedStateException
+    {
+        if(state != null)
+        {
+            StatePersistableAttribute enabledAttr = state.getAttribute("enabled");
+            StatePersistableAttribute lookupAttr = state.getAttribute("lookup_time");
+            StatePersistableAttribute updateAttr = state.getAttribute("update_time");
+            
+            if(enabledAttr == null || lookupAttr == null || updateAttr == null ||
+                    !Helper.isLong(lookupAttr.getValue()) || 
+                    !Helper.isLong(updateAttr.getValue()) ||
+                    Long.parseLong(lookupAttr.getValue()) < 0 ||
+                    Long.parseLong(updateAttr.getValue()) < 0)
+            {
+                throw new InvalidPersistedStateException("Expected enabled, lookup_time and update_time attributes (service times of non-negative numeric type): " + state);
+            }
+            
+            this.enabled.set(Boolean.parseBoolean(enabledAttr.getValue()));
+            this.lookupTime.set(Long.parseLong(lookupAttr.getValue()));
+            this.updateTime.set(Long.parseLong(updateAttr.getValue()));
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public String getPersistableName()
+    {
+        return PERSISTABLE_NAME;
+    }
+}
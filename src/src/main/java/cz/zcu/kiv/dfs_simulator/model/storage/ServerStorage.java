@@ -22,8 +22,15 @@ import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
 import cz.zcu.kiv.dfs_simulator.model.SizeableObject;
+import cz.zcu.kiv.dfs_simulator.model.storage.scheduler.StorageIoScheduler;
+import cz.zcu.kiv.dfs_simulator.model.storage.scheduler.StorageIoSchedulerType;
+import cz.zcu.kiv.dfs_simulator.model.storage.scheduler.TokenBucketIoScheduler;
 import java.util.ArrayList;
 import java.util.List;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 
@@ -50,6 +57,15 @@ public class ServerStorage implements SizeableObject, StatePersistable
      * Maximum storage speed
      */
     public static final ByteSpeed MAX_SPEED = new ByteSpeed(100000, ByteSpeedUnits.MBPS);
+    
+    /**
+     * Default high watermark (fill level at which files begin to be demoted)
+     */
+    public static final double DEFAULT_HIGH_WATERMARK = 0.9;
+    /**
+     * Default low watermark (fill level at which demotion stops)
+     */
+    public static final double DEFAULT_LOW_WATERMARK = 0.75;
 
     /**
      * Storage identifier counter
@@ -69,6 +85,32 @@ public class ServerStorage implements SizeableObject, StatePersistable
      */
     private final ByteSpeed speed;
     
+    /**
+     * Storage high watermark (fill level ratio)
+     */
+    private final DoubleProperty highWatermark = new SimpleDoubleProperty(DEFAULT_HIGH_WATERMARK);
+    /**
+     * Storage low watermark (fill level ratio)
+     */
+    private final DoubleProperty lowWatermark = new SimpleDoubleProperty(DEFAULT_LOW_WATERMARK);
+    
+    /**
+     * I/O scheduling policy
+     */
+    private final ObjectProperty<StorageIoSchedulerType> ioSchedulerType = new SimpleObjectProperty<>(StorageIoSchedulerType.FAIR_SHARE);
+    /**
+     * Token bucket rate limiting background operations (zero means unlimited)
+     */
+    private final ByteSpeed backgroundLimit = new ByteSpeed(0);
+    /**
+     * Token bucket size of background operations limit
+     */
+    private final ByteSize backgroundBurst = new ByteSize(0);
+    /**
+     * I/O scheduler (created on demand)
+     */
+    private StorageIoScheduler ioScheduler;
+    
     /**
      * Storage operations (I/O) manager
      */
@@ -83,11 +125,29 @@ public class ServerStorage implements SizeableObject, StatePersistable
      */
     public ServerStorage(ByteSize capacity, ByteSpeed speed)
     {
-        this.id = new SimpleStringProperty(ID_PREFIX + storageIdCounter++);
+        this(ID_PREFIX + storageIdCounter++, capacity, speed);
+    }
+    
+    /**
+     * Constructs server storage with explicit id {@code id}, capacity 
+     * {@code capacity} and speed {@code speed}. Storage id counter
+     * is not affected.
+     * 
+     * @param id storage id
+     * @param capacity storage capacity
+     * @param speed storage speed
+     */
+    public ServerStorage(String id, ByteSize capacity, ByteSpeed speed)
+    {
+        this.id = new SimpleStringProperty(id);
         this.size = capacity;
         this.speed = speed;
         
         this.operationManager = new StorageOperationManager(this);
+        
+        this.ioSchedulerType.addListener((observable, oldValue, newValue) -> {
+            this.ioScheduler = null;
+        });
     }
     
     /**
@@ -118,6 +178,76 @@ public class ServerStorage implements SizeableObject, StatePersistable
         return this.operationManager;
     }
     
+    /**
+     * Get writable {@link ObjectProperty} I/O scheduling policy.
+     * 
+     * @return I/O scheduling policy
+     */
+    public ObjectProperty<StorageIoSchedulerType> ioSchedulerTypeProperty()
+    {
+        return this.ioSchedulerType;
+    }
+    
+    /**
+     * Get token bucket rate limiting total throughput of background 
+     * (replication, migration) operations. Zero means unlimited.
+     * 
+     * @return background operations limit
+     */
+    public ByteSpeed getBackgroundLimit()
+    {
+        return this.backgroundLimit;
+    }
+    
+    /**
+     * Get token bucket size of background operations limit.
+     * 
+     * @return background operations burst size
+     */
+    public ByteSize getBackgroundBurst()
+    {
+        return this.backgroundBurst;
+    }
+    
+    /**
+     * Get I/O scheduler splitting bandwidth of this storage between
+     * running operations.
+     * 
+     * @return I/O scheduler
+     */
+    public StorageIoScheduler getIoScheduler()
+    {
+        if(this.ioScheduler == null)
+        {
+            this.ioScheduler = new TokenBucketIoScheduler(this.ioSchedulerType.get().createScheduler(), 
+                    this.backgroundLimit, this.backgroundBurst);
+        }
+        
+        return this.ioScheduler;
+    }
+    
+    /**
+     * Get writable {@link DoubleProperty} high watermark - fill level ratio 
+     * (0 - 1) above which files should be demoted onto a slower storage.
+     * 
+     * @return high watermark
+     */
+    public DoubleProperty highWatermarkProperty()
+    {
+        return this.highWatermark;
+    }
+    
+    /**
+     * Get writable {@link DoubleProperty} low watermark - fill level ratio 
+     * (0 - 1) at which demotion of files stops.
+     * 
+     * @return low watermark
+     */
+    public DoubleProperty lowWatermarkProperty()
+    {
+        return this.lowWatermark;
+    }
+    
     /**
      * Return writable {@link StringProperty} id.
      * 
@@ -158,6 +288,11 @@ public class ServerStorage implements SizeableObject, StatePersistable
         element.addAttribute(new StatePersistableAttribute("id", this.id.get()));
         element.addAttribute(new StatePersistableAttribute("size", "" + this.size.bytesProperty().get()));
         element.addAttribute(new StatePersistableAttribute("speed", "" + this.speed.bpsProperty().get()));
+        element.addAttribute(new StatePersistableAttribute("high_watermark", "" + this.highWatermark.get()));
+        element.addAttribute(new StatePersistableAttribute("low_watermark", "" + this.lowWatermark.get()));
+        element.addAttribute(new StatePersistableAttribute("io_scheduler", this.ioSchedulerType.get().name()));
+        element.addAttribute(new StatePersistableAttribute("background_limit", "" + this.backgroundLimit.bpsProperty().get()));
+        element.addAttribute(new StatePersistableAttribute("background_burst", "" + this.backgroundBurst.bytesProperty().get()));
         
         return element;
     }
@@ -183,6 +318,57 @@ public class ServerStorage implements SizeableObject, StatePersistable
             this.id.set(idAttr.getValue());
             this.size.setBytes(Long.parseLong(sizeAttr.getValue()));
             this.speed.setBps(Long.parseLong(speedAttr.getValue()));
+            
+            // watermarks are optional
+            StatePersistableAttribute highAttr = state.getAttribute("high_watermark");
+            StatePersistableAttribute lowAttr = state.getAttribute("low_watermark");
+            
+            if(highAttr != null && lowAttr != null)
+            {
+                if(!Helper.isDouble(highAttr.getValue()) || !Helper.isDouble(lowAttr.getValue()))
+                {
+                    throw new InvalidPersistedStateException("Expected numeric high_watermark and low_watermark attributes: " + state);
+                }
+                
+                double high = Double.parseDouble(highAttr.getValue());
+                double low = Double.parseDouble(lowAttr.getValue());
+                
+                if(low < 0 || high > 1 || low > high)
+                {
+                    throw new InvalidPersistedStateException("Expected watermarks in range 0 <= low_watermark <= high_watermark <= 1: " + state);
+                }
+                
+                this.highWatermark.set(high);
+                this.lowWatermark.set(low);
+            }
+            
+            // I/O scheduling is optional
+            StatePersistableAttribute schedulerAttr = state.getAttribute("io_scheduler");
+            StatePersistableAttribute limitAttr = state.getAttribute("background_limit");
+            StatePersistableAttribute burstAttr = state.getAttribute("background_burst");
+            
+            if(schedulerAttr != null)
+            {
+                try
+                {
+                    this.ioSchedulerType.set(StorageIoSchedulerType.valueOf(schedulerAttr.getValue()));
+                }
+                catch(IllegalArgumentException ex)
+                {
+                    throw new InvalidPersistedStateException("Unknown I/O scheduler " + schedulerAttr.getValue() + ": " + state);
+                }
+            }
+            
+            if(limitAttr != null && burstAttr != null)
+            {
+                if(!Helper.isLong(limitAttr.getValue()) || !Helper.isLong(burstAttr.getValue()))
+                {
+                    throw new InvalidPersistedStateException("Expected numeric background_limit and background_burst attributes: " + state);
+                }
+                
+                this.backgroundLimit.setBps(Long.parseLong(limitAttr.getValue()));
+                this.backgroundBurst.setBytes(Long.parseLong(burstAttr.getValue()));
+            }
         }
     }
 
@@ -11,6 +11,7 @@
 
 package cz.zcu.kiv.dfs_simulator.model.storage;
 
+import cz.zcu.kiv.dfs_simulator.model.cache.ServerPageCache;
 import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
@@ -40,6 +41,10 @@ public class ServerStorageManager implements StatePersistable
      * List of storage devices
      */
     protected final List<ServerStorage> storage = new ArrayList<>();
+    /**
+     * Memory (page) cache in front of storage devices
+     */
+    protected final ServerPageCache pageCache = new ServerPageCache();
     
     /**
      * Construct storage manager for {@link ModelNode} {@code node}.
@@ -63,6 +68,8 @@ public class ServerStorageManager implements StatePersistable
         {
             s.getOperationManager().updateAvailableThroughput(sTime);
         }
+        
+        this.pageCache.getMemoryDevice().getOperationManager().updateAvailableThroughput(sTime);
     }
     
     /**
@@ -78,6 +85,8 @@ public class ServerStorageManager implements StatePersistable
         {
             s.getOperationManager().updateTransferedSize(timeInterval, sTime);
         }
+        
+        this.pageCache.getMemoryDevice().getOperationManager().updateTransferedSize(timeInterval, sTime);
     }
     
     /**
@@ -91,6 +100,8 @@ public class ServerStorageManager implements StatePersistable
         {
             s.getOperationManager().finish(sTime);
         }
+        
+        this.pageCache.getMemoryDevice().getOperationManager().finish(sTime);
     }
     
     /**
@@ -103,6 +114,16 @@ public class ServerStorageManager implements StatePersistable
         return this.storage;
     }
     
+    /**
+     * Return memory (page) cache of this server.
+     * 
+     * @return page cache
+     */
+    public ServerPageCache getPageCache()
+    {
+        return this.pageCache;
+    }
+    
     /**
      * Get storage by it's id
      * 
@@ -129,6 +150,7 @@ public class ServerStorageManager implements StatePersistable
     {
         List<StatePersistable> l = new ArrayList<>();
         l.addAll(this.storage);
+        l.add(this.pageCache);
         
         return l;
     }
@@ -157,6 +179,10 @@ public class ServerStorageManager implements StatePersistable
                     
                     this.storage.add(stor);
                 }
+                else if(childElem.getName().equals(ServerPageCache.PERSISTABLE_NAME))
+                {
+                    this.pageCache.restoreState(childElem, logger);
+                }
             }
         }
     }
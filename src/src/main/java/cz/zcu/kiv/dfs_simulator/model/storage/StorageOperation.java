@@ -58,6 +58,10 @@ public class StorageOperation
      * Maximum available throughput for this operation at this moment
      */
     private final ByteSpeed availableThroughput = new ByteSpeed(0);
+    /**
+     * Flag whether available throughput has already been set
+     */
+    private boolean throughputAssigned = false;
     
     /**
      * Operations that will begin processing after this one
@@ -160,6 +164,16 @@ public class StorageOperation
         this.followingOperations.add(followingOperation);
     }
 
+    /**
+     * Get storage on which this operation belongs.
+     * 
+     * @return storage
+     */
+    public ServerStorage getStorage()
+    {
+        return this.storage;
+    }
+
     /**
      * Get operation type.
      * 
@@ -237,6 +251,23 @@ public class StorageOperation
     public void setAvailableThroughput(ByteSpeed throughput)
     {
         this.availableThroughput.setBps(throughput.bpsProperty().get());
+        this.throughputAssigned = true;
+    }
+    
+    /**
+     * Check whether available throughput of this operation (and of the linked
+     * operation) has already been set.
+     * 
+     * @return true if available throughput is known, false otherwise
+     */
+    public boolean isThroughputAssigned()
+    {
+        if(this.linkedOperation != null)
+        {
+            return this.throughputAssigned && this.linkedOperation.throughputAssigned;
+        }
+        
+        return this.throughputAssigned;
     }
     
     /**
@@ -20,7 +20,6 @@ import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
 import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
@@ -117,6 +116,48 @@ public class StorageOperationManager
         return new Pair<>(writeOp, readOp);
     }    
     
+    /**
+     * Adds new replication operation when moving files from {@code source}
+     * to this manager's storage. Transfer speed of the operation is additionally
+     * capped by {@code rateLimit}, so that background replication does not
+     * consume whole link and storage bandwidth.
+     * 
+     * @param transferList transfered files
+     * @param source source storage
+     * @param path path used for data transfer
+     * @param rateLimit maximum replication speed or null if not limited
+     * @param callback operation callback (called only once from write operation)
+     * @param pending if operation should be created in pending status
+     * @return pair of created operations where first is write operation 
+     * to this storage and second is read operation from source storage
+     */
+    public Pair<StorageOperation, StorageOperation> addReplicationOperation(List<FsFile> transferList, ServerStorage source, DfsPath path, ByteSpeed rateLimit, StorageOperationCallback callback, boolean pending)
+    {
+        StorageOperationTransferLimiter limiter = new StorageOperationTransferLimiter()
+        {
+            @Override public ByteSpeed getTransferLimit(long sTime)
+            {
+                ByteSpeed linkBw = path.getCurrentLinkBandwidth(sTime);
+                
+                if(rateLimit != null && rateLimit.bpsProperty().get() < linkBw.bpsProperty().get())
+                {
+                    return rateLimit;
+                }
+                
+                return linkBw;
+            }
+        };
+        
+        StorageOperation writeOp = this.addWriteOperation(transferList, limiter, callback, true, pending);
+        StorageOperation readOp = source.getOperationManager().addReadOperation(transferList, limiter, pending);
+        
+        // link operations together
+        readOp.setLinkedOperation(writeOp);
+        writeOp.setLinkedOperation(readOp);
+        
+        return new Pair<>(writeOp, readOp);
+    }
+    
     /**
      * Adds new replication operation when moving files from {@code source}
      * to this manager's storage. New write operation is created on this storage
@@ -131,8 +172,34 @@ public class StorageOperationManager
      * to this storage and second is read operation from source storage
      */
     public Pair<StorageOperation, StorageOperation> addMigrationOperation(List<FsFile> transferList, ServerStorage source, StorageOperationCallback callback, boolean autoReserveSpace, boolean pending)
+    {
+        return this.addMigrationOperation(transferList, source, null, callback, autoReserveSpace, pending);
+    }
+    
+    /**
+     * Adds new migration operation when moving files from {@code source}
+     * to this manager's storage. Transfer speed of the operation is additionally
+     * capped by {@code rateLimit}, so that background migrations do not consume
+     * whole storage bandwidth.
+     * 
+     * @param transferList transfered files
+     * @param source source storage
+     * @param rateLimit maximum migration speed or null if not limited
+     * @param callback operation callback (called only once from write operation)
+     * @param autoReserveSpace if space should be reserved on this storage
+     * @param pending if operation should be created in pending status
+     * @return pair of created operations where first is write operation 
+     * to this storage and second is read operation from source storage
+     */
+    public Pair<StorageOperation, StorageOperation> addMigrationOperation(List<FsFile> transferList, ServerStorage source, ByteSpeed rateLimit, StorageOperationCallback callback, boolean autoReserveSpace, boolean pending)
     {
         long maxBps = Math.min(this.storage.getMaximumSpeed().bpsProperty().get(), source.getMaximumSpeed().bpsProperty().get());
+        
+        if(rateLimit != null)
+        {
+            maxBps = Math.min(maxBps, rateLimit.bpsProperty().get());
+        }
+        
         ByteSpeed maxSpeed = new ByteSpeed(maxBps, ByteSpeedUnits.BPS);
         
         StorageOperation writeOp = this.addWriteOperation(transferList, new StorageOperationTransferLimiter()
@@ -300,7 +367,28 @@ public class StorageOperationManager
      */
     public StorageOperation addWriteOperation(List<FsFile> transferList, StorageOperationTransferLimiter limiter, boolean autoReserveSpace, boolean pending)
     {
-        return this.addWriteOperation(transferList, limiter, null, true, pending);
+        return this.addWriteOperation(transferList, limiter, null, autoReserveSpace, pending);
+    }
+    
+    /**
+     * Checks if there is any client (unmanaged) operation running or waiting
+     * to be run on this storage. Storage without client operations is idle
+     * from the client's point of view.
+     * 
+     * @return true if there is a client operation, false otherwise
+     */
+    public boolean hasClientOperations()
+    {
+        synchronized(this.updateMonitor)
+        {
+            if(this.addedOperations.stream().anyMatch(op -> !op.getType().isManaged()))
+            {
+                return true;
+            }
+        }
+        
+        return this.runningOperations.stream().anyMatch(op -> !op.getType().isManaged()) ||
+                this.preparedOperations.stream().anyMatch(op -> !op.getType().isManaged());
     }
     
     /**
@@ -400,63 +488,7 @@ public class StorageOperationManager
         
         if(!this.runningOperations.isEmpty())
         {
-            // get maximum speed per operation
-            long maxBpsPerOp = (this.storage.getMaximumSpeed().bpsProperty().get() / this.runningOperations.size());
-            ByteSpeed maxSpeedPerOp = new ByteSpeed(maxBpsPerOp, ByteSpeedUnits.BPS);
-
-            long leftoverThroughput = 0;
-            ArrayList<Pair<StorageOperation, Long>> leftoverCandidates = new ArrayList<>();
-
-            // first analyze operation maximum transfer throughput
-            for(StorageOperation p : this.runningOperations)
-            {
-                long lo = maxBpsPerOp - p.getMaxTransferThroughput(sTime).bpsProperty().get();
-
-                // unused disk throughput
-                if(lo >= 0)
-                {
-                    leftoverThroughput += lo;
-
-                    // set operation throughput
-                    p.setAvailableThroughput(p.getMaxTransferThroughput(sTime));
-                }
-                // unused operation throughput (could transfer faster)
-                else if(lo < 0)
-                {
-                    leftoverCandidates.add(new Pair(p, lo * (-1)));
-
-
-                    p.setAvailableThroughput(maxSpeedPerOp);
-                }
-            }
-
-            // check if we have any leftover throughput to distribute
-            if(leftoverThroughput != 0 && leftoverThroughput > leftoverCandidates.size())
-            {
-                // order candidates by lowest
-                Collections.sort(leftoverCandidates, (a, b) -> Long.compare(a.second, b.second));
-
-                for(int i = 0; i < leftoverCandidates.size() && leftoverThroughput > 0; i++)
-                {
-                    long leftoverPerOp = (leftoverThroughput / ( (leftoverCandidates.size() - i)));
-                    Pair<StorageOperation, Long> cP = leftoverCandidates.get(i);
-
-                    // requested throuhgput is less than per OP
-                    if(cP.second <= leftoverPerOp)
-                    {
-                        // increase candidates throughput by maximum possible value
-                        cP.first.setAvailableThroughput(
-                                new ByteSpeed(cP.first.getAvailableThroughput().bpsProperty().get() + cP.second, ByteSpeedUnits.BPS));
-                        leftoverThroughput -= cP.second;
-                    }
-                    else
-                    {
-                        cP.first.setAvailableThroughput(
-                                new ByteSpeed(cP.first.getAvailableThroughput().bpsProperty().get() + leftoverPerOp));
-                        leftoverThroughput -= leftoverPerOp;
-                    }
-                }
-            }
+            this.storage.getIoScheduler().allocateThroughput(this.runningOperations, this.storage.getMaximumSpeed(), sTime);
         }
     }
     
@@ -487,6 +519,9 @@ public class StorageOperationManager
                 ByteSize transfered = new ByteSize(throughput.bpsProperty().get() * secs, ByteSizeUnits.B);
                 long bytesLeftToTransfer = (opProg.getTotalSize().bytesProperty().get() - opProg.getTransferedSize().bytesProperty().get());
                 
+                this.storage.getIoScheduler().onDataTransfered(opProg, 
+                        Math.min(bytesLeftToTransfer, transfered.bytesProperty().get()), sTime);
+                
                 // if operation isnt finished yet
                 if(bytesLeftToTransfer > transfered.bytesProperty().get())
                 {
@@ -0,0 +1,201 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.model.storage.block;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+
+/**
+ * Reed-Solomon erasure coding policy - file is split into {@code k} data 
+ * fragments and {@code m} parity fragments are computed. Any {@code k}
+ * of the {@code k + m} fragments are sufficient to read the file, 
+ * reading from a parity fragment requires reconstruction of missing data.
+ */
+public class ErasureCodingPolicy
+{
+    /**
+     * Default speed of reconstructing data from parity fragments
+     */
+    public static final ByteSpeed DEFAULT_RECONSTRUCTION_SPEED = new ByteSpeed(200, ByteSpeedUnits.MBPS);
+    /**
+     * Separator of values in persisted policy
+     */
+    private static final String PERSISTED_VALUE_SEPARATOR = ",";
+    
+    /**
+     * Number of data fragments
+     */
+    private final int dataFragments;
+    /**
+     * Number of parity fragments
+     */
+    private final int parityFragments;
+    /**
+     * Speed of reconstructing data during degraded read
+     */
+    private final ByteSpeed reconstructionSpeed;
+    
+    /**
+     * Erasure coding policy with default reconstruction speed.
+     * 
+     * @param dataFragments number of data fragments (k)
+     * @param parityFragments number of parity fragments (m)
+     */
+    public ErasureCodingPolicy(int dataFragments, int parityFragments)
+    {
+        this(dataFragments, parityFragments, DEFAULT_RECONSTRUCTION_SPEED);
+    }
+    
+    /**
+     * Erasure coding policy.
+     * 
+     * @param dataFragments number of data fragments (k)
+     * @param parityFragments number of parity fragments (m)
+     * @param reconstructionSpeed speed of reconstructing data during degraded read
+     */
+    public ErasureCodingPolicy(int dataFragments, int parityFragments, ByteSpeed reconstructionSpeed)
+    {
+        if(dataFragments < 1 || parityFragments < 0)
+        {
+            throw new IllegalArgumentException("Invalid erasure coding policy " + dataFragments + "+" + parityFragments + ".");
+        }
+        
+        this.dataFragments = dataFragments;
+        this.parityFragments = parityFragments;
+        this.reconstructionSpeed = reconstructionSpeed;
+    }
+    
+    /**
+     * Get number of data fragments (k).
+     * 
+     * @return number of data fragments
+     */
+    public int getDataFragments()
+    {
+        return this.dataFragments;
+    }
+    
+    /**
+     * Get number of parity fragments (m).
+     * 
+     * @return number of parity fragments
+     */
+    public int getParityFragments()
+    {
+        return this.parityFragments;
+    }
+    
+    /**
+     * Get total number of fragments (k + m).
+     * 
+     * @return total number of fragments
+     */
+    public int getTotalFragments()
+    {
+        return this.dataFragments + this.parityFragments;
+    }
+    
+    /**
+     * Get speed of reconstructing data during degraded read.
+     * 
+     * @return reconstruction speed
+     */
+    public ByteSpeed getReconstructionSpeed()
+    {
+        return this.reconstructionSpeed;
+    }
+    
+    /**
+     * Get size of a single fragment of file of size {@code fileBytes}.
+     * 
+     * @param fileBytes file size in bytes
+     * @return fragment size in bytes
+     */
+    public long getFragmentSize(long fileBytes)
+    {
+        return (fileBytes + this.dataFragments - 1) / this.dataFragments;
+    }
+    
+    /**
+     * Get ratio of stored data to file size ((k + m) / k).
+     * 
+     * @return storage overhead
+     */
+    public double getStorageOverhead()
+    {
+        return this.getTotalFragments() / (double) this.dataFragments;
+    }
+    
+    /**
+     * Get time needed to reconstruct {@code bytes} of data from parity fragments.
+     * 
+     * @param bytes reconstructed data in bytes
+     * @return reconstruction time (ms)
+     */
+    public long getReconstructionTime(long bytes)
+    {
+        long bps = this.reconstructionSpeed.bpsProperty().get();
+        
+        return (bps > 0) ? (long) ((bytes / (double) bps) * 1000) : 0;
+    }
+    
+    /**
+     * Get persistable representation of policy (data fragments, parity
+     * fragments and reconstruction speed in Bps).
+     * 
+     * @return persistable value
+     */
+    public String toPersistableValue()
+    {
+        return this.dataFragments + PERSISTED_VALUE_SEPARATOR + this.parityFragments + 
+                PERSISTED_VALUE_SEPARATOR + this.reconstructionSpeed.bpsProperty().get();
+    }
+    
+    /**
+     * Create policy from value created by {@link #toPersistableValue()}.
+     * 
+     * @param value persisted value
+     * @return policy or null if value is not a valid policy
+     */
+    public static ErasureCodingPolicy fromPersistableValue(String value)
+    {
+        String[] parts = value.split(PERSISTED_VALUE_SEPARATOR);
+        
+        if(parts.length != 3 || !Helper.isInteger(parts[0]) || !Helper.isInteger(parts[1]) || !Helper.isLong(parts[2]))
+        {
+            return null;
+        }
+        
+        int dataFragments = Integer.parseInt(parts[0]);
+        int parityFragments = Integer.parseInt(parts[1]);
+        
+        if(dataFragments < 1 || parityFragments < 0)
+        {
+            return null;
+        }
+        
+        return new ErasureCodingPolicy(dataFragments, parityFragments, 
+                new ByteSpeed(Long.parseLong(parts[2])));
+    }
+    
+    /**
+     * Textual representation of policy.
+     * 
+     * @return string representation
+     */
+    @Override public String toString()
+    {
+        return "RS(" + this.dataFragments + "+" + this.parityFragments + ")";
+    }
+}
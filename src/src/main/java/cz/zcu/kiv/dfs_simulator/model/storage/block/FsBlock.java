@@ -0,0 +1,112 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.block;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single fixed-size block of a file. Each replica of a block is stored
+ * as a hidden file (see {@link FsBlockManager#BLOCK_DIR_NAME}) on its server,
+ * therefore block replica set is given by the global object registry.
+ */
+public class FsBlock
+{
+    /**
+     * Block index within file
+     */
+    private final int index;
+    /**
+     * Full path of block file
+     */
+    private final String path;
+    
+    /**
+     * File block.
+     * 
+     * @param index block index within file
+     * @param path full path of block file
+     */
+    public FsBlock(int index, String path)
+    {
+        this.index = index;
+        this.path = path;
+    }
+    
+    /**
+     * Get block index within file.
+     * 
+     * @return block index
+     */
+    public int getIndex()
+    {
+        return this.index;
+    }
+    
+    /**
+     * Get full path of block file.
+     * 
+     * @return block path
+     */
+    public String getPath()
+    {
+        return this.path;
+    }
+    
+    /**
+     * Get an instance of block file (any replica).
+     * 
+     * @return block file or null if block does not exist
+     */
+    public FsFile getInstance()
+    {
+        return FsGlobalReplicationManager.getReplicaInstance(this.path);
+    }
+    
+    /**
+     * Get block size.
+     * 
+     * @return block size
+     */
+    public ByteSize getSize()
+    {
+        FsFile instance = this.getInstance();
+        
+        return (instance != null) ? instance.getSize() : new ByteSize(0);
+    }
+    
+    /**
+     * Get servers and storage devices holding replicas of this block.
+     * 
+     * @return replica targets
+     */
+    public List<ReplicaTarget> getReplicaTargets()
+    {
+        FsFile instance = this.getInstance();
+        
+        return (instance != null) ? FsGlobalReplicationManager.getReplicaTargets(instance) : new ArrayList<>();
+    }
+    
+    /**
+     * Textual representation of block.
+     * 
+     * @return string representation
+     */
+    @Override public String toString()
+    {
+        return this.path;
+    }
+}
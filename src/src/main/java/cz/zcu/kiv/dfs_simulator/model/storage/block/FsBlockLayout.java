@@ -0,0 +1,91 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.block;
+
+import java.util.List;
+
+/**
+ * Layout of a file split into fixed-size blocks.
+ */
+public class FsBlockLayout
+{
+    /**
+     * Full path of file
+     */
+    private final String filePath;
+    /**
+     * File blocks (ordered by index)
+     */
+    private final List<FsBlock> blocks;
+    
+    /**
+     * File block layout.
+     * 
+     * @param filePath full path of file
+     * @param blocks file blocks (ordered by index)
+     */
+    public FsBlockLayout(String filePath, List<FsBlock> blocks)
+    {
+        this.filePath = filePath;
+        this.blocks = blocks;
+    }
+    
+    /**
+     * Get full path of file.
+     * 
+     * @return file path
+     */
+    public String getFilePath()
+    {
+        return this.filePath;
+    }
+    
+    /**
+     * Get file blocks.
+     * 
+     * @return blocks ordered by index
+     */
+    public List<FsBlock> getBlocks()
+    {
+        return this.blocks;
+    }
+    
+    /**
+     * Get size of a single block (all blocks but last have this size).
+     * 
+     * @return block size in bytes
+     */
+    public long getBlockSize()
+    {
+        return this.blocks.isEmpty() ? 0 : this.blocks.get(0).getSize().bytesProperty().get();
+    }
+    
+    /**
+     * Get total size of all blocks.
+     * 
+     * @return total size in bytes
+     */
+    public long getTotalSize()
+    {
+        return this.blocks.stream().mapToLong(b -> b.getSize().bytesProperty().get()).sum();
+    }
+    
+    /**
+     * Get number of replicas of the first block.
+     * 
+     * @return replication factor
+     */
+    public int getReplicationFactor()
+    {
+        return this.blocks.isEmpty() ? 0 : this.blocks.get(0).getReplicaTargets().size();
+    }
+}
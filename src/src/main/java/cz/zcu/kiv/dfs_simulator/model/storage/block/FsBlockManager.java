@@ -0,0 +1,423 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.block;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.ObjectRegistryEntry;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Block layer manager. Files can be split into fixed-size blocks, each block
+ * has its own replica set placed across servers and storage devices. 
+ * Block replicas are ordinary (hidden) files in {@link #BLOCK_DIR_NAME}
+ * directory, so that they are accounted for, registered and transfered 
+ * the same way as whole files. Split file itself becomes a stub, which 
+ * occupies no storage space.
+ */
+public class FsBlockManager
+{
+    /**
+     * Name of directory containing block files
+     */
+    public static final String BLOCK_DIR_NAME = ".blocks";
+    /**
+     * Separator of file name and block index in block file name
+     */
+    public static final String BLOCK_INDEX_SEPARATOR = ".blk";
+    /**
+     * Default block size
+     */
+    public static final ByteSize DEFAULT_BLOCK_SIZE = new ByteSize(128, ByteSizeUnits.MB);
+    
+    /**
+     * Get full path of block file.
+     * 
+     * @param filePath full path of split file
+     * @param index block index
+     * @return block file path
+     */
+    public static String getBlockPath(String filePath, int index)
+    {
+        return FsDirectory.DIR_PATH_SEPARATOR + BLOCK_DIR_NAME + FsDirectory.DIR_PATH_SEPARATOR + 
+                getBlockName(filePath, index);
+    }
+    
+    /**
+     * Get name of block file.
+     * 
+     * @param filePath full path of split file
+     * @param index block index
+     * @return block file name
+     */
+    private static String getBlockName(String filePath, int index)
+    {
+        return encodePath(filePath) + BLOCK_INDEX_SEPARATOR + index;
+    }
+    
+    /**
+     * Encode full path of file into a single file name. Path separators
+     * are replaced by {@code _}, {@code _} and {@code %} are escaped, so that
+     * different paths never share the same name (eg. {@code /a/b_c} 
+     * and {@code /a_b/c}).
+     * 
+     * @param filePath full path of file
+     * @return encoded path
+     */
+    static String encodePath(String filePath)
+    {
+        String name = filePath.startsWith(FsDirectory.DIR_PATH_SEPARATOR) ? filePath.substring(1) : filePath;
+        
+        return name.replace("%", "%25").replace("_", "%5F").replace(FsDirectory.DIR_PATH_SEPARATOR, "_");
+    }
+    
+    /**
+     * Get block layout of {@code file}.
+     * 
+     * @param file file
+     * @return block layout or null if file is not split into blocks
+     */
+    public static FsBlockLayout getBlockLayout(FsFile file)
+    {
+        return getBlockLayout(file.getFullPath());
+    }
+    
+    /**
+     * Get block layout of file at {@code filePath}. Layout is derived from
+     * registered block files, therefore it needs no separate persistence.
+     * 
+     * @param filePath full path of file
+     * @return block layout or null if file is not split into blocks
+     */
+    public static FsBlockLayout getBlockLayout(String filePath)
+    {
+        List<FsBlock> blocks = new ArrayList<>();
+        String blockPath = getBlockPath(filePath, 0);
+        
+        while(FsGlobalObjectRegistry.getObjectEntry(blockPath) != null)
+        {
+            blocks.add(new FsBlock(blocks.size(), blockPath));
+            blockPath = getBlockPath(filePath, blocks.size());
+        }
+        
+        return blocks.isEmpty() ? null : new FsBlockLayout(filePath, blocks);
+    }
+    
+    /**
+     * Checks if {@code file} is split into blocks.
+     * 
+     * @param file file
+     * @return true if file is split, false otherwise
+     */
+    public static boolean isFileBlocked(FsFile file)
+    {
+        return FsGlobalObjectRegistry.getObjectEntry(getBlockPath(file.getFullPath(), 0)) != null;
+    }
+    
+    /**
+     * Split {@code file} into blocks of size {@code blockSize}. Replicas 
+     * of each block are placed onto {@code replicationFactor} different
+     * servers from {@code servers} (round robin, starting at server given by
+     * block index) and onto the storage of each server with most unused space.
+     * Existing blocks of {@code file} are removed and all namespace entries
+     * of {@code file} become stubs.
+     * 
+     * @param file file
+     * @param blockSize block size
+     * @param replicationFactor number of replicas of each block
+     * @param servers servers that can hold blocks
+     * @return block layout
+     * @throws NotEnoughSpaceLeftException thrown when some block cannot
+     * be placed onto {@code replicationFactor} servers (or all servers
+     * if there is less of them)
+     */
+    public static FsBlockLayout splitFile(FsFile file, ByteSize blockSize, int replicationFactor, List<ModelServerNode> servers) throws NotEnoughSpaceLeftException
+    {
+        return int_splitFile(file.getFullPath(), file.getSize().bytesProperty().get(), 
+                blockSize.bytesProperty().get(), replicationFactor, servers);
+    }
+    
+    /**
+     * Internal method. Split file at {@code filePath} of size {@code fileBytes}
+     * into blocks.
+     * 
+     * @param filePath full path of file
+     * @param fileBytes file size in bytes
+     * @param blockBytes block size in bytes
+     * @param replicationFactor number of replicas of each block
+     * @param servers servers that can hold blocks
+     * @return block layout
+     * @throws NotEnoughSpaceLeftException thrown when some block cannot be placed
+     */
+    private static FsBlockLayout int_splitFile(String filePath, long fileBytes, long blockBytes, int replicationFactor, List<ModelServerNode> servers) throws NotEnoughSpaceLeftException
+    {
+        removeBlocks(filePath);
+        
+        // release space of the whole file, so that it can hold blocks
+        setNamespaceStub(filePath, true);
+        
+        long bBytes = Math.max(1, blockBytes);
+        int blockCount = (int) Math.max(1, ((fileBytes + bBytes - 1) / bBytes));
+        int requiredReplicas = Math.min(replicationFactor, servers.size());
+        
+        for(int i = 0; i < blockCount; i++)
+        {
+            long bytes = Math.min(bBytes, (fileBytes - (i * bBytes)));
+            int placed = 0;
+            
+            for(int s = 0; s < servers.size() && placed < requiredReplicas; s++)
+            {
+                ModelServerNode server = servers.get((i + s) % servers.size());
+                
+                if(placeBlock(server, BLOCK_DIR_NAME, getBlockName(filePath, i), Math.max(0, bytes)))
+                {
+                    placed++;
+                }
+            }
+            
+            if(placed < requiredReplicas)
+            {
+                removeBlocks(filePath);
+                
+                throw new NotEnoughSpaceLeftException("Block " + i + " of file " + filePath + 
+                        " could only be placed onto " + placed + " of " + requiredReplicas + " servers.");
+            }
+        }
+        
+        return getBlockLayout(filePath);
+    }
+    
+    /**
+     * Re-split {@code file} after its size changed to {@code newSize}, 
+     * keeping its block size and replication factor.
+     * 
+     * @param file file
+     * @param newSize new file size
+     * @param servers servers that can hold blocks
+     * @return new block layout (or current layout if size did not change)
+     * @throws NotEnoughSpaceLeftException thrown when new blocks cannot be placed
+     */
+    public static FsBlockLayout resizeBlocks(FsFile file, ByteSize newSize, List<ModelServerNode> servers) throws NotEnoughSpaceLeftException
+    {
+        FsBlockLayout layout = getBlockLayout(file);
+        
+        if(layout == null || layout.getTotalSize() == newSize.bytesProperty().get())
+        {
+            return layout;
+        }
+        
+        long blockSize = layout.getBlockSize();
+        
+        // single block may be smaller than the original block size, 
+        // which is therefore unknown
+        if(layout.getBlocks().size() == 1)
+        {
+            blockSize = Math.max(blockSize, DEFAULT_BLOCK_SIZE.bytesProperty().get());
+        }
+        
+        return int_splitFile(file.getFullPath(), newSize.bytesProperty().get(), 
+                blockSize, layout.getReplicationFactor(), servers);
+    }
+    
+    /**
+     * Remove all blocks of {@code file}.
+     * 
+     * @param file file
+     */
+    public static void removeBlocks(FsFile file)
+    {
+        removeBlocks(file.getFullPath());
+    }
+    
+    /**
+     * Remove all blocks of file at {@code filePath}. Namespace entries 
+     * of the file hold it's content again.
+     * 
+     * @param filePath full path of file
+     */
+    public static void removeBlocks(String filePath)
+    {
+        FsBlockLayout layout = getBlockLayout(filePath);
+        
+        if(layout != null)
+        {
+            for(FsBlock block : layout.getBlocks())
+            {
+                for(ReplicaTarget replica : block.getReplicaTargets())
+                {
+                    replica.serverNode.getFsManager().removeDirectoryChild(block.getPath());
+                }
+            }
+            
+            setNamespaceStub(filePath, false);
+        }
+    }
+    
+    /**
+     * Remove blocks of all files in subtree of {@code object} (object 
+     * is being deleted).
+     * 
+     * @param object file or directory
+     */
+    public static void removeObjectBlocks(FileSystemObject object)
+    {
+        if(object instanceof FsDirectory)
+        {
+            for(FileSystemObject child : ((FsDirectory) object).getChildren())
+            {
+                removeObjectBlocks(child);
+            }
+        }
+        else if(object instanceof FsFile && isFileBlocked((FsFile) object))
+        {
+            removeBlocks((FsFile) object);
+        }
+    }
+    
+    /**
+     * Rename blocks of all files in subtree of {@code object} after
+     * the object has been renamed, so that block names match new file paths.
+     * 
+     * @param object renamed file or directory
+     * @param oldPath full path of {@code object} before rename
+     */
+    public static void renameObjectBlocks(FileSystemObject object, String oldPath)
+    {
+        String newPath = object.getFullPath();
+        
+        if(newPath.equals(oldPath))
+        {
+            return;
+        }
+        
+        if(object instanceof FsDirectory)
+        {
+            for(FileSystemObject child : ((FsDirectory) object).getChildren())
+            {
+                renameObjectBlocks(child, oldPath + child.getFullPath().substring(newPath.length()));
+            }
+        }
+        else if(object instanceof FsFile)
+        {
+            FsBlockLayout layout = getBlockLayout(oldPath);
+            
+            if(layout != null)
+            {
+                for(FsBlock block : layout.getBlocks())
+                {
+                    FsGlobalReplicationManager.renameReplicatedObject(block.getInstance(), 
+                            getBlockName(newPath, block.getIndex()));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Set stub state of all namespace entries of file at {@code filePath}.
+     * 
+     * @param filePath full path of file
+     * @param stub true if content is stored elsewhere
+     */
+    static void setNamespaceStub(String filePath, boolean stub)
+    {
+        ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(filePath);
+        
+        if(ore != null)
+        {
+            ore.fsObjects.stream().filter(o -> (o instanceof FsFile)).
+                    forEach(o -> ((FsFile) o).setStub(stub));
+        }
+    }
+    
+    /**
+     * Place replica of block onto storage of {@code server} with most unused
+     * space that can fit it.
+     * 
+     * @param server server
+     * @param dirName name of hidden directory holding the block
+     * @param blockName block file name
+     * @param bytes block size in bytes
+     * @return true if block has been placed, false otherwise
+     */
+    static boolean placeBlock(ModelServerNode server, String dirName, String blockName, long bytes)
+    {
+        ServerStorage target = null;
+        long targetUnused = -1;
+        
+        for(ServerStorage storage : server.getStorageManager().getStorage())
+        {
+            long unused = server.getFsManager().getStorageUnusedSize(storage).bytesProperty().get();
+            
+            if(unused >= bytes && unused > targetUnused)
+            {
+                target = storage;
+                targetUnused = unused;
+            }
+        }
+        
+        if(target == null)
+        {
+            return false;
+        }
+        
+        try
+        {
+            FsDirectory blockDir = getOrCreateBlockDirectory(server, dirName);
+            // block is added empty, so that it does not get accounted
+            // to block directory mount device
+            FsFile block = new FsFile(blockName, new ByteSize(0), blockDir);
+            
+            server.getFsManager().addDirectoryChild(blockDir, block);
+            server.getFsManager().mount(target, block);
+            block.setSize(new ByteSize(bytes));
+            
+            return true;
+        }
+        catch(NotEnoughSpaceLeftException ex)
+        {
+            return false;
+        }
+    }
+    
+    /**
+     * Get block directory of {@code server}, create it if it does not exist.
+     * 
+     * @param server server
+     * @param dirName block directory name
+     * @return block directory
+     * @throws NotEnoughSpaceLeftException never thrown (directory is empty)
+     */
+    private static FsDirectory getOrCreateBlockDirectory(ModelServerNode server, String dirName) throws NotEnoughSpaceLeftException
+    {
+        FileSystemObject existing = server.getFsManager().getObject(dirName + FsDirectory.DIR_PATH_SEPARATOR);
+        
+        if(existing instanceof FsDirectory)
+        {
+            return (FsDirectory) existing;
+        }
+        
+        FsDirectory blockDir = new FsDirectory(dirName, server.getRootDir());
+        server.getFsManager().addDirectoryChild(server.getRootDir(), blockDir);
+        
+        return blockDir;
+    }
+}
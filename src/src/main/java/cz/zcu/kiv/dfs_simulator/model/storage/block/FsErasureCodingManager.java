@@ -0,0 +1,383 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.model.storage.block;
+
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.ObjectRegistryEntry;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Erasure coding manager - alternative to full replication. Erasure coding
+ * policy can be set on a file or on a directory (applies to all files 
+ * below it). Fragments of encoded files are ordinary (hidden) files in 
+ * {@link #FRAGMENT_DIR_NAME} directory, each on a different server, 
+ * so that their capacity is accounted for by server file system managers.
+ * Policies and encoding state are kept on the file system objects
+ * themselves (and persisted with them), encoded file becomes a stub.
+ */
+public class FsErasureCodingManager
+{
+    /**
+     * Name of directory containing fragment files
+     */
+    public static final String FRAGMENT_DIR_NAME = ".ec";
+    /**
+     * Separator of file name and fragment index in fragment file name
+     */
+    public static final String FRAGMENT_INDEX_SEPARATOR = ".frag";
+    
+    /**
+     * Set erasure coding policy of file or directory and of all its 
+     * namespace entries on other servers. Policy applies to files
+     * encoded from now on.
+     * 
+     * @param object file or directory
+     * @param policy policy, null to remove policy
+     */
+    public static void setPolicy(FileSystemObject object, ErasureCodingPolicy policy)
+    {
+        object.setErasureCodingPolicy(policy);
+        
+        ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(object);
+        
+        if(ore != null)
+        {
+            ore.fsObjects.forEach(o -> o.setErasureCodingPolicy(policy));
+        }
+    }
+    
+    /**
+     * Get erasure coding policy set directly on file or directory.
+     * 
+     * @param object file or directory
+     * @return policy or null if not set
+     */
+    public static ErasureCodingPolicy getPolicy(FileSystemObject object)
+    {
+        return object.getErasureCodingPolicy();
+    }
+    
+    /**
+     * Get erasure coding policy that applies to {@code file} - policy 
+     * of the file itself or of its closest ancestor directory.
+     * 
+     * @param file file
+     * @return policy or null if file should be fully replicated
+     */
+    public static ErasureCodingPolicy getEffectivePolicy(FsFile file)
+    {
+        FileSystemObject object = file;
+        
+        while(object != null)
+        {
+            ErasureCodingPolicy policy = object.getErasureCodingPolicy();
+            
+            if(policy != null)
+            {
+                return policy;
+            }
+            
+            object = object.getParent();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get full path of fragment file.
+     * 
+     * @param filePath full path of encoded file
+     * @param index fragment index
+     * @return fragment file path
+     */
+    public static String getFragmentPath(String filePath, int index)
+    {
+        return FsDirectory.DIR_PATH_SEPARATOR + FRAGMENT_DIR_NAME + FsDirectory.DIR_PATH_SEPARATOR + 
+                getFragmentName(filePath, index);
+    }
+    
+    /**
+     * Get name of fragment file.
+     * 
+     * @param filePath full path of encoded file
+     * @param index fragment index
+     * @return fragment file name
+     */
+    private static String getFragmentName(String filePath, int index)
+    {
+        return FsBlockManager.encodePath(filePath) + FRAGMENT_INDEX_SEPARATOR + index;
+    }
+    
+    /**
+     * Checks if {@code file} is erasure coded.
+     * 
+     * @param file file
+     * @return true if file is encoded, false otherwise
+     */
+    public static boolean isFileEncoded(FsFile file)
+    {
+        return (file.getEncodingPolicy() != null);
+    }
+    
+    /**
+     * Get policy {@code file} has been encoded with.
+     * 
+     * @param file file
+     * @return policy or null if file is not encoded
+     */
+    public static ErasureCodingPolicy getEncodingPolicy(FsFile file)
+    {
+        return file.getEncodingPolicy();
+    }
+    
+    /**
+     * Get fragments of encoded {@code file}, data fragments first.
+     * 
+     * @param file file
+     * @return fragments ordered by index (empty if file is not encoded)
+     */
+    public static List<FsBlock> getFragments(FsFile file)
+    {
+        return getFragments(file.getFullPath(), getEncodingPolicy(file));
+    }
+    
+    /**
+     * Get fragments of file at {@code filePath} encoded with {@code policy}.
+     * 
+     * @param filePath full path of encoded file
+     * @param policy policy the file has been encoded with
+     * @return fragments ordered by index (empty if policy is null)
+     */
+    private static List<FsBlock> getFragments(String filePath, ErasureCodingPolicy policy)
+    {
+        List<FsBlock> fragments = new ArrayList<>();
+        
+        if(policy != null)
+        {
+            for(int i = 0; i < policy.getTotalFragments(); i++)
+            {
+                String fragmentPath = getFragmentPath(filePath, i);
+                
+                if(FsGlobalObjectRegistry.getObjectEntry(fragmentPath) != null)
+                {
+                    fragments.add(new FsBlock(i, fragmentPath));
+                }
+            }
+        }
+        
+        return fragments;
+    }
+    
+    /**
+     * Checks if fragment is a data fragment (can be read without reconstruction).
+     * 
+     * @param file encoded file
+     * @param fragment fragment
+     * @return true if data fragment, false if parity fragment
+     */
+    public static boolean isDataFragment(FsFile file, FsBlock fragment)
+    {
+        ErasureCodingPolicy policy = getEncodingPolicy(file);
+        
+        return (policy != null && fragment.getIndex() < policy.getDataFragments());
+    }
+    
+    /**
+     * Get total number of bytes stored for encoded {@code file} (all fragments).
+     * 
+     * @param file file
+     * @return stored bytes (0 if file is not encoded)
+     */
+    public static long getStoredSize(FsFile file)
+    {
+        return getFragments(file).stream().mapToLong(f -> f.getSize().bytesProperty().get()).sum();
+    }
+    
+    /**
+     * Encode {@code file} using {@code policy}. Each of {@code k + m} fragments
+     * is placed onto a different server from {@code servers}, onto its storage 
+     * with most unused space. Servers are tried round robin starting at 
+     * server given by hash of file path, so that fragments of different files
+     * are spread across servers. Existing fragments of {@code file} are removed.
+     * 
+     * @param file file
+     * @param policy erasure coding policy
+     * @param servers servers that can hold fragments
+     * @return fragments of encoded file
+     * @throws NotEnoughSpaceLeftException thrown when fragments cannot be
+     * placed onto {@code k + m} different servers
+     */
+    public static List<FsBlock> encodeFile(FsFile file, ErasureCodingPolicy policy, List<ModelServerNode> servers) throws NotEnoughSpaceLeftException
+    {
+        String filePath = file.getFullPath();
+        
+        removeFragments(file);
+        
+        long fragmentBytes = policy.getFragmentSize(file.getSize().bytesProperty().get());
+        int start = servers.isEmpty() ? 0 : Math.floorMod(filePath.hashCode(), servers.size());
+        int placed = 0;
+        
+        for(int s = 0; s < servers.size() && placed < policy.getTotalFragments(); s++)
+        {
+            ModelServerNode server = servers.get((start + s) % servers.size());
+            
+            if(FsBlockManager.placeBlock(server, FRAGMENT_DIR_NAME, getFragmentName(filePath, placed), fragmentBytes))
+            {
+                placed++;
+            }
+        }
+        
+        setNamespaceEncoding(file, policy);
+        
+        if(placed < policy.getTotalFragments())
+        {
+            removeFragments(file);
+            
+            throw new NotEnoughSpaceLeftException("File " + filePath + " could only be encoded into " + 
+                    placed + " of " + policy.getTotalFragments() + " fragments.");
+        }
+        
+        return getFragments(file);
+    }
+    
+    /**
+     * Re-encode {@code file} after its size changed, keeping its policy.
+     * 
+     * @param file file
+     * @param servers servers that can hold fragments
+     * @return fragments of encoded file
+     * @throws NotEnoughSpaceLeftException thrown when fragments cannot be placed
+     */
+    public static List<FsBlock> resizeFragments(FsFile file, List<ModelServerNode> servers) throws NotEnoughSpaceLeftException
+    {
+        ErasureCodingPolicy policy = getEncodingPolicy(file);
+        List<FsBlock> fragments = getFragments(file);
+        
+        if(policy == null || (fragments.size() == policy.getTotalFragments() && 
+                fragments.get(0).getSize().bytesProperty().get() == policy.getFragmentSize(file.getSize().bytesProperty().get())))
+        {
+            return fragments;
+        }
+        
+        return encodeFile(file, policy, servers);
+    }
+    
+    /**
+     * Remove all fragments of {@code file}, file is no longer encoded.
+     * 
+     * @param file file
+     */
+    public static void removeFragments(FsFile file)
+    {
+        if(!isFileEncoded(file))
+        {
+            return;
+        }
+        
+        for(FsBlock fragment : getFragments(file))
+        {
+            for(ReplicaTarget holder : fragment.getReplicaTargets())
+            {
+                holder.serverNode.getFsManager().removeDirectoryChild(fragment.getPath());
+            }
+        }
+        
+        setNamespaceEncoding(file, null);
+    }
+    
+    /**
+     * Remove fragments of all files in subtree of {@code object} (object 
+     * is being deleted).
+     * 
+     * @param object file or directory
+     */
+    public static void removeObjectFragments(FileSystemObject object)
+    {
+        if(object instanceof FsDirectory)
+        {
+            for(FileSystemObject child : ((FsDirectory) object).getChildren())
+            {
+                removeObjectFragments(child);
+            }
+        }
+        else if(object instanceof FsFile)
+        {
+            removeFragments((FsFile) object);
+        }
+    }
+    
+    /**
+     * Rename fragments of all files in subtree of {@code object} after
+     * the object has been renamed, so that fragment names match new file paths.
+     * 
+     * @param object renamed file or directory
+     * @param oldPath full path of {@code object} before rename
+     */
+    public static void renameObjectFragments(FileSystemObject object, String oldPath)
+    {
+        String newPath = object.getFullPath();
+        
+        if(newPath.equals(oldPath))
+        {
+            return;
+        }
+        
+        if(object instanceof FsDirectory)
+        {
+            for(FileSystemObject child : ((FsDirectory) object).getChildren())
+            {
+                renameObjectFragments(child, oldPath + child.getFullPath().substring(newPath.length()));
+            }
+        }
+        else if(object instanceof FsFile)
+        {
+            for(FsBlock fragment : getFragments(oldPath, getEncodingPolicy((FsFile) object)))
+            {
+                FsGlobalReplicationManager.renameReplicatedObject(fragment.getInstance(), 
+                        getFragmentName(newPath, fragment.getIndex()));
+            }
+        }
+    }
+    
+    /**
+     * Set encoding policy of {@code file} and of all its namespace entries 
+     * on other servers. Encoded file is a stub.
+     * 
+     * @param file file
+     * @param policy encoding policy, null if file is no longer encoded
+     */
+    private static void setNamespaceEncoding(FsFile file, ErasureCodingPolicy policy)
+    {
+        file.setEncodingPolicy(policy);
+        file.setStub(policy != null);
+        
+        ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(file);
+        
+        if(ore != null)
+        {
+            ore.fsObjects.stream().filter(o -> (o instanceof FsFile)).forEach(o -> 
+                {
+                    ((FsFile) o).setEncodingPolicy(policy);
+                    ((FsFile) o).setStub(policy != null);
+                });
+        }
+    }
+}
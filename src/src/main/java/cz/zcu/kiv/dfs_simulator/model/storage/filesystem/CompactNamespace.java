@@ -0,0 +1,976 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
+
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact namespace representation for very large file trees. Objects are
+ * identified by integer IDs and all their attributes are kept in parallel
+ * primitive arrays (struct of arrays), names are stored in a shared byte
+ * arena. A file costs tens of bytes instead of the kilobytes taken by
+ * an {@link FsFile} with all it's properties.
+ * 
+ * Subtrees of a server namespace can be kept in this form until they are
+ * needed - see {@link ServerFileSystemManager#attachUnloadedNamespace(
+ * FsDirectory, CompactNamespace)}, regular {@link FileSystemObject}
+ * instances are then created one directory at a time when a path inside
+ * the subtree is looked up or shown by the editor.
+ */
+public class CompactNamespace
+{
+    /**
+     * ID of root directory
+     */
+    public static final int ROOT_ID = 0;
+    /**
+     * ID signaling nonexistent object
+     */
+    public static final int NO_OBJECT = -1;
+    /**
+     * ID signaling that object is not directly mounted
+     */
+    public static final int NO_STORAGE = -1;
+    
+    /**
+     * Object is a directory
+     */
+    private static final byte FLAG_DIRECTORY = 1;
+    /**
+     * Object is in the process of migration
+     */
+    private static final byte FLAG_MIGRATING = 2;
+    /**
+     * Object has been removed
+     */
+    private static final byte FLAG_REMOVED = 4;
+    
+    /**
+     * Initial capacity of object arrays
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Child table slot that has never been used
+     */
+    private static final int EMPTY_SLOT = -1;
+    /**
+     * Child table slot whose object has been removed
+     */
+    private static final int REMOVED_SLOT = -2;
+    
+    /**
+     * Number of allocated object IDs
+     */
+    private int count = 0;
+    /**
+     * Number of objects that have not been removed
+     */
+    private int liveCount = 0;
+    
+    /**
+     * Parent directory IDs
+     */
+    private int[] parentIds;
+    /**
+     * File sizes, total sizes of directory subtrees in case of directories
+     */
+    private long[] sizes;
+    /**
+     * IDs of storages objects are directly mounted on
+     */
+    private int[] mountStorageIds;
+    /**
+     * File access counters
+     */
+    private int[] accessCounts;
+    /**
+     * Object flags
+     */
+    private byte[] flags;
+    /**
+     * IDs of first children of directories
+     */
+    private int[] firstChildIds;
+    /**
+     * IDs of next siblings
+     */
+    private int[] nextSiblingIds;
+    /**
+     * Offsets of object names in {@link #nameArena}
+     */
+    private int[] nameOffsets;
+    /**
+     * Lengths of encoded object names
+     */
+    private short[] nameLengths;
+    
+    /**
+     * UTF-8 encoded object names
+     */
+    private byte[] nameArena;
+    /**
+     * Used part of {@link #nameArena}
+     */
+    private int nameArenaSize = 0;
+    
+    /**
+     * Open addressing table of objects hashed by parent ID, name and type
+     */
+    private int[] childTable;
+    /**
+     * Number of used (including removed) slots of {@link #childTable}
+     */
+    private int childTableUsed = 0;
+    
+    /**
+     * Storages referenced by {@link #mountStorageIds}
+     */
+    private final List<ServerStorage> storages = new ArrayList<>();
+    
+    /**
+     * Create namespace containing only the root directory.
+     */
+    public CompactNamespace()
+    {
+        this.parentIds = new int[INITIAL_CAPACITY];
+        this.sizes = new long[INITIAL_CAPACITY];
+        this.mountStorageIds = new int[INITIAL_CAPACITY];
+        this.accessCounts = new int[INITIAL_CAPACITY];
+        this.flags = new byte[INITIAL_CAPACITY];
+        this.firstChildIds = new int[INITIAL_CAPACITY];
+        this.nextSiblingIds = new int[INITIAL_CAPACITY];
+        this.nameOffsets = new int[INITIAL_CAPACITY];
+        this.nameLengths = new short[INITIAL_CAPACITY];
+        this.nameArena = new byte[INITIAL_CAPACITY * 8];
+        this.childTable = new int[INITIAL_CAPACITY * 2];
+        
+        Arrays.fill(this.childTable, EMPTY_SLOT);
+        
+        this.allocate(NO_OBJECT, new byte[0], FLAG_DIRECTORY, 0);
+    }
+    
+    /**
+     * Create compact copy of file tree starting with {@code root}.
+     * 
+     * @param root root directory
+     * @return namespace
+     */
+    public static CompactNamespace fromTree(FsDirectory root)
+    {
+        CompactNamespace namespace = new CompactNamespace();
+        namespace.copyChildren(root, ROOT_ID);
+        
+        return namespace;
+    }
+    
+    /**
+     * Copy children of {@code directory} under {@code id}.
+     * 
+     * @param directory source directory
+     * @param id target directory ID
+     */
+    private void copyChildren(FsDirectory directory, int id)
+    {
+        // children of unloaded directory are still kept in a namespace
+        if(!directory.isLoaded())
+        {
+            this.copySubtree(directory.unloadedNamespace, directory.unloadedId, id);
+            
+            return;
+        }
+        
+        for(FileSystemObject child : directory.getChildren())
+        {
+            if(child instanceof FsDirectory)
+            {
+                this.copyChildren((FsDirectory) child, this.addDirectory(id, child.nameProperty().get()));
+            }
+            else if(child instanceof FsFile)
+            {
+                FsFile file = (FsFile) child;
+                int fileId = this.addFile(id, file.nameProperty().get(), file.getSize().bytesProperty().get());
+                
+                this.setAccessCount(fileId, file.accessCounterProperty().get());
+                this.setMigrating(fileId, file.isMigrating());
+            }
+        }
+    }
+    
+    /**
+     * Copy children of {@code sourceId} from {@code source} namespace 
+     * under {@code id}.
+     * 
+     * @param source source namespace
+     * @param sourceId source directory ID
+     * @param id target directory ID
+     */
+    private void copySubtree(UnloadedNamespace source, int sourceId, int id)
+    {
+        for(int child : source.getChildIds(sourceId))
+        {
+            if(source.isDirectory(child))
+            {
+                this.copySubtree(source, child, this.addDirectory(id, source.getName(child)));
+            }
+            else
+            {
+                int fileId = this.addFile(id, source.getName(child), source.getSize(child));
+                
+                this.setAccessCount(fileId, source.getAccessCount(child));
+                this.setMigrating(fileId, source.isMigrating(child));
+            }
+        }
+    }
+    
+    /**
+     * Get number of objects (including root directory).
+     * 
+     * @return number of objects
+     */
+    public int getObjectCount()
+    {
+        return this.liveCount;
+    }
+    
+    /**
+     * Get number of allocated object IDs (including removed objects).
+     * 
+     * @return number of allocated IDs
+     */
+    int getAllocatedCount()
+    {
+        return this.count;
+    }
+    
+    /**
+     * Add new directory.
+     * 
+     * @param parentId parent directory ID
+     * @param name directory name
+     * @return new directory ID or {@link #NO_OBJECT} if parent already
+     * contains directory with the same name
+     */
+    public int addDirectory(int parentId, String name)
+    {
+        return this.addObject(parentId, name, FLAG_DIRECTORY, 0);
+    }
+    
+    /**
+     * Add new file.
+     * 
+     * @param parentId parent directory ID
+     * @param name file name
+     * @param size file size in bytes
+     * @return new file ID or {@link #NO_OBJECT} if parent already
+     * contains file with the same name
+     */
+    public int addFile(int parentId, String name, long size)
+    {
+        return this.addObject(parentId, name, (byte) 0, size);
+    }
+    
+    /**
+     * Add new object.
+     * 
+     * @param parentId parent directory ID
+     * @param name object name
+     * @param flags object flags
+     * @param size object size
+     * @return new object ID or {@link #NO_OBJECT} if the name is taken
+     */
+    private int addObject(int parentId, String name, byte flags, long size)
+    {
+        if(!this.isDirectory(parentId))
+        {
+            throw new IllegalArgumentException("Object " + parentId + " is not a directory.");
+        }
+        
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        
+        if(this.findSlot(parentId, encodedName, (flags & FLAG_DIRECTORY) != 0) >= 0)
+        {
+            return NO_OBJECT;
+        }
+        
+        int id = this.allocate(parentId, encodedName, flags, size);
+        this.addSizeUpTree(parentId, size);
+        
+        return id;
+    }
+    
+    /**
+     * Allocate new object and link it to it's parent.
+     * 
+     * @param parentId parent directory ID
+     * @param encodedName encoded name
+     * @param flags object flags
+     * @param size object size
+     * @return new object ID
+     */
+    private int allocate(int parentId, byte[] encodedName, byte flags, long size)
+    {
+        this.ensureCapacity(this.count + 1);
+        this.ensureArenaCapacity(this.nameArenaSize + encodedName.length);
+        
+        int id = this.count++;
+        this.liveCount++;
+        
+        this.parentIds[id] = parentId;
+        this.sizes[id] = size;
+        this.mountStorageIds[id] = NO_STORAGE;
+        this.accessCounts[id] = 0;
+        this.flags[id] = flags;
+        this.firstChildIds[id] = NO_OBJECT;
+        this.nextSiblingIds[id] = NO_OBJECT;
+        this.nameOffsets[id] = this.nameArenaSize;
+        this.nameLengths[id] = (short) encodedName.length;
+        
+        System.arraycopy(encodedName, 0, this.nameArena, this.nameArenaSize, encodedName.length);
+        this.nameArenaSize += encodedName.length;
+        
+        if(parentId != NO_OBJECT)
+        {
+            this.nextSiblingIds[id] = this.firstChildIds[parentId];
+            this.firstChildIds[parentId] = id;
+            
+            this.insertSlot(id);
+        }
+        
+        return id;
+    }
+    
+    /**
+     * Remove object (and all it's children in case of directory).
+     * 
+     * @param id object ID
+     */
+    public void remove(int id)
+    {
+        if(id == ROOT_ID || !this.exists(id))
+        {
+            return;
+        }
+        
+        int parentId = this.parentIds[id];
+        
+        // unlink from parent
+        if(this.firstChildIds[parentId] == id)
+        {
+            this.firstChildIds[parentId] = this.nextSiblingIds[id];
+        }
+        else
+        {
+            int sibling = this.firstChildIds[parentId];
+            
+            while(this.nextSiblingIds[sibling] != id)
+            {
+                sibling = this.nextSiblingIds[sibling];
+            }
+            
+            this.nextSiblingIds[sibling] = this.nextSiblingIds[id];
+        }
+        
+        this.addSizeUpTree(parentId, -this.sizes[id]);
+        this.markRemoved(id);
+    }
+    
+    /**
+     * Mark object and it's subtree as removed.
+     * 
+     * @param id object ID
+     */
+    private void markRemoved(int id)
+    {
+        for(int child = this.firstChildIds[id]; child != NO_OBJECT; child = this.nextSiblingIds[child])
+        {
+            this.markRemoved(child);
+        }
+        
+        this.childTable[this.findSlot(this.parentIds[id], this.getEncodedName(id), this.isDirectory(id))] = REMOVED_SLOT;
+        this.flags[id] |= FLAG_REMOVED;
+        this.liveCount--;
+    }
+    
+    /**
+     * Rename object.
+     * 
+     * @param id object ID
+     * @param name new name
+     * @return false if parent already contains object with the same name
+     */
+    public boolean rename(int id, String name)
+    {
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        int parentId = this.parentIds[id];
+        
+        if(parentId == NO_OBJECT)
+        {
+            return false;
+        }
+        
+        if(Arrays.equals(encodedName, this.getEncodedName(id)))
+        {
+            return true;
+        }
+        
+        if(this.findSlot(parentId, encodedName, this.isDirectory(id)) >= 0)
+        {
+            return false;
+        }
+        
+        this.childTable[this.findSlot(parentId, this.getEncodedName(id), this.isDirectory(id))] = REMOVED_SLOT;
+        
+        if(encodedName.length <= this.nameLengths[id])
+        {
+            // reuse arena space
+            System.arraycopy(encodedName, 0, this.nameArena, this.nameOffsets[id], encodedName.length);
+        }
+        else
+        {
+            this.ensureArenaCapacity(this.nameArenaSize + encodedName.length);
+            System.arraycopy(encodedName, 0, this.nameArena, this.nameArenaSize, encodedName.length);
+            
+            this.nameOffsets[id] = this.nameArenaSize;
+            this.nameArenaSize += encodedName.length;
+        }
+        
+        this.nameLengths[id] = (short) encodedName.length;
+        this.insertSlot(id);
+        
+        return true;
+    }
+    
+    /**
+     * Check if {@code id} identifies an existing object.
+     * 
+     * @param id object ID
+     * @return true if object exists
+     */
+    public boolean exists(int id)
+    {
+        return id >= 0 && id < this.count && (this.flags[id] & FLAG_REMOVED) == 0;
+    }
+    
+    /**
+     * Check if object is a directory.
+     * 
+     * @param id object ID
+     * @return true if object is an existing directory
+     */
+    public boolean isDirectory(int id)
+    {
+        return this.exists(id) && (this.flags[id] & FLAG_DIRECTORY) != 0;
+    }
+    
+    /**
+     * Get object name.
+     * 
+     * @param id object ID
+     * @return name
+     */
+    public String getName(int id)
+    {
+        if(id == ROOT_ID)
+        {
+            return FsDirectory.DIR_PATH_SEPARATOR;
+        }
+        
+        return new String(this.nameArena, this.nameOffsets[id], this.nameLengths[id], StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Get parent directory ID.
+     * 
+     * @param id object ID
+     * @return parent ID or {@link #NO_OBJECT} in case of root directory
+     */
+    public int getParentId(int id)
+    {
+        return this.parentIds[id];
+    }
+    
+    /**
+     * Get length of encoded object name.
+     * 
+     * @param id object ID
+     * @return name length in bytes
+     */
+    int getEncodedNameLength(int id)
+    {
+        return this.nameLengths[id];
+    }
+    
+    /**
+     * Get absolute object path, in the same format as
+     * {@link FileSystemObject#getFullPath()}.
+     * 
+     * @param id object ID
+     * @return absolute path
+     */
+    public String getFullPath(int id)
+    {
+        if(id == ROOT_ID)
+        {
+            return FsDirectory.DIR_PATH_SEPARATOR;
+        }
+        
+        String path = this.getFullPath(this.parentIds[id]) + this.getName(id);
+        
+        return this.isDirectory(id) ? path + FsDirectory.DIR_PATH_SEPARATOR : path;
+    }
+    
+    /**
+     * Get size of file or total size of directory subtree.
+     * 
+     * @param id object ID
+     * @return size in bytes
+     */
+    public long getSize(int id)
+    {
+        return this.sizes[id];
+    }
+    
+    /**
+     * Set file size.
+     * 
+     * @param id file ID
+     * @param size new size in bytes
+     */
+    public void setSize(int id, long size)
+    {
+        if(this.isDirectory(id))
+        {
+            throw new IllegalArgumentException("Size of directory " + id + " cannot be set.");
+        }
+        
+        long delta = size - this.sizes[id];
+        
+        this.sizes[id] = size;
+        this.addSizeUpTree(this.parentIds[id], delta);
+    }
+    
+    /**
+     * Get file access counter.
+     * 
+     * @param id file ID
+     * @return access counter
+     */
+    public int getAccessCount(int id)
+    {
+        return this.accessCounts[id];
+    }
+    
+    /**
+     * Set file access counter.
+     * 
+     * @param id file ID
+     * @param accessCount access counter
+     */
+    void setAccessCount(int id, int accessCount)
+    {
+        this.accessCounts[id] = accessCount;
+    }
+    
+    /**
+     * Increment file access counter.
+     * 
+     * @param id file ID
+     */
+    public void incrementAccessCount(int id)
+    {
+        this.accessCounts[id]++;
+    }
+    
+    /**
+     * Reset access counters of all files.
+     */
+    public void resetAccessCounts()
+    {
+        Arrays.fill(this.accessCounts, 0, this.count, 0);
+    }
+    
+    /**
+     * Check if object is in the process of migration.
+     * 
+     * @param id object ID
+     * @return migration flag
+     */
+    public boolean isMigrating(int id)
+    {
+        return (this.flags[id] & FLAG_MIGRATING) != 0;
+    }
+    
+    /**
+     * Set migration flag.
+     * 
+     * @param id object ID
+     * @param migrating migration flag
+     */
+    public void setMigrating(int id, boolean migrating)
+    {
+        if(migrating)
+        {
+            this.flags[id] |= FLAG_MIGRATING;
+        }
+        else
+        {
+            this.flags[id] &= ~FLAG_MIGRATING;
+        }
+    }
+    
+    /**
+     * Directly mount object on {@code storage}.
+     * 
+     * @param id object ID
+     * @param storage storage or null to remove direct mount
+     */
+    public void mount(int id, ServerStorage storage)
+    {
+        if(storage == null)
+        {
+            this.mountStorageIds[id] = NO_STORAGE;
+            
+            return;
+        }
+        
+        int storageId = this.storages.indexOf(storage);
+        
+        if(storageId < 0)
+        {
+            storageId = this.storages.size();
+            this.storages.add(storage);
+        }
+        
+        this.mountStorageIds[id] = storageId;
+    }
+    
+    /**
+     * Get storage the object is mounted on, either directly or inherited
+     * from any parent up the tree.
+     * 
+     * @param id object ID
+     * @return storage or null if object is not mounted
+     */
+    public ServerStorage getMountStorage(int id)
+    {
+        for(int current = id; current != NO_OBJECT; current = this.parentIds[current])
+        {
+            if(this.mountStorageIds[current] != NO_STORAGE)
+            {
+                return this.storages.get(this.mountStorageIds[current]);
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Check if object is directly mounted.
+     * 
+     * @param id object ID
+     * @return true if object has it's own mount storage
+     */
+    public boolean isDirectlyMounted(int id)
+    {
+        return this.mountStorageIds[id] != NO_STORAGE;
+    }
+    
+    /**
+     * Get IDs of directory children.
+     * 
+     * @param id directory ID
+     * @return children IDs
+     */
+    public int[] getChildIds(int id)
+    {
+        int n = 0;
+        
+        for(int child = this.firstChildIds[id]; child != NO_OBJECT; child = this.nextSiblingIds[child])
+        {
+            n++;
+        }
+        
+        int[] children = new int[n];
+        
+        for(int child = this.firstChildIds[id]; child != NO_OBJECT; child = this.nextSiblingIds[child])
+        {
+            children[--n] = child;
+        }
+        
+        return children;
+    }
+    
+    /**
+     * Find child of directory.
+     * 
+     * @param parentId parent directory ID
+     * @param name child name
+     * @param directory whether the child is a directory
+     * @return child ID or {@link #NO_OBJECT} if no such child exists
+     */
+    public int getChildId(int parentId, String name, boolean directory)
+    {
+        int slot = this.findSlot(parentId, name.getBytes(StandardCharsets.UTF_8), directory);
+        
+        return (slot >= 0) ? this.childTable[slot] : NO_OBJECT;
+    }
+    
+    /**
+     * Resolve absolute path (paths of directories end with a separator,
+     * same as with {@link FsDirectory#getChildObject(java.lang.String)}).
+     * 
+     * @param path absolute path
+     * @return object ID or {@link #NO_OBJECT} if path does not exist
+     */
+    public int resolve(String path)
+    {
+        return this.resolve(ROOT_ID, path);
+    }
+    
+    /**
+     * Resolve path relative to directory {@code dirId} (a leading 
+     * separator is ignored).
+     * 
+     * @param dirId directory ID
+     * @param path relative path
+     * @return object ID or {@link #NO_OBJECT} if path does not exist
+     */
+    public int resolve(int dirId, String path)
+    {
+        int current = dirId;
+        int start = path.startsWith(FsDirectory.DIR_PATH_SEPARATOR) ? 1 : 0;
+        
+        while(start < path.length() && current != NO_OBJECT)
+        {
+            int end = path.indexOf(FsDirectory.DIR_PATH_SEPARATOR, start);
+            
+            if(end < 0)
+            {
+                return this.getChildId(current, path.substring(start), false);
+            }
+            
+            current = this.getChildId(current, path.substring(start, end), true);
+            start = end + 1;
+        }
+        
+        return current;
+    }
+    
+    /**
+     * Check if directory has any children.
+     * 
+     * @param id directory ID
+     * @return true if directory has children
+     */
+    public boolean hasChildren(int id)
+    {
+        return this.firstChildIds[id] != NO_OBJECT;
+    }
+    
+    /**
+     * Add {@code delta} to sizes of directory and all it's parents.
+     * 
+     * @param id directory ID
+     * @param delta size delta
+     */
+    private void addSizeUpTree(int id, long delta)
+    {
+        for(int current = id; current != NO_OBJECT; current = this.parentIds[current])
+        {
+            this.sizes[current] += delta;
+        }
+    }
+    
+    /**
+     * Get encoded name of object.
+     * 
+     * @param id object ID
+     * @return encoded name
+     */
+    byte[] getEncodedName(int id)
+    {
+        return Arrays.copyOfRange(this.nameArena, this.nameOffsets[id], this.nameOffsets[id] + this.nameLengths[id]);
+    }
+    
+    /**
+     * Compute child table hash.
+     * 
+     * @param parentId parent ID
+     * @param encodedName encoded name
+     * @param directory directory flag
+     * @return hash
+     */
+    static int hash(int parentId, byte[] encodedName, boolean directory)
+    {
+        int h = parentId * 31 + (directory ? 1 : 0);
+        
+        for(byte b : encodedName)
+        {
+            h = h * 31 + b;
+        }
+        
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Check if object {@code id} has given parent, name and type.
+     * 
+     * @param id object ID
+     * @param parentId parent ID
+     * @param encodedName encoded name
+     * @param directory directory flag
+     * @return true if object matches
+     */
+    private boolean matches(int id, int parentId, byte[] encodedName, boolean directory)
+    {
+        if(this.parentIds[id] != parentId || this.nameLengths[id] != encodedName.length
+                || ((this.flags[id] & FLAG_DIRECTORY) != 0) != directory)
+        {
+            return false;
+        }
+        
+        int offset = this.nameOffsets[id];
+        
+        for(int i = 0; i < encodedName.length; i++)
+        {
+            if(this.nameArena[offset + i] != encodedName[i])
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Find child table slot of object.
+     * 
+     * @param parentId parent ID
+     * @param encodedName encoded name
+     * @param directory directory flag
+     * @return slot index or -1 if object does not exist
+     */
+    private int findSlot(int parentId, byte[] encodedName, boolean directory)
+    {
+        int mask = this.childTable.length - 1;
+        
+        for(int slot = hash(parentId, encodedName, directory) & mask; ; slot = (slot + 1) & mask)
+        {
+            int id = this.childTable[slot];
+            
+            if(id == EMPTY_SLOT)
+            {
+                return -1;
+            }
+            
+            if(id != REMOVED_SLOT && this.matches(id, parentId, encodedName, directory))
+            {
+                return slot;
+            }
+        }
+    }
+    
+    /**
+     * Insert object into child table.
+     * 
+     * @param id object ID
+     */
+    private void insertSlot(int id)
+    {
+        if((this.childTableUsed + 1) * 2 > this.childTable.length)
+        {
+            this.rehash();
+        }
+        
+        int mask = this.childTable.length - 1;
+        int slot = hash(this.parentIds[id], this.getEncodedName(id), (this.flags[id] & FLAG_DIRECTORY) != 0) & mask;
+        
+        while(this.childTable[slot] >= 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+        
+        if(this.childTable[slot] == EMPTY_SLOT)
+        {
+            this.childTableUsed++;
+        }
+        
+        this.childTable[slot] = id;
+    }
+    
+    /**
+     * Rebuild child table, dropping removed slots and growing it if needed.
+     */
+    private void rehash()
+    {
+        int size = this.childTable.length;
+        
+        while(this.liveCount * 4 > size)
+        {
+            size *= 2;
+        }
+        
+        this.childTable = new int[size];
+        this.childTableUsed = 0;
+        Arrays.fill(this.childTable, EMPTY_SLOT);
+        
+        for(int id = 1; id < this.count; id++)
+        {
+            if((this.flags[id] & FLAG_REMOVED) == 0)
+            {
+                this.insertSlot(id);
+            }
+        }
+    }
+    
+    /**
+     * Grow object arrays to hold at least {@code capacity} objects.
+     * 
+     * @param capacity required capacity
+     */
+    private void ensureCapacity(int capacity)
+    {
+        if(capacity <= this.parentIds.length)
+        {
+            return;
+        }
+        
+        int newCapacity = Math.max(capacity, this.parentIds.length * 2);
+        
+        this.parentIds = Arrays.copyOf(this.parentIds, newCapacity);
+        this.sizes = Arrays.copyOf(this.sizes, newCapacity);
+        this.mountStorageIds = Arrays.copyOf(this.mountStorageIds, newCapacity);
+        this.accessCounts = Arrays.copyOf(this.accessCounts, newCapacity);
+        this.flags = Arrays.copyOf(this.flags, newCapacity);
+        this.firstChildIds = Arrays.copyOf(this.firstChildIds, newCapacity);
+        this.nextSiblingIds = Arrays.copyOf(this.nextSiblingIds, newCapacity);
+        this.nameOffsets = Arrays.copyOf(this.nameOffsets, newCapacity);
+        this.nameLengths = Arrays.copyOf(this.nameLengths, newCapacity);
+    }
+    
+    /**
+     * Grow name arena to hold at least {@code capacity} bytes.
+     * 
+     * @param capacity required capacity
+     */
+    private void ensureArenaCapacity(int capacity)
+    {
+        if(capacity > this.nameArena.length)
+        {
+            this.nameArena = Arrays.copyOf(this.nameArena, Math.max(capacity, this.nameArena.length * 2));
+        }
+    }
+}
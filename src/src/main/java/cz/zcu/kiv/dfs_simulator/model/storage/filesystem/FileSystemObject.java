@@ -12,9 +12,14 @@
 package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
 
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.SizeableObject;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.ErasureCodingPolicy;
+import java.util.concurrent.atomic.AtomicLong;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -31,6 +36,12 @@ public abstract class FileSystemObject implements SizeableObject, StatePersistab
     // used only for textual representation of this object
     protected static final StringProperty MOUNT_DEVICE_ID_SUFIX = new SimpleStringProperty("]");
     
+    /**
+     * Version of object paths, incremented whenever any object is renamed 
+     * or moved to another directory
+     */
+    private static final AtomicLong PATH_VERSION = new AtomicLong();
+    
     /**
      * Object name
      */
@@ -52,6 +63,27 @@ public abstract class FileSystemObject implements SizeableObject, StatePersistab
      * Whether file is in the process of migration
      */
     protected final BooleanProperty migrating = new SimpleBooleanProperty(false);
+    /**
+     * Erasure coding policy set on this object (null if not set)
+     */
+    protected ErasureCodingPolicy erasureCodingPolicy = null;
+    
+    /**
+     * Cached absolute path
+     */
+    private String cachedFullPath = null;
+    /**
+     * Cached identifier of absolute path
+     */
+    private int cachedPathId = FsPathIdentifiers.UNKNOWN_PATH_ID;
+    /**
+     * Identifier release count the cached path identifier has been obtained in
+     */
+    private long cachedPathIdReleases = -1;
+    /**
+     * Path version the cached path has been built in
+     */
+    private long cachedPathVersion = -1;
     
     /**
      * Construct new file object.
@@ -63,6 +95,20 @@ public abstract class FileSystemObject implements SizeableObject, StatePersistab
     {
         this.name = new SimpleStringProperty(name);
         this.parent = parent;
+        
+        this.name.addListener((observable, oldValue, newValue) -> PATH_VERSION.incrementAndGet());
+    }
+    
+    /**
+     * Get version of object paths. Any change of version means that full
+     * paths of some objects might have changed and paths derived from
+     * earlier versions should not be trusted.
+     * 
+     * @return path version
+     */
+    public static long getPathVersion()
+    {
+        return PATH_VERSION.get();
     }
     
     /**
@@ -129,6 +175,11 @@ public abstract class FileSystemObject implements SizeableObject, StatePersistab
      */
     public void setParent(FsDirectory parent)
     {
+        if(this.parent != parent)
+        {
+            PATH_VERSION.incrementAndGet();
+        }
+        
         this.parent = parent;
     }
     
@@ -164,11 +215,113 @@ public abstract class FileSystemObject implements SizeableObject, StatePersistab
     }
     
     /**
-     * Get absolute object path.
+     * Get erasure coding policy set directly on this object.
+     * 
+     * @return policy or null if not set
+     */
+    public ErasureCodingPolicy getErasureCodingPolicy()
+    {
+        return this.erasureCodingPolicy;
+    }
+    
+    /**
+     * Set erasure coding policy of this object.
+     * 
+     * @param policy policy, null to remove policy
+     */
+    public void setErasureCodingPolicy(ErasureCodingPolicy policy)
+    {
+        this.erasureCodingPolicy = policy;
+    }
+    
+    /**
+     * Add erasure coding policy set on this object (if any) to exported 
+     * {@code element}.
+     * 
+     * @param element exported element
+     */
+    protected void exportErasureCodingPolicy(StatePersistableElement element)
+    {
+        if(this.erasureCodingPolicy != null)
+        {
+            element.addAttribute(new StatePersistableAttribute("ecPolicy", this.erasureCodingPolicy.toPersistableValue()));
+        }
+    }
+    
+    /**
+     * Restore erasure coding policy from persisted {@code state}.
+     * 
+     * @param state persisted state
+     * @throws InvalidPersistedStateException policy attribute is not a valid policy
+     */
+    protected void restoreErasureCodingPolicy(StatePersistableElement state) throws InvalidPersistedStateException
+    {
+        // policy is optional (older saved states)
+        StatePersistableAttribute policyAttr = state.getAttribute("ecPolicy");
+        
+        if(policyAttr == null)
+        {
+            this.erasureCodingPolicy = null;
+            
+            return;
+        }
+        
+        this.erasureCodingPolicy = ErasureCodingPolicy.fromPersistableValue(policyAttr.getValue());
+        
+        if(this.erasureCodingPolicy == null)
+        {
+            throw new InvalidPersistedStateException("Invalid erasure coding policy: " + state);
+        }
+    }
+    
+    /**
+     * Get absolute object path. Path is built only once and cached 
+     * until any object is renamed or moved.
+     * 
+     * @return absolute path
+     */
+    public String getFullPath()
+    {
+        long version = PATH_VERSION.get();
+        
+        if(this.cachedFullPath == null || this.cachedPathVersion != version)
+        {
+            this.cachedFullPath = this.buildFullPath();
+            this.cachedPathId = FsPathIdentifiers.UNKNOWN_PATH_ID;
+            this.cachedPathVersion = version;
+        }
+        
+        return this.cachedFullPath;
+    }
+    
+    /**
+     * Get interned identifier of absolute object path (see
+     * {@link FsPathIdentifiers}). Objects sharing the same path 
+     * (replicas on different servers) share the same identifier.
+     * 
+     * @return path identifier
+     */
+    public int getPathId()
+    {
+        String path = this.getFullPath();
+        long releases = FsPathIdentifiers.getReleaseCount();
+        
+        // released identifier might have been reused for another path
+        if(this.cachedPathId == FsPathIdentifiers.UNKNOWN_PATH_ID || this.cachedPathIdReleases != releases)
+        {
+            this.cachedPathId = FsPathIdentifiers.getId(path);
+            this.cachedPathIdReleases = releases;
+        }
+        
+        return this.cachedPathId;
+    }
+    
+    /**
+     * Build absolute object path.
      * 
      * @return absolute path
      */
-    abstract public String getFullPath();
+    abstract protected String buildFullPath();
     
     /**
      * Get relative object path.
@@ -18,8 +18,9 @@ import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -40,11 +41,26 @@ public class FsDirectory extends FileSystemObject
      */
     public static final String DIR_PATH_SEPARATOR = "/";
     
+    /**
+     * Attribute referencing namespace image with unloaded children
+     */
+    protected static final String NAMESPACE_IMAGE_ATTRIBUTE = "namespace_image";
+    
     /**
      * Directory children
      */
     protected final FsObjectChildContainer childContainer;
     
+    /**
+     * Namespace holding children that have not been loaded yet
+     * (null if directory is loaded)
+     */
+    UnloadedNamespace unloadedNamespace = null;
+    /**
+     * ID of this directory in {@link #unloadedNamespace}
+     */
+    int unloadedId = CompactNamespace.NO_OBJECT;
+    
     /**
      * Construct directory.
      * 
@@ -79,7 +95,44 @@ public class FsDirectory extends FileSystemObject
     }
     
     /**
-     * Get specific child object by path.
+     * Check if children of this directory have been loaded. Children of 
+     * unloaded directory are only kept in a {@link CompactNamespace} or
+     * a {@link MappedNamespaceImage} and are created by {@link ServerFileSystemManager#loadDirectory(FsDirectory)}.
+     * 
+     * @return true if loaded
+     */
+    public boolean isLoaded()
+    {
+        return this.unloadedNamespace == null;
+    }
+    
+    /**
+     * Mark this directory as unloaded, it's children are kept as 
+     * children of {@code id} in {@code namespace}.
+     * 
+     * @param namespace namespace
+     * @param id directory ID in {@code namespace}
+     */
+    void setUnloaded(UnloadedNamespace namespace, int id)
+    {
+        this.unloadedNamespace = namespace;
+        this.unloadedId = id;
+        this.childContainer.setUnloadedSize(namespace.getSize(id));
+    }
+    
+    /**
+     * Mark this directory as loaded.
+     */
+    void setLoaded()
+    {
+        this.unloadedNamespace = null;
+        this.unloadedId = CompactNamespace.NO_OBJECT;
+        this.childContainer.setUnloadedSize(0);
+    }
+    
+    /**
+     * Get specific child object by path. Only loaded objects are searched,
+     * see {@link ServerFileSystemManager#getObject(java.lang.String)}.
      * 
      * @param path child object path
      * @return if found an instance of {@link FileSystemObject}, else null
@@ -116,7 +169,8 @@ public class FsDirectory extends FileSystemObject
     }
     
     /**
-     * Method that is called recursively to find child object in given path.
+     * Find child object in given path. Path components are resolved one
+     * by one, each using hashed lookup of directory children.
      * 
      * @param path child path
      * @param isDirectory if object we are looking for (child) is a directory
@@ -125,12 +179,14 @@ public class FsDirectory extends FileSystemObject
      */
     private FileSystemObject int_getChildObject(String path, boolean isDirectory, boolean createNonExisting)
     {
-        // remove begining separator if it exists and we are a root directory
+        int begin = 0;
+        
+        // skip begining separator if it exists and we are a root directory
         if(path.startsWith(DIR_PATH_SEPARATOR))
         {
             if(this.name.get().equals(DIR_PATH_SEPARATOR))
             {
-                path = path.substring(1);
+                begin = 1;
             }
             else
             {
@@ -138,55 +194,49 @@ public class FsDirectory extends FileSystemObject
             }
         }
         
-        if(path.contains(DIR_PATH_SEPARATOR))
+        FsDirectory directory = this;
+        int end = path.indexOf(DIR_PATH_SEPARATOR, begin);
+        
+        // walk through directories on the path
+        while(end != -1)
         {
-            String[] pathParts = path.split(DIR_PATH_SEPARATOR);
-            
-            // get first object at path
-            FileSystemObject object = this.childContainer.getByName(pathParts[0]);
+            String component = path.substring(begin, end);
+            FileSystemObject object = directory.childContainer.getByName(component);
             
             // create if it does not exist
             if(object == null && createNonExisting)
             {
-                object = new FsDirectory(pathParts[0], this);
-                this.getChildren().add(object);
+                object = new FsDirectory(component, directory);
+                directory.getChildren().add(object);
             }
             
-            if(object instanceof FsDirectory)
+            if(!(object instanceof FsDirectory))
             {
-                FsDirectory directory = (FsDirectory) object;
-                String newPath = String.join(DIR_PATH_SEPARATOR, 
-                        Arrays.copyOfRange(pathParts, 1, pathParts.length));
-                
-                if(isDirectory)
-                {
-                    newPath += DIR_PATH_SEPARATOR;
-                }
-                
-                return directory.getChildObject(newPath, createNonExisting);
+                return null;
             }
+            
+            directory = (FsDirectory) object;
+            begin = end + 1;
+            end = path.indexOf(DIR_PATH_SEPARATOR, begin);
         }
-        else
+        
+        String childName = path.substring(begin);
+        FileSystemObject found = directory.childContainer.getByNameAndType(childName, (isDirectory) ? FsObjectType.DIRECTORY : FsObjectType.FILE);
+
+        if(found == null && createNonExisting)
         {
-            FileSystemObject found = this.childContainer.getByNameAndType(path, (isDirectory) ? FsObjectType.DIRECTORY : FsObjectType.FILE);
-            
-            if(found == null && createNonExisting)
+            if(isDirectory)
             {
-                if(isDirectory)
-                {
-                    found = new FsDirectory(path, this);
-                }
-                else
-                {
-                    found = new FsFile(path, new ByteSize(0), this);
-                }
-                this.getChildren().add(found);
+                found = new FsDirectory(childName, directory);
             }
-            
-            return found;
+            else
+            {
+                found = new FsFile(childName, new ByteSize(0), directory);
+            }
+            directory.getChildren().add(found);
         }
-        
-        return null;
+
+        return found;
     }
     
     /**
@@ -233,7 +283,7 @@ public class FsDirectory extends FileSystemObject
     /**
      * {@inheritDoc}
      */
-    @Override public String getFullPath()
+    @Override protected String buildFullPath()
     {
         if(this.parent != null)
         {
@@ -275,6 +325,24 @@ public class FsDirectory extends FileSystemObject
         StatePersistableElement element = new StatePersistableElement(this.getPersistableName());
         
         element.addAttribute(new StatePersistableAttribute("name", name.get()));
+        this.exportErasureCodingPolicy(element);
+        
+        // unloaded children are exported into a namespace image
+        if(!this.isLoaded())
+        {
+            if(this.unloadedId == CompactNamespace.ROOT_ID)
+            {
+                UnloadedNamespace namespace = this.unloadedNamespace;
+                
+                element.addAttachment(NAMESPACE_IMAGE_ATTRIBUTE, namespace::writeImage);
+            }
+            else
+            {
+                CompactNamespace namespace = CompactNamespace.fromTree(this);
+                
+                element.addAttachment(NAMESPACE_IMAGE_ATTRIBUTE, file -> MappedNamespaceImage.write(namespace, file));
+            }
+        }
         
         return element;
     }
@@ -302,6 +370,8 @@ public class FsDirectory extends FileSystemObject
                         "Unexpected name attribute for Directory " + state);
             }
             
+            this.restoreErasureCodingPolicy(state);
+            
             for(StatePersistableElement childElement : state.getElements())
             {
                 StatePersistableAttribute childNameAttr = childElement.getAttribute("name");
@@ -342,6 +412,44 @@ public class FsDirectory extends FileSystemObject
                     }
                 }
             }
+            
+            // namespace image is optional (older saved states)
+            if(state.getAttribute(NAMESPACE_IMAGE_ATTRIBUTE) != null)
+            {
+                this.restoreNamespaceImage(state, fsManager);
+            }
+        }
+    }
+    
+    /**
+     * Attach children stored in namespace image referenced by {@code state}
+     * as unloaded children of this directory.
+     * 
+     * @param state directory state
+     * @param fsManager file system manager
+     * @throws InvalidPersistedStateException thrown when the image cannot be read
+     */
+    private void restoreNamespaceImage(StatePersistableElement state, ServerFileSystemManager fsManager) throws InvalidPersistedStateException
+    {
+        File imageFile = state.getAttachmentFile(NAMESPACE_IMAGE_ATTRIBUTE);
+        
+        if(imageFile == null || !this.getChildren().isEmpty())
+        {
+            throw new InvalidPersistedStateException("Unable to restore namespace image of directory " + name.get() + ": " + state);
+        }
+        
+        try
+        {
+            // image is only mapped, objects are read from it when looked up
+            fsManager.attachUnloadedNamespace(this, MappedNamespaceImage.open(imageFile));
+        }
+        catch (IOException ex)
+        {
+            throw new InvalidPersistedStateException("Unable to read namespace image " + imageFile + " of directory " + name.get() + ": " + ex.getMessage());
+        }
+        catch (NotEnoughSpaceLeftException ex)
+        {
+            throw new InvalidPersistedStateException("Unable to restore namespace image of directory " + name.get() + " because of insufficient space left on mounted device.");
         }
     }
     
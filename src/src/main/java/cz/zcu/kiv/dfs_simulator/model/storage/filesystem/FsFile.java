@@ -18,6 +18,7 @@ import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
 import cz.zcu.kiv.dfs_simulator.helpers.Helper;
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.ErasureCodingPolicy;
 import java.util.ArrayList;
 import java.util.List;
 import javafx.beans.property.IntegerProperty;
@@ -51,6 +52,31 @@ public class FsFile extends FileSystemObject
      * File size
      */
     protected final ByteSize size;
+    /**
+     * Size actually occupied on storage - equal to {@link #size} unless the
+     * content is deduplicated against another file on the same server or
+     * the file is a stub
+     */
+    protected final ByteSize storedSize = new ByteSize();
+    
+    /**
+     * Content fingerprint (null if content is not fingerprinted)
+     */
+    protected String fingerprint = null;
+    /**
+     * Content is deduplicated against another file on the same server
+     */
+    protected boolean deduplicated = false;
+    /**
+     * Content is stored elsewhere (as blocks or erasure coded fragments), 
+     * the file only keeps its namespace entry
+     */
+    protected boolean stub = false;
+    /**
+     * Policy the content of this file has been erasure coded with
+     * (null if file is not encoded)
+     */
+    protected ErasureCodingPolicy encodingPolicy = null;
     
     /**
      * File constructor.
@@ -64,6 +90,7 @@ public class FsFile extends FileSystemObject
         super(name, directory);
         
         this.size = size;
+        this.storedSize.bytesProperty().bind(this.size.bytesProperty());
     }
     
     /**
@@ -76,6 +103,123 @@ public class FsFile extends FileSystemObject
         this.size.bytesProperty().set(size.bytesProperty().get());
     }
     
+    /**
+     * Get content fingerprint. Files with equal fingerprints have identical
+     * content.
+     * 
+     * @return fingerprint or null if content is not fingerprinted
+     */
+    public String getFingerprint()
+    {
+        return this.fingerprint;
+    }
+    
+    /**
+     * Set content fingerprint. Fingerprint of a file which is already part 
+     * of a server namespace should be changed using 
+     * {@link ServerFileSystemManager#setFileFingerprint(FsFile, String)} 
+     * so that deduplication index is kept up to date.
+     * 
+     * @param fingerprint fingerprint or null
+     */
+    public void setFingerprint(String fingerprint)
+    {
+        this.fingerprint = (fingerprint != null && fingerprint.isEmpty()) ? null : fingerprint;
+    }
+    
+    /**
+     * Check if content of this file is deduplicated against another file
+     * stored on the same server and therefore occupies no storage space.
+     * 
+     * @return true if deduplicated
+     */
+    public boolean isDeduplicated()
+    {
+        return this.deduplicated;
+    }
+    
+    /**
+     * Set deduplication state. Only called by {@link ServerFileSystemManager}.
+     * 
+     * @param deduplicated true if content is stored elsewhere on the server
+     */
+    void setDeduplicated(boolean deduplicated)
+    {
+        if(this.deduplicated == deduplicated)
+        {
+            return;
+        }
+        
+        this.deduplicated = deduplicated;
+        this.updateStoredSize();
+    }
+    
+    /**
+     * Get policy the content of this file has been erasure coded with.
+     * 
+     * @return policy or null if file is not encoded
+     */
+    public ErasureCodingPolicy getEncodingPolicy()
+    {
+        return this.encodingPolicy;
+    }
+    
+    /**
+     * Set policy the content of this file has been erasure coded with.
+     * 
+     * @param encodingPolicy policy or null if file is no longer encoded
+     */
+    public void setEncodingPolicy(ErasureCodingPolicy encodingPolicy)
+    {
+        this.encodingPolicy = encodingPolicy;
+    }
+    
+    /**
+     * Check if this file is a stub - it's content is stored elsewhere
+     * (as blocks or erasure coded fragments) and therefore occupies
+     * no storage space.
+     * 
+     * @return true if stub
+     */
+    public boolean isStub()
+    {
+        return this.stub;
+    }
+    
+    /**
+     * Set stub state. Content of a stub file is stored elsewhere, so
+     * the file occupies no storage space.
+     * 
+     * @param stub true if content is stored elsewhere
+     */
+    public void setStub(boolean stub)
+    {
+        if(this.stub == stub)
+        {
+            return;
+        }
+        
+        this.stub = stub;
+        this.updateStoredSize();
+    }
+    
+    /**
+     * Update size actually occupied on storage - nothing is occupied
+     * if content is deduplicated or stored elsewhere.
+     */
+    private void updateStoredSize()
+    {
+        if(this.deduplicated || this.stub)
+        {
+            this.storedSize.bytesProperty().unbind();
+            this.storedSize.setBytes(0);
+        }
+        else
+        {
+            this.storedSize.bytesProperty().bind(this.size.bytesProperty());
+        }
+    }
+    
     /**
      * Increment access counter by 1.
      */
@@ -125,13 +269,13 @@ public class FsFile extends FileSystemObject
      */
     @Override public ByteSize getMountSize()
     {
-        return this.getSize();
+        return this.storedSize;
     }
     
     /**
      * {@inheritDoc}
      */
-    @Override public String getFullPath()
+    @Override protected String buildFullPath()
     {
         return parent.getFullPath() + name.get();
     }
@@ -162,6 +306,23 @@ public class FsFile extends FileSystemObject
         element.addAttribute(new StatePersistableAttribute("name", name.get()));
         element.addAttribute(new StatePersistableAttribute("size", "" + this.size.bytesProperty().get()));
         
+        if(this.fingerprint != null)
+        {
+            element.addAttribute(new StatePersistableAttribute("fingerprint", this.fingerprint));
+        }
+        
+        if(this.stub)
+        {
+            element.addAttribute(new StatePersistableAttribute("stub", "true"));
+        }
+        
+        if(this.encodingPolicy != null)
+        {
+            element.addAttribute(new StatePersistableAttribute("ecEncoding", this.encodingPolicy.toPersistableValue()));
+        }
+        
+        this.exportErasureCodingPolicy(element);
+        
         return element;
     }
     
@@ -181,6 +342,24 @@ public class FsFile extends FileSystemObject
             }
             
             this.size.setBytes(Long.parseLong(sizeAttr.getValue()));
+            
+            StatePersistableAttribute fingerprintAttr = state.getAttribute("fingerprint");
+            this.setFingerprint((fingerprintAttr != null) ? fingerprintAttr.getValue() : null);
+            
+            // stub is optional (older saved states)
+            StatePersistableAttribute stubAttr = state.getAttribute("stub");
+            this.setStub(stubAttr != null && Boolean.parseBoolean(stubAttr.getValue()));
+            
+            // encoding is optional (older saved states)
+            StatePersistableAttribute encodingAttr = state.getAttribute("ecEncoding");
+            this.encodingPolicy = (encodingAttr != null) ? ErasureCodingPolicy.fromPersistableValue(encodingAttr.getValue()) : null;
+            
+            if(encodingAttr != null && this.encodingPolicy == null)
+            {
+                throw new InvalidPersistedStateException("Invalid erasure coding policy of encoded file: " + state);
+            }
+            
+            this.restoreErasureCodingPolicy(state);
         }
     }
     
@@ -12,20 +12,25 @@
 package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
 
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import cz.zcu.kiv.dfs_simulator.model.SimulationContext;
+import java.util.List;
 import java.util.Set;
 
 /**
- * Global {@link FileSystemObject} registry.
+ * Global {@link FileSystemObject} registry. Delegates to the 
+ * {@link FsObjectRegistry} of the current {@link SimulationContext}.
  */
 public class FsGlobalObjectRegistry
 {
     /**
-     * Mapping of paths to {@link ObjectRegistryEntry}
+     * Get registry of the current context.
+     * 
+     * @return object registry
      */
-    private static final Map<String, ObjectRegistryEntry> OBJECT_SERVER_REGISTRY = new HashMap<>();
+    private static FsObjectRegistry registry()
+    {
+        return SimulationContext.getCurrent().getObjectRegistry();
+    }
     
     /**
      * Add new entry.
@@ -35,17 +40,7 @@ public class FsGlobalObjectRegistry
      */
     public static void addEntry(FileSystemObject object, ModelServerNode node)
     {
-        String fullPath = object.getFullPath();
-        ObjectRegistryEntry ore = OBJECT_SERVER_REGISTRY.get(fullPath);
-        
-        if(ore == null)
-        {
-            ore = new ObjectRegistryEntry();
-            OBJECT_SERVER_REGISTRY.put(fullPath, ore);
-        }
-        
-        ore.servers.add(node);
-        ore.fsObjects.add(object);
+        registry().addEntry(object, node);
     }
     
     /**
@@ -56,21 +51,7 @@ public class FsGlobalObjectRegistry
      */
     public static void removeEntry(FileSystemObject object, ModelServerNode node)
     {
-        String fullPath = object.getFullPath();
-        ObjectRegistryEntry ore = OBJECT_SERVER_REGISTRY.get(fullPath);
-        
-        if(ore != null)
-        {
-            ore.servers.remove(node);
-            ore.fsObjects.remove(object);
-            
-            // both sets should always have the same size
-            if(ore.servers.isEmpty() || ore.fsObjects.isEmpty())
-            {
-                // remove from registry
-                OBJECT_SERVER_REGISTRY.remove(fullPath);
-            }
-        }
+        registry().removeEntry(object, node);
     }
     
     /**
@@ -80,7 +61,7 @@ public class FsGlobalObjectRegistry
      */
     public static void removePath(String path)
     {
-        OBJECT_SERVER_REGISTRY.remove(path);
+        registry().removePath(path);
     }
     
     /**
@@ -91,7 +72,7 @@ public class FsGlobalObjectRegistry
      */
     public static void addPath(String path, ObjectRegistryEntry entry)
     {
-        OBJECT_SERVER_REGISTRY.put(path, entry);
+        registry().addPath(path, entry);
     }
     
     /**
@@ -102,7 +83,18 @@ public class FsGlobalObjectRegistry
      */
     public static ObjectRegistryEntry getObjectEntry(String path)
     {
-        return OBJECT_SERVER_REGISTRY.get(path);
+        return registry().getObjectEntry(path);
+    }
+    
+    /**
+     * Get entry by path identifier.
+     * 
+     * @param pathId path identifier
+     * @return entry
+     */
+    public static ObjectRegistryEntry getObjectEntry(int pathId)
+    {
+        return registry().getObjectEntry(pathId);
     }
     
     /**
@@ -113,7 +105,37 @@ public class FsGlobalObjectRegistry
      */
     public static ObjectRegistryEntry getObjectEntry(FileSystemObject object)
     {
-        return getObjectEntry(object.getFullPath());
+        return registry().getObjectEntry(object);
+    }
+    
+    /**
+     * Get all registered entries.
+     * 
+     * @return entries
+     */
+    public static List<ObjectRegistryEntry> getEntries()
+    {
+        return registry().getEntries();
+    }
+    
+    /**
+     * Register file system manager of server with unloaded directories.
+     * 
+     * @param manager file system manager
+     */
+    public static void addPartiallyLoaded(ServerFileSystemManager manager)
+    {
+        registry().addPartiallyLoaded(manager);
+    }
+    
+    /**
+     * Unregister file system manager whose directories are all loaded.
+     * 
+     * @param manager file system manager
+     */
+    public static void removePartiallyLoaded(ServerFileSystemManager manager)
+    {
+        registry().removePartiallyLoaded(manager);
     }
     
     /**
@@ -124,15 +146,7 @@ public class FsGlobalObjectRegistry
      */
     public static Set<ModelServerNode> getEntryMountedNodeList(FileSystemObject object)
     {
-        ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(object);
-        Set<ModelServerNode> nodeList = new HashSet<>(ore.servers);
-        
-        if(nodeList.isEmpty())
-        {
-            nodeList.removeIf(x -> x.getFsManager().getFsObjectMountDeviceByName(object) == null);
-        }
-        
-        return nodeList;
+        return registry().getEntryMountedNodeList(object);
     }
     
     /**
@@ -140,7 +154,7 @@ public class FsGlobalObjectRegistry
      */
     public static void purge()
     {
-        OBJECT_SERVER_REGISTRY.clear();
+        registry().purge();
     }
     
     /**
@@ -148,10 +162,6 @@ public class FsGlobalObjectRegistry
      */
     public static void resetAccessCounters()
     {
-        OBJECT_SERVER_REGISTRY.entrySet().stream().forEach(e -> {
-            e.getValue().fsObjects.stream().filter(o -> o instanceof FsFile).map(o -> (FsFile) o).forEach(o -> {
-                o.accessCounterProperty().set(0);
-            });
-        });
+        registry().resetAccessCounters();
     }
 }
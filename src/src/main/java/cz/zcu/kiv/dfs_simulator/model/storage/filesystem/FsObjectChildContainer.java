@@ -12,7 +12,16 @@
 package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
 
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 /**
@@ -24,6 +33,15 @@ public class FsObjectChildContainer
      * List of children
      */
     protected final ObservableList<FileSystemObject> children = FXCollections.observableArrayList();
+    /**
+     * Children with each name (usually just one, a file and a directory 
+     * can share the same name), kept in sync with {@link #children}
+     */
+    protected final Map<String, List<FileSystemObject>> nameIndex = new HashMap<>();
+    /**
+     * Listener re-indexing renamed children
+     */
+    private final ChangeListener<String> nameChangedListener;
     
     /**
      * Total size of all children
@@ -43,6 +61,11 @@ public class FsObjectChildContainer
      * Mount size binding
      */
     protected MountChildSizeBinding mountSizeBinding;
+    /**
+     * Size of children that have not been loaded yet (created on first use,
+     * most directories never have unloaded children)
+     */
+    protected LongProperty unloadedSize = null;
     
     /**
      * Construct new container with initial sizes set to 0.
@@ -57,6 +80,101 @@ public class FsObjectChildContainer
         
         this.totalSize.bytesProperty().bind(this.totalSizeBinding);
         this.mountSize.bytesProperty().bind(this.mountSizeBinding);
+        
+        this.nameChangedListener = (observable, oldValue, newValue) ->
+        {
+            List<FileSystemObject> named = this.nameIndex.get(oldValue);
+            
+            if(named == null)
+            {
+                return;
+            }
+            
+            for(Iterator<FileSystemObject> it = named.iterator(); it.hasNext();)
+            {
+                FileSystemObject object = it.next();
+                
+                if(object.nameProperty() == observable)
+                {
+                    it.remove();
+                    this.removeEmptyName(oldValue, named);
+                    this.indexName(object);
+                    
+                    break;
+                }
+            }
+        };
+        
+        this.children.addListener((ListChangeListener.Change<? extends FileSystemObject> change) ->
+        {
+            while(change.next())
+            {
+                if(change.wasPermutated())
+                {
+                    continue;
+                }
+                
+                for(FileSystemObject removed : change.getRemoved())
+                {
+                    removed.nameProperty().removeListener(this.nameChangedListener);
+                    this.unindexName(removed);
+                }
+                
+                for(FileSystemObject added : change.getAddedSubList())
+                {
+                    added.nameProperty().addListener(this.nameChangedListener);
+                    this.indexName(added);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Add {@code object} to name index.
+     * 
+     * @param object child object
+     */
+    private void indexName(FileSystemObject object)
+    {
+        List<FileSystemObject> named = this.nameIndex.get(object.nameProperty().get());
+        
+        if(named == null)
+        {
+            named = new ArrayList<>(1);
+            this.nameIndex.put(object.nameProperty().get(), named);
+        }
+        
+        named.add(object);
+    }
+    
+    /**
+     * Remove {@code object} from name index.
+     * 
+     * @param object child object
+     */
+    private void unindexName(FileSystemObject object)
+    {
+        List<FileSystemObject> named = this.nameIndex.get(object.nameProperty().get());
+        
+        if(named != null)
+        {
+            named.removeIf(o -> o == object);
+            this.removeEmptyName(object.nameProperty().get(), named);
+        }
+    }
+    
+    /**
+     * Remove {@code name} from name index if no child has it.
+     * 
+     * @param name name
+     * @param named children with {@code name}
+     */
+    private void removeEmptyName(String name, List<FileSystemObject> named)
+    {
+        if(named.isEmpty())
+        {
+            this.nameIndex.remove(name);
+        }
     }
     
     /**
@@ -90,22 +208,49 @@ public class FsObjectChildContainer
     }
     
     /**
-     * Get child object by name.
+     * Get size of children that have not been loaded yet.
      * 
-     * @param name name
-     * @return child object if found, null otherwise
+     * @return unloaded size in bytes
      */
-    public FileSystemObject getByName(String name)
+    public long getUnloadedSize()
     {
-        for(FileSystemObject object : this.children)
+        return (this.unloadedSize != null) ? this.unloadedSize.get() : 0;
+    }
+    
+    /**
+     * Set size of children that have not been loaded yet. Unloaded size
+     * is included in both total and mount size.
+     * 
+     * @param bytes unloaded size in bytes
+     */
+    public void setUnloadedSize(long bytes)
+    {
+        if(this.unloadedSize == null)
         {
-            if(object.nameProperty().get().equals(name))
+            if(bytes == 0)
             {
-                return object;
+                return;
             }
+            
+            this.unloadedSize = new SimpleLongProperty(0);
+            this.totalSize.bytesProperty().bind(this.totalSizeBinding.add(this.unloadedSize));
+            this.mountSize.bytesProperty().bind(this.mountSizeBinding.add(this.unloadedSize));
         }
         
-        return null;
+        this.unloadedSize.set(bytes);
+    }
+    
+    /**
+     * Get child object by name.
+     * 
+     * @param name name
+     * @return child object if found, null otherwise
+     */
+    public FileSystemObject getByName(String name)
+    {
+        List<FileSystemObject> named = this.nameIndex.get(name);
+        
+        return (named != null) ? named.get(0) : null;
     }
     
     /**
@@ -117,11 +262,16 @@ public class FsObjectChildContainer
      */
     public FileSystemObject getByNameAndType(String name, FsObjectType type)
     {
-        for(FileSystemObject object : this.children)
+        List<FileSystemObject> named = this.nameIndex.get(name);
+        
+        if(named != null)
         {
-            if(object.nameProperty().get().equals(name) && object.getType() == type)
+            for(FileSystemObject object : named)
             {
-                return object;
+                if(object.getType() == type)
+                {
+                    return object;
+                }
             }
         }
         
@@ -0,0 +1,278 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
+
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link FileSystemObject} instances of a single simulation
+ * context. Entries are keyed by path identifiers (see {@link FsPathIdentifiers}),
+ * each entry holds a reference to its identifier until it is removed,
+ * and kept in a concurrent map - reads do not take any locks and 
+ * modifications only lock the affected part of the table, so the registry 
+ * can be shared by parallel simulation workers.
+ * 
+ * Objects of unloaded directories (see {@link FsDirectory#isLoaded()}) are
+ * not registered until they are loaded - entry lookups load the looked up
+ * path on all servers with unloaded directories first, listing of all 
+ * entries loads them completely.
+ */
+public class FsObjectRegistry
+{
+    /**
+     * Expected number of threads modifying the registry concurrently
+     */
+    private static final int CONCURRENCY_LEVEL = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * Mapping of path identifiers to {@link ObjectRegistryEntry}
+     */
+    private final Map<Integer, ObjectRegistryEntry> entries = new ConcurrentHashMap<>(16, 0.75f, CONCURRENCY_LEVEL);
+    /**
+     * File system managers of servers with unloaded directories
+     */
+    private final Set<ServerFileSystemManager> partiallyLoaded = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Add new entry.
+     * 
+     * @param object object
+     * @param node object's server node
+     */
+    public void addEntry(FileSystemObject object, ModelServerNode node)
+    {
+        int id = FsPathIdentifiers.acquire(object.getFullPath());
+        boolean[] created = new boolean[1];
+        
+        this.entries.compute(id, (pathId, ore) ->
+        {
+            if(ore == null)
+            {
+                ore = new ObjectRegistryEntry();
+                created[0] = true;
+            }
+            
+            ore.servers.add(node);
+            ore.fsObjects.add(object);
+            
+            return ore;
+        });
+        
+        // existing entry already holds reference to the identifier
+        if(!created[0])
+        {
+            FsPathIdentifiers.release(id);
+        }
+    }
+    
+    /**
+     * Remove entry.
+     * 
+     * @param object object
+     * @param node object's server node
+     */
+    public void removeEntry(FileSystemObject object, ModelServerNode node)
+    {
+        int id = FsPathIdentifiers.findId(object.getFullPath());
+        boolean[] removed = new boolean[1];
+        
+        this.entries.computeIfPresent(id, (pathId, ore) ->
+        {
+            ore.servers.remove(node);
+            ore.fsObjects.remove(object);
+            
+            // both lists should always have the same size, remove empty entry from registry
+            removed[0] = (ore.servers.isEmpty() || ore.fsObjects.isEmpty());
+            
+            return removed[0] ? null : ore;
+        });
+        
+        if(removed[0])
+        {
+            FsPathIdentifiers.release(id);
+        }
+    }
+    
+    /**
+     * Remove all object entries with given path.
+     * 
+     * @param path path
+     */
+    public void removePath(String path)
+    {
+        int id = FsPathIdentifiers.findId(path);
+        
+        if(this.entries.remove(id) != null)
+        {
+            FsPathIdentifiers.release(id);
+        }
+    }
+    
+    /**
+     * Add {@link ObjectRegistryEntry} with given path {@code path}.
+     * 
+     * @param path entry path
+     * @param entry entry
+     */
+    public void addPath(String path, ObjectRegistryEntry entry)
+    {
+        int id = FsPathIdentifiers.acquire(path);
+        
+        // replaced entry held reference to the same identifier
+        if(this.entries.put(id, entry) != null)
+        {
+            FsPathIdentifiers.release(id);
+        }
+    }
+    
+    /**
+     * Get entry by path.
+     * 
+     * @param path path
+     * @return entry
+     */
+    public ObjectRegistryEntry getObjectEntry(String path)
+    {
+        this.loadPath(path);
+        
+        return this.entries.get(FsPathIdentifiers.findId(path));
+    }
+    
+    /**
+     * Get entry by path identifier.
+     * 
+     * @param pathId path identifier
+     * @return entry
+     */
+    public ObjectRegistryEntry getObjectEntry(int pathId)
+    {
+        if(!this.partiallyLoaded.isEmpty())
+        {
+            String path = FsPathIdentifiers.getPath(pathId);
+            
+            if(path != null)
+            {
+                this.loadPath(path);
+            }
+        }
+        
+        return this.entries.get(pathId);
+    }
+    
+    /**
+     * Get entry by object's path.
+     * 
+     * @param object object
+     * @return entry
+     */
+    public ObjectRegistryEntry getObjectEntry(FileSystemObject object)
+    {
+        return this.getObjectEntry(object.getPathId());
+    }
+    
+    /**
+     * Get all registered entries.
+     * 
+     * @return entries
+     */
+    public List<ObjectRegistryEntry> getEntries()
+    {
+        new ArrayList<>(this.partiallyLoaded).forEach(ServerFileSystemManager::loadAll);
+        
+        return new ArrayList<>(this.entries.values());
+    }
+    
+    /**
+     * Register file system manager of server with unloaded directories.
+     * 
+     * @param manager file system manager
+     */
+    public void addPartiallyLoaded(ServerFileSystemManager manager)
+    {
+        this.partiallyLoaded.add(manager);
+    }
+    
+    /**
+     * Unregister file system manager whose directories are all loaded.
+     * 
+     * @param manager file system manager
+     */
+    public void removePartiallyLoaded(ServerFileSystemManager manager)
+    {
+        this.partiallyLoaded.remove(manager);
+    }
+    
+    /**
+     * Load objects in {@code path} on all servers with unloaded directories.
+     * 
+     * @param path path
+     */
+    private void loadPath(String path)
+    {
+        if(!this.partiallyLoaded.isEmpty())
+        {
+            this.partiallyLoaded.forEach(m -> m.loadPath(path));
+        }
+    }
+    
+    /**
+     * Get servers with mounted objects in path given by {@code path}.
+     * 
+     * @param object object
+     * @return server list
+     */
+    public Set<ModelServerNode> getEntryMountedNodeList(FileSystemObject object)
+    {
+        ObjectRegistryEntry ore = this.getObjectEntry(object);
+        Set<ModelServerNode> nodeList = new HashSet<>(ore.servers);
+        
+        if(nodeList.isEmpty())
+        {
+            nodeList.removeIf(x -> x.getFsManager().getFsObjectMountDeviceByName(object) == null);
+        }
+        
+        return nodeList;
+    }
+    
+    /**
+     * Clean registry and release identifiers of its paths.
+     */
+    public void purge()
+    {
+        this.entries.keySet().forEach(FsPathIdentifiers::release);
+        this.entries.clear();
+        this.partiallyLoaded.clear();
+        
+        FsPathIdentifiers.releaseUnreferenced();
+    }
+    
+    /**
+     * Reset access counter for all registered files.
+     */
+    public void resetAccessCounters()
+    {
+        this.partiallyLoaded.forEach(ServerFileSystemManager::resetUnloadedAccessCounters);
+        
+
+        this.entries.values().stream().forEach(ore -> {
+            ore.fsObjects.stream().filter(o -> o instanceof FsFile).map(o -> (FsFile) o).forEach(o -> {
+                o.accessCounterProperty().set(0);
+            });
+        });
+    }
+}
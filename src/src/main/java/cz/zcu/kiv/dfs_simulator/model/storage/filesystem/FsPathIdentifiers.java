@@ -0,0 +1,241 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Interned identifiers of full object paths. Every distinct path gets
+ * a compact integer ID, so it can be used as a key instead of the path itself.
+ * Identifiers are shared by all simulation contexts and reference counted
+ * by object registries - identifier is released (and may be reused for 
+ * another path) once no registry has an entry with its path. Looking up 
+ * an already interned path does not take any locks.
+ */
+public class FsPathIdentifiers
+{
+    /**
+     * Identifier returned for paths that have not been interned yet
+     */
+    public static final int UNKNOWN_PATH_ID = -1;
+    /**
+     * Initial capacity of identifier table
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    /**
+     * Mapping of paths to their identifiers
+     */
+    private static final Map<String, Integer> PATH_IDS = new ConcurrentHashMap<>();
+    /**
+     * Interned paths (same instances as keys of {@link #PATH_IDS}), indexed 
+     * by their identifiers, null for free identifiers
+     */
+    private static volatile AtomicReferenceArray<String> paths = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    /**
+     * Number of registry entries referencing each identifier
+     */
+    private static int[] references = new int[INITIAL_CAPACITY];
+    /**
+     * Released identifiers available for reuse
+     */
+    private static final Deque<Integer> FREE_IDS = new ArrayDeque<>();
+    /**
+     * Next never used identifier
+     */
+    private static int nextId = 0;
+    /**
+     * Number of released identifiers - any change means that previously 
+     * obtained identifiers might no longer belong to their paths
+     */
+    private static final AtomicLong RELEASE_COUNT = new AtomicLong();
+    
+    /**
+     * Get identifier of {@code path}, interning the path if it does not
+     * have one yet. Identifier is not referenced, so it may be released
+     * by {@link #releaseUnreferenced()}.
+     * 
+     * @param path full path
+     * @return path identifier
+     */
+    public static int getId(String path)
+    {
+        Integer id = PATH_IDS.get(path);
+        
+        return (id != null) ? id : intern(path);
+    }
+    
+    /**
+     * Get identifier of {@code path} and add reference to it - identifier
+     * is kept until the reference is released by {@link #release(int)}.
+     * 
+     * @param path full path
+     * @return path identifier
+     */
+    public static synchronized int acquire(String path)
+    {
+        int id = intern(path);
+        references[id]++;
+        
+        return id;
+    }
+    
+    /**
+     * Release reference to identifier {@code id}. Identifier of path 
+     * that is no longer referenced is released.
+     * 
+     * @param id path identifier
+     */
+    public static synchronized void release(int id)
+    {
+        if(id < 0 || id >= nextId || paths.get(id) == null || references[id] == 0)
+        {
+            return;
+        }
+        
+        references[id]--;
+        
+        if(references[id] == 0)
+        {
+            free(id);
+        }
+    }
+    
+    /**
+     * Release identifiers of paths that have been looked up but are not
+     * referenced by any registry entry.
+     */
+    public static synchronized void releaseUnreferenced()
+    {
+        for(int id = 0; id < nextId; id++)
+        {
+            if(references[id] == 0 && paths.get(id) != null)
+            {
+                free(id);
+            }
+        }
+    }
+    
+    /**
+     * Assign new identifier to {@code path} unless another thread
+     * has already done so.
+     * 
+     * @param path full path
+     * @return path identifier
+     */
+    private static synchronized int intern(String path)
+    {
+        Integer id = PATH_IDS.get(path);
+        
+        if(id == null)
+        {
+            id = (!FREE_IDS.isEmpty()) ? FREE_IDS.pop() : nextId++;
+            
+            if(id >= paths.length())
+            {
+                grow();
+            }
+            
+            // path has to be readable before its identifier is published
+            paths.set(id, path);
+            PATH_IDS.put(path, id);
+        }
+        
+        return id;
+    }
+    
+    /**
+     * Free identifier {@code id} so that it can be reused.
+     * 
+     * @param id path identifier
+     */
+    private static void free(int id)
+    {
+        PATH_IDS.remove(paths.get(id));
+        paths.set(id, null);
+        references[id] = 0;
+        
+        FREE_IDS.push(id);
+        RELEASE_COUNT.incrementAndGet();
+    }
+    
+    /**
+     * Double capacity of identifier table.
+     */
+    private static void grow()
+    {
+        AtomicReferenceArray<String> grown = new AtomicReferenceArray<>(paths.length() * 2);
+        
+        for(int i = 0; i < paths.length(); i++)
+        {
+            grown.set(i, paths.get(i));
+        }
+        
+        references = Arrays.copyOf(references, grown.length());
+        paths = grown;
+    }
+    
+    /**
+     * Get identifier of {@code path} without interning it.
+     * 
+     * @param path full path
+     * @return path identifier or {@link #UNKNOWN_PATH_ID} if path has
+     * not been interned
+     */
+    public static int findId(String path)
+    {
+        Integer id = PATH_IDS.get(path);
+        
+        return (id != null) ? id : UNKNOWN_PATH_ID;
+    }
+    
+    /**
+     * Get path with identifier {@code id}.
+     * 
+     * @param id path identifier
+     * @return full path or null if no such identifier exists
+     */
+    public static String getPath(int id)
+    {
+        AtomicReferenceArray<String> p = paths;
+        
+        return (id >= 0 && id < p.length()) ? p.get(id) : null;
+    }
+    
+    /**
+     * Get number of identifiers released so far. Identifiers obtained
+     * before the count has changed have to be looked up again.
+     * 
+     * @return release count
+     */
+    public static long getReleaseCount()
+    {
+        return RELEASE_COUNT.get();
+    }
+    
+    /**
+     * Get number of currently interned paths.
+     * 
+     * @return interned path count
+     */
+    public static int size()
+    {
+        return PATH_IDS.size();
+    }
+}
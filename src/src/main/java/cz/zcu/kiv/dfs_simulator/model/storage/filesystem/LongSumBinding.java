@@ -11,11 +11,22 @@
 
 package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
 import javafx.beans.binding.LongBinding;
 import javafx.beans.property.LongProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
+/**
+ * Sum of a selected property of all objects of an observed list. The sum
+ * is maintained incrementally - added and removed objects and changes of
+ * observed properties only apply their delta, so the binding itself is just
+ * a view over the running sum.
+ * 
+ * @param <T> type of observed objects
+ */
 public abstract class LongSumBinding<T> extends LongBinding
 {
     /**
@@ -28,9 +39,18 @@ public abstract class LongSumBinding<T> extends LongBinding
     protected final ListChangeListener<T> boundListChangeListener;
     
     /**
-     * Array of observed properties
+     * Observed property of each child contributing to the sum
+     */
+    protected final Map<T, LongProperty> observedProperties = new IdentityHashMap<>();
+    /**
+     * Listener applying changes of observed properties to the sum
+     */
+    protected final ChangeListener<Number> observedPropertyListener;
+    
+    /**
+     * Current sum
      */
-    protected LongProperty[] observedProperties = {};
+    protected long sum = 0;
     
     /**
      * Construct a sum binding of selected properties.
@@ -41,9 +61,26 @@ public abstract class LongSumBinding<T> extends LongBinding
     {
         this.children = children;
         
-        this.boundListChangeListener = (ListChangeListener.Change<? extends T> change) -> 
+        this.observedPropertyListener = (observable, oldValue, newValue) ->
         {
-                refreshBinding();
+            this.sum += newValue.longValue() - oldValue.longValue();
+            this.invalidate();
+        };
+        
+        this.boundListChangeListener = (ListChangeListener.Change<? extends T> change) ->
+        {
+            while(change.next())
+            {
+                if(change.wasPermutated())
+                {
+                    continue;
+                }
+                
+                change.getRemoved().forEach(c -> this.unobserveChild(c));
+                change.getAddedSubList().forEach(c -> this.observeChild(c));
+            }
+            
+            this.invalidate();
         };
         this.children.addListener(this.boundListChangeListener);
         
@@ -51,11 +88,18 @@ public abstract class LongSumBinding<T> extends LongBinding
     }
     
     /**
-     * Triggered when observed list changes.
+     * Triggered when a child has been added to observed list.
+     * 
+     * @param child added child
+     */
+    protected void onChildAdded(T child) {}
+    
+    /**
+     * Triggered when a child has been removed from observed list.
      * 
-     * @param change change listener
+     * @param child removed child
      */
-    protected void onChange(ListChangeListener.Change<? extends T> change) {}
+    protected void onChildRemoved(T child) {}
     
     /**
      * Initiates binding
@@ -70,27 +114,102 @@ public abstract class LongSumBinding<T> extends LongBinding
      */
     @Override protected long computeValue()
     {
-        long i = 0;
+        return this.sum;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void dispose()
+    {
+        this.children.removeListener(this.boundListChangeListener);
+        this.children.forEach(c -> this.unobserveChild(c));
+    }
+    
+    /**
+     * Get property of {@code child} which contributes to the sum.
+     * 
+     * @param child child
+     * @return observed property or null if child does not contribute
+     */
+    abstract protected LongProperty getObservedProperty(T child);
+    
+    /**
+     * Start observing {@code child} and add it's property to the sum.
+     * 
+     * @param child child
+     */
+    private void observeChild(T child)
+    {
+        this.onChildAdded(child);
+        this.observeProperty(child);
+    }
+    
+    /**
+     * Stop observing {@code child} and subtract it's property from the sum.
+     * 
+     * @param child child
+     */
+    private void unobserveChild(T child)
+    {
+        this.onChildRemoved(child);
+        this.unobserveProperty(child);
+    }
+    
+    /**
+     * Add observed property of {@code child} to the sum.
+     * 
+     * @param child child
+     */
+    private void observeProperty(T child)
+    {
+        LongProperty property = this.getObservedProperty(child);
         
-        for(LongProperty ip : this.observedProperties)
+        if(property != null && !this.observedProperties.containsKey(child))
         {
-            i += ip.get();
+            this.observedProperties.put(child, property);
+            property.addListener(this.observedPropertyListener);
+            this.sum += property.get();
         }
+    }
+    
+    /**
+     * Subtract observed property of {@code child} from the sum.
+     * 
+     * @param child child
+     */
+    private void unobserveProperty(T child)
+    {
+        LongProperty property = this.observedProperties.remove(child);
         
-        return i;
+        if(property != null)
+        {
+            property.removeListener(this.observedPropertyListener);
+            this.sum -= property.get();
+        }
     }
     
     /**
-     * {@inheritDoc}
+     * Re-evaluate which property (if any) of {@code child} contributes
+     * to the sum.
+     * 
+     * @param child child
      */
-    @Override public void dispose()
+    protected void refreshChild(T child)
     {
-        this.children.removeListener(this.boundListChangeListener);
-        unbind(observedProperties);
+        this.unobserveProperty(child);
+        this.observeProperty(child);
+        this.invalidate();
     }
     
     /**
-     * Refresh bound properties.
+     * Rebuild the sum from all children.
      */
-    abstract protected void refreshBinding();
+    protected void refreshBinding()
+    {
+        this.children.forEach(c -> this.unobserveChild(c));
+        this.children.forEach(c -> this.observeChild(c));
+        
+        this.invalidate();
+    }
 }
@@ -0,0 +1,634 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
+
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Binary namespace image which is memory mapped and queried directly,
+ * without building any objects. Opening an image only maps the file,
+ * pages are loaded lazily by the operating system as they are accessed,
+ * so the time needed to open an image does not depend on it's size.
+ * 
+ * Image layout (all values big endian):
+ * <ul>
+ * <li>header - magic, version, object count, child table size, string table size</li>
+ * <li>object records of {@link #RECORD_SIZE} bytes - parent ID, first child ID,
+ * next sibling ID, name offset, name length, flags, size, access count</li>
+ * <li>child table - open addressing table of object IDs hashed by parent ID,
+ * name and type (same hash as {@link CompactNamespace})</li>
+ * <li>string table - UTF-8 encoded names</li>
+ * </ul>
+ */
+public class MappedNamespaceImage
+{
+    /**
+     * Image file magic number
+     */
+    public static final int MAGIC = 0x44465349;
+    /**
+     * Image format version
+     */
+    public static final int VERSION = 1;
+    
+    /**
+     * Size of image header
+     */
+    private static final int HEADER_SIZE = 20;
+    /**
+     * Size of a single object record
+     */
+    private static final int RECORD_SIZE = 32;
+    
+    /**
+     * Record offset of parent ID
+     */
+    private static final int PARENT_OFFSET = 0;
+    /**
+     * Record offset of first child ID
+     */
+    private static final int FIRST_CHILD_OFFSET = 4;
+    /**
+     * Record offset of next sibling ID
+     */
+    private static final int NEXT_SIBLING_OFFSET = 8;
+    /**
+     * Record offset of name offset
+     */
+    private static final int NAME_OFFSET = 12;
+    /**
+     * Record offset of name length
+     */
+    private static final int NAME_LENGTH_OFFSET = 16;
+    /**
+     * Record offset of flags
+     */
+    private static final int FLAGS_OFFSET = 18;
+    /**
+     * Record offset of size
+     */
+    private static final int SIZE_OFFSET = 20;
+    /**
+     * Record offset of access count
+     */
+    private static final int ACCESS_COUNT_OFFSET = 28;
+    
+    /**
+     * Directory flag
+     */
+    private static final byte FLAG_DIRECTORY = 1;
+    /**
+     * Migration flag
+     */
+    private static final byte FLAG_MIGRATING = 2;
+    
+    /**
+     * Mapped image
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Number of objects
+     */
+    private final int objectCount;
+    /**
+     * Number of child table slots
+     */
+    private final int tableSize;
+    /**
+     * Offset of child table
+     */
+    private final int tableOffset;
+    /**
+     * Offset of string table
+     */
+    private final int stringTableOffset;
+    
+    /**
+     * Construct image over mapped buffer.
+     * 
+     * @param buffer mapped image
+     * @throws InvalidPersistedStateException image is not valid
+     */
+    private MappedNamespaceImage(ByteBuffer buffer) throws InvalidPersistedStateException
+    {
+        if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+        {
+            throw new InvalidPersistedStateException("File is not a namespace image.");
+        }
+        
+        if(buffer.getInt(4) != VERSION)
+        {
+            throw new InvalidPersistedStateException("Unsupported namespace image version " + buffer.getInt(4) + ".");
+        }
+        
+        this.buffer = buffer;
+        this.objectCount = buffer.getInt(8);
+        this.tableSize = buffer.getInt(12);
+        this.tableOffset = HEADER_SIZE + this.objectCount * RECORD_SIZE;
+        this.stringTableOffset = this.tableOffset + this.tableSize * 4;
+        
+        if((long) this.stringTableOffset + buffer.getInt(16) != buffer.capacity())
+        {
+            throw new InvalidPersistedStateException("Namespace image is truncated or corrupted.");
+        }
+    }
+    
+    /**
+     * Memory map image stored in {@code file}.
+     * 
+     * @param file image file
+     * @return mapped image
+     * @throws IOException file cannot be read
+     * @throws InvalidPersistedStateException file is not a valid image
+     */
+    public static MappedNamespaceImage open(File file) throws IOException, InvalidPersistedStateException
+    {
+        try(RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            // mapping stays valid after the channel is closed
+            return new MappedNamespaceImage(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+        }
+    }
+    
+    /**
+     * Write {@code namespace} into image file {@code file}. Objects are
+     * renumbered in breadth first order so that siblings are stored
+     * next to each other. Mount storages are not part of the image.
+     * 
+     * @param namespace namespace
+     * @param file image file
+     * @throws IOException file cannot be written or image would be too large
+     */
+    public static void write(CompactNamespace namespace, File file) throws IOException
+    {
+        File tmp = createTemporaryFile(file);
+        
+        try
+        {
+            int_write(namespace, tmp);
+            replaceFile(tmp, file);
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+    
+    /**
+     * Copy this image into image file {@code file}.
+     * 
+     * @param file image file
+     * @throws IOException file cannot be written
+     */
+    public void write(File file) throws IOException
+    {
+        File tmp = createTemporaryFile(file);
+        
+        try
+        {
+            try(RandomAccessFile raf = new RandomAccessFile(tmp, "rw"))
+            {
+                ByteBuffer image = this.buffer.duplicate();
+                image.clear();
+                
+                while(image.hasRemaining())
+                {
+                    raf.getChannel().write(image);
+                }
+            }
+            
+            replaceFile(tmp, file);
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+    
+    /**
+     * Create temporary file next to image file {@code file}.
+     * 
+     * @param file image file
+     * @return temporary file
+     * @throws IOException file cannot be created
+     */
+    private static File createTemporaryFile(File file) throws IOException
+    {
+        return File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+    }
+    
+    /**
+     * Replace image file {@code file} by {@code tmp}. Image file is 
+     * replaced instead of being rewritten because it may still be
+     * mapped by an open image.
+     * 
+     * @param tmp written temporary file
+     * @param file image file
+     * @throws IOException file cannot be replaced
+     */
+    private static void replaceFile(File tmp, File file) throws IOException
+    {
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Write {@code namespace} into new image file {@code file}.
+     * 
+     * @param namespace namespace
+     * @param file image file
+     * @throws IOException file cannot be written or image would be too large
+     */
+    private static void int_write(CompactNamespace namespace, File file) throws IOException
+    {
+        int count = namespace.getObjectCount();
+        
+        // breadth first renumbering
+        int[] order = new int[count];
+        int[] imageIds = new int[namespace.getAllocatedCount()];
+        int ordered = 0;
+        long namesSize = 0;
+        
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(CompactNamespace.ROOT_ID);
+        
+        while(!queue.isEmpty())
+        {
+            int id = queue.poll();
+            
+            imageIds[id] = ordered;
+            order[ordered++] = id;
+            namesSize += namespace.getEncodedNameLength(id);
+            
+            for(int child : namespace.getChildIds(id))
+            {
+                queue.add(child);
+            }
+        }
+        
+        int tableSize = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        long imageSize = HEADER_SIZE + (long) count * RECORD_SIZE + (long) tableSize * 4 + namesSize;
+        
+        if(imageSize > Integer.MAX_VALUE)
+        {
+            throw new IOException("Namespace is too large for a single image.");
+        }
+        
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.setLength(imageSize);
+            MappedByteBuffer out = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, imageSize);
+            
+            out.putInt(0, MAGIC);
+            out.putInt(4, VERSION);
+            out.putInt(8, count);
+            out.putInt(12, tableSize);
+            out.putInt(16, (int) namesSize);
+            
+            int tableOffset = HEADER_SIZE + count * RECORD_SIZE;
+            int nameOffset = 0;
+            int stringTableOffset = tableOffset + tableSize * 4;
+            
+            for(int slot = 0; slot < tableSize; slot++)
+            {
+                out.putInt(tableOffset + slot * 4, CompactNamespace.NO_OBJECT);
+            }
+            
+            for(int imageId = 0; imageId < count; imageId++)
+            {
+                int id = order[imageId];
+                int record = HEADER_SIZE + imageId * RECORD_SIZE;
+                int[] children = namespace.getChildIds(id);
+                byte[] name = namespace.getEncodedName(id);
+                int parent = namespace.getParentId(id);
+                int parentImageId = (parent == CompactNamespace.NO_OBJECT) ? CompactNamespace.NO_OBJECT : imageIds[parent];
+                
+                byte flags = 0;
+                flags |= namespace.isDirectory(id) ? FLAG_DIRECTORY : 0;
+                flags |= namespace.isMigrating(id) ? FLAG_MIGRATING : 0;
+                
+                out.putInt(record + PARENT_OFFSET, parentImageId);
+                out.putInt(record + FIRST_CHILD_OFFSET,
+                        children.length > 0 ? imageIds[children[0]] : CompactNamespace.NO_OBJECT);
+                out.putInt(record + NAME_OFFSET, nameOffset);
+                out.putShort(record + NAME_LENGTH_OFFSET, (short) name.length);
+                out.put(record + FLAGS_OFFSET, flags);
+                out.putLong(record + SIZE_OFFSET, namespace.getSize(id));
+                out.putInt(record + ACCESS_COUNT_OFFSET, namespace.getAccessCount(id));
+                
+                for(int i = 0; i < children.length; i++)
+                {
+                    out.putInt(HEADER_SIZE + imageIds[children[i]] * RECORD_SIZE + NEXT_SIBLING_OFFSET,
+                            (i + 1 < children.length) ? imageIds[children[i + 1]] : CompactNamespace.NO_OBJECT);
+                }
+                
+                if(imageId == 0)
+                {
+                    out.putInt(record + NEXT_SIBLING_OFFSET, CompactNamespace.NO_OBJECT);
+                }
+                
+                for(int i = 0; i < name.length; i++)
+                {
+                    out.put(stringTableOffset + nameOffset + i, name[i]);
+                }
+                
+                nameOffset += name.length;
+                
+                if(parentImageId != CompactNamespace.NO_OBJECT)
+                {
+                    int slot = CompactNamespace.hash(parentImageId, name, namespace.isDirectory(id)) & (tableSize - 1);
+                    
+                    while(out.getInt(tableOffset + slot * 4) != CompactNamespace.NO_OBJECT)
+                    {
+                        slot = (slot + 1) & (tableSize - 1);
+                    }
+                    
+                    out.putInt(tableOffset + slot * 4, imageId);
+                }
+            }
+            
+            out.force();
+        }
+    }
+    
+    /**
+     * Get number of objects (including root directory).
+     * 
+     * @return number of objects
+     */
+    public int getObjectCount()
+    {
+        return this.objectCount;
+    }
+    
+    /**
+     * Get offset of record of object {@code id}.
+     * 
+     * @param id object ID
+     * @return record offset
+     */
+    private int record(int id)
+    {
+        return HEADER_SIZE + id * RECORD_SIZE;
+    }
+    
+    /**
+     * Check if object is a directory.
+     * 
+     * @param id object ID
+     * @return true if object is a directory
+     */
+    public boolean isDirectory(int id)
+    {
+        return (this.buffer.get(this.record(id) + FLAGS_OFFSET) & FLAG_DIRECTORY) != 0;
+    }
+    
+    /**
+     * Check if object is in the process of migration.
+     * 
+     * @param id object ID
+     * @return migration flag
+     */
+    public boolean isMigrating(int id)
+    {
+        return (this.buffer.get(this.record(id) + FLAGS_OFFSET) & FLAG_MIGRATING) != 0;
+    }
+    
+    /**
+     * Get parent directory ID.
+     * 
+     * @param id object ID
+     * @return parent ID or {@link CompactNamespace#NO_OBJECT} in case of root
+     */
+    public int getParentId(int id)
+    {
+        return this.buffer.getInt(this.record(id) + PARENT_OFFSET);
+    }
+    
+    /**
+     * Get size of file or total size of directory subtree.
+     * 
+     * @param id object ID
+     * @return size in bytes
+     */
+    public long getSize(int id)
+    {
+        return this.buffer.getLong(this.record(id) + SIZE_OFFSET);
+    }
+    
+    /**
+     * Get file access counter.
+     * 
+     * @param id file ID
+     * @return access counter
+     */
+    public int getAccessCount(int id)
+    {
+        return this.buffer.getInt(this.record(id) + ACCESS_COUNT_OFFSET);
+    }
+    
+    /**
+     * Get encoded object name.
+     * 
+     * @param id object ID
+     * @return encoded name
+     */
+    private byte[] getEncodedName(int id)
+    {
+        int record = this.record(id);
+        byte[] name = new byte[this.buffer.getShort(record + NAME_LENGTH_OFFSET)];
+        int offset = this.stringTableOffset + this.buffer.getInt(record + NAME_OFFSET);
+        
+        for(int i = 0; i < name.length; i++)
+        {
+            name[i] = this.buffer.get(offset + i);
+        }
+        
+        return name;
+    }
+    
+    /**
+     * Get object name.
+     * 
+     * @param id object ID
+     * @return name
+     */
+    public String getName(int id)
+    {
+        if(id == CompactNamespace.ROOT_ID)
+        {
+            return FsDirectory.DIR_PATH_SEPARATOR;
+        }
+        
+        return new String(this.getEncodedName(id), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Get absolute object path.
+     * 
+     * @param id object ID
+     * @return absolute path
+     */
+    public String getFullPath(int id)
+    {
+        if(id == CompactNamespace.ROOT_ID)
+        {
+            return FsDirectory.DIR_PATH_SEPARATOR;
+        }
+        
+        String path = this.getFullPath(this.getParentId(id)) + this.getName(id);
+        
+        return this.isDirectory(id) ? path + FsDirectory.DIR_PATH_SEPARATOR : path;
+    }
+    
+    /**
+     * Get IDs of directory children.
+     * 
+     * @param id directory ID
+     * @return children IDs
+     */
+    public int[] getChildIds(int id)
+    {
+        int n = 0;
+        int first = this.buffer.getInt(this.record(id) + FIRST_CHILD_OFFSET);
+        
+        for(int child = first; child != CompactNamespace.NO_OBJECT; child = this.getNextSiblingId(child))
+        {
+            n++;
+        }
+        
+        int[] children = new int[n];
+        n = 0;
+        
+        for(int child = first; child != CompactNamespace.NO_OBJECT; child = this.getNextSiblingId(child))
+        {
+            children[n++] = child;
+        }
+        
+        return children;
+    }
+    
+    /**
+     * Check if directory has any children.
+     * 
+     * @param id directory ID
+     * @return true if directory has children
+     */
+    public boolean hasChildren(int id)
+    {
+        return this.buffer.getInt(this.record(id) + FIRST_CHILD_OFFSET) != CompactNamespace.NO_OBJECT;
+    }
+    
+    /**
+     * Get ID of next sibling.
+     * 
+     * @param id object ID
+     * @return sibling ID
+     */
+    private int getNextSiblingId(int id)
+    {
+        return this.buffer.getInt(this.record(id) + NEXT_SIBLING_OFFSET);
+    }
+    
+    /**
+     * Find child of directory.
+     * 
+     * @param parentId parent directory ID
+     * @param name child name
+     * @param directory whether the child is a directory
+     * @return child ID or {@link CompactNamespace#NO_OBJECT} if no such child exists
+     */
+    public int getChildId(int parentId, String name, boolean directory)
+    {
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        int mask = this.tableSize - 1;
+        
+        for(int slot = CompactNamespace.hash(parentId, encodedName, directory) & mask; ; slot = (slot + 1) & mask)
+        {
+            int id = this.buffer.getInt(this.tableOffset + slot * 4);
+            
+            if(id == CompactNamespace.NO_OBJECT)
+            {
+                return CompactNamespace.NO_OBJECT;
+            }
+            
+            if(this.getParentId(id) == parentId && this.isDirectory(id) == directory
+                    && Arrays.equals(this.getEncodedName(id), encodedName))
+            {
+                return id;
+            }
+        }
+    }
+    
+    /**
+     * Resolve absolute path (paths of directories end with a separator).
+     * 
+     * @param path absolute path
+     * @return object ID or {@link CompactNamespace#NO_OBJECT} if path does not exist
+     */
+    public int resolve(String path)
+    {
+        int current = CompactNamespace.ROOT_ID;
+        int start = path.startsWith(FsDirectory.DIR_PATH_SEPARATOR) ? 1 : 0;
+        
+        while(start < path.length() && current != CompactNamespace.NO_OBJECT)
+        {
+            int end = path.indexOf(FsDirectory.DIR_PATH_SEPARATOR, start);
+            
+            if(end < 0)
+            {
+                return this.getChildId(current, path.substring(start), false);
+            }
+            
+            current = this.getChildId(current, path.substring(start, end), true);
+            start = end + 1;
+        }
+        
+        return current;
+    }
+    
+    /**
+     * Load whole image into a mutable {@link CompactNamespace}. Object IDs
+     * of the image and of the returned namespace are equal.
+     * 
+     * @return namespace
+     */
+    public CompactNamespace toNamespace()
+    {
+        CompactNamespace namespace = new CompactNamespace();
+        
+        // breadth first order guarantees parents are loaded before children
+        for(int id = 1; id < this.objectCount; id++)
+        {
+            int parentId = this.getParentId(id);
+            int created = this.isDirectory(id)
+                    ? namespace.addDirectory(parentId, this.getName(id))
+                    : namespace.addFile(parentId, this.getName(id), this.getSize(id));
+            
+            namespace.setAccessCount(created, this.getAccessCount(id));
+            namespace.setMigrating(created, this.isMigrating(id));
+        }
+        
+        return namespace;
+    }
+}
@@ -11,12 +11,10 @@
 
 package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import javafx.beans.property.LongProperty;
 import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 /**
@@ -25,9 +23,9 @@ import javafx.collections.ObservableList;
 public class MountChildSizeBinding extends LongSumBinding<FileSystemObject>
 {
     /**
-     * Listener listening for changes of mount device
+     * Listeners listening for changes of mount device of each child
      */
-    private final ChangeListener<Boolean> inheritedMountDeviceChangedListener;
+    private final Map<FileSystemObject, ChangeListener<Boolean>> inheritedMountDeviceListeners = new IdentityHashMap<>();
 
     /**
      * Construct sum binding of mount size.
@@ -37,66 +35,44 @@ public class MountChildSizeBinding extends LongSumBinding<FileSystemObject>
     public MountChildSizeBinding(ObservableList<FileSystemObject> children)
     {
         super(children);
-        
-        this.inheritedMountDeviceChangedListener = 
-                (ChangeListener) (ObservableValue observable, Object oldValue, Object newValue) ->
-                {
-                    refreshBinding();
-                };
     }
     
     /**
      * {@inheritDoc}
      */
-    @Override protected void refreshBinding()
+    @Override protected LongProperty getObservedProperty(FileSystemObject child)
     {
-        unbind(observedProperties);
-        
-        // load new properties
-        List<LongProperty> tmp = new ArrayList<>();
-        
-        // add listener to each child
-        children.stream()
-                .forEach(c ->
-                        {
-                            c.inheritedMountDeviceProperty().addListener(inheritedMountDeviceChangedListener);
-                        });
-        
-        children.stream()
-                .filter(c -> c.inheritedMountDeviceProperty().get())
-                .forEach(x -> 
-                        {
-                            if (x instanceof FsDirectory)
-                            {
-                                tmp.add(x.getMountSize().bytesProperty());
-                            }
-                            else
-                            {
-                                tmp.add(x.getSize().bytesProperty());
-                            }
-                });
+        // only children sharing our mount device count, 
+        // mount size of deduplicated files is zero
+        return (child.inheritedMountDeviceProperty().get()) ? child.getMountSize().bytesProperty() : null;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override protected void onChildAdded(FileSystemObject child)
+    {
+        if(this.inheritedMountDeviceListeners.containsKey(child))
+        {
+            return;
+        }
         
-        observedProperties = tmp.toArray(new LongProperty[0]);
+        ChangeListener<Boolean> listener = (observable, oldValue, newValue) -> this.refreshChild(child);
         
-        super.bind(observedProperties);
-        this.invalidate();
+        child.inheritedMountDeviceProperty().addListener(listener);
+        this.inheritedMountDeviceListeners.put(child, listener);
     }
     
     /**
      * {@inheritDoc}
      */
-    @Override protected void onChange(ListChangeListener.Change<? extends FileSystemObject> change)
+    @Override protected void onChildRemoved(FileSystemObject child)
     {
-        while(change.next())
+        ChangeListener<Boolean> listener = this.inheritedMountDeviceListeners.remove(child);
+        
+        if(listener != null)
         {
-            if(change.wasRemoved())
-            {
-                // remove listeners from removed items
-                change.getRemoved().stream().forEach(o -> 
-                {
-                    o.inheritedMountDeviceProperty().removeListener(inheritedMountDeviceChangedListener);
-                });
-            }
+            child.inheritedMountDeviceProperty().removeListener(listener);
         }
     }
     
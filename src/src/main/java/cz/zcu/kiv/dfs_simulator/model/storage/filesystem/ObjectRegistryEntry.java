@@ -12,21 +12,22 @@
 package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
 
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Entry with list of all servers and instances of objects for given path.
+ * Lists can be safely read while other threads modify the registry.
  */
 public class ObjectRegistryEntry
 {
     /**
      * List of all servers
      */
-    public List<ModelServerNode> servers = new ArrayList<>();
+    public List<ModelServerNode> servers = new CopyOnWriteArrayList<>();
     
     /**
      * List of all {@link FileSystemObject} instances
      */
-    public List<FileSystemObject> fsObjects = new ArrayList<>();
-}
\ No newline at end of file
+    public List<FileSystemObject> fsObjects = new CopyOnWriteArrayList<>();
+}
\ No newline at end of file
@@ -23,10 +23,14 @@ import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
 
 /**
  * File system manager.
@@ -52,6 +56,44 @@ public class ServerFileSystemManager implements StatePersistable
      * Map of {@code ServerStorageUsedSizeInfo} storage used size info for each storage
      */
     protected final Map<ServerStorage, ServerStorageUsedSizeInfo> storageObjects = new HashMap<>();
+    /**
+     * Files holding each content fingerprint, first file of each list 
+     * is the one actually occupying storage space
+     */
+    protected final Map<String, List<FsFile>> fingerprintIndex = new HashMap<>();
+    /**
+     * Storage of each mounted object keyed by object full path
+     */
+    protected final Map<String, ServerStorage> mountPathIndex = new HashMap<>();
+    /**
+     * Path version {@link #mountPathIndex} was built for (-1 if it has to be rebuilt)
+     */
+    private long mountPathIndexVersion = -1;
+    /**
+     * Number of mount entries of each storage
+     */
+    protected final Map<ServerStorage, Integer> storageMountEntries = new HashMap<>();
+    /**
+     * Files mounted on each storage, either directly or by inheriting mount
+     * device of their directory
+     */
+    protected final Map<ServerStorage, Set<FsFile>> storageFiles = new HashMap<>();
+    /**
+     * Total mount size of files mounted on each storage
+     */
+    protected final Map<ServerStorage, Long> storageFilesBytes = new HashMap<>();
+    /**
+     * Entry of each file in {@link #storageFiles}
+     */
+    private final Map<FsFile, IndexedFile> indexedFiles = new HashMap<>();
+    /**
+     * Directories whose children are watched to keep {@link #storageFiles} up to date
+     */
+    private final Map<FsDirectory, ListChangeListener<FileSystemObject>> watchedDirectories = new HashMap<>();
+    /**
+     * Directories whose children have not been loaded yet
+     */
+    private final Set<FsDirectory> unloadedDirectories = ConcurrentHashMap.newKeySet();
     
     /**
      * Construct file system manager for given {@code server} node.
@@ -61,6 +103,11 @@ public class ServerFileSystemManager implements StatePersistable
     public ServerFileSystemManager(ModelServerNode server)
     {
         this.server = server;
+        
+        if(server.getRootDir() != null)
+        {
+            this.reindexStorageFiles(server.getRootDir(), null);
+        }
     }
     
     /**
@@ -74,6 +121,9 @@ public class ServerFileSystemManager implements StatePersistable
      */
     public ServerFsAddChildResult addDirectoryChild(FsDirectory parent, FileSystemObject child) throws NotEnoughSpaceLeftException
     {
+        // unloaded children could clash with the new one
+        this.loadDirectory(parent);
+        
         ServerStorage storParent = this.getFsObjectMountDevice(parent);
         ServerStorage storChild = this.getFsObjectMountEntry(child);
         
@@ -83,10 +133,13 @@ public class ServerFileSystemManager implements StatePersistable
         if(storParent != null && storChild == null)
         {
             long removableBytes = (existing != null) ? existing.getMountSize().bytesProperty().get() : 0;
+            // content already stored on this server takes no additional space
+            long requiredBytes = (child instanceof FsFile && this.isContentStored(((FsFile) child).getFingerprint(), existing)) ? 
+                    0 : child.getMountSize().bytesProperty().get();
             
             // check if we can fit child onto parent's storage
             ByteSize unused = this.getStorageUnusedSize(storParent);
-            if (( (unused.bytesProperty().get() + removableBytes) - child.getMountSize().bytesProperty().get()) < 0)
+            if (( (unused.bytesProperty().get() + removableBytes) - requiredBytes) < 0)
             {
                 throw new NotEnoughSpaceLeftException("Storage " + storParent.idProperty().get() + 
                         " has only " + unused.getHumanReadableFormat() + " available but " + 
@@ -101,6 +154,7 @@ public class ServerFileSystemManager implements StatePersistable
             {
                 // no need to alter registry here since they share same path
                 this.umount(existing);
+                this.unindexFingerprints(existing);
                 existing.getParent().getChildren().remove(existing);
                 
                 this.int_addDirectoryChild(parent, child);
@@ -135,6 +189,8 @@ public class ServerFileSystemManager implements StatePersistable
      */
     private void mergeDirectoryChildren(FsDirectory existing, FsDirectory newDir)
     {
+        this.loadDirectory(existing);
+        
         for(FileSystemObject object : newDir.getChildren())
         {
             FileSystemObject exObject = existing.getChildObject(object.getRelativePath());
@@ -176,8 +232,15 @@ public class ServerFileSystemManager implements StatePersistable
         parent.getChildren().add(child);
         // set new parent
         child.setParent(parent);
+        // deduplicate against content already stored on this server
+        this.indexFingerprints(child);
         // notify of possible new storage
         child.onMountDeviceChanged(this.getFsObjectMountDevice(child));
+        
+        if(child instanceof FsDirectory && !((FsDirectory) child).isLoaded())
+        {
+            this.trackUnloaded((FsDirectory) child);
+        }
     }
     
     /**
@@ -190,7 +253,155 @@ public class ServerFileSystemManager implements StatePersistable
         FsGlobalObjectRegistry.removeEntry(child, this.server);
         
         this.umount(child);
+        this.unindexFingerprints(child);
         child.getParent().getChildren().remove(child);
+        
+        if(child instanceof FsDirectory && !this.unloadedDirectories.isEmpty())
+        {
+            this.unloadedDirectories.removeIf(d -> isInSubtree(d, (FsDirectory) child));
+            this.untrackIfLoaded();
+        }
+    }
+    
+    /**
+     * Change content fingerprint of {@code file}, which is part of this
+     * server's namespace, and update deduplication state accordingly.
+     * 
+     * @param file file
+     * @param fingerprint new fingerprint or null
+     */
+    public void setFileFingerprint(FsFile file, String fingerprint)
+    {
+        this.unindexFingerprints(file);
+        file.setFingerprint(fingerprint);
+        this.indexFingerprints(file);
+    }
+    
+    /**
+     * Check if content with {@code fingerprint} is already stored on this server.
+     * 
+     * @param fingerprint content fingerprint
+     * @return true if stored
+     */
+    public boolean isContentStored(String fingerprint)
+    {
+        return this.isContentStored(fingerprint, null);
+    }
+    
+    /**
+     * Check if content with {@code fingerprint} is stored on this server 
+     * by any file other than {@code ignored}.
+     * 
+     * @param fingerprint content fingerprint
+     * @param ignored ignored file (can be null)
+     * @return true if stored
+     */
+    private boolean isContentStored(String fingerprint, FileSystemObject ignored)
+    {
+        if(fingerprint == null)
+        {
+            return false;
+        }
+        
+        List<FsFile> holders = this.fingerprintIndex.get(fingerprint);
+        
+        return (holders != null && holders.stream().anyMatch(f -> f != ignored));
+    }
+    
+    /**
+     * Get total size of files whose content is deduplicated on this server,
+     * i.e. the storage space saved by deduplication.
+     * 
+     * @return deduplicated size
+     */
+    public ByteSize getDeduplicatedSize()
+    {
+        long bytes = 0;
+        
+        for(List<FsFile> holders : this.fingerprintIndex.values())
+        {
+            for(int i = 1; i < holders.size(); i++)
+            {
+                bytes += holders.get(i).getSize().bytesProperty().get();
+            }
+        }
+        
+        return new ByteSize(bytes, ByteSizeUnits.B);
+    }
+    
+    /**
+     * Add fingerprinted files of {@code object} (and it's subtree) to 
+     * deduplication index. Only the first file holding given content 
+     * occupies storage space.
+     * 
+     * @param object object
+     */
+    private void indexFingerprints(FileSystemObject object)
+    {
+        if(object instanceof FsDirectory)
+        {
+            for(FileSystemObject child : ((FsDirectory) object).getChildren())
+            {
+                this.indexFingerprints(child);
+            }
+        }
+        else if(object instanceof FsFile && ((FsFile) object).getFingerprint() != null)
+        {
+            FsFile file = (FsFile) object;
+            List<FsFile> holders = this.fingerprintIndex.get(file.getFingerprint());
+            
+            if(holders == null)
+            {
+                holders = new ArrayList<>();
+                this.fingerprintIndex.put(file.getFingerprint(), holders);
+            }
+            
+            if(holders.stream().noneMatch(f -> f == file))
+            {
+                holders.add(file);
+                file.setDeduplicated(holders.size() > 1);
+            }
+        }
+    }
+    
+    /**
+     * Remove fingerprinted files of {@code object} (and it's subtree) from 
+     * deduplication index. If a file holding stored content is removed, 
+     * the next file with the same content takes over it's storage space.
+     * 
+     * @param object object
+     */
+    private void unindexFingerprints(FileSystemObject object)
+    {
+        if(object instanceof FsDirectory)
+        {
+            for(FileSystemObject child : ((FsDirectory) object).getChildren())
+            {
+                this.unindexFingerprints(child);
+            }
+        }
+        else if(object instanceof FsFile && ((FsFile) object).getFingerprint() != null)
+        {
+            FsFile file = (FsFile) object;
+            List<FsFile> holders = this.fingerprintIndex.get(file.getFingerprint());
+            
+            if(holders == null)
+            {
+                return;
+            }
+            
+            holders.removeIf(f -> f == file);
+            file.setDeduplicated(false);
+            
+            if(holders.isEmpty())
+            {
+                this.fingerprintIndex.remove(file.getFingerprint());
+            }
+            else
+            {
+                holders.get(0).setDeduplicated(false);
+            }
+        }
     }
     
     /**
@@ -201,7 +412,7 @@ public class ServerFileSystemManager implements StatePersistable
     public void removeDirectoryChild(String childFullPath)
     {
         // find object
-        FileSystemObject object = this.server.getRootDir().getChildObject(childFullPath);
+        FileSystemObject object = this.getObject(childFullPath);
         
         if(object != null)
         {
@@ -209,6 +420,361 @@ public class ServerFileSystemManager implements StatePersistable
         }
     }
     
+    /**
+     * Get object by it's absolute path, loading unloaded directories
+     * on the path if necessary.
+     * 
+     * @param path absolute path
+     * @return object or null if not found
+     */
+    public FileSystemObject getObject(String path)
+    {
+        return this.getObject(path, false);
+    }
+    
+    /**
+     * Get object by it's absolute path, loading unloaded directories
+     * on the path if necessary.
+     * 
+     * @param path absolute path
+     * @param createNonExisting create object (and it's parent directories)
+     * if not found
+     * @return object or null if not found
+     */
+    public FileSystemObject getObject(String path, boolean createNonExisting)
+    {
+        this.loadPath(path);
+        
+        return this.server.getRootDir().getChildObject(path, createNonExisting);
+    }
+    
+    /**
+     * Attach {@code namespace} as unloaded children of {@code directory}. 
+     * Objects of the namespace take storage space right away but are 
+     * only created when they are looked up. Mount information of 
+     * {@code namespace} is ignored, it's objects share mount device of
+     * {@code directory}.
+     * 
+     * @param directory empty directory of this server
+     * @param namespace namespace
+     * @throws NotEnoughSpaceLeftException thrown when mount device of 
+     * {@code directory} does not have enough space left for {@code namespace}
+     */
+    public void attachUnloadedNamespace(FsDirectory directory, CompactNamespace namespace) throws NotEnoughSpaceLeftException
+    {
+        this.attachUnloadedNamespace(directory, new UnloadedNamespace(namespace));
+    }
+    
+    /**
+     * Attach namespace stored in {@code image} as unloaded children of 
+     * {@code directory}. Objects are read from the mapped image when they
+     * are looked up, the image is only loaded into a {@link CompactNamespace}
+     * when it is edited.
+     * 
+     * @param directory empty directory of this server
+     * @param image mapped namespace image
+     * @throws NotEnoughSpaceLeftException thrown when mount device of 
+     * {@code directory} does not have enough space left for the namespace
+     */
+    public void attachUnloadedNamespace(FsDirectory directory, MappedNamespaceImage image) throws NotEnoughSpaceLeftException
+    {
+        this.attachUnloadedNamespace(directory, new UnloadedNamespace(image));
+    }
+    
+    /**
+     * Attach {@code namespace} as unloaded children of {@code directory}.
+     * 
+     * @param directory empty directory of this server
+     * @param namespace unloaded namespace
+     * @throws NotEnoughSpaceLeftException thrown when mount device of 
+     * {@code directory} does not have enough space left for {@code namespace}
+     */
+    private void attachUnloadedNamespace(FsDirectory directory, UnloadedNamespace namespace) throws NotEnoughSpaceLeftException
+    {
+        if(!directory.isLoaded() || !directory.getChildren().isEmpty())
+        {
+            throw new IllegalArgumentException("Namespace can only be attached to an empty directory: " + directory.getFullPath());
+        }
+        
+        ServerStorage storage = this.getFsObjectMountDevice(directory);
+        long requiredBytes = namespace.getSize(CompactNamespace.ROOT_ID);
+        
+        if(storage != null && this.getStorageUnusedSize(storage).bytesProperty().get() < requiredBytes)
+        {
+            throw new NotEnoughSpaceLeftException("Storage " + storage.idProperty().get() + 
+                    " has only " + this.getStorageUnusedSize(storage).getHumanReadableFormat() + " available but " + 
+                    new ByteSize(requiredBytes, ByteSizeUnits.B).getHumanReadableFormat() + " is required");
+        }
+        
+        directory.setUnloaded(namespace, CompactNamespace.ROOT_ID);
+        this.trackUnloaded(directory);
+    }
+    
+    /**
+     * Check if {@code directory} can be unloaded - it's subtree must not 
+     * contain any objects with state that cannot be kept in 
+     * a {@link CompactNamespace} (own mount entries, fingerprints, stubs,
+     * erasure coding).
+     * 
+     * @param directory directory
+     * @return true if directory can be unloaded
+     */
+    public boolean canUnloadDirectory(FsDirectory directory)
+    {
+        if(directory.getErasureCodingPolicy() != null)
+        {
+            return false;
+        }
+        
+        for(FileSystemObject child : directory.getChildren())
+        {
+            if(this.fileSystemObjects.containsKey(child) || child.getErasureCodingPolicy() != null)
+            {
+                return false;
+            }
+            
+            if(child instanceof FsFile)
+            {
+                FsFile file = (FsFile) child;
+                
+                if(file.getFingerprint() != null || file.isStub() || file.getEncodingPolicy() != null)
+                {
+                    return false;
+                }
+            }
+            else if(!this.canUnloadDirectory((FsDirectory) child))
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Unload children of {@code directory}, they are replaced by
+     * a {@link CompactNamespace} until they are looked up again.
+     * 
+     * @param directory directory
+     * @return false if directory cannot be unloaded, 
+     * see {@link #canUnloadDirectory(FsDirectory)}
+     */
+    public synchronized boolean unloadDirectory(FsDirectory directory)
+    {
+        if(!directory.isLoaded() || directory.getChildren().isEmpty())
+        {
+            return true;
+        }
+        
+        if(!this.canUnloadDirectory(directory))
+        {
+            return false;
+        }
+        
+        CompactNamespace namespace = CompactNamespace.fromTree(directory);
+        
+        for(FileSystemObject child : new ArrayList<>(directory.getChildren()))
+        {
+            this.unregisterChildren(child);
+            this.removeDirectoryChild(child);
+        }
+        
+        directory.setUnloaded(new UnloadedNamespace(namespace), CompactNamespace.ROOT_ID);
+        this.trackUnloaded(directory);
+        
+        return true;
+    }
+    
+    /**
+     * Remove registry entries of all objects in subtree of {@code object}
+     * (not including {@code object} itself).
+     * 
+     * @param object object
+     */
+    private void unregisterChildren(FileSystemObject object)
+    {
+        if(object instanceof FsDirectory)
+        {
+            for(FileSystemObject child : ((FsDirectory) object).getChildren())
+            {
+                this.unregisterChildren(child);
+                FsGlobalObjectRegistry.removeEntry(child, this.server);
+            }
+        }
+    }
+    
+    /**
+     * Create objects of unloaded children of {@code directory}. Child
+     * directories are created unloaded.
+     * 
+     * @param directory directory
+     */
+    public synchronized void loadDirectory(FsDirectory directory)
+    {
+        if(directory.isLoaded())
+        {
+            return;
+        }
+        
+        UnloadedNamespace namespace = directory.unloadedNamespace;
+        int id = directory.unloadedId;
+        
+        directory.setLoaded();
+        this.unloadedDirectories.remove(directory);
+        
+        for(int childId : namespace.getChildIds(id))
+        {
+            FileSystemObject child;
+            
+            if(namespace.isDirectory(childId))
+            {
+                FsDirectory childDir = new FsDirectory(namespace.getName(childId), directory);
+                
+                if(namespace.hasChildren(childId))
+                {
+                    childDir.setUnloaded(namespace, childId);
+                }
+                
+                child = childDir;
+            }
+            else
+            {
+                FsFile file = new FsFile(namespace.getName(childId), new ByteSize(namespace.getSize(childId)), directory);
+                file.accessCounterProperty().set(namespace.getAccessCount(childId));
+                
+                child = file;
+            }
+            
+            child.migratingProperty().set(namespace.isMigrating(childId));
+            this.int_addDirectoryChild(directory, child);
+        }
+        
+        this.untrackIfLoaded();
+    }
+    
+    /**
+     * Load all unloaded directories on {@code path} that contain the next
+     * object of the path (directories are not loaded for paths that do 
+     * not exist).
+     * 
+     * @param path absolute path
+     */
+    public void loadPath(String path)
+    {
+        if(this.unloadedDirectories.isEmpty())
+        {
+            return;
+        }
+        
+        synchronized(this)
+        {
+            FsDirectory directory = this.server.getRootDir();
+            int begin = path.startsWith(FsDirectory.DIR_PATH_SEPARATOR) ? 1 : 0;
+            
+            while(begin < path.length())
+            {
+                int end = path.indexOf(FsDirectory.DIR_PATH_SEPARATOR, begin);
+                boolean isDirectory = (end != -1);
+                String component = path.substring(begin, isDirectory ? end : path.length());
+                
+                if(!directory.isLoaded())
+                {
+                    if(directory.unloadedNamespace.getChildId(directory.unloadedId, component, isDirectory) == CompactNamespace.NO_OBJECT)
+                    {
+                        return;
+                    }
+                    
+                    this.loadDirectory(directory);
+                }
+                
+                FileSystemObject child = directory.childContainer.getByNameAndType(component, FsObjectType.DIRECTORY);
+                
+                if(!isDirectory || child == null)
+                {
+                    return;
+                }
+                
+                directory = (FsDirectory) child;
+                begin = end + 1;
+            }
+        }
+    }
+    
+    /**
+     * Load all unloaded directories of this server.
+     */
+    public synchronized void loadAll()
+    {
+        while(!this.unloadedDirectories.isEmpty())
+        {
+            this.loadDirectory(this.unloadedDirectories.iterator().next());
+        }
+    }
+    
+    /**
+     * Check if this server has any unloaded directories.
+     * 
+     * @return true if some directories are not loaded
+     */
+    public boolean hasUnloadedDirectories()
+    {
+        return !this.unloadedDirectories.isEmpty();
+    }
+    
+    /**
+     * Reset access counters of files in unloaded directories.
+     */
+    public void resetUnloadedAccessCounters()
+    {
+        this.unloadedDirectories.forEach(d -> d.unloadedNamespace.edit().resetAccessCounts());
+    }
+    
+    /**
+     * Start tracking unloaded {@code directory}.
+     * 
+     * @param directory unloaded directory
+     */
+    private void trackUnloaded(FsDirectory directory)
+    {
+        if(this.unloadedDirectories.isEmpty())
+        {
+            FsGlobalObjectRegistry.addPartiallyLoaded(this);
+        }
+        
+        this.unloadedDirectories.add(directory);
+    }
+    
+    /**
+     * Stop being registered as partially loaded if all directories are loaded.
+     */
+    private void untrackIfLoaded()
+    {
+        if(this.unloadedDirectories.isEmpty())
+        {
+            FsGlobalObjectRegistry.removePartiallyLoaded(this);
+        }
+    }
+    
+    /**
+     * Check if {@code object} is {@code root} or is part of it's subtree.
+     * 
+     * @param object object
+     * @param root subtree root
+     * @return true if in subtree
+     */
+    private static boolean isInSubtree(FileSystemObject object, FsDirectory root)
+    {
+        for(FileSystemObject o = object; o != null; o = o.getParent())
+        {
+            if(o == root)
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
     /**
      * Get mount device of {@code object}.
      * 
@@ -266,30 +832,94 @@ public class ServerFileSystemManager implements StatePersistable
      */
     public ServerStorage getFsObjectMountDeviceByName(FileSystemObject object)
     {
-        for(Entry<FileSystemObject, ServerStorage> fsoE : this.fileSystemObjects.entrySet())
+        Map<String, ServerStorage> index = this.getMountPathIndex();
+        String path = object.getFullPath();
+        int end = path.length();
+        
+        // resolve longest mounted prefix, going up one directory at a time
+        while(end > 0)
         {
-            if(fsoE.getKey().getFullPath().equals(object.getFullPath()))
+            ServerStorage stor = index.get(path.substring(0, end));
+            
+            if(stor != null)
             {
-                return fsoE.getValue();
+                return stor;
             }
+            
+            end = path.lastIndexOf(FsDirectory.DIR_PATH_SEPARATOR, end - 2) + 1;
         }
         
-        FsDirectory pDir = object.getParent();
-        
-        while(pDir != null)
+        return null;
+    }
+    
+    /**
+     * Get index of mount entries by object path. Index is rebuilt if any
+     * object has been renamed or moved since it was last built.
+     * 
+     * @return path index
+     */
+    private Map<String, ServerStorage> getMountPathIndex()
+    {
+        if(this.mountPathIndexVersion != FileSystemObject.getPathVersion())
         {
+            this.mountPathIndex.clear();
+            
             for(Entry<FileSystemObject, ServerStorage> fsoE : this.fileSystemObjects.entrySet())
             {
-                if(fsoE.getKey().getFullPath().equals(pDir.getFullPath()))
+                String path = getIndexedPath(fsoE.getKey());
+                
+                if(path != null)
                 {
-                    return fsoE.getValue();
+                    this.mountPathIndex.put(path, fsoE.getValue());
                 }
             }
             
-            pDir = pDir.getParent();
+            this.mountPathIndexVersion = FileSystemObject.getPathVersion();
         }
         
-        return null;
+        return this.mountPathIndex;
+    }
+    
+    /**
+     * Get path under which {@code object} is kept in mount path index.
+     * 
+     * @param object mounted object
+     * @return path or null if object is a file without parent directory
+     */
+    private static String getIndexedPath(FileSystemObject object)
+    {
+        return (object instanceof FsFile && object.getParent() == null) ? null : object.getFullPath();
+    }
+    
+    /**
+     * Update mount path index after mount entry of {@code object} changed.
+     * 
+     * @param object object
+     * @param storage new mount entry or null if object was unmounted
+     */
+    private void updateMountPathIndex(FileSystemObject object, ServerStorage storage)
+    {
+        // stale index will be rebuilt on next lookup anyway
+        if(this.mountPathIndexVersion != FileSystemObject.getPathVersion())
+        {
+            return;
+        }
+        
+        String path = getIndexedPath(object);
+        
+        if(path == null)
+        {
+            return;
+        }
+        
+        if(storage != null)
+        {
+            this.mountPathIndex.put(path, storage);
+        }
+        else
+        {
+            this.mountPathIndex.remove(path);
+        }
     }
     
     /**
@@ -416,7 +1046,16 @@ public class ServerFileSystemManager implements StatePersistable
      */
     private void int_mount(ServerStorage storage, FileSystemObject object)
     {
-        this.fileSystemObjects.put(object, storage);
+        ServerStorage previous = this.fileSystemObjects.put(object, storage);
+        this.updateMountPathIndex(object, storage);
+        
+        if(previous != null)
+        {
+            this.storageMountEntries.merge(previous, -1, Integer::sum);
+        }
+        
+        this.storageMountEntries.merge(storage, 1, Integer::sum);
+        this.reindexStorageFiles(object, storage);
         
         // get child container or create a new one
         ServerStorageUsedSizeInfo usedSizeInfo = this.getOrCreateInfo(storage);
@@ -439,6 +1078,9 @@ public class ServerFileSystemManager implements StatePersistable
         if(storage != null)
         {
             this.fileSystemObjects.remove(object);
+            this.updateMountPathIndex(object, null);
+            this.storageMountEntries.merge(storage, -1, Integer::sum);
+            this.reindexStorageFiles(object, this.getFsObjectMountDevice(object));
             
             ServerStorageUsedSizeInfo usedSizeInfo = this.storageObjects.get(storage);
 
@@ -481,7 +1123,7 @@ public class ServerFileSystemManager implements StatePersistable
      */
     public boolean isStorageUsed(ServerStorage storage)
     {
-        return this.fileSystemObjects.entrySet().stream().anyMatch(e -> e.getValue() == storage);
+        return this.storageMountEntries.getOrDefault(storage, 0) > 0;
     }
     
     /**
@@ -516,6 +1158,9 @@ public class ServerFileSystemManager implements StatePersistable
     public void removeStorage(ServerStorage storage)
     {
         this.storageObjects.remove(storage);
+        this.storageMountEntries.remove(storage);
+        
+        List<FileSystemObject> unmounted = new ArrayList<>();
         
         for(Iterator<Entry<FileSystemObject, ServerStorage>> it = this.fileSystemObjects.entrySet().iterator(); it.hasNext();)
         {
@@ -527,8 +1172,13 @@ public class ServerFileSystemManager implements StatePersistable
                 e.getKey().onMountDeviceChanged(null);
                 
                 it.remove();
+                this.updateMountPathIndex(e.getKey(), null);
+                unmounted.add(e.getKey());
             }
         }
+        
+        // files of unmounted objects now inherit mount device from higher level dirs
+        unmounted.forEach(o -> this.reindexStorageFiles(o, this.getFsObjectMountDevice(o)));
     }
     
     /**
@@ -555,6 +1205,52 @@ public class ServerFileSystemManager implements StatePersistable
         
     }
     
+    /**
+     * Get storage that {@code file} would be mounted to if it was copied
+     * onto this server, provided that the storage has enough space left 
+     * for it (space reserved by running operations is not available).
+     * 
+     * @param file copied file
+     * @return storage or null if file cannot be placed on this server
+     */
+    public ServerStorage getFileTargetStorage(FsFile file)
+    {
+        ServerStorage storage = this.getFsObjectMountDeviceByName(file);
+        
+        if(storage == null)
+        {
+            return null;
+        }
+        
+        long unused = this.getStorageUnusedSize(storage).bytesProperty().get() - 
+                storage.getOperationManager().getReservedSpace().bytesProperty().get();
+        
+        return (unused >= file.getSize().bytesProperty().get()) ? storage : null;
+    }
+    
+    /**
+     * Get path of topmost object that will be created on this server
+     * when {@code object} is copied onto it (the object itself or its
+     * first missing parent directory).
+     * 
+     * @param object copied object
+     * @return path of topmost created object
+     */
+    public String getTopmostMissingPath(FileSystemObject object)
+    {
+        String path = object.getFullPath();
+        
+        for(FileSystemObject parent = object.getParent(); parent != null && parent.getParent() != null; parent = parent.getParent())
+        {
+            if(this.getObject(parent.getFullPath()) == null)
+            {
+                path = parent.getFullPath();
+            }
+        }
+        
+        return path;
+    }
+    
     /**
      * Resizes storage by {@code incBytes}.
      * 
@@ -589,59 +1285,180 @@ public class ServerFileSystemManager implements StatePersistable
     }
     
     /**
-     * Internal method. Add all files that share mount device from {@code directory}.
+     * Get all files mounted on {@code storage}.
      * 
-     * @param directory parent directory
-     * @param files files
+     * @param storage storage
+     * @return mounted files
      */
-    private void int_addFilesDirectlySharingMount(FsDirectory directory, List<FsFile> files)
+    public List<FsFile> getStorageMountedFiles(ServerStorage storage)
+    {
+        this.loadAll();
+        
+        Set<FsFile> files = this.storageFiles.get(storage);
+        
+        return (files != null) ? new ArrayList<>(files) : new ArrayList<>();
+    }
+    
+    /**
+     * Get total mount size of all files mounted on {@code storage}.
+     * 
+     * @param storage storage
+     * @return size of mounted files
+     */
+    public ByteSize getStorageMountedFilesSize(ServerStorage storage)
+    {
+        this.loadAll();
+        
+        return new ByteSize(this.storageFilesBytes.getOrDefault(storage, 0L), ByteSizeUnits.B);
+    }
+    
+    /**
+     * Assign files of {@code object} (and it's subtree) to {@code storage}
+     * in storage file index. Objects with their own mount entry pass their
+     * storage down to their subtree instead. Directories of the subtree
+     * are watched so that later changes of their children are indexed too.
+     * 
+     * @param object object
+     * @param storage storage inherited by {@code object} (can be null)
+     */
+    private void reindexStorageFiles(FileSystemObject object, ServerStorage storage)
     {
-        for(FileSystemObject childObject : directory.getChildren())
+        if(object instanceof FsFile)
         {
-            ServerStorage storage = this.getFsObjectMountEntry(childObject);
+            this.indexStorageFile((FsFile) object, storage);
+        }
+        else if(object instanceof FsDirectory)
+        {
+            FsDirectory directory = (FsDirectory) object;
+            this.watchDirectory(directory);
             
-            // we do not need to recursively look through all directory children
-            // if the directory itself is mounted since the directory
-            // would have its own mount entry
-            if(storage == null)
+            for(FileSystemObject child : directory.getChildren())
             {
-                if(childObject instanceof FsFile)
-                {
-                    files.add((FsFile) childObject);
-                }
-                else
-                {
-                    this.int_addFilesDirectlySharingMount((FsDirectory) childObject, files);
-                }
+                ServerStorage childStorage = this.fileSystemObjects.get(child);
+                
+                this.reindexStorageFiles(child, (childStorage != null) ? childStorage : storage);
             }
         }
     }
     
     /**
-     * Get all files mounted on {@code storage}.
+     * Remove files of {@code object} (and it's subtree) from storage file 
+     * index and stop watching it's directories.
      * 
-     * @param storage storage
-     * @return mounted files
+     * @param object object
      */
-    public List<FsFile> getStorageMountedFiles(ServerStorage storage)
+    private void unindexStorageFiles(FileSystemObject object)
     {
-        List<FileSystemObject> mountedObjects = 
-                this.fileSystemObjects.entrySet().stream().filter(entry -> entry.getValue() == storage).map(entry -> entry.getKey()).collect(Collectors.toList());
+        if(object instanceof FsFile)
+        {
+            this.indexStorageFile((FsFile) object, null);
+        }
+        else if(object instanceof FsDirectory)
+        {
+            FsDirectory directory = (FsDirectory) object;
+            ListChangeListener<FileSystemObject> listener = this.watchedDirectories.remove(directory);
+            
+            if(listener != null)
+            {
+                directory.getChildren().removeListener(listener);
+            }
+            
+            for(FileSystemObject child : directory.getChildren())
+            {
+                this.unindexStorageFiles(child);
+            }
+        }
+    }
+    
+    /**
+     * Move {@code file} to {@code storage} in storage file index.
+     * 
+     * @param file file
+     * @param storage new storage or null to remove file from index
+     */
+    private void indexStorageFile(FsFile file, ServerStorage storage)
+    {
+        IndexedFile entry = this.indexedFiles.get(file);
+        
+        if(entry != null && entry.storage == storage)
+        {
+            return;
+        }
         
-        List<FsFile> mountedFiles = new ArrayList<>();
-        mountedObjects.forEach((mountedObject) ->
+        if(entry != null)
         {
-            if(mountedObject instanceof FsFile)
+            this.storageFiles.get(entry.storage).remove(file);
+            this.storageFilesBytes.merge(entry.storage, -file.getMountSize().bytesProperty().get(), Long::sum);
+            
+            if(storage == null)
             {
-                mountedFiles.add((FsFile) mountedObject);
+                file.getMountSize().bytesProperty().removeListener(entry.sizeListener);
+                this.indexedFiles.remove(file);
+                
+                return;
             }
-            else
+        }
+        else if(storage == null)
+        {
+            return;
+        }
+        else
+        {
+            final IndexedFile newEntry = new IndexedFile();
+            newEntry.sizeListener = (observable, oldValue, newValue) ->
+                    this.storageFilesBytes.merge(newEntry.storage, (newValue.longValue() - oldValue.longValue()), Long::sum);
+            
+            file.getMountSize().bytesProperty().addListener(newEntry.sizeListener);
+            this.indexedFiles.put(file, newEntry);
+            entry = newEntry;
+        }
+        
+        entry.storage = storage;
+        this.storageFiles.computeIfAbsent(storage, s -> new LinkedHashSet<>()).add(file);
+        this.storageFilesBytes.merge(storage, file.getMountSize().bytesProperty().get(), Long::sum);
+    }
+    
+    /**
+     * Start watching children of {@code directory}. Added children are 
+     * indexed under mount device of {@code directory} (unless they have
+     * their own mount entry), removed children are removed from index.
+     * 
+     * @param directory directory
+     */
+    private void watchDirectory(FsDirectory directory)
+    {
+        if(this.watchedDirectories.containsKey(directory))
+        {
+            return;
+        }
+        
+        ListChangeListener<FileSystemObject> listener = (ListChangeListener.Change<? extends FileSystemObject> change) ->
+        {
+            while(change.next())
             {
-                this.int_addFilesDirectlySharingMount((FsDirectory) mountedObject, mountedFiles);
+                if(change.wasPermutated())
+                {
+                    continue;
+                }
+                
+                change.getRemoved().forEach(o -> this.unindexStorageFiles(o));
+                
+                if(change.wasAdded())
+                {
+                    // parent of added child might not be set yet
+                    ServerStorage dirStorage = this.getFsObjectMountDevice(directory);
+                    
+                    change.getAddedSubList().forEach(o -> 
+                    {
+                        ServerStorage childStorage = this.fileSystemObjects.get(o);
+                        this.reindexStorageFiles(o, (childStorage != null) ? childStorage : dirStorage);
+                    });
+                }
             }
-        });
+        };
         
-        return mountedFiles;
+        directory.getChildren().addListener(listener);
+        this.watchedDirectories.put(directory, listener);
     }
     
     /**
@@ -718,7 +1535,7 @@ public class ServerFileSystemManager implements StatePersistable
         if(stor != null)
         {
             // attempt to find associated file
-            FileSystemObject object = this.server.getRootDir().getChildObject(pathAttr.getValue());
+            FileSystemObject object = this.getObject(pathAttr.getValue());
             
             if(object != null)
             {
@@ -742,4 +1559,18 @@ public class ServerFileSystemManager implements StatePersistable
         }
     }
     
+    /**
+     * Entry of a file in storage file index.
+     */
+    private static class IndexedFile
+    {
+        /**
+         * Storage the file is mounted on
+         */
+        private ServerStorage storage;
+        /**
+         * Listener keeping byte total of {@link #storage} up to date
+         */
+        private ChangeListener<Number> sizeListener;
+    }
 }
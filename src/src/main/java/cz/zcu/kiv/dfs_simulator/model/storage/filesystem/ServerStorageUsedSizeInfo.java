@@ -13,7 +13,7 @@ package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
 
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
-import javafx.beans.binding.NumberBinding;
+import javafx.beans.value.ChangeListener;
 
 /**
  * Information about used size of {@link ServerStorage}.
@@ -26,39 +26,34 @@ public class ServerStorageUsedSizeInfo
     protected final ByteSize usedSize = new ByteSize(0);
     
     /**
-     * Used size binding
+     * Listener applying changes of added sizes to used size
      */
-    protected NumberBinding usedSizeBinding;
+    protected final ChangeListener<Number> sizeChangedListener = (observable, oldValue, newValue) ->
+            this.usedSize.setBytes(this.usedSize.bytesProperty().get() + (newValue.longValue() - oldValue.longValue()));
     
     /**
-     * Add {@code size} to {@code usedSizeBinding}.
+     * Add {@code size} to used size. Later changes of {@code size} 
+     * are applied to used size as well.
      * 
      * @param size size
      */
     public void addSize(ByteSize size)
     {
-        if(this.usedSizeBinding == null)
-        {
-            this.usedSizeBinding = size.bytesProperty().add(0);
-        }
-        else
-        {
-            this.usedSizeBinding = this.usedSizeBinding.add(size.bytesProperty());
-        }
+        size.bytesProperty().addListener(this.sizeChangedListener);
         
-        this.usedSize.bytesProperty().bind(this.usedSizeBinding);
+        this.usedSize.setBytes(this.usedSize.bytesProperty().get() + size.bytesProperty().get());
     }
     
     /**
-     * Remove {@code size} from {@code usedSizeBinding}.
+     * Remove {@code size} from used size.
      * 
      * @param size size
      */
     public void removeSize(ByteSize size)
     {
-        this.usedSizeBinding = this.usedSizeBinding.subtract(size.bytesProperty());
+        size.bytesProperty().removeListener(this.sizeChangedListener);
         
-        this.usedSize.bytesProperty().bind(this.usedSizeBinding);
+        this.usedSize.setBytes(this.usedSize.bytesProperty().get() - size.bytesProperty().get());
     }
     
     /**
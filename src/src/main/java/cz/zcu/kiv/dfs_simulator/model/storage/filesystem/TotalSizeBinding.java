@@ -12,8 +12,6 @@
 package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
 
 import cz.zcu.kiv.dfs_simulator.model.SizeableObject;
-import java.util.ArrayList;
-import java.util.List;
 import javafx.beans.property.LongProperty;
 import javafx.collections.ObservableList;
 
@@ -35,21 +33,9 @@ public class TotalSizeBinding extends LongSumBinding<SizeableObject>
     /**
      * {@inheritDoc}
      */
-    @Override protected void refreshBinding()
+    @Override protected LongProperty getObservedProperty(SizeableObject child)
     {
-        unbind(observedProperties);
-        
-        // load new properties
-        List<LongProperty> tmp = new ArrayList<>();
-        children.stream().map((x) -> x.getSize().bytesProperty()).forEach((ip) ->
-                {
-                    tmp.add(ip);
-                });
-        
-        observedProperties = tmp.toArray(new LongProperty[0]);
-        
-        super.bind(observedProperties);
-        this.invalidate();
+        return child.getSize().bytesProperty();
     }
     
 }
@@ -0,0 +1,208 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Children of unloaded directories. The namespace is either kept in
+ * a {@link CompactNamespace} or read directly from a {@link MappedNamespaceImage},
+ * the image is loaded into a mutable namespace only when it is edited for
+ * the first time. Object IDs do not change by loading the image.
+ */
+class UnloadedNamespace
+{
+    /**
+     * Mapped namespace image (null if namespace was not restored from an image)
+     */
+    private final MappedNamespaceImage image;
+    /**
+     * Mutable namespace (null until image is edited)
+     */
+    private volatile CompactNamespace namespace;
+    
+    /**
+     * Construct unloaded namespace kept in {@code namespace}.
+     * 
+     * @param namespace namespace
+     */
+    UnloadedNamespace(CompactNamespace namespace)
+    {
+        this.image = null;
+        this.namespace = namespace;
+    }
+    
+    /**
+     * Construct unloaded namespace read from {@code image}.
+     * 
+     * @param image mapped namespace image
+     */
+    UnloadedNamespace(MappedNamespaceImage image)
+    {
+        this.image = image;
+        this.namespace = null;
+    }
+    
+    /**
+     * Get mutable namespace, image is loaded on first call.
+     * 
+     * @return mutable namespace
+     */
+    synchronized CompactNamespace edit()
+    {
+        if(this.namespace == null)
+        {
+            this.namespace = this.image.toNamespace();
+        }
+        
+        return this.namespace;
+    }
+    
+    /**
+     * Check if the namespace is kept in a mutable namespace (it was not
+     * restored from an image or the image has already been edited).
+     * 
+     * @return true if namespace is mutable
+     */
+    boolean isEdited()
+    {
+        return this.namespace != null;
+    }
+    
+    /**
+     * Check if object is a directory.
+     * 
+     * @param id object ID
+     * @return true if object is a directory
+     */
+    boolean isDirectory(int id)
+    {
+        CompactNamespace ns = this.namespace;
+        
+        return (ns != null) ? ns.isDirectory(id) : this.image.isDirectory(id);
+    }
+    
+    /**
+     * Get object name.
+     * 
+     * @param id object ID
+     * @return name
+     */
+    String getName(int id)
+    {
+        CompactNamespace ns = this.namespace;
+        
+        return (ns != null) ? ns.getName(id) : this.image.getName(id);
+    }
+    
+    /**
+     * Get size of file or total size of directory subtree.
+     * 
+     * @param id object ID
+     * @return size in bytes
+     */
+    long getSize(int id)
+    {
+        CompactNamespace ns = this.namespace;
+        
+        return (ns != null) ? ns.getSize(id) : this.image.getSize(id);
+    }
+    
+    /**
+     * Get file access counter.
+     * 
+     * @param id file ID
+     * @return access counter
+     */
+    int getAccessCount(int id)
+    {
+        CompactNamespace ns = this.namespace;
+        
+        return (ns != null) ? ns.getAccessCount(id) : this.image.getAccessCount(id);
+    }
+    
+    /**
+     * Check if object is in the process of migration.
+     * 
+     * @param id object ID
+     * @return migration flag
+     */
+    boolean isMigrating(int id)
+    {
+        CompactNamespace ns = this.namespace;
+        
+        return (ns != null) ? ns.isMigrating(id) : this.image.isMigrating(id);
+    }
+    
+    /**
+     * Get IDs of directory children.
+     * 
+     * @param id directory ID
+     * @return children IDs
+     */
+    int[] getChildIds(int id)
+    {
+        CompactNamespace ns = this.namespace;
+        
+        return (ns != null) ? ns.getChildIds(id) : this.image.getChildIds(id);
+    }
+    
+    /**
+     * Check if directory has any children.
+     * 
+     * @param id directory ID
+     * @return true if directory has children
+     */
+    boolean hasChildren(int id)
+    {
+        CompactNamespace ns = this.namespace;
+        
+        return (ns != null) ? ns.hasChildren(id) : this.image.hasChildren(id);
+    }
+    
+    /**
+     * Find child of directory.
+     * 
+     * @param parentId parent directory ID
+     * @param name child name
+     * @param directory whether the child is a directory
+     * @return child ID or {@link CompactNamespace#NO_OBJECT} if no such child exists
+     */
+    int getChildId(int parentId, String name, boolean directory)
+    {
+        CompactNamespace ns = this.namespace;
+        
+        return (ns != null) ? ns.getChildId(parentId, name, directory) : this.image.getChildId(parentId, name, directory);
+    }
+    
+    /**
+     * Write whole namespace into image file {@code file}. Image that has
+     * not been edited is copied as is.
+     * 
+     * @param file image file
+     * @throws IOException file cannot be written
+     */
+    void writeImage(File file) throws IOException
+    {
+        CompactNamespace ns = this.namespace;
+        
+        if(ns != null)
+        {
+            MappedNamespaceImage.write(ns, file);
+        }
+        else
+        {
+            this.image.write(file);
+        }
+    }
+}
@@ -13,9 +13,17 @@ package cz.zcu.kiv.dfs_simulator.model.storage.replication;
 
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelClientNode;
+import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperation;
 import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperationCallback;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperationTransferLimiter;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsErasureCodingManager;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
@@ -32,13 +40,29 @@ import cz.zcu.kiv.dfs_simulator.simulation.path.FsObjectNotFoundException;
 import cz.zcu.kiv.dfs_simulator.simulation.path.NoPathAvailableException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * File replication manager.
  */
 public class FsGlobalReplicationManager 
 {
+    /**
+     * Global replication mode
+     */
+    private static ReplicationMode replicationMode = ReplicationMode.FAN_OUT;
+    /**
+     * Global replication consistency
+     */
+    private static ReplicationConsistency consistency = ReplicationConsistency.ASYNC;
+    /**
+     * Write quorum - number of replicas (including the first one) that have 
+     * to be written before write is acknowledged in quorum consistency 
+     * (0 for majority)
+     */
+    private static int writeQuorum = 0;
     
     /**
      * Get all replica targets of {@code file}.
@@ -149,6 +173,11 @@ public class FsGlobalReplicationManager
             rR.serverNode.getFsManager().removeDirectoryChild(file.getFullPath());
         });
         
+        if(!remove.isEmpty())
+        {
+            invalidateClientMetadata(file.getFullPath());
+        }
+        
         if(force)
         {
             forceReplicateFile(file, add);
@@ -176,10 +205,12 @@ public class FsGlobalReplicationManager
      */
     public static void forceReplicateFile(FsFile file, List<ReplicaTarget> targets)
     {
+        invalidateClientMetadata(file.getFullPath());
+        
         for(ReplicaTarget rt : targets)
         {
             FsDirectory repParentDir = 
-                    (FsDirectory) rt.serverNode.getRootDir().getChildObject(file.getParent().getFullPath(), true);
+                    (FsDirectory) rt.serverNode.getFsManager().getObject(file.getParent().getFullPath(), true);
             
             if(repParentDir != null)
             {
@@ -190,11 +221,16 @@ public class FsGlobalReplicationManager
                     repFile = new FsFile(file.nameProperty().get(), 
                         new ByteSize(file.getSize().bytesProperty().get(), ByteSizeUnits.B), 
                         repParentDir);
+                    ((FsFile) repFile).setFingerprint(file.getFingerprint());
+                    ((FsFile) repFile).setStub(file.isStub());
+                    ((FsFile) repFile).setEncodingPolicy(file.getEncodingPolicy());
+                    repFile.setErasureCodingPolicy(file.getErasureCodingPolicy());
                 }
                 
                 try
                 {
                     rt.serverNode.getFsManager().addDirectoryChild(repParentDir, repFile);
+                    rt.serverNode.getFsManager().setFileFingerprint((FsFile) repFile, file.getFingerprint());
                     rt.serverNode.getFsManager().forceMount(rt.storage, repFile);
                 }
                 catch(NotEnoughSpaceLeftException ex)
@@ -267,7 +303,8 @@ public class FsGlobalReplicationManager
     }
     
     /**
-     * Delete all replicas of object {@code object}.
+     * Delete all replicas of object {@code object} together with blocks
+     * and erasure coded fragments of all files in it's subtree.
      * 
      * @param object object
      */
@@ -277,6 +314,9 @@ public class FsGlobalReplicationManager
         
         if(ore != null)
         {
+            FsBlockManager.removeObjectBlocks(object);
+            FsErasureCodingManager.removeObjectFragments(object);
+            
             // we have to make copy since we will be altering the global registry
             ArrayList<ModelServerNode> serversCpy = new ArrayList<>(ore.servers);
             
@@ -285,12 +325,14 @@ public class FsGlobalReplicationManager
                 server.getFsManager().removeDirectoryChild(object.getFullPath());
             }
             
+            invalidateClientMetadata(object.getFullPath());
             FsGlobalObjectRegistry.removePath(object.getFullPath());
         }
     }
     
     /**
-     * Rename all replicas of object {@code object} to {@code newName}.
+     * Rename all replicas of object {@code object} to {@code newName}. 
+     * Blocks and erasure coded fragments of renamed files are renamed as well.
      * 
      * @param object object
      * @param newName new name
@@ -301,14 +343,20 @@ public class FsGlobalReplicationManager
         
         if(ore != null)
         {
+            String oldPath = object.getFullPath();
+            
             // remove existing path
-            FsGlobalObjectRegistry.removePath(object.getFullPath());
+            FsGlobalObjectRegistry.removePath(oldPath);
+            invalidateClientMetadata(oldPath);
             
             // rename all objects
             ore.fsObjects.stream().forEach(replicatedObject -> replicatedObject.nameProperty().set(newName));
             
             // register new path
             FsGlobalObjectRegistry.addPath(object.getFullPath(), ore);
+            
+            FsBlockManager.renameObjectBlocks(object, oldPath);
+            FsErasureCodingManager.renameObjectFragments(object, oldPath);
         }
     }
     
@@ -326,7 +374,7 @@ public class FsGlobalReplicationManager
         
         // resize on all nodes
         ore.servers.stream().forEach(srv -> {
-            FileSystemObject serverObject = srv.getRootDir().getChildObject(file.getFullPath());
+            FileSystemObject serverObject = srv.getFsManager().getObject(file.getFullPath());
 
             if(serverObject != null && serverObject instanceof FsFile)
             {
@@ -357,7 +405,7 @@ public class FsGlobalReplicationManager
             // first check all nodes
             for(ModelServerNode server : ore.servers)
             {
-                FileSystemObject serverObject = server.getRootDir().getChildObject(file.getFullPath());
+                FileSystemObject serverObject = server.getFsManager().getObject(file.getFullPath());
 
                 if(serverObject != null && 
                         serverObject instanceof FsFile &&
@@ -405,9 +453,95 @@ public class FsGlobalReplicationManager
         return getReplicaTargets(file).size() > 1;
     }
     
+    /**
+     * Get global replication mode (used for files without their own mode).
+     * 
+     * @return global replication mode
+     */
+    public static ReplicationMode getReplicationMode()
+    {
+        return replicationMode;
+    }
+    
+    /**
+     * Set global replication mode (used for files without their own mode).
+     * 
+     * @param mode global replication mode
+     */
+    public static void setReplicationMode(ReplicationMode mode)
+    {
+        replicationMode = (mode != null) ? mode : ReplicationMode.FAN_OUT;
+    }
+    
+    /**
+     * Get global replication consistency.
+     * 
+     * @return replication consistency
+     */
+    public static ReplicationConsistency getConsistency()
+    {
+        return consistency;
+    }
+    
+    /**
+     * Set global replication consistency.
+     * 
+     * @param newConsistency replication consistency
+     */
+    public static void setConsistency(ReplicationConsistency newConsistency)
+    {
+        consistency = (newConsistency != null) ? newConsistency : ReplicationConsistency.ASYNC;
+    }
+    
+    /**
+     * Get write quorum used in quorum consistency.
+     * 
+     * @return write quorum (0 for majority)
+     */
+    public static int getWriteQuorum()
+    {
+        return writeQuorum;
+    }
+    
+    /**
+     * Set write quorum used in quorum consistency.
+     * 
+     * @param quorum number of replicas including the first one (0 for majority)
+     */
+    public static void setWriteQuorum(int quorum)
+    {
+        writeQuorum = Math.max(0, quorum);
+    }
+    
+    /**
+     * Get number of replicas, besides the first written one, that have to be 
+     * updated before a write of file with {@code replicas} replicas is 
+     * acknowledged to the client under global consistency.
+     * 
+     * @param replicas total number of replicas of file
+     * @return number of replicas to wait for
+     */
+    public static int getRequiredReplicaAcks(int replicas)
+    {
+        switch(consistency)
+        {
+            case SYNC:
+                return Math.max(0, replicas - 1);
+            case QUORUM:
+                int quorum = (writeQuorum > 0) ? writeQuorum : ((replicas / 2) + 1);
+                
+                return Math.max(0, Math.min(quorum, replicas) - 1);
+            default:
+                return 0;
+        }
+    }
+    
     /**
      * Propagate resize of file {@code file} - all replicas have to be updates, 
      * therefore we need to create appropriate transfers (and disk operations).
+     * Replicas are either updated directly from {@code origin} (fan-out)
+     * or in a chain, where each replica forwards received data to the next
+     * one (pipeline), depending on global replication mode.
      * 
      * @param file file
      * @param origin server, that has updated replica (originating server)
@@ -415,74 +549,215 @@ public class FsGlobalReplicationManager
      * @param simulationType running simulation type
      * @param logger simulation logger
      * @param sTime simulation time
+     * @return replication progress or null if {@code file} is not mounted 
+     * on {@code origin}
      */
     // since we do not have any way to share connection link between multiple
     // 'users', the link bandwidth is unaffected by this transfer, although
     // it definitely should be - if simulation picks this path for transfer
     // it will retain its throughput although we are using it to replicate
     // this file
-    public static void propagateReplicaResize(FsFile file, ModelServerNode origin, 
+    public static ReplicationProgress propagateReplicaResize(FsFile file, ModelServerNode origin, 
             DfsPathPicker pathBuilder, SimulationType simulationType, DfsSimulatorLogger logger,
             long sTime)
+    {
+        return propagateReplicaResize(file, origin, pathBuilder, simulationType, logger, sTime, 
+                new ReplicationProgress(file, replicationMode, sTime));
+    }
+    
+    /**
+     * Propagate resize of file {@code file}, replicas are added to existing
+     * replication progress {@code progress} (eg. when replicating multiple
+     * blocks of a single file).
+     * 
+     * @param file file
+     * @param origin server, that has updated replica (originating server)
+     * @param pathBuilder path builder used to build path
+     * @param simulationType running simulation type
+     * @param logger simulation logger
+     * @param sTime simulation time
+     * @param progress replication progress
+     * @return {@code progress} or null if {@code file} is not mounted 
+     * on {@code origin}
+     */
+    public static ReplicationProgress propagateReplicaResize(FsFile file, ModelServerNode origin, 
+            DfsPathPicker pathBuilder, SimulationType simulationType, DfsSimulatorLogger logger,
+            long sTime, ReplicationProgress progress)
     {
         ServerStorage originStorage = origin.getFsManager().getFsObjectMountDevice(file);
         
-        if(originStorage != null)
+        if(originStorage == null)
         {
-            List<ReplicaTarget> replicas = getReplicaTargets(file);
-            
-            // create dummy task
-            PutSimulationTask dummyTask = new PutSimulationTask(file);
+            return null;
+        }
+        
+        ReplicationMode mode = progress.getMode();
+        
+        // resize other replicas only, replicas on failed servers cannot be reached
+        Map<ModelServerNode, ReplicaTarget> replicas = new LinkedHashMap<>();
+        
+        for(ReplicaTarget r : getReplicaTargets(file))
+        {
+            if(r.serverNode.equals(origin))
+            {
+                continue;
+            }
             
-            // create transfer list for i/o operations
-            List<FsFile> transferList = new ArrayList<>();
-            transferList.add(file);
+            if(r.serverNode.isFailed())
+            {
+                progress.addLostReplica();
+            }
+            else
+            {
+                replicas.put(r.serverNode, r);
+            }
+        }
+        
+        // create dummy task
+        PutSimulationTask dummyTask = new PutSimulationTask(file);
+
+        // create transfer list for i/o operations
+        List<FsFile> transferList = new ArrayList<>();
+        transferList.add(file);
+        
+        ModelServerNode upstreamNode = origin;
+        StorageOperation upstreamOp = null;
+        
+        while(!replicas.isEmpty())
+        {
+            ReplicaTarget replica = null;
             
-            if(!replicas.isEmpty())
+            try 
             {
-                replicas.forEach((replica) ->
+                DfsPath replicaPath;
+                
+                if(mode == ReplicationMode.PIPELINE)
                 {
-                    // resize other replicas only
-                    if(!replica.serverNode.equals(origin))
-                    {
-                        // find path to target replica server
-                        try 
-                        {
-                            // get path to replica server
-                            DfsPath replicaPath = pathBuilder.selectPath(origin, dummyTask, sTime, replica.serverNode, simulationType);
-
-                            // create replication operations
-                            replica.storage.getOperationManager().addReplicationOperation(transferList, originStorage, replicaPath, new StorageOperationCallback()
-                            {
-                                @Override public void onOperationStarted(long sTime)
-                                {
-                                    logger.logReplicationStart(file, origin, replica.serverNode, sTime);
-                                }
+                    // next pipeline node is the best reachable remaining replica
+                    replicaPath = pathBuilder.selectPathAmong(upstreamNode, dummyTask, sTime, replicas.keySet(), simulationType);
+                    replica = replicas.remove(replicaPath.getTarget());
+                }
+                else
+                {
+                    replica = replicas.remove(replicas.keySet().iterator().next());
+                    replicaPath = pathBuilder.selectPath(origin, dummyTask, sTime, replica.serverNode, simulationType);
+                }
+                
+                if(replica == null)
+                {
+                    throw new NoPathAvailableException("Selected path does not lead to a replica");
+                }
+                
+                StorageOperationCallback callback = createReplicaCallback(file, upstreamNode, replica, progress, logger);
+                
+                if(upstreamOp == null || mode != ReplicationMode.PIPELINE)
+                {
+                    // create replication operations
+                    upstreamOp = replica.storage.getOperationManager().
+                            addReplicationOperation(transferList, originStorage, replicaPath, callback, false).first;
+                }
+                else
+                {
+                    // forward data as it arrives, without reading it from upstream storage
+                    upstreamOp = replica.storage.getOperationManager().
+                            addWriteOperation(transferList, createPipelineLimiter(replicaPath, upstreamOp), callback, true, false);
+                }
+                
+                progress.addReplica();
+                
+                if(mode == ReplicationMode.PIPELINE)
+                {
+                    upstreamNode = replica.serverNode;
+                }
+            }
+            catch(FsObjectNotFoundException | NotMountedException | NoPathAvailableException ex)
+            {
+                logger.logError("Unable to replicate file due to an exception: " + ex.getMessage(), sTime);
 
-                                @Override public void onOperationFinished(long sTime)
-                                {
-                                    FileSystemObject replicaFile = replica.serverNode.getRootDir().getChildObject(file.getFullPath());
-                                    
-                                    if(replicaFile instanceof FsFile)
-                                    {
-                                        ((FsFile) replicaFile).setSize(file.getSize());
-                                    }
-                                    
-                                    logger.logReplicationFinish(file, origin, replica.serverNode, sTime);
-                                }
-                            }, false);
-                        }
-                        catch(FsObjectNotFoundException | NotMountedException | NoPathAvailableException ex)
-                        {
-                            logger.logError("Unable to replicate file due to an exception: " + ex.getMessage(), sTime);
-                            
-                            throw new RuntimeException("Unable to replicate file " + file.toString() + 
-                                    " from server " + origin.toString() + " to server " + replica.serverNode.toString() + ": " + ex.getMessage());
-                        }
-                    }
-                });
+                throw new RuntimeException("Unable to replicate file " + file.toString() + 
+                        " from server " + upstreamNode.toString() + " to server " + 
+                        ((replica != null) ? replica.serverNode.toString() : "(none)") + ": " + ex.getMessage());
             }
         }
+        
+        return progress;
     }
     
+    /**
+     * Create callback of replica write operation.
+     * 
+     * @param file replicated file
+     * @param source server sending the data
+     * @param replica updated replica
+     * @param progress replication progress
+     * @param logger simulation logger
+     * @return replica write operation callback
+     */
+    private static StorageOperationCallback createReplicaCallback(FsFile file, ModelServerNode source,
+            ReplicaTarget replica, ReplicationProgress progress, DfsSimulatorLogger logger)
+    {
+        return new StorageOperationCallback()
+        {
+            @Override public void onOperationStarted(long sTime)
+            {
+                logger.logReplicationStart(file, source, replica.serverNode, sTime);
+            }
+
+            @Override public void onOperationFinished(long sTime)
+            {
+                FileSystemObject replicaFile = replica.serverNode.getFsManager().getObject(file.getFullPath());
+
+                if(replicaFile instanceof FsFile)
+                {
+                    ((FsFile) replicaFile).setSize(file.getSize());
+                }
+                
+                progress.onReplicaFinished(sTime);
+                logger.logReplicationFinish(file, source, replica.serverNode, sTime);
+            }
+        };
+    }
+    
+    /**
+     * Create transfer limiter of pipeline write operation. Pipeline node
+     * cannot receive data faster than the previous node in pipeline does.
+     * 
+     * @param path path from previous pipeline node
+     * @param upstreamOp write operation of previous pipeline node
+     * @return transfer limiter
+     */
+    private static StorageOperationTransferLimiter createPipelineLimiter(DfsPath path, StorageOperation upstreamOp)
+    {
+        return new StorageOperationTransferLimiter()
+        {
+            @Override public ByteSpeed getTransferLimit(long sTime)
+            {
+                long bps = path.getCurrentLinkBandwidth(sTime).bpsProperty().get();
+                
+                // previous node has already received all data
+                if(upstreamOp.getTransferedSize().bytesProperty().get() < upstreamOp.getTotalSize().bytesProperty().get())
+                {
+                    // throughput of previous node is not known before its storage is updated
+                    ByteSpeed upstreamBps = upstreamOp.isThroughputAssigned() ? upstreamOp.getAvailableThroughput() : upstreamOp.getMaxTransferThroughput(sTime);
+                    bps = Math.min(bps, upstreamBps.bpsProperty().get());
+                }
+                
+                return new ByteSpeed(bps, ByteSpeedUnits.BPS);
+            }
+        };
+    }
+    
+    /**
+     * Remove cached locations of object at {@code path} from metadata caches
+     * of all clients - replicas of the object have been added or removed.
+     * 
+     * @param path object path
+     */
+    private static void invalidateClientMetadata(String path)
+    {
+        for(ModelClientNode client : ModelNodeRegistry.getClientNodes())
+        {
+            client.getMetadataCache().invalidate(path);
+        }
+    }
 }
@@ -0,0 +1,57 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.model.storage.replication;
+
+/**
+ * When is a write acknowledged to the client with respect to its replicas.
+ */
+public enum ReplicationConsistency
+{
+    /**
+     * Write is acknowledged as soon as the first replica is written
+     */
+    ASYNC("Asynchronous"),
+    /**
+     * Write is acknowledged once write quorum of replicas is written
+     */
+    QUORUM("Quorum"),
+    /**
+     * Write is acknowledged once all replicas are written
+     */
+    SYNC("Synchronous");
+    
+    /**
+     * Consistency name
+     */
+    private final String name;
+    
+    /**
+     * Replication consistency.
+     * 
+     * @param name consistency name
+     */
+    private ReplicationConsistency(String name)
+    {
+        this.name = name;
+    }
+    
+    /**
+     * Consistency name.
+     * 
+     * @return consistency name
+     */
+    @Override public String toString()
+    {
+        return this.name;
+    }
+}
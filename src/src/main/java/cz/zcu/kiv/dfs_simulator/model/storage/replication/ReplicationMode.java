@@ -0,0 +1,53 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.replication;
+
+/**
+ * How file changes are propagated to replicas.
+ */
+public enum ReplicationMode
+{
+    /**
+     * Originating server sends data to every replica independently
+     */
+    FAN_OUT("Fan-out"),
+    /**
+     * Replicas form a chain, each replica forwards data to the next one
+     * while it is still receiving it
+     */
+    PIPELINE("Pipeline");
+    
+    /**
+     * Mode name
+     */
+    private final String name;
+    
+    /**
+     * Replication mode.
+     * 
+     * @param name mode name
+     */
+    private ReplicationMode(String name)
+    {
+        this.name = name;
+    }
+    
+    /**
+     * Mode name.
+     * 
+     * @return mode name
+     */
+    @Override public String toString()
+    {
+        return this.name;
+    }
+}
@@ -0,0 +1,334 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.replication;
+
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of propagating a single file change to all replicas. Progress
+ * of a file stored as blocks consists of parts - progress of each block,
+ * replicas of parts are counted in the whole file progress as well.
+ */
+public class ReplicationProgress
+{
+    /**
+     * Replicated file
+     */
+    private final FsFile file;
+    /**
+     * Used replication mode
+     */
+    private final ReplicationMode mode;
+    /**
+     * Simulation time at which replication began
+     */
+    private final long startTime;
+    /**
+     * Progress this progress is part of (null if not a part)
+     */
+    private final ReplicationProgress parent;
+    /**
+     * Parts of this progress (progress of each block)
+     */
+    private final List<ReplicationProgress> parts = new ArrayList<>();
+    
+    /**
+     * Number of replicas that are being updated
+     */
+    private int replicaCount = 0;
+    /**
+     * Number of replicas that have been updated
+     */
+    private int finishedCount = 0;
+    /**
+     * Number of replicas that could not be updated (their server has failed)
+     */
+    private int lostCount = 0;
+    /**
+     * Simulation time at which last replica has been updated
+     */
+    private long finishTime = -1;
+    /**
+     * Simulation times at which replicas have been updated (in order)
+     */
+    private final List<Long> replicaFinishTimes = new ArrayList<>();
+    /**
+     * Consistency the write has been acknowledged with (null if not acknowledged)
+     */
+    private ReplicationConsistency consistency = null;
+    /**
+     * Simulation time at which the write has been acknowledged to the client
+     */
+    private long acknowledgeTime = -1;
+    
+    /**
+     * Replication progress.
+     * 
+     * @param file replicated file
+     * @param mode replication mode
+     * @param startTime simulation time at which replication began
+     */
+    public ReplicationProgress(FsFile file, ReplicationMode mode, long startTime)
+    {
+        this(file, mode, startTime, null);
+    }
+    
+    /**
+     * Replication progress that is part of {@code parent} progress.
+     * 
+     * @param file replicated file
+     * @param mode replication mode
+     * @param startTime simulation time at which replication began
+     * @param parent progress this progress is part of
+     */
+    private ReplicationProgress(FsFile file, ReplicationMode mode, long startTime, ReplicationProgress parent)
+    {
+        this.file = file;
+        this.mode = mode;
+        this.startTime = startTime;
+        this.parent = parent;
+    }
+    
+    /**
+     * Create progress of replicating part of the file (block).
+     * 
+     * @param partFile replicated block file
+     * @param partStartTime simulation time at which replication of block began
+     * @return part progress
+     */
+    public ReplicationProgress createPart(FsFile partFile, long partStartTime)
+    {
+        ReplicationProgress part = new ReplicationProgress(partFile, this.mode, partStartTime, this);
+        this.parts.add(part);
+        
+        return part;
+    }
+    
+    /**
+     * Get parts of this progress.
+     * 
+     * @return part progresses (empty if file is not replicated by parts)
+     */
+    public List<ReplicationProgress> getParts()
+    {
+        return this.parts;
+    }
+    
+    /**
+     * Register replica that is being updated.
+     */
+    public void addReplica()
+    {
+        this.replicaCount++;
+        
+        if(this.parent != null)
+        {
+            this.parent.addReplica();
+        }
+    }
+    
+    /**
+     * Register replica that cannot be updated because its server has failed.
+     * Lost replica never acknowledges the write.
+     */
+    public void addLostReplica()
+    {
+        this.lostCount++;
+        
+        if(this.parent != null)
+        {
+            this.parent.addLostReplica();
+        }
+    }
+    
+    /**
+     * Mark one replica as updated.
+     * 
+     * @param sTime simulation time
+     */
+    public void onReplicaFinished(long sTime)
+    {
+        this.finishedCount++;
+        this.finishTime = Math.max(this.finishTime, sTime);
+        this.replicaFinishTimes.add(sTime);
+        
+        if(this.parent != null)
+        {
+            this.parent.onReplicaFinished(sTime);
+        }
+    }
+    
+    /**
+     * Get number of replicas that have been updated.
+     * 
+     * @return number of updated replicas
+     */
+    public int getFinishedCount()
+    {
+        return this.finishedCount;
+    }
+    
+    /**
+     * Get simulation time at which {@code replicas} replicas have been updated.
+     * 
+     * @param replicas number of replicas
+     * @return simulation time or -1 if less replicas have been updated
+     */
+    public long getReplicasFinishTime(int replicas)
+    {
+        if(replicas <= 0)
+        {
+            return this.startTime;
+        }
+        
+        if(replicas > this.replicaFinishTimes.size())
+        {
+            return -1;
+        }
+        
+        List<Long> sorted = new ArrayList<>(this.replicaFinishTimes);
+        sorted.sort(null);
+        
+        return sorted.get(replicas - 1);
+    }
+    
+    /**
+     * Mark the write as acknowledged to the client.
+     * 
+     * @param consistency consistency the write has been acknowledged with
+     * @param sTime simulation time
+     */
+    public void acknowledge(ReplicationConsistency consistency, long sTime)
+    {
+        this.consistency = consistency;
+        this.acknowledgeTime = sTime;
+    }
+    
+    /**
+     * Get consistency the write has been acknowledged with.
+     * 
+     * @return consistency or null if write has not been acknowledged
+     */
+    public ReplicationConsistency getConsistency()
+    {
+        return this.consistency;
+    }
+    
+    /**
+     * Get simulation time at which the write has been acknowledged to the client.
+     * 
+     * @return acknowledge time or -1 if not acknowledged
+     */
+    public long getAcknowledgeTime()
+    {
+        return this.acknowledgeTime;
+    }
+    
+    /**
+     * Get replica convergence lag - time from acknowledging the write 
+     * to the client until last replica has been updated.
+     * 
+     * @return convergence lag or -1 if not finished or not acknowledged
+     */
+    public long getConvergenceLag()
+    {
+        if(!this.isFinished() || this.acknowledgeTime < 0)
+        {
+            return -1;
+        }
+        
+        return Math.max(0, this.finishTime - this.acknowledgeTime);
+    }
+    
+    /**
+     * Checks if all replicas have been updated.
+     * 
+     * @return true if finished, false otherwise
+     */
+    public boolean isFinished()
+    {
+        return (this.replicaCount > 0 && this.finishedCount >= this.replicaCount);
+    }
+    
+    /**
+     * Get replicated file.
+     * 
+     * @return file
+     */
+    public FsFile getFile()
+    {
+        return this.file;
+    }
+    
+    /**
+     * Get used replication mode.
+     * 
+     * @return replication mode
+     */
+    public ReplicationMode getMode()
+    {
+        return this.mode;
+    }
+    
+    /**
+     * Get simulation time at which replication began.
+     * 
+     * @return start time
+     */
+    public long getStartTime()
+    {
+        return this.startTime;
+    }
+    
+    /**
+     * Get simulation time at which last replica has been updated.
+     * 
+     * @return finish time or -1 if not finished
+     */
+    public long getFinishTime()
+    {
+        return this.isFinished() ? this.finishTime : -1;
+    }
+    
+    /**
+     * Get number of replicas that are being updated.
+     * 
+     * @return number of replicas
+     */
+    public int getReplicaCount()
+    {
+        return this.replicaCount;
+    }
+    
+    /**
+     * Get number of replicas that could not be updated.
+     * 
+     * @return number of lost replicas
+     */
+    public int getLostCount()
+    {
+        return this.lostCount;
+    }
+    
+    /**
+     * Get end-to-end replication time - from the beginning of replication
+     * until last replica has been updated.
+     * 
+     * @return replication time or -1 if not finished
+     */
+    public long getReplicationTime()
+    {
+        return this.isFinished() ? (this.finishTime - this.startTime) : -1;
+    }
+}
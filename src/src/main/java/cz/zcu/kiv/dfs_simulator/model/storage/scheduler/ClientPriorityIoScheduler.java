@@ -0,0 +1,58 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.scheduler;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperation;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Strict priority scheduler. Client operations are served first (fairly
+ * between themselves), background (managed) operations only get
+ * the throughput that client operations cannot use.
+ */
+public class ClientPriorityIoScheduler extends StorageIoScheduler
+{
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void allocateThroughput(List<StorageOperation> operations, ByteSpeed deviceSpeed, long sTime)
+    {
+        long[] demands = getDemands(operations, sTime);
+        double[] clientWeights = new double[demands.length];
+        double[] backgroundWeights = new double[demands.length];
+        
+        for(int i = 0; i < demands.length; i++)
+        {
+            if(operations.get(i).getType().isManaged())
+            {
+                backgroundWeights[i] = 1;
+            }
+            else
+            {
+                clientWeights[i] = 1;
+            }
+        }
+        
+        long[] clientAllocated = waterFill(demands, clientWeights, deviceSpeed.bpsProperty().get());
+        long leftover = deviceSpeed.bpsProperty().get() - Arrays.stream(clientAllocated).sum();
+        long[] backgroundAllocated = waterFill(demands, backgroundWeights, leftover);
+        
+        for(int i = 0; i < demands.length; i++)
+        {
+            operations.get(i).setAvailableThroughput(
+                    new ByteSpeed(clientAllocated[i] + backgroundAllocated[i], ByteSpeedUnits.BPS));
+        }
+    }
+}
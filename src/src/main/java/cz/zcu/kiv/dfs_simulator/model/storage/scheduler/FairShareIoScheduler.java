@@ -0,0 +1,92 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.scheduler;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Pair;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fair share scheduler. Device bandwidth is split evenly between all running
+ * operations, regardless of their type. Throughput unused by slower 
+ * operations is redistributed between the rest.
+ */
+public class FairShareIoScheduler extends StorageIoScheduler
+{
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void allocateThroughput(List<StorageOperation> operations, ByteSpeed deviceSpeed, long sTime)
+    {
+        // get maximum speed per operation
+        long maxBpsPerOp = (deviceSpeed.bpsProperty().get() / operations.size());
+        ByteSpeed maxSpeedPerOp = new ByteSpeed(maxBpsPerOp, ByteSpeedUnits.BPS);
+
+        long leftoverThroughput = 0;
+        ArrayList<Pair<StorageOperation, Long>> leftoverCandidates = new ArrayList<>();
+
+        // first analyze operation maximum transfer throughput
+        for(StorageOperation p : operations)
+        {
+            long lo = maxBpsPerOp - p.getMaxTransferThroughput(sTime).bpsProperty().get();
+
+            // unused disk throughput
+            if(lo >= 0)
+            {
+                leftoverThroughput += lo;
+
+                // set operation throughput
+                p.setAvailableThroughput(p.getMaxTransferThroughput(sTime));
+            }
+            // unused operation throughput (could transfer faster)
+            else if(lo < 0)
+            {
+                leftoverCandidates.add(new Pair(p, lo * (-1)));
+
+
+                p.setAvailableThroughput(maxSpeedPerOp);
+            }
+        }
+
+        // check if we have any leftover throughput to distribute
+        if(leftoverThroughput != 0 && leftoverThroughput > leftoverCandidates.size())
+        {
+            // order candidates by lowest
+            Collections.sort(leftoverCandidates, (a, b) -> Long.compare(a.second, b.second));
+
+            for(int i = 0; i < leftoverCandidates.size() && leftoverThroughput > 0; i++)
+            {
+                long leftoverPerOp = (leftoverThroughput / ( (leftoverCandidates.size() - i)));
+                Pair<StorageOperation, Long> cP = leftoverCandidates.get(i);
+
+                // requested throuhgput is less than per OP
+                if(cP.second <= leftoverPerOp)
+                {
+                    // increase candidates throughput by maximum possible value
+                    cP.first.setAvailableThroughput(
+                            new ByteSpeed(cP.first.getAvailableThroughput().bpsProperty().get() + cP.second, ByteSpeedUnits.BPS));
+                    leftoverThroughput -= cP.second;
+                }
+                else
+                {
+                    cP.first.setAvailableThroughput(
+                            new ByteSpeed(cP.first.getAvailableThroughput().bpsProperty().get() + leftoverPerOp));
+                    leftoverThroughput -= leftoverPerOp;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.scheduler;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperation;
+import java.util.List;
+
+/**
+ * Storage I/O scheduler. Splits storage device bandwidth between
+ * running storage operations.
+ */
+public abstract class StorageIoScheduler
+{
+    /**
+     * Set available throughput of all running {@code operations}.
+     * 
+     * @param operations running operations
+     * @param deviceSpeed maximum device speed
+     * @param sTime simulation time
+     */
+    abstract public void allocateThroughput(List<StorageOperation> operations, ByteSpeed deviceSpeed, long sTime);
+    
+    /**
+     * Will be called after {@code bytes} bytes have been transfered
+     * by managed {@code operation}.
+     * 
+     * @param operation operation
+     * @param bytes transfered bytes
+     * @param sTime simulation time
+     */
+    public void onDataTransfered(StorageOperation operation, long bytes, long sTime)
+    {
+        
+    }
+    
+    /**
+     * Weighted max-min fair split of {@code capacity} between demands. Demands
+     * lower than their weighted share are fully satisfied and their unused
+     * share is split between remaining demands (by weight).
+     * 
+     * @param demands requested throughput (bps)
+     * @param weights demand weights (demands with zero weight get nothing)
+     * @param capacity available throughput (bps)
+     * @return allocated throughput (bps)
+     */
+    protected static long[] waterFill(long[] demands, double[] weights, long capacity)
+    {
+        long[] allocated = new long[demands.length];
+        boolean[] satisfied = new boolean[demands.length];
+        long remaining = capacity;
+        
+        while(remaining > 0)
+        {
+            double weightSum = 0;
+            
+            for(int i = 0; i < demands.length; i++)
+            {
+                if(!satisfied[i] && weights[i] > 0)
+                {
+                    weightSum += weights[i];
+                }
+            }
+            
+            if(weightSum <= 0)
+            {
+                break;
+            }
+            
+            boolean anySatisfied = false;
+            long shareBase = remaining;
+            
+            // first satisfy all demands that fit into their share
+            for(int i = 0; i < demands.length; i++)
+            {
+                if(!satisfied[i] && weights[i] > 0 && 
+                        (demands[i] - allocated[i]) <= (shareBase * (weights[i] / weightSum)))
+                {
+                    remaining -= (demands[i] - allocated[i]);
+                    allocated[i] = demands[i];
+                    satisfied[i] = true;
+                    anySatisfied = true;
+                }
+            }
+            
+            // no demand fits, split the rest by weight
+            if(!anySatisfied)
+            {
+                for(int i = 0; i < demands.length; i++)
+                {
+                    if(!satisfied[i] && weights[i] > 0)
+                    {
+                        long share = (long) (shareBase * (weights[i] / weightSum));
+                        
+                        allocated[i] += share;
+                        remaining -= share;
+                    }
+                }
+                
+                break;
+            }
+        }
+        
+        return allocated;
+    }
+    
+    /**
+     * Get maximum transfer throughput of all {@code operations}.
+     * 
+     * @param operations operations
+     * @param sTime simulation time
+     * @return maximum transfer throughput (bps)
+     */
+    protected static long[] getDemands(List<StorageOperation> operations, long sTime)
+    {
+        long[] demands = new long[operations.size()];
+        
+        for(int i = 0; i < demands.length; i++)
+        {
+            demands[i] = operations.get(i).getMaxTransferThroughput(sTime).bpsProperty().get();
+        }
+        
+        return demands;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.scheduler;
+
+/**
+ * Available storage I/O scheduling policies.
+ */
+public enum StorageIoSchedulerType
+{
+    /**
+     * All operations share bandwidth evenly
+     */
+    FAIR_SHARE("Fair share"),
+    /**
+     * Bandwidth is shared by operation type weight
+     */
+    WEIGHTED_FAIR("Weighted fair"),
+    /**
+     * Client operations are served first
+     */
+    CLIENT_PRIORITY("Client priority");
+    
+    /**
+     * Policy name
+     */
+    private final String name;
+    
+    /**
+     * Scheduler type.
+     * 
+     * @param name policy name
+     */
+    private StorageIoSchedulerType(String name)
+    {
+        this.name = name;
+    }
+    
+    /**
+     * Create new scheduler of this type.
+     * 
+     * @return scheduler
+     */
+    public StorageIoScheduler createScheduler()
+    {
+        switch(this)
+        {
+            case WEIGHTED_FAIR:
+                return new WeightedFairIoScheduler();
+            case CLIENT_PRIORITY:
+                return new ClientPriorityIoScheduler();
+            case FAIR_SHARE:
+            default:
+                return new FairShareIoScheduler();
+        }
+    }
+    
+    /**
+     * Policy name.
+     * 
+     * @return policy name
+     */
+    @Override public String toString()
+    {
+        return this.name;
+    }
+}
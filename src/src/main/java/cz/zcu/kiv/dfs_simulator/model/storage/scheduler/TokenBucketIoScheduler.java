@@ -0,0 +1,189 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.scheduler;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperation;
+import java.util.List;
+
+/**
+ * Token bucket limiter of background (managed - replication, migration) 
+ * operations. Bandwidth is first split by wrapped scheduler, afterwards
+ * total throughput of background operations is capped at bucket rate (plus
+ * accumulated burst tokens spread over {@link #BURST_WINDOW_MS}) and throughput
+ * taken from background operations is given to client operations.
+ */
+public class TokenBucketIoScheduler extends StorageIoScheduler
+{
+    /**
+     * Window over which accumulated tokens may be spent
+     */
+    public static final long BURST_WINDOW_MS = 1000;
+    
+    /**
+     * Wrapped scheduler
+     */
+    private final StorageIoScheduler scheduler;
+    /**
+     * Bucket refill rate (zero disables limiting)
+     */
+    private final ByteSpeed rate;
+    /**
+     * Bucket size
+     */
+    private final ByteSize burst;
+    
+    /**
+     * Tokens (bytes) currently in bucket
+     */
+    private double tokens;
+    /**
+     * Simulation time of last refill
+     */
+    private long lastRefill = -1;
+    
+    /**
+     * Token bucket limiter.
+     * 
+     * @param scheduler wrapped scheduler
+     * @param rate bucket refill rate (zero disables limiting)
+     * @param burst bucket size
+     */
+    public TokenBucketIoScheduler(StorageIoScheduler scheduler, ByteSpeed rate, ByteSize burst)
+    {
+        this.scheduler = scheduler;
+        this.rate = rate;
+        this.burst = burst;
+    }
+    
+    /**
+     * Get wrapped scheduler.
+     * 
+     * @return wrapped scheduler
+     */
+    public StorageIoScheduler getScheduler()
+    {
+        return this.scheduler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void allocateThroughput(List<StorageOperation> operations, ByteSpeed deviceSpeed, long sTime)
+    {
+        this.scheduler.allocateThroughput(operations, deviceSpeed, sTime);
+        
+        long rateBps = this.rate.bpsProperty().get();
+        
+        if(rateBps <= 0)
+        {
+            return;
+        }
+        
+        this.refill(sTime);
+        
+        long cap = rateBps + (long) (this.tokens * 1000 / BURST_WINDOW_MS);
+        long backgroundBps = 0;
+        
+        for(StorageOperation op : operations)
+        {
+            if(op.getType().isManaged())
+            {
+                backgroundBps += op.getAvailableThroughput().bpsProperty().get();
+            }
+        }
+        
+        if(backgroundBps <= cap)
+        {
+            return;
+        }
+        
+        // scale background operations down
+        double ratio = cap / (double) backgroundBps;
+        long freed = 0;
+        
+        long[] clientHeadroom = new long[operations.size()];
+        double[] clientWeights = new double[operations.size()];
+        
+        for(int i = 0; i < operations.size(); i++)
+        {
+            StorageOperation op = operations.get(i);
+            long available = op.getAvailableThroughput().bpsProperty().get();
+            
+            if(op.getType().isManaged())
+            {
+                long limited = (long) (available * ratio);
+                
+                op.setAvailableThroughput(new ByteSpeed(limited, ByteSpeedUnits.BPS));
+                freed += (available - limited);
+            }
+            else
+            {
+                clientHeadroom[i] = Math.max(0, op.getMaxTransferThroughput(sTime).bpsProperty().get() - available);
+                clientWeights[i] = 1;
+            }
+        }
+        
+        // give freed throughput to client operations
+        long[] extra = waterFill(clientHeadroom, clientWeights, freed);
+        
+        for(int i = 0; i < operations.size(); i++)
+        {
+            if(extra[i] > 0)
+            {
+                StorageOperation op = operations.get(i);
+                
+                op.setAvailableThroughput(new ByteSpeed(
+                        op.getAvailableThroughput().bpsProperty().get() + extra[i], ByteSpeedUnits.BPS));
+            }
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onDataTransfered(StorageOperation operation, long bytes, long sTime)
+    {
+        this.scheduler.onDataTransfered(operation, bytes, sTime);
+        
+        if(operation.getType().isManaged() && this.rate.bpsProperty().get() > 0)
+        {
+            this.refill(sTime);
+            this.tokens = Math.max(0, this.tokens - bytes);
+        }
+    }
+    
+    /**
+     * Add tokens accumulated since last refill.
+     * 
+     * @param sTime simulation time
+     */
+    private void refill(long sTime)
+    {
+        long burstBytes = this.burst.bytesProperty().get();
+        
+        // first refill or simulation restarted
+        if(this.lastRefill < 0 || sTime < this.lastRefill)
+        {
+            this.tokens = burstBytes;
+        }
+        else
+        {
+            double added = this.rate.bpsProperty().get() * ((sTime - this.lastRefill) / 1000.0);
+            this.tokens = Math.min(burstBytes, this.tokens + added);
+        }
+        
+        this.lastRefill = sTime;
+    }
+}
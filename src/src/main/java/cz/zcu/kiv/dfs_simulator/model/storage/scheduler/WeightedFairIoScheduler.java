@@ -0,0 +1,99 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.scheduler;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperation;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperationType;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted fair scheduler. Device bandwidth is split between running 
+ * operations in proportion to the weight of their {@link StorageOperationType}.
+ * Throughput unused by slower operations is redistributed between the rest
+ * (again by weight).
+ */
+public class WeightedFairIoScheduler extends StorageIoScheduler
+{
+    /**
+     * Default weight of client operations
+     */
+    public static final double DEFAULT_CLIENT_WEIGHT = 4;
+    /**
+     * Default weight of background (managed) operations
+     */
+    public static final double DEFAULT_BACKGROUND_WEIGHT = 1;
+    
+    /**
+     * Operation type weights
+     */
+    private final Map<StorageOperationType, Double> weights = new EnumMap<>(StorageOperationType.class);
+    
+    /**
+     * Weighted fair scheduler.
+     * 
+     * @param weights operation type weights (missing types have weight 1)
+     */
+    public WeightedFairIoScheduler(Map<StorageOperationType, Double> weights)
+    {
+        for(StorageOperationType type : StorageOperationType.values())
+        {
+            this.weights.put(type, weights.getOrDefault(type, 1d));
+        }
+    }
+    
+    /**
+     * Weighted fair scheduler with default weights - client operations
+     * have higher weight than background operations.
+     */
+    public WeightedFairIoScheduler()
+    {
+        for(StorageOperationType type : StorageOperationType.values())
+        {
+            this.weights.put(type, type.isManaged() ? DEFAULT_BACKGROUND_WEIGHT : DEFAULT_CLIENT_WEIGHT);
+        }
+    }
+    
+    /**
+     * Get weight of operation type.
+     * 
+     * @param type operation type
+     * @return weight
+     */
+    public double getWeight(StorageOperationType type)
+    {
+        return this.weights.get(type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void allocateThroughput(List<StorageOperation> operations, ByteSpeed deviceSpeed, long sTime)
+    {
+        double[] opWeights = new double[operations.size()];
+        
+        for(int i = 0; i < opWeights.length; i++)
+        {
+            opWeights[i] = this.weights.get(operations.get(i).getType());
+        }
+        
+        long[] allocated = waterFill(getDemands(operations, sTime), opWeights, deviceSpeed.bpsProperty().get());
+        
+        for(int i = 0; i < allocated.length; i++)
+        {
+            operations.get(i).setAvailableThroughput(new ByteSpeed(allocated[i], ByteSpeedUnits.BPS));
+        }
+    }
+}
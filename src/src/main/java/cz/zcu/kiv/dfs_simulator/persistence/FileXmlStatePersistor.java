@@ -12,7 +12,9 @@
 package cz.zcu.kiv.dfs_simulator.persistence;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.LinkedList;
+import java.util.Map.Entry;
 import java.util.Queue;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -40,6 +42,10 @@ public class FileXmlStatePersistor extends StatePersistor<File>
      * Persistence logger
      */
     private final StatePersistenceLogger logger;
+    /**
+     * Number of written attachments
+     */
+    private int attachmentCount = 0;
     
     /**
      * Construct XML file persistor.
@@ -57,13 +63,14 @@ public class FileXmlStatePersistor extends StatePersistor<File>
      * {@inheritDoc}
      */
     @Override public boolean persist(StatePersistable root) throws ParserConfigurationException, 
-            TransformerException
+            TransformerException, IOException
     {
         DocumentBuilderFactory fac = DocumentBuilderFactory.newInstance();
         DocumentBuilder builder = fac.newDocumentBuilder();
 
         Document doc = builder.newDocument();
 
+        this.attachmentCount = 0;
         this.traverseAndPersistNode(doc, doc, root);
 
         TransformerFactory transformerFactory = TransformerFactory.newInstance();
@@ -86,8 +93,9 @@ public class FileXmlStatePersistor extends StatePersistor<File>
      * @param doc output document
      * @param root XML root element
      * @param persistableNode persistable node
+     * @throws IOException thrown when an attachment cannot be written
      */
-    private void traverseAndPersistNode(Document doc, Node root, StatePersistable persistableNode)
+    private void traverseAndPersistNode(Document doc, Node root, StatePersistable persistableNode) throws IOException
     {
         Element nodeElement = this.traverseAndPersistElement(doc, root, persistableNode.export(this.logger));
         
@@ -109,8 +117,9 @@ public class FileXmlStatePersistor extends StatePersistor<File>
      * @param root XML root element
      * @param element persistable element
      * @return 
+     * @throws IOException thrown when an attachment cannot be written
      */
-    private Element traverseAndPersistElement(Document doc, Node root, StatePersistableElement element)
+    private Element traverseAndPersistElement(Document doc, Node root, StatePersistableElement element) throws IOException
     {
         Element docElement = doc.createElement(element.getName());
         root.appendChild(docElement);
@@ -120,6 +129,15 @@ public class FileXmlStatePersistor extends StatePersistor<File>
             docElement.setAttribute(attr.getName(), attr.getValue());
         }
         
+        // attachments are written next to the output file
+        for(Entry<String, StatePersistableAttachment> attachment : element.getAttachments().entrySet())
+        {
+            String fileName = this.file.getName() + "." + (this.attachmentCount++) + "." + attachment.getKey();
+            
+            attachment.getValue().write(new File(this.file.getAbsoluteFile().getParentFile(), fileName));
+            docElement.setAttribute(attachment.getKey(), fileName);
+        }
+        
         for(StatePersistableElement ele : element.getElements())
         {
             this.traverseAndPersistElement(doc, docElement, ele);
@@ -38,6 +38,10 @@ public class FileXmlStateRestorer extends StateRestorer<File>
      * Persistence logger
      */
     protected StatePersistenceLogger logger;
+    /**
+     * Directory containing attachments of restored elements
+     */
+    protected File attachmentDirectory;
     
     /**
      * Construct XML file restorer.
@@ -64,6 +68,8 @@ public class FileXmlStateRestorer extends StateRestorer<File>
             
             doc.getDocumentElement().normalize();
             
+            this.attachmentDirectory = state.getAbsoluteFile().getParentFile();
+            
             this.traverseAndRestoreElement(doc.getDocumentElement(), root);
             
             return true;
@@ -112,6 +118,7 @@ public class FileXmlStateRestorer extends StateRestorer<File>
     private StatePersistableElement createTraversedElementStructure(Node rootNode)
     {
         StatePersistableElement rootElem = new StatePersistableElement(rootNode.getNodeName());
+        rootElem.setAttachmentDirectory(this.attachmentDirectory);
         
         NamedNodeMap attrs = rootNode.getAttributes();
         
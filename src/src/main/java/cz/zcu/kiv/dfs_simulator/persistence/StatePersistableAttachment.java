@@ -0,0 +1,30 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.persistence;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Binary data of {@link StatePersistableElement} which is persisted outside
+ * of the state document (in a separate file referenced by an attribute).
+ */
+public interface StatePersistableAttachment
+{
+    /**
+     * Write attachment data into {@code file}.
+     * 
+     * @param file output file
+     * @throws IOException thrown when the file cannot be written
+     */
+    public void write(File file) throws IOException;
+}
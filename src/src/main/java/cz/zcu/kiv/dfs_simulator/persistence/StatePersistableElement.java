@@ -11,8 +11,11 @@
 
 package cz.zcu.kiv.dfs_simulator.persistence;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -33,6 +36,14 @@ public class StatePersistableElement
      * Element children
      */
     protected final List<StatePersistableElement> elements = new ArrayList<>();
+    /**
+     * Element attachments keyed by name of attribute referencing them
+     */
+    protected final Map<String, StatePersistableAttachment> attachments = new LinkedHashMap<>();
+    /**
+     * Directory containing attachments of restored element (null if unknown)
+     */
+    protected File attachmentDirectory = null;
     
     /**
      * State persisted element.
@@ -64,6 +75,52 @@ public class StatePersistableElement
         this.elements.add(element);
     }
     
+    /**
+     * Add element attachment. Attachment is persisted separately and 
+     * referenced by attribute {@code attributeName}.
+     * 
+     * @param attributeName name of referencing attribute
+     * @param attachment attachment
+     */
+    public void addAttachment(String attributeName, StatePersistableAttachment attachment)
+    {
+        this.attachments.put(attributeName, attachment);
+    }
+    
+    /**
+     * Returns element attachments keyed by name of referencing attribute.
+     * 
+     * @return attachments
+     */
+    public Map<String, StatePersistableAttachment> getAttachments()
+    {
+        return this.attachments;
+    }
+    
+    /**
+     * Set directory containing attachments of restored element.
+     * 
+     * @param attachmentDirectory attachment directory
+     */
+    public void setAttachmentDirectory(File attachmentDirectory)
+    {
+        this.attachmentDirectory = attachmentDirectory;
+    }
+    
+    /**
+     * Get file of attachment referenced by attribute {@code attributeName}.
+     * 
+     * @param attributeName name of referencing attribute
+     * @return attachment file or null if element has no such attribute 
+     * or attachment directory is unknown
+     */
+    public File getAttachmentFile(String attributeName)
+    {
+        StatePersistableAttribute attr = this.getAttribute(attributeName);
+        
+        return (attr != null && this.attachmentDirectory != null) ? new File(this.attachmentDirectory, attr.getValue()) : null;
+    }
+    
     /**
      * Get attribute by name.
      * 
@@ -11,6 +11,8 @@
 
 package cz.zcu.kiv.dfs_simulator.simulation;
 
+import cz.zcu.kiv.dfs_simulator.simulation.balancer.BalancerReport;
+import cz.zcu.kiv.dfs_simulator.simulation.recovery.ServerRecovery;
 import java.util.List;
 
 /**
@@ -30,4 +32,16 @@ public interface DfsSimulator
      * @return simulation results
      */
     public List<DfsSimulatorTaskResult> getResults();
+    /**
+     * Get recoveries of servers that have failed during simulation.
+     * 
+     * @return server recoveries
+     */
+    public List<ServerRecovery> getRecoveries();
+    /**
+     * Get summary of cluster balancing during simulation.
+     * 
+     * @return balancer report or null if balancing was disabled
+     */
+    public BalancerReport getBalancerReport();
 }
@@ -14,7 +14,10 @@ package cz.zcu.kiv.dfs_simulator.simulation;
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
 import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlock;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.simulation.recovery.ServerRecovery;
+import java.util.List;
 
 /**
  * Simulation logger.
@@ -87,6 +90,17 @@ public interface DfsSimulatorLogger
      */
     public void logHierarchicalUploadMove(FsFile file, ModelServerNode server, ServerStorage targetStorage, long sTime);
     
+    /**
+     * Log hierarchical prefetch event - file predicted to be accessed next
+     * is being promoted onto faster storage ahead of demand.
+     * 
+     * @param file prefetched file
+     * @param server server
+     * @param confidence prediction confidence (0 - 1)
+     * @param sTime simulation time
+     */
+    public void logHierarchicalPrefetch(FsFile file, ModelServerNode server, double confidence, long sTime);
+    
     /**
      * Log file replication started event.
      * 
@@ -106,6 +120,74 @@ public interface DfsSimulatorLogger
      */
     public void logReplicationFinish(FsFile file, ModelServerNode origin, ModelServerNode target, long sTime);
     
+    /**
+     * Log striped transfer rebalance event - remaining byte ranges have been
+     * redistributed among sources.
+     * 
+     * @param task transfer task
+     * @param sources stripe sources
+     * @param sTime simulation time
+     */
+    public void logStripesRebalanced(SimulationTask task, List<StripedTransferSource> sources, long sTime);
+    
+    /**
+     * Log degraded read event - erasure coded file has been read using
+     * parity fragments and its data had to be reconstructed.
+     * 
+     * @param task download task
+     * @param fragments read fragments
+     * @param reconstructionTime time of reconstruction
+     * @param sTime simulation time
+     */
+    public void logDegradedRead(SimulationTask task, List<FsBlock> fragments, long reconstructionTime, long sTime);
+    
+    /**
+     * Log hedged read event - download fell behind its expected rate and 
+     * second request has been issued to another replica.
+     * 
+     * @param task download task
+     * @param primary source of original request
+     * @param hedge source of hedge request
+     * @param sTime simulation time
+     */
+    public void logHedgedRead(SimulationTask task, StripedTransferSource primary, StripedTransferSource hedge, long sTime);
+    
+    /**
+     * Log server failure event.
+     * 
+     * @param server failed server
+     * @param sTime simulation time
+     */
+    public void logServerFailed(ModelServerNode server, long sTime);
+    /**
+     * Log recovery finished event - all files that lost a replica on failed
+     * server have been either re-replicated or lost.
+     * 
+     * @param recovery finished recovery
+     * @param sTime simulation time
+     */
+    public void logRecoveryFinished(ServerRecovery recovery, long sTime);
+    /**
+     * Log file moved event - balancer has moved file from over-utilized
+     * server onto under-utilized server.
+     * 
+     * @param file moved file
+     * @param source source server
+     * @param target target server
+     * @param sTime simulation time
+     */
+    public void logFileMoved(FsFile file, ModelServerNode source, ModelServerNode target, long sTime);
+    
+    /**
+     * Log deduplicated write event - uploaded content was already stored
+     * at target server and only fingerprints were exchanged.
+     * 
+     * @param task upload task
+     * @param target target server
+     * @param sTime simulation time
+     */
+    public void logDeduplicatedWrite(SimulationTask task, ModelServerNode target, long sTime);
+    
     /**
      * Log error event.
      * 
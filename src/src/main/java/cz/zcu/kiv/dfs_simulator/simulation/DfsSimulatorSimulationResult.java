@@ -14,8 +14,15 @@ package cz.zcu.kiv.dfs_simulator.simulation;
 import cz.zcu.kiv.dfs_simulator.helpers.Pair;
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.cache.CacheLookupResult;
+import cz.zcu.kiv.dfs_simulator.simulation.balancer.BalancerReport;
+import cz.zcu.kiv.dfs_simulator.simulation.recovery.ServerRecovery;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javafx.beans.property.LongProperty;
 import javafx.beans.property.SimpleLongProperty;
 
@@ -24,6 +31,11 @@ import javafx.beans.property.SimpleLongProperty;
  */
 public class DfsSimulatorSimulationResult
 {
+    /**
+     * Percentile of task time reported as tail latency
+     */
+    public static final double TAIL_PERCENTILE = 0.99;
+    
     /**
      * Simulation type
      */
@@ -32,6 +44,14 @@ public class DfsSimulatorSimulationResult
      * Results for simulated tasks
      */
     protected final List<DfsSimulatorTaskResult> results;
+    /**
+     * Recoveries of servers that have failed during simulation
+     */
+    protected final List<ServerRecovery> recoveries;
+    /**
+     * Summary of cluster balancing (null if balancing was disabled)
+     */
+    protected final BalancerReport balancerReport;
     
     /**
      * Cumulated results have been built flag
@@ -62,6 +82,139 @@ public class DfsSimulatorSimulationResult
      * Maximum reached transfer speed (of all tasks)
      */
     protected Pair<Long, Long> maximumSpeed;
+    /**
+     * Number of tasks served from client cache
+     */
+    protected int clientCacheHits;
+    /**
+     * Number of tasks that missed client cache
+     */
+    protected int clientCacheMisses;
+    /**
+     * Number of tasks read from server page cache
+     */
+    protected int pageCacheHits;
+    /**
+     * Number of tasks that missed server page cache
+     */
+    protected int pageCacheMisses;
+    /**
+     * Total storage device time saved by server page cache
+     */
+    protected long savedDeviceTime;
+    /**
+     * Number of tasks whose uploaded file has been replicated
+     */
+    protected int replicatedTasks;
+    /**
+     * Total end-to-end replication time
+     */
+    protected long totalReplicationTime;
+    /**
+     * Maximum end-to-end replication time
+     */
+    protected long maxReplicationTime;
+    /**
+     * Number of successful uploads
+     */
+    protected int writes;
+    /**
+     * Total client-perceived write latency
+     */
+    protected long totalWriteLatency;
+    /**
+     * Number of uploads whose replicas have converged
+     */
+    protected int convergedWrites;
+    /**
+     * Total replica convergence lag
+     */
+    protected long totalConvergenceLag;
+    /**
+     * Maximum replica convergence lag
+     */
+    protected long maxConvergenceLag;
+    /**
+     * Number of degraded reads of erasure coded files
+     */
+    protected int degradedReads;
+    /**
+     * Total time of reconstructing erasure coded files
+     */
+    protected long totalReconstructionTime;
+    /**
+     * Number of hedged reads
+     */
+    protected int hedgedReads;
+    /**
+     * Total amount of data transfered by cancelled requests of hedged reads
+     */
+    protected ByteSize totalWastedData;
+    /**
+     * Number of deduplicated writes
+     */
+    protected int deduplicatedWrites;
+    /**
+     * Total amount of data not transfered thanks to deduplication
+     */
+    protected ByteSize totalDeduplicatedData;
+    /**
+     * Number of tasks that queried metadata server
+     */
+    protected int metadataQueries;
+    /**
+     * Total time tasks waited for metadata server's response
+     */
+    protected long totalMetadataTime;
+    /**
+     * Total time metadata operations of tasks waited in queue
+     */
+    protected long totalMetadataQueueTime;
+    /**
+     * Number of client metadata cache hits
+     */
+    protected int metadataCacheHits;
+    /**
+     * Number of client metadata cache misses
+     */
+    protected int metadataCacheMisses;
+    /**
+     * Number of requests sent to stale cached locations
+     */
+    protected int metadataMisroutes;
+    /**
+     * Total metadata query time saved by client metadata cache
+     */
+    protected long totalMetadataSavedTime;
+    /**
+     * Tail ({@link #TAIL_PERCENTILE}) task time
+     */
+    protected long tailTaskTime;
+    /**
+     * Time from the first server failure until all recoveries have finished
+     */
+    protected long timeToFullRedundancy;
+    /**
+     * Number of files that lost all replicas due to server failures
+     */
+    protected int lostFiles;
+    /**
+     * Average speed of tasks running while a failed server was being recovered
+     */
+    protected ByteSpeed recoveryAverageSpeed;
+    /**
+     * Average speed of tasks running while balancer was moving files
+     */
+    protected ByteSpeed balancingAverageSpeed;
+    /**
+     * Average speed of tasks running while no failed server was being recovered
+     * and balancer was not moving files
+     */
+    protected ByteSpeed normalAverageSpeed;
+    /**
+     * Highest share of transfered data served by a single server
+     */
+    protected double hotspotLoad;
     
     /**
      * Results of a single simulation run.
@@ -70,9 +223,36 @@ public class DfsSimulatorSimulationResult
      * @param results task results
      */
     public DfsSimulatorSimulationResult(SimulationType type, List<DfsSimulatorTaskResult> results)
+    {
+        this(type, results, new ArrayList<>());
+    }
+    
+    /**
+     * Results of a single simulation run with server failures.
+     * 
+     * @param type simulation type
+     * @param results task results
+     * @param recoveries recoveries of failed servers
+     */
+    public DfsSimulatorSimulationResult(SimulationType type, List<DfsSimulatorTaskResult> results, List<ServerRecovery> recoveries)
+    {
+        this(type, results, recoveries, null);
+    }
+    
+    /**
+     * Results of a single simulation run with server failures and cluster balancing.
+     * 
+     * @param type simulation type
+     * @param results task results
+     * @param recoveries recoveries of failed servers
+     * @param balancerReport summary of cluster balancing or null if balancing was disabled
+     */
+    public DfsSimulatorSimulationResult(SimulationType type, List<DfsSimulatorTaskResult> results, List<ServerRecovery> recoveries, BalancerReport balancerReport)
     {
         this.type = type;
         this.results = results;
+        this.recoveries = recoveries;
+        this.balancerReport = balancerReport;
     }
 
     /**
@@ -95,6 +275,26 @@ public class DfsSimulatorSimulationResult
         return results;
     }
     
+    /**
+     * Returns recoveries of servers that have failed during simulation.
+     * 
+     * @return server recoveries
+     */
+    public List<ServerRecovery> getRecoveries()
+    {
+        return recoveries;
+    }
+    
+    /**
+     * Returns summary of cluster balancing.
+     * 
+     * @return balancer report or null if balancing was disabled
+     */
+    public BalancerReport getBalancerReport()
+    {
+        return balancerReport;
+    }
+    
     /**
      * Build cumulative stats - total elapsed time, total average speed,
      * total amount of downloaded data, total amount of uploaded data 
@@ -110,7 +310,44 @@ public class DfsSimulatorSimulationResult
             this.totalDownloaded = new ByteSize(0);
             this.totalUploaded = new ByteSize(0);
             this.cumThroughputHistory = new ArrayList<>();
+            this.clientCacheHits = 0;
+            this.clientCacheMisses = 0;
+            this.pageCacheHits = 0;
+            this.pageCacheMisses = 0;
+            this.savedDeviceTime = 0;
+            this.replicatedTasks = 0;
+            this.totalReplicationTime = 0;
+            this.maxReplicationTime = 0;
+            this.writes = 0;
+            this.totalWriteLatency = 0;
+            this.convergedWrites = 0;
+            this.totalConvergenceLag = 0;
+            this.maxConvergenceLag = 0;
+            this.degradedReads = 0;
+            this.totalReconstructionTime = 0;
+            this.hedgedReads = 0;
+            this.deduplicatedWrites = 0;
+            this.metadataQueries = 0;
+            this.totalMetadataTime = 0;
+            this.totalMetadataQueueTime = 0;
+            this.metadataCacheHits = 0;
+            this.metadataCacheMisses = 0;
+            this.metadataMisroutes = 0;
+            this.totalMetadataSavedTime = 0;
+            this.tailTaskTime = 0;
+            this.timeToFullRedundancy = -1;
+            this.lostFiles = 0;
 
+            long s_recoveryBytes = 0;
+            long s_recoveryTime = 0;
+            long s_balancingBytes = 0;
+            long s_balancingTime = 0;
+            Map<ModelServerNode, Long> s_serverBytes = new HashMap<>();
+            long s_normalBytes = 0;
+            long s_normalTime = 0;
+            long s_totalWastedData = 0;
+            long s_totalDeduplicatedData = 0;
+            List<Long> taskTimes = new ArrayList<>();
             long s_totalElapsedTime = 0;
             long s_totalAverageSpeed;
             long s_totalDownloaded = 0;
@@ -118,7 +355,42 @@ public class DfsSimulatorSimulationResult
 
             for(DfsSimulatorTaskResult result : this.results)
             {
+                long taskBytes = (result.getObject() != null) ? result.getObject().getSize().bytesProperty().get() : 0;
+                
+                long taskEnd = s_totalElapsedTime + result.getTotalTime();
+                boolean duringRecovery = this.isDuringRecovery(s_totalElapsedTime, taskEnd);
+                boolean duringBalancing = this.isDuringBalancing(s_totalElapsedTime, taskEnd);
+                
+                if(duringRecovery)
+                {
+                    s_recoveryBytes += taskBytes;
+                    s_recoveryTime += result.getTotalTime();
+                }
+                
+                if(duringBalancing)
+                {
+                    s_balancingBytes += taskBytes;
+                    s_balancingTime += result.getTotalTime();
+                }
+                
+                if(!duringRecovery && !duringBalancing)
+                {
+                    s_normalBytes += taskBytes;
+                    s_normalTime += result.getTotalTime();
+                }
+                
+                if(result.getPathHistory() != null && !result.getPathHistory().isEmpty())
+                {
+                    ModelServerNode server = result.getPathHistory().get(result.getPathHistory().size() - 1).getTarget();
+                    s_serverBytes.put(server, s_serverBytes.getOrDefault(server, 0L) + taskBytes);
+                }
+                
                 s_totalElapsedTime += result.getTotalTime();
+                
+                if(result.getState() == DfsSimulatorTaskResultState.SUCCESS)
+                {
+                    taskTimes.add(result.getTotalTime());
+                }
 
                 if(result.getObject() != null)
                 {
@@ -134,6 +406,85 @@ public class DfsSimulatorSimulationResult
 
                 this.cumThroughputHistory.addAll(result.getThroughputSamples());
                 
+                if(result.getClientCacheResult() == CacheLookupResult.HIT)
+                {
+                    this.clientCacheHits++;
+                }
+                else if(result.getClientCacheResult() == CacheLookupResult.MISS)
+                {
+                    this.clientCacheMisses++;
+                }
+                
+                if(result.getPageCacheResult() == CacheLookupResult.HIT)
+                {
+                    this.pageCacheHits++;
+                }
+                else if(result.getPageCacheResult() == CacheLookupResult.MISS)
+                {
+                    this.pageCacheMisses++;
+                }
+                
+                this.savedDeviceTime += result.getSavedDeviceTime();
+                
+                if(result.getReplicationProgress() != null && result.getReplicationProgress().isFinished())
+                {
+                    long replicationTime = result.getReplicationProgress().getReplicationTime();
+                    
+                    this.replicatedTasks++;
+                    this.totalReplicationTime += replicationTime;
+                    this.maxReplicationTime = Math.max(this.maxReplicationTime, replicationTime);
+                }
+                
+                if(result.getWriteLatency() >= 0)
+                {
+                    this.writes++;
+                    this.totalWriteLatency += result.getWriteLatency();
+                }
+                
+                if(result.getConvergenceLag() >= 0)
+                {
+                    this.convergedWrites++;
+                    this.totalConvergenceLag += result.getConvergenceLag();
+                    this.maxConvergenceLag = Math.max(this.maxConvergenceLag, result.getConvergenceLag());
+                }
+                
+                if(result.isDegradedRead())
+                {
+                    this.degradedReads++;
+                    this.totalReconstructionTime += result.getReconstructionTime();
+                }
+                
+                if(result.isHedgedRead())
+                {
+                    this.hedgedReads++;
+                    s_totalWastedData += result.getWastedBytes();
+                }
+                
+                if(result.isDeduplicatedWrite())
+                {
+                    this.deduplicatedWrites++;
+                    s_totalDeduplicatedData += result.getDeduplicatedBytes();
+                }
+                
+                if(result.getMetadataTime() >= 0)
+                {
+                    this.metadataQueries++;
+                    this.totalMetadataTime += result.getMetadataTime();
+                    this.totalMetadataQueueTime += result.getMetadataQueueTime();
+                }
+                
+                if(result.getMetadataCacheResult() == CacheLookupResult.HIT)
+                {
+                    this.metadataCacheHits++;
+                }
+                else if(result.getMetadataCacheResult() == CacheLookupResult.MISS)
+                {
+                    this.metadataCacheMisses++;
+                }
+                
+                this.metadataMisroutes += result.getMetadataMisroutes();
+                this.totalMetadataSavedTime += result.getMetadataSavedTime();
+                
                 if(result.getSampler() != null && 
                         (this.maximumSpeed == null || 
                         (result.getSampler().getMaxSample() != null && 
@@ -149,6 +500,16 @@ public class DfsSimulatorSimulationResult
             this.totalAverageSpeed.setBps(s_totalAverageSpeed);
             this.totalDownloaded.setBytes(s_totalDownloaded);
             this.totalUploaded.setBytes(s_totalUploaded);
+            this.totalWastedData = new ByteSize(s_totalWastedData);
+            this.totalDeduplicatedData = new ByteSize(s_totalDeduplicatedData);
+            this.tailTaskTime = getPercentile(taskTimes, TAIL_PERCENTILE);
+            this.recoveryAverageSpeed = new ByteSpeed((s_recoveryTime > 0) ? ((s_recoveryBytes * 1000) / s_recoveryTime) : 0);
+            this.balancingAverageSpeed = new ByteSpeed((s_balancingTime > 0) ? ((s_balancingBytes * 1000) / s_balancingTime) : 0);
+            this.normalAverageSpeed = new ByteSpeed((s_normalTime > 0) ? ((s_normalBytes * 1000) / s_normalTime) : 0);
+            
+            long s_servedBytes = s_serverBytes.values().stream().mapToLong(b -> b).sum();
+            this.hotspotLoad = (s_servedBytes > 0) ? (s_serverBytes.values().stream().mapToLong(b -> b).max().getAsLong() / (double) s_servedBytes) : 0;
+            this.buildRecoveryStats();
             
             this.resultsBuilt = true;
         }
@@ -218,4 +579,487 @@ public class DfsSimulatorSimulationResult
         return this.maximumSpeed;
     }
     
+    /**
+     * Get number of tasks served from client cache. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return number of client cache hits
+     */
+    public int getClientCacheHits()
+    {
+        return this.clientCacheHits;
+    }
+    
+    /**
+     * Get number of tasks that missed client cache. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return number of client cache misses
+     */
+    public int getClientCacheMisses()
+    {
+        return this.clientCacheMisses;
+    }
+    
+    /**
+     * Get client cache hit ratio. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return client cache hit ratio (0 - 1)
+     */
+    public double getClientCacheHitRatio()
+    {
+        int lookups = this.clientCacheHits + this.clientCacheMisses;
+        
+        return (lookups > 0) ? (this.clientCacheHits / (double) lookups) : 0;
+    }
+    
+    /**
+     * Get number of tasks read from server page cache. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return number of page cache hits
+     */
+    public int getPageCacheHits()
+    {
+        return this.pageCacheHits;
+    }
+    
+    /**
+     * Get number of tasks that missed server page cache. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return number of page cache misses
+     */
+    public int getPageCacheMisses()
+    {
+        return this.pageCacheMisses;
+    }
+    
+    /**
+     * Get server page cache hit ratio. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return page cache hit ratio (0 - 1)
+     */
+    public double getPageCacheHitRatio()
+    {
+        int lookups = this.pageCacheHits + this.pageCacheMisses;
+        
+        return (lookups > 0) ? (this.pageCacheHits / (double) lookups) : 0;
+    }
+    
+    /**
+     * Get total storage device time saved by server page cache. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return saved device time (ms)
+     */
+    public long getSavedDeviceTime()
+    {
+        return this.savedDeviceTime;
+    }
+    
+    /**
+     * Get number of tasks whose uploaded file has been replicated. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return number of replicated tasks
+     */
+    public int getReplicatedTasks()
+    {
+        return this.replicatedTasks;
+    }
+    
+    /**
+     * Get average end-to-end replication time (from upload finish until
+     * last replica has been updated). {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return average replication time (ms)
+     */
+    public long getAverageReplicationTime()
+    {
+        return (this.replicatedTasks > 0) ? (this.totalReplicationTime / this.replicatedTasks) : 0;
+    }
+    
+    /**
+     * Get maximum end-to-end replication time. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return maximum replication time (ms)
+     */
+    public long getMaxReplicationTime()
+    {
+        return this.maxReplicationTime;
+    }
+    
+    /**
+     * Get average client-perceived write latency (time until upload has been
+     * acknowledged). {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return average write latency (ms)
+     */
+    public long getAverageWriteLatency()
+    {
+        return (this.writes > 0) ? (this.totalWriteLatency / this.writes) : 0;
+    }
+    
+    /**
+     * Get average replica convergence lag (time from acknowledging upload
+     * until all replicas have been updated). {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return average convergence lag (ms)
+     */
+    public long getAverageConvergenceLag()
+    {
+        return (this.convergedWrites > 0) ? (this.totalConvergenceLag / this.convergedWrites) : 0;
+    }
+    
+    /**
+     * Get maximum replica convergence lag. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return maximum convergence lag (ms)
+     */
+    public long getMaxConvergenceLag()
+    {
+        return this.maxConvergenceLag;
+    }
+    
+    /**
+     * Get number of degraded reads of erasure coded files. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return number of degraded reads
+     */
+    public int getDegradedReads()
+    {
+        return this.degradedReads;
+    }
+    
+    /**
+     * Get total time of reconstructing erasure coded files during degraded 
+     * reads. {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return total reconstruction time (ms)
+     */
+    public long getTotalReconstructionTime()
+    {
+        return this.totalReconstructionTime;
+    }
+    
+    /**
+     * Get number of hedged reads. {@link #buildCumulativeStats()} has to be 
+     * ran beforehand.
+     * 
+     * @return number of hedged reads
+     */
+    public int getHedgedReads()
+    {
+        return this.hedgedReads;
+    }
+    
+    /**
+     * Get total amount of data transfered by cancelled requests of hedged 
+     * reads. {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return wasted data
+     */
+    public ByteSize getTotalWastedData()
+    {
+        return this.totalWastedData;
+    }
+    
+    /**
+     * Get number of deduplicated writes. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return number of deduplicated writes
+     */
+    public int getDeduplicatedWrites()
+    {
+        return this.deduplicatedWrites;
+    }
+    
+    /**
+     * Get total amount of data not transfered thanks to deduplication. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return deduplicated data
+     */
+    public ByteSize getTotalDeduplicatedData()
+    {
+        return this.totalDeduplicatedData;
+    }
+    
+    /**
+     * Get number of tasks that queried metadata server. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return number of metadata queries
+     */
+    public int getMetadataQueries()
+    {
+        return this.metadataQueries;
+    }
+    
+    /**
+     * Get average time tasks waited for metadata server's response. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return average metadata time (ms)
+     */
+    public long getAverageMetadataTime()
+    {
+        return (this.metadataQueries > 0) ? (this.totalMetadataTime / this.metadataQueries) : 0;
+    }
+    
+    /**
+     * Get average time metadata operations of tasks waited in metadata
+     * server's queue. {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return average metadata queue time (ms)
+     */
+    public long getAverageMetadataQueueTime()
+    {
+        return (this.metadataQueries > 0) ? (this.totalMetadataQueueTime / this.metadataQueries) : 0;
+    }
+    
+    /**
+     * Get number of client metadata cache hits. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return metadata cache hits
+     */
+    public int getMetadataCacheHits()
+    {
+        return this.metadataCacheHits;
+    }
+    
+    /**
+     * Get number of client metadata cache misses. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return metadata cache misses
+     */
+    public int getMetadataCacheMisses()
+    {
+        return this.metadataCacheMisses;
+    }
+    
+    /**
+     * Get ratio of client metadata cache hits to all lookups. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return hit ratio (0 - 1)
+     */
+    public double getMetadataCacheHitRatio()
+    {
+        int lookups = this.metadataCacheHits + this.metadataCacheMisses;
+        
+        return (lookups > 0) ? (this.metadataCacheHits / (double) lookups) : 0;
+    }
+    
+    /**
+     * Get number of requests sent to a server that no longer held 
+     * the object because of stale metadata cache entries. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return number of misroutes
+     */
+    public int getMetadataMisroutes()
+    {
+        return this.metadataMisroutes;
+    }
+    
+    /**
+     * Get total metadata query time saved by client metadata cache, reduced
+     * by time lost by misroutes. {@link #buildCumulativeStats()} has to be 
+     * ran beforehand.
+     * 
+     * @return saved time (ms)
+     */
+    public long getTotalMetadataSavedTime()
+    {
+        return this.totalMetadataSavedTime;
+    }
+    
+    /**
+     * Get tail ({@link #TAIL_PERCENTILE}) time of successful tasks. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return tail task time (ms)
+     */
+    public long getTailTaskTime()
+    {
+        return this.tailTaskTime;
+    }
+    
+    /**
+     * Get time from the first server failure until all failed servers 
+     * have been recovered. {@link #buildCumulativeStats()} has to be ran 
+     * beforehand.
+     * 
+     * @return time to full redundancy (ms) or -1 if there was no failure
+     * or some recovery has not finished
+     */
+    public long getTimeToFullRedundancy()
+    {
+        return this.timeToFullRedundancy;
+    }
+    
+    /**
+     * Get number of files that lost all replicas due to server failures. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return number of lost files
+     */
+    public int getLostFiles()
+    {
+        return this.lostFiles;
+    }
+    
+    /**
+     * Get average speed of tasks that ran (at least partially) while a failed 
+     * server was being recovered. {@link #buildCumulativeStats()} has 
+     * to be ran beforehand.
+     * 
+     * @return average speed during recovery
+     */
+    public ByteSpeed getRecoveryAverageSpeed()
+    {
+        return this.recoveryAverageSpeed;
+    }
+    
+    /**
+     * Get average speed of tasks that ran (at least partially) while balancer 
+     * was moving files. {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return average speed during balancing
+     */
+    public ByteSpeed getBalancingAverageSpeed()
+    {
+        return this.balancingAverageSpeed;
+    }
+    
+    /**
+     * Get average speed of tasks that ran while no failed server was being 
+     * recovered and balancer was not moving files. {@link #buildCumulativeStats()} 
+     * has to be ran beforehand.
+     * 
+     * @return average speed outside of recovery and balancing
+     */
+    public ByteSpeed getNormalAverageSpeed()
+    {
+        return this.normalAverageSpeed;
+    }
+    
+    /**
+     * Get highest share of transfered data served by a single server. 
+     * {@link #buildCumulativeStats()} has to be ran beforehand.
+     * 
+     * @return hotspot load (0 - 1)
+     */
+    public double getHotspotLoad()
+    {
+        return this.hotspotLoad;
+    }
+    
+    /**
+     * Build time to full redundancy and number of lost files.
+     */
+    private void buildRecoveryStats()
+    {
+        if(this.recoveries.isEmpty())
+        {
+            return;
+        }
+        
+        long firstFailure = Long.MAX_VALUE;
+        long lastFinish = 0;
+        boolean finished = true;
+        
+        for(ServerRecovery recovery : this.recoveries)
+        {
+            firstFailure = Math.min(firstFailure, recovery.getFailureTime());
+            lastFinish = Math.max(lastFinish, recovery.getFinishTime());
+            finished &= recovery.isFinished();
+            this.lostFiles += recovery.getLostFiles();
+        }
+        
+        this.timeToFullRedundancy = finished ? (lastFinish - firstFailure) : -1;
+    }
+    
+    /**
+     * Checks if task running from {@code bTime} until {@code eTime} overlaps
+     * with recovery of any failed server.
+     * 
+     * @param bTime task begin time
+     * @param eTime task end time
+     * @return true if task ran during recovery, false otherwise
+     */
+    private boolean isDuringRecovery(long bTime, long eTime)
+    {
+        for(ServerRecovery recovery : this.recoveries)
+        {
+            long rEnd = recovery.isFinished() ? recovery.getFinishTime() : Long.MAX_VALUE;
+            
+            if(bTime < rEnd && eTime > recovery.getFailureTime())
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Checks if task running from {@code bTime} until {@code eTime} overlaps
+     * with balancer moving files.
+     * 
+     * @param bTime task begin time
+     * @param eTime task end time
+     * @return true if task ran during balancing, false otherwise
+     */
+    private boolean isDuringBalancing(long bTime, long eTime)
+    {
+        if(this.balancerReport == null)
+        {
+            return false;
+        }
+        
+        for(Pair<Long, Long> interval : this.balancerReport.getBusyIntervals())
+        {
+            if(bTime < interval.second && eTime > interval.first)
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Get {@code percentile} of {@code values} (nearest rank).
+     * 
+     * @param values values (will be sorted)
+     * @param percentile percentile (0 - 1)
+     * @return percentile value or 0 if there are no values
+     */
+    public static long getPercentile(List<Long> values, double percentile)
+    {
+        if(values.isEmpty())
+        {
+            return 0;
+        }
+        
+        Collections.sort(values);
+        
+        int rank = (int) Math.ceil(percentile * values.size());
+        
+        return values.get(Math.max(0, Math.min(values.size(), rank) - 1));
+    }
+    
 }
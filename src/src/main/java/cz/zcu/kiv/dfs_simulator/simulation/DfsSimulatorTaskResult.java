@@ -14,7 +14,10 @@ package cz.zcu.kiv.dfs_simulator.simulation;
 import cz.zcu.kiv.dfs_simulator.helpers.Pair;
 import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.cache.CacheLookupResult;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationProgress;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -49,6 +52,67 @@ public class DfsSimulatorTaskResult
      * Throughput samples
      */
     protected final SimulationThroughputSampler sampler;
+    /**
+     * Client cache lookup result
+     */
+    protected CacheLookupResult clientCacheResult = CacheLookupResult.BYPASS;
+    /**
+     * Server page cache lookup result
+     */
+    protected CacheLookupResult pageCacheResult = CacheLookupResult.BYPASS;
+    /**
+     * Storage device time saved by reading from page cache
+     */
+    protected long savedDeviceTime = 0;
+    /**
+     * Progress of replicating uploaded file (null if file is not replicated)
+     */
+    protected ReplicationProgress replicationProgress = null;
+    /**
+     * Sources of striped transfer (empty if transfer was not striped)
+     */
+    protected List<StripedTransferSource> stripeSources = new ArrayList<>();
+    /**
+     * Time of reconstructing erasure coded file during degraded read (0 if read was not degraded)
+     */
+    protected long reconstructionTime = 0;
+    /**
+     * Second request has been issued to another replica because transfer fell behind
+     */
+    protected boolean hedgedRead = false;
+    /**
+     * Bytes transfered by cancelled request of hedged read
+     */
+    protected long wastedBytes = 0;
+    /**
+     * Uploaded content was already stored at target and only fingerprints were exchanged
+     */
+    protected boolean deduplicatedWrite = false;
+    /**
+     * Bytes not transfered thanks to deduplication
+     */
+    protected long deduplicatedBytes = 0;
+    /**
+     * Time until metadata server responded (-1 if metadata server was not queried)
+     */
+    protected long metadataTime = -1;
+    /**
+     * Time metadata operation waited in metadata server's queue
+     */
+    protected long metadataQueueTime = 0;
+    /**
+     * Client metadata cache lookup result
+     */
+    protected CacheLookupResult metadataCacheResult = CacheLookupResult.BYPASS;
+    /**
+     * Number of requests sent to a stale cached location
+     */
+    protected int metadataMisroutes = 0;
+    /**
+     * Metadata query time saved by client metadata cache (negative if
+     * misroutes took longer than the query)
+     */
+    protected long metadataSavedTime = 0;
     
     /**
      * Simulation result of a single task.
@@ -118,10 +182,20 @@ public class DfsSimulatorTaskResult
      */
     public FileSystemObject getObject()
     {
-        if(this.pathHistory != null && !this.pathHistory.isEmpty())
+        // striped and block transfers use paths to parts of the object
+        if(!this.stripeSources.isEmpty())
+        {
+            return this.task.getFile();
+        }
+        else if(this.pathHistory != null && !this.pathHistory.isEmpty())
         {
             return this.pathHistory.get(0).getOrCreateTargetFile();
         }
+        // served from client cache - no path was used
+        else if(this.clientCacheResult == CacheLookupResult.HIT)
+        {
+            return this.task.getFile();
+        }
         
         return null;
     }
@@ -161,6 +235,348 @@ public class DfsSimulatorTaskResult
         return this.sampler;
     }
     
+    /**
+     * Get client cache lookup result.
+     * 
+     * @return client cache lookup result
+     */
+    public CacheLookupResult getClientCacheResult()
+    {
+        return this.clientCacheResult;
+    }
+    
+    /**
+     * Set client cache lookup result.
+     * 
+     * @param clientCacheResult client cache lookup result
+     */
+    public void setClientCacheResult(CacheLookupResult clientCacheResult)
+    {
+        this.clientCacheResult = clientCacheResult;
+    }
+    
+    /**
+     * Get server page cache lookup result.
+     * 
+     * @return page cache lookup result
+     */
+    public CacheLookupResult getPageCacheResult()
+    {
+        return this.pageCacheResult;
+    }
+    
+    /**
+     * Set server page cache lookup result.
+     * 
+     * @param pageCacheResult page cache lookup result
+     */
+    public void setPageCacheResult(CacheLookupResult pageCacheResult)
+    {
+        this.pageCacheResult = pageCacheResult;
+    }
+    
+    /**
+     * Get storage device time saved by reading from page cache.
+     * 
+     * @return saved device time (ms)
+     */
+    public long getSavedDeviceTime()
+    {
+        return this.savedDeviceTime;
+    }
+    
+    /**
+     * Set storage device time saved by reading from page cache.
+     * 
+     * @param savedDeviceTime saved device time (ms)
+     */
+    public void setSavedDeviceTime(long savedDeviceTime)
+    {
+        this.savedDeviceTime = savedDeviceTime;
+    }
+    
+    /**
+     * Get progress of replicating uploaded file.
+     * 
+     * @return replication progress or null if file is not replicated
+     */
+    public ReplicationProgress getReplicationProgress()
+    {
+        return this.replicationProgress;
+    }
+    
+    /**
+     * Set progress of replicating uploaded file.
+     * 
+     * @param replicationProgress replication progress
+     */
+    public void setReplicationProgress(ReplicationProgress replicationProgress)
+    {
+        this.replicationProgress = replicationProgress;
+    }
+    
+    /**
+     * Get client-perceived write latency - time until the write has been
+     * acknowledged (including waiting for replicas).
+     * 
+     * @return write latency or -1 if task is not a successful upload
+     */
+    public long getWriteLatency()
+    {
+        if(this.task instanceof PutSimulationTask && this.state == DfsSimulatorTaskResultState.SUCCESS)
+        {
+            return this.totalTime;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Get replica convergence lag - time from acknowledging the write
+     * until all replicas have been updated.
+     * 
+     * @return convergence lag or -1 if uploaded file is not replicated
+     */
+    public long getConvergenceLag()
+    {
+        return (this.replicationProgress != null) ? this.replicationProgress.getConvergenceLag() : -1;
+    }
+    
+    /**
+     * Get sources of striped transfer, each with its own throughput samples.
+     * 
+     * @return stripe sources (empty if transfer was not striped)
+     */
+    public List<StripedTransferSource> getStripeSources()
+    {
+        return this.stripeSources;
+    }
+    
+    /**
+     * Set sources of striped transfer.
+     * 
+     * @param stripeSources stripe sources
+     */
+    public void setStripeSources(List<StripedTransferSource> stripeSources)
+    {
+        this.stripeSources = stripeSources;
+    }
+    
+    /**
+     * Get time of reconstructing erasure coded file during degraded read.
+     * 
+     * @return reconstruction time (ms)
+     */
+    public long getReconstructionTime()
+    {
+        return this.reconstructionTime;
+    }
+    
+    /**
+     * Set time of reconstructing erasure coded file during degraded read.
+     * 
+     * @param reconstructionTime reconstruction time (ms)
+     */
+    public void setReconstructionTime(long reconstructionTime)
+    {
+        this.reconstructionTime = reconstructionTime;
+    }
+    
+    /**
+     * Checks if erasure coded file has been read using parity fragments.
+     * 
+     * @return true if read was degraded, false otherwise
+     */
+    public boolean isDegradedRead()
+    {
+        return (this.reconstructionTime > 0);
+    }
+    
+    /**
+     * Checks if second request has been issued to another replica because
+     * transfer fell behind its expected rate.
+     * 
+     * @return true if read was hedged, false otherwise
+     */
+    public boolean isHedgedRead()
+    {
+        return this.hedgedRead;
+    }
+    
+    /**
+     * Set if read has been hedged.
+     * 
+     * @param hedgedRead true if read was hedged
+     */
+    public void setHedgedRead(boolean hedgedRead)
+    {
+        this.hedgedRead = hedgedRead;
+    }
+    
+    /**
+     * Get number of bytes transfered by cancelled request of hedged read.
+     * 
+     * @return wasted bytes
+     */
+    public long getWastedBytes()
+    {
+        return this.wastedBytes;
+    }
+    
+    /**
+     * Set number of bytes transfered by cancelled request of hedged read.
+     * 
+     * @param wastedBytes wasted bytes
+     */
+    public void setWastedBytes(long wastedBytes)
+    {
+        this.wastedBytes = wastedBytes;
+    }
+    
+    /**
+     * Check if uploaded content was already stored at target so that only
+     * fingerprints were exchanged.
+     * 
+     * @return true if write was deduplicated, false otherwise
+     */
+    public boolean isDeduplicatedWrite()
+    {
+        return this.deduplicatedWrite;
+    }
+    
+    /**
+     * Set if write has been deduplicated.
+     * 
+     * @param deduplicatedWrite true if write was deduplicated
+     */
+    public void setDeduplicatedWrite(boolean deduplicatedWrite)
+    {
+        this.deduplicatedWrite = deduplicatedWrite;
+    }
+    
+    /**
+     * Get number of bytes not transfered thanks to deduplication.
+     * 
+     * @return deduplicated bytes
+     */
+    public long getDeduplicatedBytes()
+    {
+        return this.deduplicatedBytes;
+    }
+    
+    /**
+     * Set number of bytes not transfered thanks to deduplication.
+     * 
+     * @param deduplicatedBytes deduplicated bytes
+     */
+    public void setDeduplicatedBytes(long deduplicatedBytes)
+    {
+        this.deduplicatedBytes = deduplicatedBytes;
+    }
+    
+    /**
+     * Get time until metadata server responded to the task's lookup or 
+     * update (included in total time).
+     * 
+     * @return metadata time or -1 if metadata server was not queried
+     */
+    public long getMetadataTime()
+    {
+        return this.metadataTime;
+    }
+    
+    /**
+     * Set time until metadata server responded.
+     * 
+     * @param metadataTime metadata time
+     */
+    public void setMetadataTime(long metadataTime)
+    {
+        this.metadataTime = metadataTime;
+    }
+    
+    /**
+     * Get time metadata operation waited in metadata server's queue.
+     * 
+     * @return queue time
+     */
+    public long getMetadataQueueTime()
+    {
+        return this.metadataQueueTime;
+    }
+    
+    /**
+     * Set time metadata operation waited in metadata server's queue.
+     * 
+     * @param metadataQueueTime queue time
+     */
+    public void setMetadataQueueTime(long metadataQueueTime)
+    {
+        this.metadataQueueTime = metadataQueueTime;
+    }
+    
+    /**
+     * Get client metadata cache lookup result.
+     * 
+     * @return metadata cache lookup result
+     */
+    public CacheLookupResult getMetadataCacheResult()
+    {
+        return this.metadataCacheResult;
+    }
+    
+    /**
+     * Set client metadata cache lookup result.
+     * 
+     * @param metadataCacheResult metadata cache lookup result
+     */
+    public void setMetadataCacheResult(CacheLookupResult metadataCacheResult)
+    {
+        this.metadataCacheResult = metadataCacheResult;
+    }
+    
+    /**
+     * Get number of requests sent to a server that no longer held the object
+     * because of a stale metadata cache entry.
+     * 
+     * @return number of misroutes
+     */
+    public int getMetadataMisroutes()
+    {
+        return this.metadataMisroutes;
+    }
+    
+    /**
+     * Set number of requests sent to a stale cached location.
+     * 
+     * @param metadataMisroutes number of misroutes
+     */
+    public void setMetadataMisroutes(int metadataMisroutes)
+    {
+        this.metadataMisroutes = metadataMisroutes;
+    }
+    
+    /**
+     * Get metadata query time saved by client metadata cache, reduced
+     * by time lost by misroutes.
+     * 
+     * @return saved time (negative if misroutes took longer than the query)
+     */
+    public long getMetadataSavedTime()
+    {
+        return this.metadataSavedTime;
+    }
+    
+    /**
+     * Set metadata query time saved by client metadata cache.
+     * 
+     * @param metadataSavedTime saved time
+     */
+    public void setMetadataSavedTime(long metadataSavedTime)
+    {
+        this.metadataSavedTime = metadataSavedTime;
+    }
+    
     /**
      * Textual representation of task result.
      * 
@@ -178,6 +594,87 @@ public class DfsSimulatorTaskResult
         sb.append(totalTime);
         sb.append(" ms and with average speed ");
         sb.append(this.averageSpeed.getHumanReadableFormat());
+        
+        if(this.clientCacheResult != CacheLookupResult.BYPASS)
+        {
+            sb.append(", client cache ");
+            sb.append(this.clientCacheResult.toString());
+        }
+        
+        if(this.pageCacheResult != CacheLookupResult.BYPASS)
+        {
+            sb.append(", page cache ");
+            sb.append(this.pageCacheResult.toString());
+        }
+        
+        if(!this.stripeSources.isEmpty())
+        {
+            sb.append(", striped across ");
+            sb.append(this.stripeSources.size());
+            sb.append(" sources");
+        }
+        
+        if(this.isDegradedRead())
+        {
+            sb.append(", degraded read with reconstruction time ");
+            sb.append(this.reconstructionTime);
+            sb.append(" ms");
+        }
+        
+        if(this.hedgedRead)
+        {
+            sb.append(", hedged read wasted ");
+            sb.append(this.wastedBytes);
+            sb.append(" B");
+        }
+        
+        if(this.deduplicatedWrite)
+        {
+            sb.append(", deduplicated write saved ");
+            sb.append(this.deduplicatedBytes);
+            sb.append(" B");
+        }
+        
+        if(this.metadataTime >= 0)
+        {
+            sb.append(", metadata time ");
+            sb.append(this.metadataTime);
+            sb.append(" ms (");
+            sb.append(this.metadataQueueTime);
+            sb.append(" ms queued)");
+        }
+        
+        if(this.metadataCacheResult != CacheLookupResult.BYPASS)
+        {
+            sb.append(", metadata cache ");
+            sb.append(this.metadataCacheResult.toString());
+            
+            if(this.metadataMisroutes > 0)
+            {
+                sb.append(" with ");
+                sb.append(this.metadataMisroutes);
+                sb.append(" misroutes");
+            }
+        }
+        
+        if(this.replicationProgress != null && this.replicationProgress.isFinished())
+        {
+            sb.append(", ");
+            sb.append(this.replicationProgress.getMode().toString().toLowerCase());
+            sb.append(" replication time ");
+            sb.append(this.replicationProgress.getReplicationTime());
+            sb.append(" ms");
+            
+            if(this.replicationProgress.getConsistency() != null)
+            {
+                sb.append(", ");
+                sb.append(this.replicationProgress.getConsistency().toString().toLowerCase());
+                sb.append(" write, convergence lag ");
+                sb.append(this.getConvergenceLag());
+                sb.append(" ms");
+            }
+        }
+        
         sb.append(".");
         
         return sb.toString();
@@ -14,7 +14,9 @@ package cz.zcu.kiv.dfs_simulator.simulation;
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
 import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlock;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.simulation.recovery.ServerRecovery;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -173,6 +175,27 @@ public class DfsStringSimulatorLogger implements DfsSimulatorLogger
         this.messages.add(sb.toString());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void logHierarchicalPrefetch(FsFile file, ModelServerNode server, double confidence, long sTime)
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("[");
+        sb.append(sTime);
+        sb.append("] ");
+        sb.append("PREFETCH: Promoting file ");
+        sb.append(file.getFullPath());
+        sb.append(" at server ");
+        sb.append(server.toString());
+        sb.append(" ahead of demand (confidence ");
+        sb.append(Math.round(confidence * 100));
+        sb.append(" %)");
+        
+        this.messages.add(sb.toString());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -213,6 +236,136 @@ public class DfsStringSimulatorLogger implements DfsSimulatorLogger
         this.messages.add(sb.toString());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void logStripesRebalanced(SimulationTask task, List<StripedTransferSource> sources, long sTime)
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("[");
+        sb.append(sTime);
+        sb.append("] ");
+        sb.append("STRIPES REBALANCED: Transfer of file ");
+        sb.append(task.getFile().getFullPath());
+        sb.append(" rebalanced -> ");
+        sb.append(sources.toString());
+        
+        this.messages.add(sb.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void logDegradedRead(SimulationTask task, List<FsBlock> fragments, long reconstructionTime, long sTime)
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("[");
+        sb.append(sTime);
+        sb.append("] ");
+        sb.append("DEGRADED READ: File ");
+        sb.append(task.getFile().getFullPath());
+        sb.append(" read from fragments ");
+        sb.append(fragments.toString());
+        sb.append(", reconstruction took ");
+        sb.append(reconstructionTime);
+        sb.append(" ms");
+        
+        this.messages.add(sb.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void logHedgedRead(SimulationTask task, StripedTransferSource primary, StripedTransferSource hedge, long sTime)
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("[");
+        sb.append(sTime);
+        sb.append("] ");
+        sb.append("HEDGED READ: Transfer of file ");
+        sb.append(task.getFile().getFullPath());
+        sb.append(" from ");
+        sb.append(primary.toString());
+        sb.append(" hedged by ");
+        sb.append(hedge.getPath().getTarget().toString());
+        
+        this.messages.add(sb.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void logServerFailed(ModelServerNode server, long sTime)
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("[");
+        sb.append(sTime);
+        sb.append("] ");
+        sb.append("SERVER FAILED: Server ");
+        sb.append(server.toString());
+        sb.append(" is down");
+        
+        this.messages.add(sb.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void logRecoveryFinished(ServerRecovery recovery, long sTime)
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("[");
+        sb.append(sTime);
+        sb.append("] ");
+        sb.append("RECOVERY FINISHED: ");
+        sb.append(recovery.toString());
+        
+        this.messages.add(sb.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void logFileMoved(FsFile file, ModelServerNode source, ModelServerNode target, long sTime)
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("[");
+        sb.append(sTime);
+        sb.append("] ");
+        sb.append("BALANCER MOVE: File ");
+        sb.append(file.getFullPath());
+        sb.append(" moved from server ");
+        sb.append(source.toString());
+        sb.append(" to server -> ");
+        sb.append(target.toString());
+        
+        this.messages.add(sb.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void logDeduplicatedWrite(SimulationTask task, ModelServerNode target, long sTime)
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        sb.append("[");
+        sb.append(sTime);
+        sb.append("] ");
+        sb.append("DEDUPLICATED WRITE: File ");
+        sb.append(task.getFile().getFullPath());
+        sb.append(" content already stored on server -> ");
+        sb.append(target.toString());
+        
+        this.messages.add(sb.toString());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -17,25 +17,51 @@ import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
 import cz.zcu.kiv.dfs_simulator.model.ModelClientNode;
 import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.SimulationContext;
+import cz.zcu.kiv.dfs_simulator.model.cache.CacheLookupResult;
+import cz.zcu.kiv.dfs_simulator.model.cache.ClientCache;
+import cz.zcu.kiv.dfs_simulator.model.cache.ClientMetadataCache;
+import cz.zcu.kiv.dfs_simulator.model.cache.MetadataCacheEntry;
+import cz.zcu.kiv.dfs_simulator.model.cache.ServerPageCache;
+import cz.zcu.kiv.dfs_simulator.model.metadata.MetadataOperation;
+import cz.zcu.kiv.dfs_simulator.model.metadata.MetadataService;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorageManager;
 import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
 import cz.zcu.kiv.dfs_simulator.simulation.path.FsObjectNotFoundException;
 import cz.zcu.kiv.dfs_simulator.simulation.path.NoNeighboursAvailableException;
 import cz.zcu.kiv.dfs_simulator.simulation.path.NoPathAvailableException;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlock;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockLayout;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.ErasureCodingPolicy;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsErasureCodingManager;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.ObjectRegistryEntry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperation;
 import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperationTransferLimiter;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftReplicaException;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotMountedException;
 import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationProgress;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPathPicker;
+import cz.zcu.kiv.dfs_simulator.simulation.hierarchy.WatermarkDemotionDaemon;
+import cz.zcu.kiv.dfs_simulator.simulation.balancer.BalancerReport;
+import cz.zcu.kiv.dfs_simulator.simulation.balancer.ClusterBalancer;
+import cz.zcu.kiv.dfs_simulator.simulation.recovery.ReReplicationDaemon;
+import cz.zcu.kiv.dfs_simulator.simulation.recovery.ServerRecovery;
 
 /**
  * Discrete simulator. Takes all tasks and consecutively executes them. For each task,
@@ -47,7 +73,35 @@ public class DfsTimeSliceSimulator implements DfsSimulator
      * Simulation time slice
      */
     private static final int TIME_RESOLUTION_MS = 500;
+    /**
+     * Maximum allowed deviation of a single stripe's projected finish time
+     * from the projected finish time of the whole striped transfer before
+     * stripes are rebalanced
+     */
+    private static final double STRIPE_REBALANCE_TOLERANCE = 0.25;
+    /**
+     * Maximum number of blocks of a single file transfered at once
+     */
+    private static final int MAX_PARALLEL_BLOCK_TRANSFERS = 4;
+    /**
+     * Maximum time a write waits for its replicas to be acknowledged
+     */
+    private static final long MAX_REPLICA_ACK_WAIT_MS = 3600000;
+    /**
+     * Maximum time simulation keeps running after the last task 
+     * to let background processes finish their work
+     */
+    private static final long MAX_BACKGROUND_WORK_MS = 86400000;
+    /**
+     * Data exchanged instead of file content when uploading content which 
+     * is already stored at target server (fingerprint and acknowledgement)
+     */
+    private static final long DEDUP_FINGERPRINT_EXCHANGE_SIZE = 64;
 
+    /**
+     * Context of simulated model
+     */
+    protected final SimulationContext context;
     /**
      * Client (origin)
      */
@@ -72,7 +126,21 @@ public class DfsTimeSliceSimulator implements DfsSimulator
     protected final List<DfsSimulatorTaskResult> results = new ArrayList<>();
     
     /**
-     * Discrete simulator.
+     * Processes running in the background of this simulation
+     */
+    protected final List<SimulationBackgroundProcess> backgroundProcesses = new ArrayList<>();
+    
+    /**
+     * Re-replication process of servers failing during simulation
+     */
+    protected ReReplicationDaemon reReplicationDaemon = null;
+    /**
+     * Cluster balancer (if balancing is enabled)
+     */
+    protected ClusterBalancer balancer = null;
+    
+    /**
+     * Discrete simulator of model in context of the calling thread.
      * 
      * @param client client (origin)
      * @param plan simulation plan (tasks)
@@ -81,16 +149,69 @@ public class DfsTimeSliceSimulator implements DfsSimulator
      */
     public DfsTimeSliceSimulator(ModelClientNode client, SimulationPlan plan, DfsPathPicker pathPicker, SimulationType type)
     {
+        this(SimulationContext.getCurrent(), client, plan, pathPicker, type);
+    }
+    
+    /**
+     * Discrete simulator.
+     * 
+     * @param context context of simulated model
+     * @param client client (origin)
+     * @param plan simulation plan (tasks)
+     * @param pathPicker path picker
+     * @param type simulation type
+     */
+    public DfsTimeSliceSimulator(SimulationContext context, ModelClientNode client, SimulationPlan plan, DfsPathPicker pathPicker, SimulationType type)
+    {
+        this.context = context;
         this.client = client;
         this.plan = plan;
         this.pathPicker = pathPicker;
         this.simType = type;
+        
+        if(type.isHierarchical() && type.isBackgroundDemotionEnabled())
+        {
+            this.backgroundProcesses.add(new WatermarkDemotionDaemon(type.getHierarchicalPlanner()));
+        }
+        
+        if(!plan.getFailures().isEmpty())
+        {
+            this.reReplicationDaemon = new ReReplicationDaemon(plan.getFailures(), pathPicker, type, 
+                    plan.getReReplicationRateLimit(), plan.getReReplicationParallelism());
+            this.backgroundProcesses.add(this.reReplicationDaemon);
+        }
+        
+        if(type.isBalancingEnabled())
+        {
+            this.balancer = new ClusterBalancer(pathPicker, type);
+            this.backgroundProcesses.add(this.balancer);
+        }
+    }
+    
+    /**
+     * Add process that will run in the background of this simulation.
+     * 
+     * @param process background process
+     */
+    public void addBackgroundProcess(SimulationBackgroundProcess process)
+    {
+        this.backgroundProcesses.add(process);
     }
     
     /**
      * {@inheritDoc}
      */
     @Override public void run(DfsSimulatorLogger logger)
+    {
+        this.context.run(() -> this.int_run(logger));
+    }
+    
+    /**
+     * Internal method. Run simulation in context of the calling thread.
+     * 
+     * @param logger simulator logger
+     */
+    private void int_run(DfsSimulatorLogger logger)
     {
         ArrayDeque<SimulationTask> taskQueue = new ArrayDeque<>();
         taskQueue.addAll(this.plan.getTasks());
@@ -99,15 +220,48 @@ public class DfsTimeSliceSimulator implements DfsSimulator
         long sTime = 0;
         logger.logSimulationStarted(sTime);
         
-        while(!taskQueue.isEmpty())
+        // every run starts with a cold client cache
+        this.client.getClientCache().clear();
+        this.client.getMetadataCache().clear();
+        
+        for(ModelServerNode s : ModelNodeRegistry.getServerNodes())
         {
-            DfsSimulatorTaskResult taskResult = this.processTask(taskQueue.pop(), sTime, logger);
-            
-            // add it to result list
-            this.results.add(taskResult);
+            s.getStorageManager().getPageCache().clear();
+            s.getMetadataService().reset();
+        }
+        
+        if(this.simType.isHierarchical() && this.simType.getHierarchicalMonitor() != null)
+        {
+            this.simType.getHierarchicalMonitor().onSimulationStarted(logger, sTime);
+        }
+        
+        for(SimulationBackgroundProcess process : this.backgroundProcesses)
+        {
+            process.onSimulationStarted(ModelNodeRegistry.getServerNodes(), logger, sTime);
+        }
+        
+        try
+        {
+            while(!taskQueue.isEmpty())
+            {
+                DfsSimulatorTaskResult taskResult = this.processTask(taskQueue.pop(), sTime, logger);
+                
+                // add it to result list
+                this.results.add(taskResult);
+                
+                // increment simulation run time
+                sTime += taskResult.getTotalTime();
+            }
             
-            // increment simulation run time
-            sTime += taskResult.getTotalTime();
+            sTime = this.drainBackgroundProcesses(ModelNodeRegistry.getServerNodes(), logger, sTime);
+        }
+        finally
+        {
+            // background processes revert their changes of the model even if the run fails
+            for(SimulationBackgroundProcess process : this.backgroundProcesses)
+            {
+                process.onSimulationEnded(ModelNodeRegistry.getServerNodes(), logger, sTime);
+            }
         }
         
         this.finishServerStorageOperations(ModelNodeRegistry.getServerNodes(), sTime);
@@ -130,13 +284,61 @@ public class DfsTimeSliceSimulator implements DfsSimulator
         Exception caughtEx = null;
         List<DfsPath> pathHistory = new ArrayList<>();
         SimulationThroughputSampler sampler = new FilteringThroughputSampler();
+        List<ReplicationProgress> replicationHistory = new ArrayList<>();
+        List<StripedTransferSource> stripeSources = new ArrayList<>();
+        List<Long> reconstructionHistory = new ArrayList<>();
+        List<Long> hedgeHistory = new ArrayList<>();
+        List<Long> dedupHistory = new ArrayList<>();
+        ClientCache cache = this.client.getClientCache();
+        CacheLookupResult cacheResult = CacheLookupResult.BYPASS;
+        
+        if(task instanceof GetSimulationTask && cache.isEnabled())
+        {
+            if(cache.lookup(task.getFile(), bTime))
+            {
+                DfsSimulatorTaskResult result = this.createClientCacheHitResult(task, cache, bTime, pathHistory, sampler);
+                logger.logSimulationTaskEnded(result, (bTime + result.getTotalTime()));
+                
+                return result;
+            }
+            
+            cacheResult = CacheLookupResult.MISS;
+        }
+        
+        // metadata lookup or update has to finish before data transfer begins
+        ModelServerNode metadataServer = MetadataService.findMetadataServer(ModelNodeRegistry.getServerNodes());
+        List<Long> metadataQueueHistory = new ArrayList<>();
+        List<Long> metadataCacheHistory = new ArrayList<>();
+        List<Long> misrouteHistory = new ArrayList<>();
+        ClientMetadataCache metadataCache = this.client.getMetadataCache();
+        boolean useMetadataCache = (metadataServer != null && task instanceof GetSimulationTask && metadataCache.isEnabled());
+        long mTime = 0;
+        
+        if(metadataServer != null)
+        {
+            try
+            {
+                if(useMetadataCache)
+                {
+                    mTime = this.lookupMetadataCache(metadataServer, metadataCache, task, bTime, metadataQueueHistory, metadataCacheHistory, misrouteHistory);
+                }
+                else
+                {
+                    mTime = this.queryMetadataServer(metadataServer, task, bTime, metadataQueueHistory);
+                }
+            }
+            catch(NoPathAvailableException ex)
+            {
+                caughtEx = ex;
+            }
+        }
         
         // download
-        if(task instanceof GetSimulationTask)
+        if(caughtEx == null && task instanceof GetSimulationTask)
         {
             try
             {
-                tTime = this.executeDownloadTask(task, bTime, pathHistory, sampler, logger);
+                tTime = mTime + this.executeDownloadTask(task, bTime + mTime, pathHistory, sampler, stripeSources, reconstructionHistory, hedgeHistory, logger);
             }
             catch(NoPathAvailableException | NotMountedException | FsObjectNotFoundException ex)
             {
@@ -144,11 +346,11 @@ public class DfsTimeSliceSimulator implements DfsSimulator
             }
         }
         // upload
-        else
+        else if(caughtEx == null)
         {
             try
             {
-                tTime = this.executeUploadTask(task, bTime, pathHistory, sampler, logger);
+                tTime = mTime + this.executeUploadTask(task, bTime + mTime, pathHistory, sampler, replicationHistory, stripeSources, dedupHistory, logger);
             }
             catch(NoPathAvailableException | NotMountedException | NotEnoughSpaceLeftException | FsObjectNotFoundException | NotEnoughSpaceLeftReplicaException ex)
             {
@@ -156,6 +358,17 @@ public class DfsTimeSliceSimulator implements DfsSimulator
             }
         }
         
+        if(caughtEx == null && tTime != -1 && metadataServer != null && !(task instanceof GetSimulationTask))
+        {
+            this.registerReplicaUpdates(metadataServer, task, bTime + tTime);
+        }
+        
+        // uploaded object may have changed it's locations
+        if(!(task instanceof GetSimulationTask))
+        {
+            metadataCache.invalidate(task.getFile().getFullPath());
+        }
+        
         DfsSimulatorTaskResult result;
         if(caughtEx == null && tTime != -1)
         {
@@ -166,13 +379,44 @@ public class DfsTimeSliceSimulator implements DfsSimulator
             result = new DfsSimulatorTaskResult(
                     task, DfsSimulatorTaskResultState.SUCCESS, tTime, 
                     new ByteSpeed(averageBpsec, ByteSpeedUnits.BPS), pathHistory, sampler);
+            
+            if(cache.isEnabled())
+            {
+                this.updateClientCache(task, cache, (bTime + tTime));
+            }
+            
+            this.updatePageCache(task, result, (bTime + tTime));
+            
+            if(!replicationHistory.isEmpty())
+            {
+                result.setReplicationProgress(replicationHistory.get(0));
+            }
+            
+            result.setStripeSources(stripeSources);
+            
+            if(!reconstructionHistory.isEmpty())
+            {
+                result.setReconstructionTime(reconstructionHistory.get(0));
+            }
+            
+            if(!hedgeHistory.isEmpty())
+            {
+                result.setHedgedRead(true);
+                result.setWastedBytes(hedgeHistory.get(0));
+            }
+            
+            if(!dedupHistory.isEmpty())
+            {
+                result.setDeduplicatedWrite(true);
+                result.setDeduplicatedBytes(dedupHistory.get(0));
+            }
         }
         else
         {
             try
             {
                 // get query time to chosen registry
-                long qTime = this.pathPicker.getObjectRegistryQueryTime(this.client);
+                long qTime = (metadataServer != null) ? mTime : this.pathPicker.getObjectRegistryQueryTime(this.client);
                 DfsSimulatorTaskResultState state;
 
                 if(caughtEx instanceof NotEnoughSpaceLeftException)
@@ -209,296 +453,1682 @@ public class DfsTimeSliceSimulator implements DfsSimulator
             }
         }
         
+        result.setClientCacheResult(cacheResult);
+        
+        if(!metadataQueueHistory.isEmpty())
+        {
+            result.setMetadataTime(mTime);
+            result.setMetadataQueueTime(metadataQueueHistory.get(0));
+        }
+        
+        if(useMetadataCache)
+        {
+            long penalty = misrouteHistory.stream().mapToLong(Long::longValue).sum();
+            long saved = metadataCacheHistory.isEmpty() ? 0 : metadataCacheHistory.get(0);
+            
+            result.setMetadataCacheResult(metadataCacheHistory.isEmpty() ? CacheLookupResult.MISS : CacheLookupResult.HIT);
+            result.setMetadataMisroutes(misrouteHistory.size());
+            result.setMetadataSavedTime(saved - penalty);
+        }
+        
         logger.logSimulationTaskEnded(result, (bTime + result.getTotalTime()));
          
         return result;
     }
     
     /**
-     * Executes upload task.
+     * Query metadata server before executing {@code task} - downloads
+     * look up object locations, uploads create the object or update it's 
+     * size. Request and response travel over the lowest latency route 
+     * between client and metadata server, the operation itself waits 
+     * in metadata server's queue.
      * 
-     * @param task upload task
-     * @param bTime simulation time at which processing of this task begins
-     * @param pathHistory list of paths (maximum one for upload task)
-     * @param throughputHistory history of sampled (at TIME_RESOLUTION_MS) average throughput
-     * @param logger simulator logger
-     * @return time taken to execute
-     * @throws NoPathAvailableException if there is no path available to target
-     * @throws NotEnoughSpaceLeftException if there is not enough space to store file in upload directory
+     * @param metadataServer metadata server
+     * @param task task
+     * @param bTime simulation time at which the query is sent
+     * @param queueHistory time the operation waited in queue
+     * @return time until the client receives response
+     * @throws NoPathAvailableException metadata server cannot be reached
      */
-    private long executeUploadTask(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, DfsSimulatorLogger logger) 
-            throws NoPathAvailableException, NotMountedException, NotEnoughSpaceLeftException, FsObjectNotFoundException, NotEnoughSpaceLeftReplicaException
+    private long queryMetadataServer(ModelServerNode metadataServer, SimulationTask task, long bTime, List<Long> queueHistory) throws NoPathAvailableException
     {
-        final FsFile f = task.getFile();
+        long latency = this.pathPicker.getQueryLatency(this.client, metadataServer, task, bTime);
         
-        if(FsGlobalReplicationManager.isFileReplicated(f) && !FsGlobalReplicationManager.canReplicaBeResized(f))
+        MetadataOperation operation;
+        
+        if(task instanceof GetSimulationTask)
         {
-            throw new NotEnoughSpaceLeftReplicaException("File cannot be resized on all replicas.");
+            operation = MetadataOperation.LOOKUP;
         }
-
-        long tTime = this.simulateTaskExecution(task, bTime, pathHistory, throughputSampler, logger);
-
-        if(tTime != -1 && !pathHistory.isEmpty())
+        else
         {
-            ModelServerNode targetServer = pathHistory.get(pathHistory.size() - 1).getTarget();
-            // get target object (all paths in upload task NEED to have same target)
-            final FsFile uploadedFile = pathHistory.get(pathHistory.size() - 1).getOrCreateTargetFile();
+            operation = (FsGlobalObjectRegistry.getObjectEntry(task.getFile()) == null) 
+                    ? MetadataOperation.CREATE : MetadataOperation.RESIZE;
+        }
+        
+        MetadataService service = metadataServer.getMetadataService();
+        long arrival = bTime + latency;
+        long completion = service.submit(operation, arrival);
+        
+        queueHistory.add(completion - arrival - service.getServiceTime(operation));
+        
+        return (completion + latency) - bTime;
+    }
+    
+    /**
+     * Look up object locations in client's metadata cache before executing
+     * download {@code task}. Cached locations are tried in order - each 
+     * location that no longer holds the object (or has failed) costs 
+     * a round trip to that server. If no cached location is valid,
+     * metadata server is queried and the cache is updated with current
+     * locations.
+     * 
+     * @param metadataServer metadata server
+     * @param cache client's metadata cache
+     * @param task download task
+     * @param bTime simulation time at which the lookup begins
+     * @param queueHistory time the operation waited in metadata server's queue
+     * @param cacheHistory metadata query time saved by cache hit
+     * @param misrouteHistory time lost by each request sent to a stale location
+     * @return time until the client knows the object location
+     * @throws NoPathAvailableException metadata server cannot be reached
+     */
+    private long lookupMetadataCache(ModelServerNode metadataServer, ClientMetadataCache cache, SimulationTask task, long bTime, List<Long> queueHistory, List<Long> cacheHistory, List<Long> misrouteHistory) throws NoPathAvailableException
+    {
+        FsFile file = task.getFile();
+        MetadataCacheEntry entry = cache.lookup(file, bTime);
+        long penalty = 0;
+        
+        if(entry != null)
+        {
+            ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(file);
             
-            // @TODO file replication
-
-            if(uploadedFile != null)
+            for(ModelServerNode location : entry.getLocations())
             {
-                uploadedFile.setSize(f.getSize());
-                
-                // if file has replicas, we need to update them
-                if(FsGlobalReplicationManager.isFileReplicated(uploadedFile))
+                if(!location.isFailed() && ore != null && ore.servers.contains(location))
                 {
-                    FsGlobalReplicationManager.propagateReplicaResize(uploadedFile, 
-                            targetServer, this.pathPicker, this.simType, logger, tTime);
+                    cacheHistory.add(this.estimateMetadataQueryTime(metadataServer, task, bTime + penalty));
+                    
+                    return penalty;
                 }
                 
-                return tTime;
+                long roundTrip = this.getRoundTripTime(location, task, bTime + penalty);
+                
+                cache.recordMisroute();
+                misrouteHistory.add(roundTrip);
+                penalty += roundTrip;
             }
+            
+            cache.invalidate(file.getFullPath());
         }
         
-        return -1;
+        long mTime = penalty + this.queryMetadataServer(metadataServer, task, bTime + penalty, queueHistory);
+        ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(file);
+        
+        if(ore != null)
+        {
+            cache.insert(file, ore.servers, bTime + mTime);
+        }
+        
+        return mTime;
     }
     
     /**
-     * Executes download task.
+     * Estimate time of querying metadata server without waiting in it's queue.
      * 
-     * @param task download task
-     * @param bTime simulation time at which processing of this task begins
-     * @param pathHistory list of paths (maximum one for upload task)
-     * @param throughputHistory history of sampled (at TIME_RESOLUTION_MS) average throughput
-     * @param logger simulator logger
-     * @return time taken to execute
-     * @throws NoPathAvailableException if there is no path available to target
-     * @throws FsObjectNotFoundException download object (target) not found
-     * @throws NotMountedException target not mounted
+     * @param metadataServer metadata server
+     * @param task task the query is sent for
+     * @param sTime simulation time at which the query would be sent
+     * @return estimated query time
      */
-    private long executeDownloadTask(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, DfsSimulatorLogger logger) throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException
+    private long estimateMetadataQueryTime(ModelServerNode metadataServer, SimulationTask task, long sTime)
     {
-        return this.simulateTaskExecution(task, bTime, pathHistory, throughputSampler, logger);
+        return this.getRoundTripTime(metadataServer, task, sTime) + 
+                metadataServer.getMetadataService().getServiceTime(MetadataOperation.LOOKUP);
     }
     
     /**
-     * Creates storage operation for given task {@code task}.
+     * Get time of sending a request to {@code server} and receiving 
+     * a response.
      * 
-     * @param task task
-     * @param transferList list of transfered files
-     * @param path selected path to storage
-     * @return created storage operation
+     * @param server server
+     * @param task task the request is sent for
+     * @param sTime simulation time at which the request is sent
+     * @return round trip time or 0 if server cannot be reached or has 
+     * failed (request fails immediately)
      */
-    private StorageOperation createTaskStorageOperation(SimulationTask task, List<FsFile> transferList, DfsPath path)
+    private long getRoundTripTime(ModelServerNode server, SimulationTask task, long sTime)
     {
-        if(task instanceof GetSimulationTask)
+        try
         {
-            return path.getTargetStorage().getOperationManager().addUnmanagedReadOperation(transferList, new StorageOperationTransferLimiter()
-            {
-                @Override public ByteSpeed getTransferLimit(long sTime)
-                {
-                    return path.getCurrentLinkBandwidth(sTime);
-                }
-            });
+            return 2 * this.pathPicker.getQueryLatency(this.client, server, task, sTime);
         }
-        else
+        catch(NoPathAvailableException ex)
         {
-            return path.getTargetStorage().getOperationManager().addUnmanagedWriteOperation(transferList, new StorageOperationTransferLimiter()
-            {
-                @Override
-                public ByteSpeed getTransferLimit(long sTime)
-                {
-                    return path.getCurrentLinkBandwidth(sTime);
-                }
-            }, true);
+            return 0;
         }
     }
     
     /**
-     * Execute task.
+     * Register replicas of uploaded object at metadata server. Replica 
+     * updates are sent by servers after the upload, client does not wait
+     * for them, but they occupy the metadata server's queue.
      * 
-     * @param task task to execute
-     * @param bTime time elapsed from the beginning of current simulation run
-     * @return task result time
+     * @param metadataServer metadata server
+     * @param task finished upload task
+     * @param sTime simulation time at which upload finished
      */
-    private long simulateTaskExecution(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, DfsSimulatorLogger logger) throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException
+    private void registerReplicaUpdates(ModelServerNode metadataServer, SimulationTask task, long sTime)
     {
-        // time taken for this task
-        long tTime = 0;
-        
-        long totalBytes = task.getFile().getSize().bytesProperty().get();
-        long bytesTransfered = 0;
-        
-        boolean hierarchicalMode = (this.simType.isHierarchical() && this.simType.getHierarchicalMonitor() != null);
-        
-        DfsPath cPath = this.pathPicker.selectPath(this.client, task, tTime, null, this.simType);        
+        ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(task.getFile());
         
-        if(cPath == null)
+        if(ore == null)
         {
-            return -1;
+            return;
         }
         
-        List<ModelServerNode> serverNodes = ModelNodeRegistry.getServerNodes();
-        ArrayList<FsFile> transferList = new ArrayList<>();
-        transferList.add(task.getFile());
-        
-        // add latency
-        tTime += cPath.getCumLatency();
+        for(int i = 1; i < ore.servers.size(); i++)
+        {
+            metadataServer.getMetadataService().submit(MetadataOperation.REPLICA_UPDATE, sTime);
+        }
+    }
+    
+    /**
+     * Creates result of a download task that is served from client cache.
+     * Object is transfered at cache local bandwidth.
+     * 
+     * @param task download task
+     * @param cache client cache
+     * @param bTime simulation time at which processing of this task begins
+     * @param pathHistory list of paths (stays empty)
+     * @param sampler throughput sampler
+     * @return simulation task result
+     */
+    private DfsSimulatorTaskResult createClientCacheHitResult(SimulationTask task, ClientCache cache, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler sampler)
+    {
+        long totalBytes = task.getFile().getSize().bytesProperty().get();
+        long localBps = cache.getLocalBandwidth().bpsProperty().get();
+        long tTime = (localBps > 0) ? (long) Math.ceil((totalBytes * 1000.0) / localBps) : 0;
         
-        long recalcTime = 0;
+        ByteSpeed speed = new ByteSpeed(localBps, ByteSpeedUnits.BPS);
+        sampler.recordSample(bTime, speed, true);
         
-        Map<FsFile, ModelServerNode> accessedFiles = new HashMap<>();
+        DfsSimulatorTaskResult result = new DfsSimulatorTaskResult(
+                task, DfsSimulatorTaskResultState.SUCCESS, tTime, speed, pathHistory, sampler);
+        result.setClientCacheResult(CacheLookupResult.HIT);
         
-        if(hierarchicalMode)
-        {
-            FsFile targetFile = cPath.getOrCreateTargetFile();
-            // we have to set file size before hand so that we can 
-            // calculate migration possibilities in advance and possibly
-            // skip writing to a slower storage
-            if(task instanceof PutSimulationTask)
+        return result;
+    }
+    
+    /**
+     * Updates client cache after successfully finished task. Downloaded objects
+     * are inserted, uploaded objects are either written through 
+     * or invalidated.
+     * 
+     * @param task finished task
+     * @param cache client cache
+     * @param sTime simulation time
+     */
+    private void updateClientCache(SimulationTask task, ClientCache cache, long sTime)
+    {
+        if(task instanceof GetSimulationTask || cache.isWriteThrough())
+        {
+            cache.insert(task.getFile(), sTime);
+        }
+        else
+        {
+            cache.invalidate(task.getFile().getFullPath());
+        }
+    }
+    
+    /**
+     * Records page cache lookup result of a successfully finished task
+     * (based on the last used path) and updates page cache of target server.
+     * Objects that were read from the storage device or written are inserted
+     * into the cache.
+     * 
+     * @param task finished task
+     * @param result task result
+     * @param sTime simulation time
+     */
+    private void updatePageCache(SimulationTask task, DfsSimulatorTaskResult result, long sTime)
+    {
+        if(result.getPathHistory().isEmpty())
+        {
+            return;
+        }
+        
+        DfsPath lastPath = result.getPathHistory().get(result.getPathHistory().size() - 1);
+        ServerPageCache pageCache = lastPath.getTarget().getStorageManager().getPageCache();
+        
+        if(!pageCache.isEnabled())
+        {
+            return;
+        }
+        
+        FsFile targetFile = lastPath.getOrCreateTargetFile();
+        StorageOperation lastOp = lastPath.getRunningOperation();
+        
+        if(task instanceof GetSimulationTask)
+        {
+            if(lastOp != null && lastOp.getStorage() == pageCache.getMemoryDevice())
+            {
+                ServerStorage device = lastPath.getTargetStorage();
+                long deviceBps = (device != null) ? device.getMaximumSpeed().bpsProperty().get() : 0;
+                
+                result.setPageCacheResult(CacheLookupResult.HIT);
+                
+                if(deviceBps > 0)
+                {
+                    result.setSavedDeviceTime((long) Math.ceil((targetFile.getSize().bytesProperty().get() * 1000.0) / deviceBps));
+                }
+                
+                return;
+            }
+            
+            result.setPageCacheResult(CacheLookupResult.MISS);
+        }
+        
+        pageCache.insert(targetFile, sTime);
+    }
+    
+    /**
+     * Executes upload task.
+     * 
+     * @param task upload task
+     * @param bTime simulation time at which processing of this task begins
+     * @param pathHistory list of paths (maximum one for upload task)
+     * @param throughputHistory history of sampled (at TIME_RESOLUTION_MS) average throughput
+     * @param replicationHistory progress of replicating uploaded file (maximum one)
+     * @param blockSources block transfers (stays empty if file is not split into blocks)
+     * @param dedupHistory bytes not transfered because content was already stored at target (maximum one, stays empty if write was not deduplicated)
+     * @param logger simulator logger
+     * @return time taken to execute
+     * @throws NoPathAvailableException if there is no path available to target
+     * @throws NotEnoughSpaceLeftException if there is not enough space to store file in upload directory
+     */
+    private long executeUploadTask(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, List<ReplicationProgress> replicationHistory, List<StripedTransferSource> blockSources, List<Long> dedupHistory, DfsSimulatorLogger logger) 
+            throws NoPathAvailableException, NotMountedException, NotEnoughSpaceLeftException, FsObjectNotFoundException, NotEnoughSpaceLeftReplicaException
+    {
+        final FsFile f = task.getFile();
+        
+        if(FsErasureCodingManager.isFileEncoded(f) || FsErasureCodingManager.getEffectivePolicy(f) != null)
+        {
+            return this.executeErasureCodedUploadTask(task, bTime, pathHistory, throughputSampler, blockSources, logger);
+        }
+        
+        if(FsBlockManager.isFileBlocked(f))
+        {
+            return this.executeBlockUploadTask(task, bTime, pathHistory, throughputSampler, replicationHistory, blockSources, logger);
+        }
+        
+        if(FsGlobalReplicationManager.isFileReplicated(f) && !FsGlobalReplicationManager.canReplicaBeResized(f))
+        {
+            throw new NotEnoughSpaceLeftReplicaException("File cannot be resized on all replicas.");
+        }
+
+        long tTime = this.simulateTaskExecution(task, bTime, pathHistory, throughputSampler, logger);
+
+        if(tTime != -1 && !pathHistory.isEmpty())
+        {
+            ModelServerNode targetServer = pathHistory.get(pathHistory.size() - 1).getTarget();
+            // get target object (all paths in upload task NEED to have same target)
+            final FsFile uploadedFile = pathHistory.get(pathHistory.size() - 1).getOrCreateTargetFile();
+            
+            // @TODO file replication
+
+            if(uploadedFile != null)
+            {
+                // content index is updated only after the transfer, so it still
+                // tells whether the transfer was reduced to a fingerprint exchange
+                if(this.isDuplicateUpload(task, pathHistory.get(pathHistory.size() - 1)))
+                {
+                    dedupHistory.add(Math.max(0, f.getSize().bytesProperty().get() - DEDUP_FINGERPRINT_EXCHANGE_SIZE));
+                    logger.logDeduplicatedWrite(task, targetServer, (bTime + tTime));
+                }
+                
+                uploadedFile.setSize(f.getSize());
+                this.updateContentFingerprint(uploadedFile, targetServer, f.getFingerprint());
+                
+                // if file has replicas, we need to update them
+                if(FsGlobalReplicationManager.isFileReplicated(uploadedFile))
+                {
+                    ReplicationProgress progress = FsGlobalReplicationManager.propagateReplicaResize(uploadedFile, 
+                            targetServer, this.pathPicker, this.simType, logger, (bTime + tTime));
+                    
+                    if(progress != null)
+                    {
+                        replicationHistory.add(progress);
+                        
+                        tTime += this.awaitReplicaAcknowledgement(progress, (bTime + tTime), logger);
+                    }
+                }
+                
+                return tTime;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Check if {@code task} uploads content which is already stored 
+     * on target server of {@code path}.
+     * 
+     * @param task task
+     * @param path selected path
+     * @return true if upload can be deduplicated
+     */
+    private boolean isDuplicateUpload(SimulationTask task, DfsPath path)
+    {
+        if(!(task instanceof PutSimulationTask) || task.getFile().getFingerprint() == null || path.getTarget() == null)
+        {
+            return false;
+        }
+        
+        return path.getTarget().getFsManager().isContentStored(task.getFile().getFingerprint());
+    }
+    
+    /**
+     * Set content fingerprint of uploaded file and all of it's replicas.
+     * 
+     * @param uploadedFile uploaded file
+     * @param targetServer server the file was uploaded to
+     * @param fingerprint uploaded content fingerprint
+     */
+    private void updateContentFingerprint(FsFile uploadedFile, ModelServerNode targetServer, String fingerprint)
+    {
+        targetServer.getFsManager().setFileFingerprint(uploadedFile, fingerprint);
+        
+        ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(uploadedFile);
+        
+        if(ore == null)
+        {
+            return;
+        }
+        
+        for(int i = 0; i < ore.fsObjects.size(); i++)
+        {
+            if(ore.fsObjects.get(i) instanceof FsFile && ore.fsObjects.get(i) != uploadedFile)
+            {
+                ore.servers.get(i).getFsManager().setFileFingerprint((FsFile) ore.fsObjects.get(i), fingerprint);
+            }
+        }
+    }
+    
+    /**
+     * Executes download task.
+     * 
+     * @param task download task
+     * @param bTime simulation time at which processing of this task begins
+     * @param pathHistory list of paths (maximum one for upload task)
+     * @param throughputHistory history of sampled (at TIME_RESOLUTION_MS) average throughput
+     * @param stripeSources sources of striped transfer (stays empty if transfer is not striped)
+     * @param reconstructionHistory time of reconstructing erasure coded file (maximum one, stays empty if read was not degraded)
+     * @param hedgeHistory bytes transfered by cancelled request of hedged read (maximum one, stays empty if read was not hedged)
+     * @param logger simulator logger
+     * @return time taken to execute
+     * @throws NoPathAvailableException if there is no path available to target
+     * @throws FsObjectNotFoundException download object (target) not found
+     * @throws NotMountedException target not mounted
+     */
+    private long executeDownloadTask(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, List<StripedTransferSource> stripeSources, List<Long> reconstructionHistory, List<Long> hedgeHistory, DfsSimulatorLogger logger) throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException
+    {
+        if(FsErasureCodingManager.isFileEncoded(task.getFile()))
+        {
+            return this.executeErasureCodedDownloadTask(task, bTime, pathHistory, throughputSampler, 
+                    stripeSources, reconstructionHistory, logger);
+        }
+        
+        if(FsBlockManager.isFileBlocked(task.getFile()))
+        {
+            FsBlockLayout layout = FsBlockManager.getBlockLayout(task.getFile());
+            
+            return this.simulateBlockTaskExecution(task, bTime, layout.getBlocks(), MAX_PARALLEL_BLOCK_TRANSFERS, 
+                    pathHistory, throughputSampler, stripeSources, new ArrayList<>(), logger);
+        }
+        
+        if(this.simType.isStripedTransferEnabled())
+        {
+            stripeSources.addAll(this.selectStripeSources(task, bTime));
+            
+            // striping makes sense only with multiple reachable replicas
+            if(stripeSources.size() > 1)
+            {
+                return this.simulateStripedTaskExecution(task, bTime, pathHistory, throughputSampler, stripeSources, logger);
+            }
+            
+            stripeSources.clear();
+        }
+        
+        if(this.simType.isHedgedTransferEnabled())
+        {
+            return this.simulateHedgedTaskExecution(task, bTime, pathHistory, throughputSampler, hedgeHistory, logger);
+        }
+        
+        return this.simulateTaskExecution(task, bTime, pathHistory, throughputSampler, logger);
+    }
+    
+    /**
+     * Executes upload task of a file that is split into blocks. Blocks
+     * are re-split if file size changed, each block is written to its
+     * first replica and then propagated to its other replicas.
+     * 
+     * @param task upload task
+     * @param bTime simulation time at which processing of this task begins
+     * @param pathHistory list of used paths
+     * @param throughputSampler sampler of aggregated throughput
+     * @param replicationHistory progress of replicating uploaded file (maximum one)
+     * @param blockSources block transfers (one source per block)
+     * @param logger simulator logger
+     * @return time taken to execute
+     * @throws NoPathAvailableException if there is no path available to some block
+     * @throws NotEnoughSpaceLeftException if re-split blocks cannot be placed
+     * @throws FsObjectNotFoundException block not found
+     * @throws NotMountedException block not mounted
+     */
+    private long executeBlockUploadTask(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, List<ReplicationProgress> replicationHistory, List<StripedTransferSource> blockSources, DfsSimulatorLogger logger) 
+            throws NoPathAvailableException, NotEnoughSpaceLeftException, FsObjectNotFoundException, NotMountedException
+    {
+        final FsFile f = task.getFile();
+        
+        FsBlockLayout layout = FsBlockManager.resizeBlocks(f, f.getSize(), ModelNodeRegistry.getServerNodes());
+        
+        long tTime = this.simulateBlockTaskExecution(task, bTime, layout.getBlocks(), MAX_PARALLEL_BLOCK_TRANSFERS, 
+                pathHistory, throughputSampler, blockSources, replicationHistory, logger);
+        
+        if(tTime != -1)
+        {
+            this.updateNamespaceFileSize(f);
+            
+            // wait for required replicas of every block
+            if(!replicationHistory.isEmpty())
+            {
+                tTime += this.awaitReplicaAcknowledgement(replicationHistory.get(0), (bTime + tTime), logger);
+            }
+        }
+        
+        return tTime;
+    }
+    
+    /**
+     * Executes upload task of an erasure coded file (or of a file with erasure
+     * coding policy set). File is (re-)encoded if needed and all of its 
+     * {@code k + m} fragments are written in parallel.
+     * 
+     * @param task upload task
+     * @param bTime simulation time at which processing of this task begins
+     * @param pathHistory list of used paths
+     * @param throughputSampler sampler of aggregated throughput
+     * @param fragmentSources fragment transfers (one source per fragment)
+     * @param logger simulator logger
+     * @return time taken to execute
+     * @throws NoPathAvailableException if there is no path available to some fragment
+     * @throws NotEnoughSpaceLeftException if fragments cannot be placed
+     * @throws FsObjectNotFoundException fragment not found
+     * @throws NotMountedException fragment not mounted
+     */
+    private long executeErasureCodedUploadTask(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, List<StripedTransferSource> fragmentSources, DfsSimulatorLogger logger) 
+            throws NoPathAvailableException, NotEnoughSpaceLeftException, FsObjectNotFoundException, NotMountedException
+    {
+        final FsFile f = task.getFile();
+        List<FsBlock> fragments;
+        
+        if(FsErasureCodingManager.isFileEncoded(f))
+        {
+            fragments = FsErasureCodingManager.resizeFragments(f, ModelNodeRegistry.getServerNodes());
+        }
+        else
+        {
+            fragments = FsErasureCodingManager.encodeFile(f, FsErasureCodingManager.getEffectivePolicy(f), 
+                    ModelNodeRegistry.getServerNodes());
+        }
+        
+        long tTime = this.simulateBlockTaskExecution(task, bTime, fragments, fragments.size(), 
+                pathHistory, throughputSampler, fragmentSources, new ArrayList<>(), logger);
+        
+        if(tTime != -1)
+        {
+            this.updateNamespaceFileSize(f);
+        }
+        
+        return tTime;
+    }
+    
+    /**
+     * Executes download task of an erasure coded file. Any {@code k} reachable
+     * fragments (data fragments preferably) are read in parallel. If some
+     * of them is a parity fragment, read is degraded and missing data has
+     * to be reconstructed.
+     * 
+     * @param task download task
+     * @param bTime simulation time at which processing of this task begins
+     * @param pathHistory list of used paths
+     * @param throughputSampler sampler of aggregated throughput
+     * @param fragmentSources fragment transfers (one source per read fragment)
+     * @param reconstructionHistory time of reconstruction (stays empty if read was not degraded)
+     * @param logger simulator logger
+     * @return time taken to execute
+     * @throws NoPathAvailableException if less than {@code k} fragments are reachable
+     * @throws FsObjectNotFoundException fragment not found
+     * @throws NotMountedException fragment not mounted
+     */
+    private long executeErasureCodedDownloadTask(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, List<StripedTransferSource> fragmentSources, List<Long> reconstructionHistory, DfsSimulatorLogger logger) 
+            throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException
+    {
+        final FsFile f = task.getFile();
+        ErasureCodingPolicy policy = FsErasureCodingManager.getEncodingPolicy(f);
+        List<FsBlock> readFragments = new ArrayList<>();
+        boolean degraded = false;
+        
+        for(FsBlock fragment : FsErasureCodingManager.getFragments(f))
+        {
+            if(readFragments.size() >= policy.getDataFragments())
+            {
+                break;
+            }
+            
+            FsFile fragmentFile = fragment.getInstance();
+            
+            try
+            {
+                this.pathPicker.selectPath(this.client, new GetSimulationTask(fragmentFile), bTime, null, this.simType);
+                
+                readFragments.add(fragment);
+                degraded |= !FsErasureCodingManager.isDataFragment(f, fragment);
+            }
+            catch(NoPathAvailableException | NotMountedException ex)
+            {
+                // fragment unreachable, try next one
+            }
+        }
+        
+        if(readFragments.size() < policy.getDataFragments())
+        {
+            throw new NoPathAvailableException("Only " + readFragments.size() + " of " + 
+                    policy.getDataFragments() + " required fragments are reachable.");
+        }
+        
+        long tTime = this.simulateBlockTaskExecution(task, bTime, readFragments, readFragments.size(), 
+                pathHistory, throughputSampler, fragmentSources, new ArrayList<>(), logger);
+        
+        if(tTime != -1 && degraded)
+        {
+            long rTime = policy.getReconstructionTime(f.getSize().bytesProperty().get());
+            
+            logger.logDegradedRead(task, readFragments, rTime, (bTime + tTime));
+            reconstructionHistory.add(rTime);
+            
+            tTime += rTime;
+        }
+        
+        return tTime;
+    }
+    
+    /**
+     * Wait until replicas required by global consistency have been 
+     * updated (simulation time is advanced meanwhile) and acknowledge 
+     * the write to the client. If the file is replicated by parts (blocks), 
+     * every part has to reach its own required number of replicas. Lost 
+     * replicas count towards the required number, but never acknowledge.
+     * 
+     * @param progress replication progress of written file
+     * @param sTime simulation time at which the first replica has been written
+     * @param logger simulator logger
+     * @return time client waited for replicas
+     */
+    private long awaitReplicaAcknowledgement(ReplicationProgress progress, long sTime, DfsSimulatorLogger logger)
+    {
+        List<ModelServerNode> serverNodes = ModelNodeRegistry.getServerNodes();
+        List<ReplicationProgress> acknowledged = progress.getParts().isEmpty() ? 
+                Collections.singletonList(progress) : progress.getParts();
+        long wTime = 0;
+        
+        while(!this.isReplicaQuorumReached(acknowledged) && this.isReplicaQuorumReachable(acknowledged) && 
+                wTime < MAX_REPLICA_ACK_WAIT_MS)
+        {
+            wTime += TIME_RESOLUTION_MS;
+            
+            this.updateBackgroundProcesses(serverNodes, logger, (sTime + wTime));
+            this.updateServerStorageOperations(serverNodes, TIME_RESOLUTION_MS, (sTime + wTime));
+        }
+        
+        long ackTime = sTime;
+        
+        for(ReplicationProgress part : acknowledged)
+        {
+            int requiredAcks = this.getRequiredReplicaAcks(part);
+            long partAckTime = part.getReplicasFinishTime(requiredAcks);
+            
+            if(partAckTime < 0)
+            {
+                logger.logError("Only " + part.getFinishedCount() + " of " + requiredAcks + " replicas of file " + 
+                        part.getFile().getFullPath() + " have been updated in time.", (sTime + wTime));
+                
+                partAckTime = sTime + wTime;
+            }
+            
+            ackTime = Math.max(ackTime, partAckTime);
+        }
+        
+        progress.acknowledge(FsGlobalReplicationManager.getConsistency(), ackTime);
+        
+        return (ackTime - sTime);
+    }
+    
+    /**
+     * Checks if every progress in {@code progresses} has updated replicas 
+     * required by global consistency.
+     * 
+     * @param progresses replication progresses
+     * @return true if all progresses reached required number of replicas
+     */
+    private boolean isReplicaQuorumReached(List<ReplicationProgress> progresses)
+    {
+        return progresses.stream().allMatch(p -> (p.getFinishedCount() >= this.getRequiredReplicaAcks(p)));
+    }
+    
+    /**
+     * Checks if every progress in {@code progresses} can still update replicas 
+     * required by global consistency - there are enough replicas that are not lost.
+     * 
+     * @param progresses replication progresses
+     * @return true if all progresses can reach required number of replicas
+     */
+    private boolean isReplicaQuorumReachable(List<ReplicationProgress> progresses)
+    {
+        return progresses.stream().allMatch(p -> (p.getReplicaCount() >= this.getRequiredReplicaAcks(p)));
+    }
+    
+    /**
+     * Get number of replica acknowledgements {@code progress} requires 
+     * by global consistency. Origin and lost replicas are counted 
+     * as replicas of the file.
+     * 
+     * @param progress replication progress
+     * @return number of required acknowledgements
+     */
+    private int getRequiredReplicaAcks(ReplicationProgress progress)
+    {
+        return FsGlobalReplicationManager.getRequiredReplicaAcks(progress.getReplicaCount() + progress.getLostCount() + 1);
+    }
+    
+    /**
+     * Update size of all namespace entries of {@code file} whose data are
+     * stored as blocks or fragments.
+     * 
+     * @param file file
+     */
+    private void updateNamespaceFileSize(FsFile file)
+    {
+        ObjectRegistryEntry ore = FsGlobalObjectRegistry.getObjectEntry(file);
+        
+        if(ore != null)
+        {
+            ore.fsObjects.stream().filter(o -> (o instanceof FsFile) && o != file).
+                    forEach(o -> ((FsFile) o).setSize(file.getSize()));
+        }
+    }
+    
+    /**
+     * Selects sources of striped transfer - paths to best reachable servers
+     * that hold the object of task {@code task}.
+     * 
+     * @param task download task
+     * @param sTime simulation time
+     * @return stripe sources (ordered by path metric)
+     * @throws FsObjectNotFoundException download object not found
+     * @throws NotMountedException download object not mounted
+     */
+    private List<StripedTransferSource> selectStripeSources(SimulationTask task, long sTime) throws FsObjectNotFoundException, NotMountedException
+    {
+        Set<ModelServerNode> serverNodes = FsGlobalObjectRegistry.getEntryMountedNodeList(task.getFile());
+        
+        if(serverNodes == null || serverNodes.isEmpty())
+        {
+            throw new FsObjectNotFoundException("Couldn't find requested file in file registry.");
+        }
+        
+        Set<ModelServerNode> candidates = new HashSet<>(serverNodes);
+        List<StripedTransferSource> sources = new ArrayList<>();
+        
+        while(!candidates.isEmpty() && sources.size() < this.simType.getMaxStripeSources())
+        {
+            try
+            {
+                DfsPath path = this.pathPicker.selectPathAmong(this.client, task, sTime, candidates, this.simType);
+                
+                candidates.remove(path.getTarget());
+                sources.add(new StripedTransferSource(path));
+            }
+            catch(NoPathAvailableException ex)
+            {
+                break;
+            }
+        }
+        
+        return sources;
+    }
+    
+    /**
+     * Creates storage operation for given task {@code task}.
+     * 
+     * @param task task
+     * @param transferList list of transfered files
+     * @param path selected path to storage
+     * @param sTime simulation time
+     * @return created storage operation
+     */
+    private StorageOperation createTaskStorageOperation(SimulationTask task, List<FsFile> transferList, DfsPath path, long sTime)
+    {
+        if(task instanceof GetSimulationTask)
+        {
+            ServerStorage device = path.getTargetStorage();
+            ServerPageCache pageCache = path.getTarget().getStorageManager().getPageCache();
+            
+            // cached objects are read from memory, bypassing the storage device
+            if(pageCache.isEnabled() && pageCache.lookup(path.getOrCreateTargetFile(), sTime))
+            {
+                device = pageCache.getMemoryDevice();
+            }
+            
+            return device.getOperationManager().addUnmanagedReadOperation(transferList, new StorageOperationTransferLimiter()
+            {
+                @Override public ByteSpeed getTransferLimit(long sTime)
+                {
+                    return path.getCurrentLinkBandwidth(sTime);
+                }
+            });
+        }
+        else
+        {
+            return path.getTargetStorage().getOperationManager().addUnmanagedWriteOperation(transferList, new StorageOperationTransferLimiter()
+            {
+                @Override
+                public ByteSpeed getTransferLimit(long sTime)
+                {
+                    return path.getCurrentLinkBandwidth(sTime);
+                }
+            }, true);
+        }
+    }
+    
+    /**
+     * Execute task.
+     * 
+     * @param task task to execute
+     * @param bTime time elapsed from the beginning of current simulation run
+     * @return task result time
+     */
+    private long simulateTaskExecution(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, DfsSimulatorLogger logger) throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException
+    {
+        // time taken for this task
+        long tTime = 0;
+        
+        long totalBytes = task.getFile().getSize().bytesProperty().get();
+        long bytesTransfered = 0;
+        
+        boolean hierarchicalMode = (this.simType.isHierarchical() && this.simType.getHierarchicalMonitor() != null);
+        
+        DfsPath cPath = this.pathPicker.selectPath(this.client, task, tTime, null, this.simType);        
+        
+        if(cPath == null)
+        {
+            return -1;
+        }
+        
+        // content is already stored at target, only fingerprints are exchanged
+        if(this.isDuplicateUpload(task, cPath))
+        {
+            totalBytes = Math.min(totalBytes, DEDUP_FINGERPRINT_EXCHANGE_SIZE);
+        }
+        
+        List<ModelServerNode> serverNodes = ModelNodeRegistry.getServerNodes();
+        ArrayList<FsFile> transferList = new ArrayList<>();
+        transferList.add(task.getFile());
+        
+        // add latency
+        tTime += cPath.getCumLatency();
+        
+        long recalcTime = 0;
+        
+        Map<FsFile, ModelServerNode> accessedFiles = new HashMap<>();
+        
+        if(hierarchicalMode)
+        {
+            FsFile targetFile = cPath.getOrCreateTargetFile();
+            // we have to set file size before hand so that we can 
+            // calculate migration possibilities in advance and possibly
+            // skip writing to a slower storage
+            if(task instanceof PutSimulationTask)
+            {
+                targetFile.setSize(task.getFile().getSize());
+            }
+            
+            accessedFiles.put(cPath.getOrCreateTargetFile(), cPath.getTarget());
+            
+            this.simType.getHierarchicalMonitor().onBeforeAccess(
+                    cPath.getOrCreateTargetFile(), cPath.getTarget(), task, logger, (bTime + tTime));
+        }
+        
+        long prevStorageUpdate = 0;
+        
+        // create a placeholder operation that will ensure we get 
+        // alloted storage bandwidth
+        StorageOperation runningOpProgress = this.createTaskStorageOperation(task, transferList, cPath, (bTime + tTime));
+        cPath.setRunningOperation(runningOpProgress);
+        
+        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+        logger.logPathSelected(cPath, (bTime + tTime));
+        
+        pathHistory.add(cPath);
+        while(bytesTransfered != totalBytes)
+        {
+            this.updateBackgroundProcesses(serverNodes, logger, (bTime + tTime));
+            this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+            prevStorageUpdate = tTime;
+            
+            // check if its time to recalculate path
+            if(this.simType.isDynamicRoutingEnabled() && (recalcTime >= this.simType.getDynamicRoutingRecalcInterval()))
+            {
+                DfsPath rPath;
+                
+                // we can select different path with different destination server
+                if(task instanceof GetSimulationTask)
+                {
+                    rPath = this.pathPicker.selectPath(this.client, task, (tTime + bTime), null, simType);
+                }
+                // for upload tasks we can only change path, not destination
+                else
+                {
+                    rPath = this.pathPicker.selectPath(this.client, task, (tTime + bTime), cPath.getTarget(), simType);
+                }
+                
+                // change path and add latency
+                if(!rPath.equals(cPath))
+                {
+                    // cancel running storage task
+                    runningOpProgress.removeUnmanaged();
+                    runningOpProgress = this.createTaskStorageOperation(task, transferList, rPath, (bTime + tTime));
+                    // we have to update again to recalculate
+                    this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+                    
+                    // set path running operation
+                    rPath.setRunningOperation(runningOpProgress);
+                    logger.logPathSelected(rPath, (bTime + tTime));
+                    tTime += rPath.getCumLatency();
+                    
+                    pathHistory.add(rPath);
+                    cPath = rPath;
+                    
+                    // record visited file (max. once)
+                    accessedFiles.put(cPath.getOrCreateTargetFile(), cPath.getTarget());
+                    // notify hierarchical monitor
+                    if(hierarchicalMode)
+                    {
+                        this.simType.getHierarchicalMonitor().onBeforeAccess(
+                                cPath.getOrCreateTargetFile(), cPath.getTarget(), task, logger, (bTime + tTime));
+                    }
+                }
+                
+                recalcTime = 0;
+            }
+            
+            // @TODO this isnt entirely accurate since if the file is transfered faster than TIME_RESOLUTION_MS
+            // the actual speed could be different
+            ByteSpeed sliceAvgThroughput = cPath.getAverageTransferThroughput(
+                    (tTime + bTime), TIME_RESOLUTION_MS);
+            
+            // calculate how much we downloaded in this step
+            long stepTransfer = DfsPath.getDataTransferedInTime((tTime + bTime), sliceAvgThroughput, 
+                    TIME_RESOLUTION_MS).bytesProperty().get();  
+                        
+            // too small of a fraction
+            // @TODO this should be handled (maybe calculate how much ms it should take to
+            // transfer given item))
+            if(stepTransfer <= 0)
             {
-                targetFile.setSize(task.getFile().getSize());
+                break;
+            }
+            
+            if( (bytesTransfered + stepTransfer) == totalBytes )
+            {
+                throughputSampler.recordSample(tTime + bTime, sliceAvgThroughput, true);
+                
+                bytesTransfered = totalBytes;
+                tTime += TIME_RESOLUTION_MS;
+                break;
+            }
+            // we transfered the whole object in this time slice but 
+            // didnt use all time
+            else if( ( bytesTransfered + stepTransfer ) > totalBytes )
+            {
+                throughputSampler.recordSample(tTime + bTime, sliceAvgThroughput, true);
+                
+                // calculate how much time it takes to transfer remaining bytes
+                tTime += DfsPath.getDataTransferTime((tTime + bTime), 
+                        cPath.getCurrentPossibleThroughput((tTime + bTime)),
+                        new ByteSize((totalBytes - bytesTransfered)));
+                bytesTransfered = totalBytes;
+            }
+            else
+            {
+                throughputSampler.recordSample(tTime + bTime, sliceAvgThroughput, false);
+                
+                bytesTransfered += stepTransfer;
+                tTime += TIME_RESOLUTION_MS;
+                recalcTime += TIME_RESOLUTION_MS;
+            }
+        }
+        
+        // cleanup
+        runningOpProgress.removeUnmanaged();
+        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+        
+        if(bytesTransfered > 0)
+        {
+            // notify hierarchical monitor about all accessed files
+            if(hierarchicalMode)
+            {
+                for(Entry<FsFile, ModelServerNode> entry : accessedFiles.entrySet())
+                {
+                    this.simType.getHierarchicalMonitor().onAfterAccess(entry.getKey(), entry.getValue(), task, logger, (bTime + tTime));
+                }
+            }
+            
+            return tTime;
+        }
+        else if(totalBytes == 0)
+        {
+            return tTime;
+        }
+        
+        // no data transfered
+        return -1;
+    }
+    
+    /**
+     * Execute task as a striped transfer - object is split into byte ranges
+     * which are transfered concurrently from all sources. Ranges are 
+     * rebalanced according to measured source throughput whenever a source
+     * would finish noticeably sooner or later than the others.
+     * 
+     * @param task task to execute
+     * @param bTime time elapsed from the beginning of current simulation run
+     * @param pathHistory list of used paths
+     * @param throughputSampler sampler of aggregated throughput
+     * @param sources stripe sources
+     * @param logger simulator logger
+     * @return task result time
+     */
+    private long simulateStripedTaskExecution(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, List<StripedTransferSource> sources, DfsSimulatorLogger logger)
+    {
+        // time taken for this task
+        long tTime = 0;
+        
+        long totalBytes = task.getFile().getSize().bytesProperty().get();
+        long bytesTransfered = 0;
+        
+        List<ModelServerNode> serverNodes = ModelNodeRegistry.getServerNodes();
+        ArrayList<FsFile> transferList = new ArrayList<>();
+        transferList.add(task.getFile());
+        
+        // sources are contacted in parallel, slowest one delays the transfer
+        tTime += sources.stream().mapToLong(s -> s.getPath().getCumLatency()).max().orElse(0);
+        
+        for(StripedTransferSource source : sources)
+        {
+            DfsPath path = source.getPath();
+            path.setRunningOperation(this.createTaskStorageOperation(task, transferList, path, (bTime + tTime)));
+            
+            logger.logPathSelected(path, (bTime + tTime));
+            pathHistory.add(path);
+        }
+        
+        long prevStorageUpdate = 0;
+        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+        
+        // initial ranges are proportional to possible source throughput
+        for(StripedTransferSource source : sources)
+        {
+            source.setLastThroughput(source.getPath().getCurrentPossibleThroughput((bTime + tTime)).bpsProperty().get());
+        }
+        
+        this.rebalanceStripes(sources, totalBytes);
+        
+        while(bytesTransfered < totalBytes)
+        {
+            this.updateBackgroundProcesses(serverNodes, logger, (bTime + tTime));
+            this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+            prevStorageUpdate = tTime;
+            
+            long sliceThroughput = 0;
+            long sliceTransfer = 0;
+            long sliceTime = 0;
+            
+            for(StripedTransferSource source : sources)
+            {
+                ByteSpeed sourceThroughput = source.getPath().getAverageTransferThroughput(
+                        (tTime + bTime), TIME_RESOLUTION_MS);
+                // idle sources are measured too, so that they can take over
+                // ranges of slower sources
+                source.setLastThroughput(sourceThroughput.bpsProperty().get());
+                
+                if(source.getRemainingBytes() <= 0)
+                {
+                    continue;
+                }
+                
+                long remainingBytes = source.getRemainingBytes();
+                long stepTransfer = DfsPath.getDataTransferedInTime((tTime + bTime), sourceThroughput, 
+                        TIME_RESOLUTION_MS).bytesProperty().get();
+                
+                source.getSampler().recordSample((tTime + bTime), sourceThroughput, (stepTransfer >= remainingBytes));
+                
+                // source finishes its range within this slice
+                if(stepTransfer >= remainingBytes)
+                {
+                    sliceTime = Math.max(sliceTime, DfsPath.getDataTransferTime((tTime + bTime), 
+                            sourceThroughput, new ByteSize(remainingBytes)));
+                }
+                else
+                {
+                    sliceTime = TIME_RESOLUTION_MS;
+                }
+                
+                sliceThroughput += sourceThroughput.bpsProperty().get();
+                sliceTransfer += source.transfer(stepTransfer);
+            }
+            
+            // too small of a fraction
+            if(sliceTransfer <= 0)
+            {
+                break;
+            }
+            
+            bytesTransfered += sliceTransfer;
+            tTime += sliceTime;
+            
+            throughputSampler.recordSample((tTime + bTime), 
+                    new ByteSpeed(sliceThroughput, ByteSpeedUnits.BPS), (bytesTransfered >= totalBytes));
+            
+            if(bytesTransfered < totalBytes && this.isStripeRebalanceRequired(sources, (totalBytes - bytesTransfered)))
+            {
+                this.rebalanceStripes(sources, (totalBytes - bytesTransfered));
+                logger.logStripesRebalanced(task, sources, (bTime + tTime));
+            }
+        }
+        
+        // cleanup
+        sources.forEach(s -> s.getPath().getRunningOperation().removeUnmanaged());
+        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+        
+        if(bytesTransfered > 0 || totalBytes == 0)
+        {
+            return tTime;
+        }
+        
+        // no data transfered
+        return -1;
+    }
+    
+    /**
+     * Execute task as a hedged transfer - object is transfered from a single
+     * source, but if the transfer falls behind its expected rate after
+     * {@link SimulationType#getHedgeDelay()}, second request is issued to
+     * another replica. Request that finishes first is kept, the other one
+     * is cancelled and data it has transfered is wasted.
+     * 
+     * @param task task to execute
+     * @param bTime time elapsed from the beginning of current simulation run
+     * @param pathHistory list of used paths (path of kept request is last)
+     * @param throughputSampler sampler of throughput
+     * @param hedgeHistory bytes transfered by cancelled request (maximum one, stays empty if transfer was not hedged)
+     * @param logger simulator logger
+     * @return task result time
+     * @throws NoPathAvailableException if there is no path available to target
+     * @throws FsObjectNotFoundException download object not found
+     * @throws NotMountedException download object not mounted
+     */
+    private long simulateHedgedTaskExecution(SimulationTask task, long bTime, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, List<Long> hedgeHistory, DfsSimulatorLogger logger) 
+            throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException
+    {
+        // time taken for this task
+        long tTime = 0;
+        
+        long totalBytes = task.getFile().getSize().bytesProperty().get();
+        
+        DfsPath primaryPath = this.pathPicker.selectPath(this.client, task, bTime, null, this.simType);
+        
+        if(primaryPath == null)
+        {
+            return -1;
+        }
+        
+        List<ModelServerNode> serverNodes = ModelNodeRegistry.getServerNodes();
+        ArrayList<FsFile> transferList = new ArrayList<>();
+        transferList.add(task.getFile());
+        
+        // add latency
+        tTime += primaryPath.getCumLatency();
+        
+        StripedTransferSource primary = new StripedTransferSource(primaryPath);
+        primary.setRemainingBytes(totalBytes);
+        primaryPath.setRunningOperation(this.createTaskStorageOperation(task, transferList, primaryPath, (bTime + tTime)));
+        
+        logger.logPathSelected(primaryPath, (bTime + tTime));
+        pathHistory.add(primaryPath);
+        
+        List<StripedTransferSource> sources = new ArrayList<>();
+        sources.add(primary);
+        
+        long prevStorageUpdate = 0;
+        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+        
+        // rate at which primary request is expected to transfer data
+        long expectedBps = primaryPath.getCurrentPossibleThroughput((bTime + tTime)).bpsProperty().get();
+        long transferStart = tTime;
+        
+        StripedTransferSource hedge = null;
+        long hedgeStart = 0;
+        boolean hedgeAttempted = false;
+        StripedTransferSource winner = null;
+        
+        while(winner == null)
+        {
+            this.updateBackgroundProcesses(serverNodes, logger, (bTime + tTime));
+            this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+            prevStorageUpdate = tTime;
+            
+            long elapsed = tTime - transferStart;
+            
+            // primary without any expected throughput is always lagging
+            if(!hedgeAttempted && elapsed >= this.simType.getHedgeDelay() && (expectedBps <= 0 || 
+                    primary.getTransferedBytes() < ((expectedBps * elapsed) / 1000.0) * this.simType.getHedgeRateThreshold()))
+            {
+                hedgeAttempted = true;
+                hedge = this.selectHedgeSource(task, primary, (bTime + tTime));
+                
+                if(hedge != null)
+                {
+                    DfsPath hedgePath = hedge.getPath();
+                    hedgePath.setRunningOperation(this.createTaskStorageOperation(task, transferList, hedgePath, (bTime + tTime)));
+                    // hedge request starts transfering once it reaches its replica
+                    hedgeStart = tTime + hedgePath.getCumLatency();
+                    
+                    sources.add(hedge);
+                    pathHistory.add(hedgePath);
+                    
+                    logger.logPathSelected(hedgePath, (bTime + tTime));
+                    logger.logHedgedRead(task, primary, hedge, (bTime + tTime));
+                    
+                    // we have to update again to recalculate
+                    this.updateServerStorageOperations(serverNodes, 0, (bTime + tTime));
+                }
+            }
+            
+            long[] stepTransfers = new long[sources.size()];
+            long sliceTime = TIME_RESOLUTION_MS;
+            long sliceThroughput = 0;
+            
+            for(int i = 0; i < sources.size(); i++)
+            {
+                StripedTransferSource source = sources.get(i);
+                
+                if(source == hedge && tTime < hedgeStart)
+                {
+                    continue;
+                }
+                
+                ByteSpeed sourceThroughput = source.getPath().getAverageTransferThroughput(
+                        (tTime + bTime), TIME_RESOLUTION_MS);
+                long remainingBytes = source.getRemainingBytes();
+                
+                stepTransfers[i] = DfsPath.getDataTransferedInTime((tTime + bTime), sourceThroughput, 
+                        TIME_RESOLUTION_MS).bytesProperty().get();
+                
+                source.getSampler().recordSample((tTime + bTime), sourceThroughput, (stepTransfers[i] >= remainingBytes));
+                sliceThroughput = Math.max(sliceThroughput, sourceThroughput.bpsProperty().get());
+                
+                // request finishes within this slice, the first one to finish is kept
+                if(stepTransfers[i] >= remainingBytes)
+                {
+                    long finishTime = DfsPath.getDataTransferTime((tTime + bTime), 
+                            sourceThroughput, new ByteSize(remainingBytes));
+                    
+                    if(winner == null || finishTime < sliceTime)
+                    {
+                        winner = source;
+                        sliceTime = finishTime;
+                    }
+                }
+            }
+            
+            long sliceTransfer = 0;
+            
+            for(int i = 0; i < sources.size(); i++)
+            {
+                // other request transfers data only until the kept one finishes
+                long stepTransfer = (sliceTime < TIME_RESOLUTION_MS) ? 
+                        ((stepTransfers[i] * sliceTime) / TIME_RESOLUTION_MS) : stepTransfers[i];
+                
+                sliceTransfer += sources.get(i).transfer((sources.get(i) == winner) ? stepTransfers[i] : stepTransfer);
+            }
+            
+            if(winner == null && sliceTransfer <= 0)
+            {
+                // stalled primary - skip to the time the hedge request can be sent or starts transfering
+                if(!hedgeAttempted && elapsed < this.simType.getHedgeDelay())
+                {
+                    tTime = transferStart + this.simType.getHedgeDelay();
+                    continue;
+                }
+                
+                if(hedge != null && tTime < hedgeStart)
+                {
+                    tTime = hedgeStart;
+                    continue;
+                }
+                
+                // too small of a fraction
+                break;
             }
             
-            accessedFiles.put(cPath.getOrCreateTargetFile(), cPath.getTarget());
+            tTime += sliceTime;
             
-            this.simType.getHierarchicalMonitor().onBeforeAccess(
-                    cPath.getOrCreateTargetFile(), cPath.getTarget(), task, logger, (bTime + tTime));
+            throughputSampler.recordSample((tTime + bTime), 
+                    new ByteSpeed(sliceThroughput, ByteSpeedUnits.BPS), (winner != null));
         }
         
-        long prevStorageUpdate = 0;
+        // cleanup - cancel the other request
+        sources.forEach(s -> s.getPath().getRunningOperation().removeUnmanaged());
+        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
         
-        // create a placeholder operation that will ensure we get 
-        // alloted storage bandwidth
-        StorageOperation runningOpProgress = this.createTaskStorageOperation(task, transferList, cPath);
-        cPath.setRunningOperation(runningOpProgress);
+        if(winner == null)
+        {
+            // no data transfered
+            return -1;
+        }
         
-        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
-        logger.logPathSelected(cPath, (bTime + tTime));
+        if(hedge != null)
+        {
+            StripedTransferSource cancelled = (winner == primary) ? hedge : primary;
+            hedgeHistory.add(cancelled.getTransferedBytes());
+            
+            // object has been read using path of kept request
+            pathHistory.remove(winner.getPath());
+            pathHistory.add(winner.getPath());
+        }
         
-        pathHistory.add(cPath);
-        while(bytesTransfered != totalBytes)
+        return tTime;
+    }
+    
+    /**
+     * Selects source of hedge request - path to a replica other than 
+     * the one used by {@code primary} request.
+     * 
+     * @param task download task
+     * @param primary source of original request
+     * @param sTime simulation time
+     * @return hedge source or null if there is no other replica available
+     * @throws FsObjectNotFoundException download object not found
+     * @throws NotMountedException download object not mounted
+     */
+    private StripedTransferSource selectHedgeSource(SimulationTask task, StripedTransferSource primary, long sTime) throws FsObjectNotFoundException, NotMountedException
+    {
+        Set<ModelServerNode> serverNodes = FsGlobalObjectRegistry.getEntryMountedNodeList(task.getFile());
+        
+        if(serverNodes == null)
+        {
+            return null;
+        }
+        
+        Set<ModelServerNode> candidates = new HashSet<>(serverNodes);
+        candidates.remove(primary.getPath().getTarget());
+        
+        if(candidates.isEmpty())
         {
+            return null;
+        }
+        
+        try
+        {
+            StripedTransferSource hedge = new StripedTransferSource(
+                    this.pathPicker.selectPathAmong(this.client, task, sTime, candidates, this.simType));
+            hedge.setRemainingBytes(primary.getAssignedBytes());
+            
+            return hedge;
+        }
+        catch(NoPathAvailableException ex)
+        {
+            return null;
+        }
+    }
+    
+    /**
+     * Execute task on a file that is split into blocks (or fragments). Each 
+     * block is transfered from (or to) its own server, up to 
+     * {@code maxParallelTransfers} blocks at once. Written blocks
+     * are propagated to their replicas as soon as they finish.
+     * 
+     * @param task task to execute
+     * @param bTime time elapsed from the beginning of current simulation run
+     * @param blocks blocks to transfer
+     * @param maxParallelTransfers maximum number of blocks transfered at once
+     * @param pathHistory list of used paths
+     * @param throughputSampler sampler of aggregated throughput
+     * @param blockSources block transfers (one source per block)
+     * @param replicationHistory progress of replicating written blocks (maximum one)
+     * @param logger simulator logger
+     * @return task result time
+     * @throws NoPathAvailableException if there is no path available to some block
+     * @throws FsObjectNotFoundException block not found
+     * @throws NotMountedException block not mounted
+     */
+    private long simulateBlockTaskExecution(SimulationTask task, long bTime, List<FsBlock> blocks, int maxParallelTransfers, List<DfsPath> pathHistory, SimulationThroughputSampler throughputSampler, List<StripedTransferSource> blockSources, List<ReplicationProgress> replicationHistory, DfsSimulatorLogger logger) 
+            throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException
+    {
+        // time taken for this task
+        long tTime = 0;
+        
+        if(blocks == null || blocks.isEmpty())
+        {
+            throw new FsObjectNotFoundException("Couldn't find blocks of requested file.");
+        }
+        
+        long totalBytes = blocks.stream().mapToLong(b -> b.getSize().bytesProperty().get()).sum();
+        long bytesTransfered = 0;
+        
+        List<ModelServerNode> serverNodes = ModelNodeRegistry.getServerNodes();
+        ArrayDeque<FsBlock> pendingBlocks = new ArrayDeque<>(blocks);
+        List<StripedTransferSource> activeBlocks = new ArrayList<>();
+        ReplicationProgress progress = null;
+        
+        long prevStorageUpdate = 0;
+        
+        try
+        {
+            // following blocks are requested ahead, only initial latency applies
+            tTime += this.startBlockTransfers(task, pendingBlocks, activeBlocks, maxParallelTransfers, blockSources, (bTime + tTime), logger);
+            
             this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
-            prevStorageUpdate = tTime;
             
-            // check if its time to recalculate path
-            if(this.simType.isDynamicRoutingEnabled() && (recalcTime >= this.simType.getDynamicRoutingRecalcInterval()))
+            while(bytesTransfered < totalBytes && !activeBlocks.isEmpty())
             {
-                DfsPath rPath;
-                
-                // we can select different path with different destination server
-                if(task instanceof GetSimulationTask)
+                this.updateBackgroundProcesses(serverNodes, logger, (bTime + tTime));
+                this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+                prevStorageUpdate = tTime;
+            
+                long sliceThroughput = 0;
+                long sliceTransfer = 0;
+                long sliceTime = 0;
+                List<StripedTransferSource> finishedBlocks = new ArrayList<>();
+            
+                for(StripedTransferSource block : activeBlocks)
                 {
-                    rPath = this.pathPicker.selectPath(this.client, task, (tTime + bTime), null, simType);
+                    ByteSpeed blockThroughput = block.getPath().getAverageTransferThroughput(
+                            (tTime + bTime), TIME_RESOLUTION_MS);
+                    long remainingBytes = block.getRemainingBytes();
+                    long stepTransfer = DfsPath.getDataTransferedInTime((tTime + bTime), blockThroughput, 
+                            TIME_RESOLUTION_MS).bytesProperty().get();
+            
+                    block.setLastThroughput(blockThroughput.bpsProperty().get());
+                    block.getSampler().recordSample((tTime + bTime), blockThroughput, (stepTransfer >= remainingBytes));
+            
+                    // block finishes within this slice
+                    if(stepTransfer >= remainingBytes)
+                    {
+                        sliceTime = Math.max(sliceTime, DfsPath.getDataTransferTime((tTime + bTime), 
+                                blockThroughput, new ByteSize(remainingBytes)));
+                        finishedBlocks.add(block);
+                    }
+                    else
+                    {
+                        sliceTime = TIME_RESOLUTION_MS;
+                    }
+            
+                    sliceThroughput += blockThroughput.bpsProperty().get();
+                    sliceTransfer += block.transfer(stepTransfer);
                 }
-                // for upload tasks we can only change path, not destination
-                else
+            
+                // too small of a fraction
+                if(sliceTransfer <= 0 && finishedBlocks.isEmpty())
                 {
-                    rPath = this.pathPicker.selectPath(this.client, task, (tTime + bTime), cPath.getTarget(), simType);
+                    break;
                 }
-                
-                // change path and add latency
-                if(!rPath.equals(cPath))
+            
+                bytesTransfered += sliceTransfer;
+                tTime += sliceTime;
+            
+                throughputSampler.recordSample((tTime + bTime), 
+                        new ByteSpeed(sliceThroughput, ByteSpeedUnits.BPS), (bytesTransfered >= totalBytes));
+            
+                for(StripedTransferSource block : finishedBlocks)
                 {
-                    // cancel running storage task
-                    runningOpProgress.removeUnmanaged();
-                    runningOpProgress = this.createTaskStorageOperation(task, transferList, rPath);
-                    // we have to update again to recalculate
-                    this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
-                    
-                    // set path running operation
-                    rPath.setRunningOperation(runningOpProgress);
-                    logger.logPathSelected(rPath, (bTime + tTime));
-                    tTime += rPath.getCumLatency();
-                    
-                    pathHistory.add(rPath);
-                    cPath = rPath;
-                    
-                    // record visited file (max. once)
-                    accessedFiles.put(cPath.getOrCreateTargetFile(), cPath.getTarget());
-                    // notify hierarchical monitor
-                    if(hierarchicalMode)
+                    block.getPath().getRunningOperation().removeUnmanaged();
+                    activeBlocks.remove(block);
+            
+                    // propagate written block to its other replicas
+                    FsFile blockFile = block.getPath().getOrCreateTargetFile();
+            
+                    if(task instanceof PutSimulationTask && blockFile != null && FsGlobalReplicationManager.isFileReplicated(blockFile))
                     {
-                        this.simType.getHierarchicalMonitor().onBeforeAccess(
-                                cPath.getOrCreateTargetFile(), cPath.getTarget(), task, logger, (bTime + tTime));
+                        if(progress == null)
+                        {
+                            progress = new ReplicationProgress(task.getFile(), 
+                                    FsGlobalReplicationManager.getReplicationMode(), (bTime + tTime));
+                            replicationHistory.add(progress);
+                        }
+            
+                        // every block has its own progress, so that its quorum is tracked separately
+                        FsGlobalReplicationManager.propagateReplicaResize(blockFile, block.getPath().getTarget(), 
+                                this.pathPicker, this.simType, logger, (bTime + tTime), progress.createPart(blockFile, (bTime + tTime)));
                     }
                 }
-                
-                recalcTime = 0;
-            }
-            
-            // @TODO this isnt entirely accurate since if the file is transfered faster than TIME_RESOLUTION_MS
-            // the actual speed could be different
-            ByteSpeed sliceAvgThroughput = cPath.getAverageTransferThroughput(
-                    (tTime + bTime), TIME_RESOLUTION_MS);
             
-            // calculate how much we downloaded in this step
-            long stepTransfer = DfsPath.getDataTransferedInTime((tTime + bTime), sliceAvgThroughput, 
-                    TIME_RESOLUTION_MS).bytesProperty().get();  
-                        
-            // too small of a fraction
-            // @TODO this should be handled (maybe calculate how much ms it should take to
-            // transfer given item))
-            if(stepTransfer <= 0)
-            {
-                break;
+                this.startBlockTransfers(task, pendingBlocks, activeBlocks, maxParallelTransfers, blockSources, (bTime + tTime), logger);
             }
+        }
+        finally
+        {
+            // cleanup, also of transfers started before a failed block
+            activeBlocks.forEach(b -> b.getPath().getRunningOperation().removeUnmanaged());
+        }
+        
+        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+        
+        for(StripedTransferSource block : blockSources)
+        {
+            pathHistory.add(block.getPath());
+        }
+        
+        if(bytesTransfered >= totalBytes)
+        {
+            return tTime;
+        }
+        
+        // not all data transfered
+        return -1;
+    }
+    
+    /**
+     * Starts transfers of pending blocks until there is 
+     * {@code maxParallelTransfers} active block transfers. Blocks
+     * are downloaded from their best replica and uploaded to their first replica.
+     * 
+     * @param task transfer task
+     * @param pendingBlocks blocks that have not been transfered yet
+     * @param activeBlocks currently active block transfers
+     * @param maxParallelTransfers maximum number of active block transfers
+     * @param blockSources all block transfers
+     * @param sTime simulation time
+     * @param logger simulator logger
+     * @return maximum latency of started transfers
+     * @throws NoPathAvailableException if there is no path available to some block
+     * @throws FsObjectNotFoundException block not found
+     * @throws NotMountedException block not mounted
+     */
+    private long startBlockTransfers(SimulationTask task, ArrayDeque<FsBlock> pendingBlocks, List<StripedTransferSource> activeBlocks, int maxParallelTransfers, List<StripedTransferSource> blockSources, long sTime, DfsSimulatorLogger logger) 
+            throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException
+    {
+        long latency = 0;
+        
+        while(activeBlocks.size() < maxParallelTransfers && !pendingBlocks.isEmpty())
+        {
+            FsBlock block = pendingBlocks.poll();
+            FsFile blockFile = block.getInstance();
+            List<ReplicaTarget> replicas = block.getReplicaTargets();
             
-            if( (bytesTransfered + stepTransfer) == totalBytes )
+            if(blockFile == null || replicas.isEmpty())
             {
-                throughputSampler.recordSample(tTime + bTime, sliceAvgThroughput, true);
-                
-                tTime += TIME_RESOLUTION_MS;
-                break;
+                throw new FsObjectNotFoundException("Couldn't find block " + block.toString() + ".");
             }
-            // we transfered the whole object in this time slice but 
-            // didnt use all time
-            else if( ( bytesTransfered + stepTransfer ) > totalBytes )
+            
+            SimulationTask blockTask;
+            DfsPath path;
+            
+            if(task instanceof GetSimulationTask)
             {
-                throughputSampler.recordSample(tTime + bTime, sliceAvgThroughput, true);
-                
-                // calculate how much time it takes to transfer remaining bytes
-                tTime += DfsPath.getDataTransferTime((tTime + bTime), 
-                        cPath.getCurrentPossibleThroughput((tTime + bTime)),
-                        new ByteSize((totalBytes - bytesTransfered)));
-                bytesTransfered = totalBytes;
+                blockTask = new GetSimulationTask(blockFile);
+                path = this.pathPicker.selectPath(this.client, blockTask, sTime, null, this.simType);
             }
             else
             {
-                throughputSampler.recordSample(tTime + bTime, sliceAvgThroughput, false);
-                
-                bytesTransfered += stepTransfer;
-                tTime += TIME_RESOLUTION_MS;
-                recalcTime += TIME_RESOLUTION_MS;
+                blockTask = new PutSimulationTask(blockFile);
+                path = this.pathPicker.selectPath(this.client, blockTask, sTime, replicas.get(0).serverNode, this.simType);
             }
+            
+            ArrayList<FsFile> transferList = new ArrayList<>();
+            transferList.add(blockFile);
+            path.setRunningOperation(this.createTaskStorageOperation(blockTask, transferList, path, sTime));
+            
+            StripedTransferSource source = new StripedTransferSource(path);
+            source.setRemainingBytes(blockFile.getSize().bytesProperty().get());
+            
+            activeBlocks.add(source);
+            blockSources.add(source);
+            logger.logPathSelected(path, sTime);
+            
+            latency = Math.max(latency, path.getCumLatency());
         }
         
-        // cleanup
-        runningOpProgress.removeUnmanaged();
-        this.updateServerStorageOperations(serverNodes, (tTime - prevStorageUpdate), (bTime + tTime));
+        return latency;
+    }
+    
+    /**
+     * Checks if stripes should be rebalanced - some source would finish
+     * its range considerably sooner or later than the whole transfer would 
+     * at current throughput.
+     * 
+     * @param sources stripe sources
+     * @param remainingBytes total number of bytes that remain to be transfered
+     * @return true if stripes should be rebalanced, false otherwise
+     */
+    private boolean isStripeRebalanceRequired(List<StripedTransferSource> sources, long remainingBytes)
+    {
+        long totalThroughput = sources.stream().mapToLong(s -> s.getLastThroughput()).sum();
         
-        if(bytesTransfered > 0)
+        if(totalThroughput <= 0)
         {
-            // notify hierarchical monitor about all accessed files
-            if(hierarchicalMode)
+            return false;
+        }
+        
+        double expectedFinish = remainingBytes / (double) totalThroughput;
+        
+        for(StripedTransferSource source : sources)
+        {
+            if(source.getLastThroughput() <= 0)
             {
-                for(Entry<FsFile, ModelServerNode> entry : accessedFiles.entrySet())
+                // stalled source still holds part of the object
+                if(source.getRemainingBytes() > 0)
                 {
-                    this.simType.getHierarchicalMonitor().onAfterAccess(entry.getKey(), entry.getValue(), task, logger, (bTime + tTime));
+                    return true;
                 }
+                
+                continue;
             }
             
-            return tTime;
+            double sourceFinish = source.getRemainingBytes() / (double) source.getLastThroughput();
+            
+            if(Math.abs(sourceFinish - expectedFinish) > (expectedFinish * STRIPE_REBALANCE_TOLERANCE))
+            {
+                return true;
+            }
         }
-        else if(totalBytes == 0)
+        
+        return false;
+    }
+    
+    /**
+     * Redistributes {@code remainingBytes} among stripe sources proportionally
+     * to their last measured throughput. If no source has any throughput,
+     * bytes are distributed evenly.
+     * 
+     * @param sources stripe sources
+     * @param remainingBytes total number of bytes that remain to be transfered
+     */
+    private void rebalanceStripes(List<StripedTransferSource> sources, long remainingBytes)
+    {
+        long totalThroughput = sources.stream().mapToLong(s -> s.getLastThroughput()).sum();
+        long assigned = 0;
+        StripedTransferSource fastest = sources.get(0);
+        
+        for(StripedTransferSource source : sources)
         {
-            return tTime;
+            long share = (totalThroughput > 0) ? 
+                    (long) (remainingBytes * (source.getLastThroughput() / (double) totalThroughput)) :
+                    (remainingBytes / sources.size());
+            
+            source.setRemainingBytes(share);
+            assigned += share;
+            
+            if(source.getLastThroughput() > fastest.getLastThroughput())
+            {
+                fastest = source;
+            }
         }
         
-        // no data transfered
-        return -1;
+        // rounding leftover goes to the fastest source
+        fastest.setRemainingBytes(fastest.getRemainingBytes() + (remainingBytes - assigned));
+    }
+    
+    /**
+     * Notifies all background processes that simulation time has advanced.
+     * 
+     * @param servers list of servers
+     * @param logger simulator logger
+     * @param sTime simulation time
+     */
+    private void updateBackgroundProcesses(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        for(SimulationBackgroundProcess process : this.backgroundProcesses)
+        {
+            process.onSimulationTimeAdvanced(servers, logger, sTime);
+        }
+    }
+    
+    /**
+     * Keeps advancing simulation time after the last task while any background
+     * process has pending work, at most for {@link #MAX_BACKGROUND_WORK_MS}.
+     * 
+     * @param servers list of servers
+     * @param logger simulator logger
+     * @param sTime simulation time
+     * @return simulation time after all pending work has been finished
+     */
+    private long drainBackgroundProcesses(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        long dTime = 0;
+        
+        while(dTime < MAX_BACKGROUND_WORK_MS && this.backgroundProcesses.stream().anyMatch(p -> p.hasPendingWork()))
+        {
+            dTime += TIME_RESOLUTION_MS;
+            
+            this.updateBackgroundProcesses(servers, logger, (sTime + dTime));
+            this.updateServerStorageOperations(servers, TIME_RESOLUTION_MS, (sTime + dTime));
+        }
+        
+        return (sTime + dTime);
     }
     
     /**
@@ -546,4 +2176,20 @@ public class DfsTimeSliceSimulator implements DfsSimulator
         return this.results;
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override public List<ServerRecovery> getRecoveries()
+    {
+        return (this.reReplicationDaemon != null) ? this.reReplicationDaemon.getRecoveries() : new ArrayList<>();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public BalancerReport getBalancerReport()
+    {
+        return (this.balancer != null) ? this.balancer.getReport() : null;
+    }
+    
 }
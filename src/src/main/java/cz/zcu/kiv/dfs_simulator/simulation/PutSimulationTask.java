@@ -80,6 +80,11 @@ public class PutSimulationTask extends SimulationTask
         element.addAttribute(new StatePersistableAttribute("path", file.getFullPath()));
         element.addAttribute(new StatePersistableAttribute("size", ((file instanceof FsFile)? file.getSize().bytesProperty().get() + "" : "0")));
         
+        if(file != null && file.getFingerprint() != null)
+        {
+            element.addAttribute(new StatePersistableAttribute("fingerprint", file.getFingerprint()));
+        }
+        
         return element;
     }
 
@@ -112,6 +117,9 @@ public class PutSimulationTask extends SimulationTask
                     FsDirectory pd = new FsDirectory(pn);
                     FsFile f = new FsFile(fn, new ByteSize(Long.parseLong(sizeAttr.getValue()), ByteSizeUnits.B), pd);
                     
+                    StatePersistableAttribute fingerprintAttr = state.getAttribute("fingerprint");
+                    f.setFingerprint((fingerprintAttr != null) ? fingerprintAttr.getValue() : null);
+                    
                     this.file = f;
                 }
                 // file
@@ -0,0 +1,154 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation;
+
+import cz.zcu.kiv.dfs_simulator.model.ModelNode;
+import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server failure event - at given simulation time, server goes away
+ * together with all replicas stored on it.
+ */
+public class ServerFailure implements StatePersistable
+{
+    /**
+     * Persistable identifier
+     */
+    public static final String PERSISTABLE_NAME = "server_failure";
+    
+    /**
+     * ID of failed server
+     */
+    protected String serverID;
+    /**
+     * Simulation time of failure
+     */
+    protected long time;
+    
+    /**
+     * Server failure event.
+     * 
+     * @param serverID ID of failed server
+     * @param time simulation time of failure (ms)
+     */
+    public ServerFailure(String serverID, long time)
+    {
+        this.serverID = serverID;
+        this.time = time;
+    }
+    
+    /**
+     * Get ID of failed server.
+     * 
+     * @return server ID
+     */
+    public String getServerID()
+    {
+        return this.serverID;
+    }
+    
+    /**
+     * Get failed server.
+     * 
+     * @return failed server or null if there is no server with given ID
+     */
+    public ModelServerNode getServer()
+    {
+        ModelNode node = ModelNodeRegistry.getNode(this.serverID);
+        
+        return (node instanceof ModelServerNode) ? (ModelServerNode) node : null;
+    }
+    
+    /**
+     * Get simulation time of failure.
+     * 
+     * @return failure time (ms)
+     */
+    public long getTime()
+    {
+        return this.time;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public String getPersistableName()
+    {
+        return PERSISTABLE_NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public List<StatePersistable> getPersistableChildren()
+    {
+        return new ArrayList<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public StatePersistableElement export(StatePersistenceLogger logger)
+    {
+        StatePersistableElement element = new StatePersistableElement(this.getPersistableName());
+        
+        element.addAttribute(new StatePersistableAttribute("server", this.serverID));
+        element.addAttribute(new StatePersistableAttribute("time", Long.toString(this.time)));
+        
+        return element;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void restoreState(StatePersistableElement state, StatePersistenceLogger logger, Object... args) throws InvalidPersistedStateException
+    {
+        if(state != null)
+        {
+            StatePersistableAttribute serverAttr = state.getAttribute("server");
+            StatePersistableAttribute timeAttr = state.getAttribute("time");
+            
+            if(serverAttr == null || timeAttr == null)
+            {
+                throw new InvalidPersistedStateException("Server failure has to define server and time.");
+            }
+            
+            try
+            {
+                this.serverID = serverAttr.getValue();
+                this.time = Long.parseLong(timeAttr.getValue());
+            }
+            catch(NumberFormatException ex)
+            {
+                throw new InvalidPersistedStateException("Invalid server failure time: " + timeAttr.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Textual representation of server failure.
+     * 
+     * @return string representation
+     */
+    @Override public String toString()
+    {
+        return "Failure of server " + this.serverID + " at " + this.time + " ms";
+    }
+}
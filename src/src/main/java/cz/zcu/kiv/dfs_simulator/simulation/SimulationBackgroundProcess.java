@@ -0,0 +1,61 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ *
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation;
+
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import java.util.List;
+
+/**
+ * Process running in the background of a simulation, independently of
+ * simulation tasks. Process is notified each time simulation time advances
+ * and can schedule its own storage operations.
+ */
+public interface SimulationBackgroundProcess
+{
+    /**
+     * Will be called once before the first simulation task is processed.
+     *
+     * @param servers list of servers
+     * @param logger current simulation logger
+     * @param sTime current simulation time
+     */
+    public void onSimulationStarted(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime);
+
+    /**
+     * Will be called each time simulation time advances, before storage
+     * operations of {@code servers} are updated.
+     *
+     * @param servers list of servers
+     * @param logger current simulation logger
+     * @param sTime current simulation time
+     */
+    public void onSimulationTimeAdvanced(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime);
+
+    /**
+     * Checks if process has work that has to be finished even after 
+     * all simulation tasks have been processed. Simulation time keeps 
+     * advancing while any process has pending work.
+     *
+     * @return true if process has pending work, false otherwise
+     */
+    public boolean hasPendingWork();
+
+    /**
+     * Will be called once after all simulation tasks and pending work
+     * of background processes have been processed.
+     *
+     * @param servers list of servers
+     * @param logger current simulation logger
+     * @param sTime current simulation time
+     */
+    public void onSimulationEnded(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime);
+}
@@ -11,10 +11,15 @@
 
 package cz.zcu.kiv.dfs_simulator.simulation;
 
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
 import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.recovery.ReReplicationDaemon;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,6 +37,19 @@ public class SimulationPlan implements StatePersistable
      * Client requests - tasks
      */
     protected final List<SimulationTask> tasks = new ArrayList<>();
+    /**
+     * Server failures occurring during simulation
+     */
+    protected final List<ServerFailure> failures = new ArrayList<>();
+    /**
+     * Maximum speed of a single re-replication after server failure
+     */
+    protected final ByteSpeed reReplicationRateLimit = new ByteSpeed(
+            ReReplicationDaemon.DEFAULT_RATE_LIMIT.bpsProperty().get(), ByteSpeedUnits.BPS);
+    /**
+     * Maximum number of files re-replicated at once after server failure
+     */
+    protected int reReplicationParallelism = ReReplicationDaemon.DEFAULT_MAX_PARALLEL_TRANSFERS;
     
     /**
      * Get client tasks.
@@ -42,6 +60,46 @@ public class SimulationPlan implements StatePersistable
     {
         return this.tasks;
     }
+    
+    /**
+     * Get server failures occurring during simulation.
+     * 
+     * @return server failures
+     */
+    public List<ServerFailure> getFailures()
+    {
+        return this.failures;
+    }
+    
+    /**
+     * Get maximum speed of a single re-replication after server failure.
+     * 
+     * @return re-replication rate limit
+     */
+    public ByteSpeed getReReplicationRateLimit()
+    {
+        return this.reReplicationRateLimit;
+    }
+    
+    /**
+     * Get maximum number of files re-replicated at once after server failure.
+     * 
+     * @return re-replication parallelism
+     */
+    public int getReReplicationParallelism()
+    {
+        return this.reReplicationParallelism;
+    }
+    
+    /**
+     * Set maximum number of files re-replicated at once after server failure.
+     * 
+     * @param parallelism re-replication parallelism (at least 1)
+     */
+    public void setReReplicationParallelism(int parallelism)
+    {
+        this.reReplicationParallelism = Math.max(1, parallelism);
+    }
 
     /**
      * {@inheritDoc}
@@ -59,6 +117,7 @@ public class SimulationPlan implements StatePersistable
     {
         List<StatePersistable> l = new ArrayList<>();
         l.addAll(this.tasks);
+        l.addAll(this.failures);
         
         return l;
     }
@@ -68,7 +127,12 @@ public class SimulationPlan implements StatePersistable
      */
     @Override public StatePersistableElement export(StatePersistenceLogger logger)
     {
-        return new StatePersistableElement(this.getPersistableName());
+        StatePersistableElement element = new StatePersistableElement(this.getPersistableName());
+        
+        element.addAttribute(new StatePersistableAttribute("re_replication_rate_limit", "" + this.reReplicationRateLimit.bpsProperty().get()));
+        element.addAttribute(new StatePersistableAttribute("re_replication_parallelism", "" + this.reReplicationParallelism));
+        
+        return element;
     }
 
     /**
@@ -78,6 +142,23 @@ public class SimulationPlan implements StatePersistable
     {
         if(state != null)
         {
+            // re-replication settings are optional (older saved states)
+            StatePersistableAttribute rateLimitAttr = state.getAttribute("re_replication_rate_limit");
+            StatePersistableAttribute parallelismAttr = state.getAttribute("re_replication_parallelism");
+            
+            if(rateLimitAttr != null && parallelismAttr != null)
+            {
+                if(!Helper.isLong(rateLimitAttr.getValue()) || !Helper.isInteger(parallelismAttr.getValue()) ||
+                        Long.parseLong(rateLimitAttr.getValue()) <= 0 ||
+                        Integer.parseInt(parallelismAttr.getValue()) <= 0)
+                {
+                    throw new InvalidPersistedStateException("Expected re_replication_rate_limit and re_replication_parallelism attributes of positive numeric type: " + state);
+                }
+                
+                this.reReplicationRateLimit.setBps(Long.parseLong(rateLimitAttr.getValue()));
+                this.reReplicationParallelism = Integer.parseInt(parallelismAttr.getValue());
+            }
+            
             for(StatePersistableElement childElem : state.getElements())
             {
                 if(childElem.getName().equals(GetSimulationTask.PERSISTABLE_NAME))
@@ -94,6 +175,13 @@ public class SimulationPlan implements StatePersistable
                     
                     this.tasks.add(putTask);
                 }
+                else if(childElem.getName().equals(ServerFailure.PERSISTABLE_NAME))
+                {
+                    ServerFailure failure = new ServerFailure(null, 0);
+                    failure.restoreState(childElem, logger);
+                    
+                    this.failures.add(failure);
+                }
             }
         }
     }
@@ -21,6 +21,7 @@ import cz.zcu.kiv.dfs_simulator.simulation.graph.metric.PathThroughputMetric;
 import cz.zcu.kiv.dfs_simulator.simulation.hierarchy.HierarchicalAccessMonitor;
 import cz.zcu.kiv.dfs_simulator.simulation.hierarchy.HierarchicalPlanner;
 import cz.zcu.kiv.dfs_simulator.simulation.hierarchy.LRUCascadeMigrationPlanner;
+import cz.zcu.kiv.dfs_simulator.simulation.hierarchy.MarkovPrefetchPlanner;
 
 /**
  * Defines simulation type (method) - defines dynamic routing, hierarchical
@@ -58,6 +59,27 @@ public enum SimulationType
      */
     DYNAMIC_PATH_THROUGHPUT_AND_LATENCY("Min. transfer time (dynamic)", new PathThroughputLatencyMetric(), true, 10000),
     
+    /**
+     * Path with maximum throughput (link and storage) and lowest latency - 
+     * downloaded files are split into byte ranges that are transfered 
+     * concurrently from multiple replicas
+     */
+    STRIPED_PATH_THROUGHPUT_AND_LATENCY("Min. transfer time (striped)", new PathThroughputLatencyMetric(), SimulationTypeOptions.striped(4)),
+    
+    /**
+     * Path with maximum throughput (link and storage) and lowest latency - 
+     * if a download falls behind its expected rate, second request is 
+     * issued to another replica and the one that finishes first is kept
+     */
+    HEDGED_PATH_THROUGHPUT_AND_LATENCY("Min. transfer time (hedged)", new PathThroughputLatencyMetric(), SimulationTypeOptions.hedged(2000, 0.5)),
+    
+    /**
+     * Path with maximum throughput (link and storage) and lowest latency - 
+     * files are moved from over-utilized onto under-utilized servers
+     * in the background
+     */
+    BALANCED_PATH_THROUGHPUT_AND_LATENCY("Min. transfer time (balanced)", new PathThroughputLatencyMetric(), SimulationTypeOptions.balanced(0.1)),
+    
     /**
      * Path with maximum throughput (link and storage) and lowest latency - 
      * dynamic routing and hierarchical storage management is enabled
@@ -70,7 +92,23 @@ public enum SimulationType
      * Favors paths that could achieve highest throughput by migrating files
      * onto faster storage.
      */
-    HIERARCHICAL_DYNAMIC_PATH_THROUGHPUT_LATENCY_ADVANCED("Hierarchical (advanced)", true, 10000, true, new HierarchicalThroughputMetric(), new LRUCascadeMigrationPlanner());
+    HIERARCHICAL_DYNAMIC_PATH_THROUGHPUT_LATENCY_ADVANCED("Hierarchical (advanced)", true, 10000, true, new HierarchicalThroughputMetric(), new LRUCascadeMigrationPlanner()),
+    
+    /**
+     * Path with maximum throughput (link and storage) and lowest latency - 
+     * dynamic routing and hierarchical storage management is enabled.
+     * Cold files are demoted onto slower storage in the background, so that
+     * faster storage always has space for promotions.
+     */
+    HIERARCHICAL_BACKGROUND_DEMOTION("Hierarchical (background demotion)", true, 10000, true, new PathThroughputLatencyMetric(), new LRUCascadeMigrationPlanner(), true),
+    
+    /**
+     * Path with maximum throughput (link and storage) and lowest latency - 
+     * dynamic routing and hierarchical storage management is enabled.
+     * Files that are likely to be accessed next (learned from previous
+     * access sequences) are promoted onto faster storage ahead of demand.
+     */
+    HIERARCHICAL_PREFETCH("Hierarchical (prefetch)", true, 10000, true, new PathThroughputLatencyMetric(), new MarkovPrefetchPlanner());
     
     /**
      * Method name
@@ -84,6 +122,23 @@ public enum SimulationType
      * Dynamic routing recalculation interval
      */
     protected int dynamicRoutingRecalcInterval = -1;
+    /**
+     * Maximum number of replicas a download is striped across
+     */
+    protected int stripeSources = 1;
+    /**
+     * Time after which a lagging download is hedged (-1 if hedging is disabled)
+     */
+    protected int hedgeDelay = -1;
+    /**
+     * Fraction of expected transfer rate below which a download is hedged
+     */
+    protected double hedgeRateThreshold = 0;
+    /**
+     * Maximum deviation of server utilization from cluster average before
+     * files are rebalanced (-1 if balancing is disabled)
+     */
+    protected double balancerThreshold = -1;
     /**
      * Hierarchical storage management flag
      */
@@ -92,6 +147,10 @@ public enum SimulationType
      * Hierarchical storage management planner
      */
     protected final HierarchicalPlanner hierarchicalPlanner;
+    /**
+     * Background demotion of cold files flag
+     */
+    protected final boolean backgroundDemotion;
     /**
      * Graph metric
      */
@@ -106,8 +165,9 @@ public enum SimulationType
      * @param hierarchical if hierarchical storage management is enabled
      * @param metric graph metric
      * @param hierarchicalPlanner hierarchical storage management planner
+     * @param backgroundDemotion if cold files should be demoted in the background
      */
-    private SimulationType(String name, boolean dynamicRouting, int dynamicRoutingRecalcInterval, boolean hierarchical, GraphMetric metric, HierarchicalPlanner hierarchicalPlanner)
+    private SimulationType(String name, boolean dynamicRouting, int dynamicRoutingRecalcInterval, boolean hierarchical, GraphMetric metric, HierarchicalPlanner hierarchicalPlanner, boolean backgroundDemotion)
     {
         this.name = name;
         this.dynamicRouting = dynamicRouting;
@@ -115,6 +175,22 @@ public enum SimulationType
         this.hierarchical = hierarchical;
         this.metric = metric;
         this.hierarchicalPlanner = hierarchicalPlanner;
+        this.backgroundDemotion = backgroundDemotion;
+    }
+    
+    /**
+     * Simulation type (method).
+     * 
+     * @param name method name
+     * @param dynamicRouting if dynamic routing is enabled
+     * @param dynamicRoutingRecalcInterval dynamic routing recalculation interval
+     * @param hierarchical if hierarchical storage management is enabled
+     * @param metric graph metric
+     * @param hierarchicalPlanner hierarchical storage management planner
+     */
+    private SimulationType(String name, boolean dynamicRouting, int dynamicRoutingRecalcInterval, boolean hierarchical, GraphMetric metric, HierarchicalPlanner hierarchicalPlanner)
+    {
+        this(name, dynamicRouting, dynamicRoutingRecalcInterval, hierarchical, metric, hierarchicalPlanner, false);
     }
     
     /**
@@ -140,6 +216,24 @@ public enum SimulationType
     {
         this(name, metric, false, -1);
     }
+    
+    /**
+     * Simulation type (method) with striped or hedged downloads or background
+     * cluster balancing.
+     * 
+     * @param name method name
+     * @param metric graph metric
+     * @param options transfer options
+     */
+    private SimulationType(String name, GraphMetric metric, SimulationTypeOptions options)
+    {
+        this(name, metric);
+        
+        this.stripeSources = options.getStripeSources();
+        this.hedgeDelay = options.getHedgeDelay();
+        this.hedgeRateThreshold = options.getHedgeRateThreshold();
+        this.balancerThreshold = options.getBalancerThreshold();
+    }
         
     /**
      * If dynamic routing is enabled for this method.
@@ -181,6 +275,88 @@ public enum SimulationType
         return this.hierarchical;
     }
 
+    /**
+     * If cold files are demoted onto slower storage in the background
+     * (only applicable when HSM is enabled).
+     * 
+     * @return true if enabled, false otherwise
+     */
+    public boolean isBackgroundDemotionEnabled()
+    {
+        return this.backgroundDemotion;
+    }
+
+    /**
+     * If downloads are striped across multiple replicas.
+     * 
+     * @return true if enabled, false otherwise
+     */
+    public boolean isStripedTransferEnabled()
+    {
+        return (this.stripeSources > 1);
+    }
+    
+    /**
+     * Get maximum number of replicas a download is striped across.
+     * 
+     * @return maximum number of stripe sources
+     */
+    public int getMaxStripeSources()
+    {
+        return this.stripeSources;
+    }
+
+    /**
+     * If lagging downloads are hedged by a second request to another replica.
+     * 
+     * @return true if enabled, false otherwise
+     */
+    public boolean isHedgedTransferEnabled()
+    {
+        return (this.hedgeDelay >= 0);
+    }
+    
+    /**
+     * Get time after which a lagging download is hedged.
+     * 
+     * @return hedge delay (ms)
+     */
+    public int getHedgeDelay()
+    {
+        return this.hedgeDelay;
+    }
+    
+    /**
+     * Get fraction of expected transfer rate below which a download is hedged.
+     * 
+     * @return hedge rate threshold (0 - 1)
+     */
+    public double getHedgeRateThreshold()
+    {
+        return this.hedgeRateThreshold;
+    }
+
+    /**
+     * If storage utilization of servers is balanced in the background.
+     * 
+     * @return true if enabled, false otherwise
+     */
+    public boolean isBalancingEnabled()
+    {
+        return (this.balancerThreshold >= 0);
+    }
+    
+    /**
+     * Get maximum deviation of server utilization from cluster average
+     * before files are rebalanced.
+     * 
+     * @return balancer threshold (0 - 1)
+     */
+    public double getBalancerThreshold()
+    {
+        return this.balancerThreshold;
+    }
+
     /**
      * Get graph metric.
      * 
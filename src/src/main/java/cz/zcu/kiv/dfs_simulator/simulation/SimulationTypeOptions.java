@@ -0,0 +1,129 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation;
+
+/**
+ * Transfer options of a {@link SimulationType} - striped, hedged downloads
+ * and background cluster balancing. Options are created by named factory
+ * methods, features that are not set stay disabled.
+ */
+public class SimulationTypeOptions
+{
+    /**
+     * Maximum number of replicas a download is striped across
+     */
+    private final int stripeSources;
+    /**
+     * Time after which a lagging download is hedged (-1 if hedging is disabled)
+     */
+    private final int hedgeDelay;
+    /**
+     * Fraction of expected transfer rate below which a download is hedged
+     */
+    private final double hedgeRateThreshold;
+    /**
+     * Maximum deviation of server utilization from cluster average before
+     * files are rebalanced (-1 if balancing is disabled)
+     */
+    private final double balancerThreshold;
+    
+    /**
+     * Simulation type options.
+     * 
+     * @param stripeSources maximum number of replicas a download is striped across
+     * @param hedgeDelay time after which a lagging download is hedged
+     * @param hedgeRateThreshold fraction of expected transfer rate below which a download is hedged
+     * @param balancerThreshold maximum deviation of server utilization from cluster average
+     */
+    private SimulationTypeOptions(int stripeSources, int hedgeDelay, double hedgeRateThreshold, double balancerThreshold)
+    {
+        this.stripeSources = stripeSources;
+        this.hedgeDelay = hedgeDelay;
+        this.hedgeRateThreshold = hedgeRateThreshold;
+        this.balancerThreshold = balancerThreshold;
+    }
+    
+    /**
+     * Options of striped downloads.
+     * 
+     * @param stripeSources maximum number of replicas a download is striped across
+     * @return options
+     */
+    public static SimulationTypeOptions striped(int stripeSources)
+    {
+        return new SimulationTypeOptions(stripeSources, -1, 0, -1);
+    }
+    
+    /**
+     * Options of hedged downloads.
+     * 
+     * @param hedgeDelay time after which a lagging download is hedged
+     * @param hedgeRateThreshold fraction of expected transfer rate below which a download is hedged
+     * @return options
+     */
+    public static SimulationTypeOptions hedged(int hedgeDelay, double hedgeRateThreshold)
+    {
+        return new SimulationTypeOptions(1, hedgeDelay, hedgeRateThreshold, -1);
+    }
+    
+    /**
+     * Options of background cluster balancing.
+     * 
+     * @param balancerThreshold maximum deviation of server utilization from cluster average
+     * @return options
+     */
+    public static SimulationTypeOptions balanced(double balancerThreshold)
+    {
+        return new SimulationTypeOptions(1, -1, 0, balancerThreshold);
+    }
+    
+    /**
+     * Get maximum number of replicas a download is striped across.
+     * 
+     * @return maximum number of stripe sources
+     */
+    public int getStripeSources()
+    {
+        return this.stripeSources;
+    }
+    
+    /**
+     * Get time after which a lagging download is hedged.
+     * 
+     * @return hedge delay (ms) or -1 if hedging is disabled
+     */
+    public int getHedgeDelay()
+    {
+        return this.hedgeDelay;
+    }
+    
+    /**
+     * Get fraction of expected transfer rate below which a download is hedged.
+     * 
+     * @return hedge rate threshold (0 - 1)
+     */
+    public double getHedgeRateThreshold()
+    {
+        return this.hedgeRateThreshold;
+    }
+    
+    /**
+     * Get maximum deviation of server utilization from cluster average
+     * before files are rebalanced.
+     * 
+     * @return balancer threshold (0 - 1) or -1 if balancing is disabled
+     */
+    public double getBalancerThreshold()
+    {
+        return this.balancerThreshold;
+    }
+}
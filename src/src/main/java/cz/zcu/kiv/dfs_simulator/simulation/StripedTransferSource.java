@@ -0,0 +1,160 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation;
+
+import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
+
+/**
+ * Single source (replica) of a striped transfer. Source transfers its 
+ * assigned byte range of the object, the range can be changed during
+ * transfer when stripes are rebalanced.
+ */
+public class StripedTransferSource
+{
+    /**
+     * Path to source server
+     */
+    private final DfsPath path;
+    /**
+     * Throughput sampler of this source
+     */
+    private final SimulationThroughputSampler sampler = new FilteringThroughputSampler();
+    
+    /**
+     * Number of bytes assigned to this source
+     */
+    private long assignedBytes = 0;
+    /**
+     * Number of transfered bytes
+     */
+    private long transferedBytes = 0;
+    /**
+     * Last measured throughput (bps)
+     */
+    private long lastThroughput = 0;
+    
+    /**
+     * Striped transfer source.
+     * 
+     * @param path path to source server
+     */
+    public StripedTransferSource(DfsPath path)
+    {
+        this.path = path;
+    }
+    
+    /**
+     * Get path to source server.
+     * 
+     * @return path
+     */
+    public DfsPath getPath()
+    {
+        return this.path;
+    }
+    
+    /**
+     * Get throughput sampler of this source.
+     * 
+     * @return throughput sampler
+     */
+    public SimulationThroughputSampler getSampler()
+    {
+        return this.sampler;
+    }
+    
+    /**
+     * Get number of bytes assigned to this source (including already 
+     * transfered bytes).
+     * 
+     * @return assigned bytes
+     */
+    public long getAssignedBytes()
+    {
+        return this.assignedBytes;
+    }
+    
+    /**
+     * Assign {@code remainingBytes} more bytes to this source, replacing
+     * its current remaining range.
+     * 
+     * @param remainingBytes new number of bytes to be transfered
+     */
+    public void setRemainingBytes(long remainingBytes)
+    {
+        this.assignedBytes = this.transferedBytes + remainingBytes;
+    }
+    
+    /**
+     * Get number of assigned bytes that have not yet been transfered.
+     * 
+     * @return remaining bytes
+     */
+    public long getRemainingBytes()
+    {
+        return this.assignedBytes - this.transferedBytes;
+    }
+    
+    /**
+     * Get number of transfered bytes.
+     * 
+     * @return transfered bytes
+     */
+    public long getTransferedBytes()
+    {
+        return this.transferedBytes;
+    }
+    
+    /**
+     * Record transfer of {@code bytes} (at most remaining bytes).
+     * 
+     * @param bytes transfered bytes
+     * @return actually transfered bytes
+     */
+    public long transfer(long bytes)
+    {
+        long transfered = Math.min(bytes, this.getRemainingBytes());
+        this.transferedBytes += transfered;
+        
+        return transfered;
+    }
+    
+    /**
+     * Get last measured throughput.
+     * 
+     * @return throughput (bps)
+     */
+    public long getLastThroughput()
+    {
+        return this.lastThroughput;
+    }
+    
+    /**
+     * Set last measured throughput.
+     * 
+     * @param lastThroughput throughput (bps)
+     */
+    public void setLastThroughput(long lastThroughput)
+    {
+        this.lastThroughput = lastThroughput;
+    }
+    
+    /**
+     * Textual representation of source.
+     * 
+     * @return string representation
+     */
+    @Override public String toString()
+    {
+        return this.path.getTarget().toString() + " (" + this.transferedBytes + "/" + this.assignedBytes + " B)";
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.balancer;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Pair;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of cluster balancing during a single simulation run.
+ */
+public class BalancerReport
+{
+    /**
+     * Number of moved files
+     */
+    protected int movedFiles = 0;
+    /**
+     * Amount of moved data (bytes)
+     */
+    protected long movedBytes = 0;
+    /**
+     * Difference between highest and lowest server utilization before simulation
+     */
+    protected double initialSpread = 0;
+    /**
+     * Difference between highest and lowest server utilization after simulation
+     */
+    protected double finalSpread = 0;
+    /**
+     * Intervals (begin and end simulation time) during which files were being moved
+     */
+    protected final List<Pair<Long, Long>> busyIntervals = new ArrayList<>();
+    
+    /**
+     * Record moved file.
+     * 
+     * @param bytes file size
+     */
+    public void onFileMoved(long bytes)
+    {
+        this.movedFiles++;
+        this.movedBytes += bytes;
+    }
+    
+    /**
+     * Record interval during which files were being moved.
+     * 
+     * @param bTime interval begin
+     * @param eTime interval end
+     */
+    public void addBusyInterval(long bTime, long eTime)
+    {
+        this.busyIntervals.add(new Pair<>(bTime, eTime));
+    }
+    
+    /**
+     * Set server utilization spread before simulation.
+     * 
+     * @param initialSpread utilization spread (0 - 1)
+     */
+    public void setInitialSpread(double initialSpread)
+    {
+        this.initialSpread = initialSpread;
+    }
+    
+    /**
+     * Set server utilization spread after simulation.
+     * 
+     * @param finalSpread utilization spread (0 - 1)
+     */
+    public void setFinalSpread(double finalSpread)
+    {
+        this.finalSpread = finalSpread;
+    }
+    
+    /**
+     * Get number of moved files.
+     * 
+     * @return number of moved files
+     */
+    public int getMovedFiles()
+    {
+        return this.movedFiles;
+    }
+    
+    /**
+     * Get amount of moved data.
+     * 
+     * @return moved bytes
+     */
+    public long getMovedBytes()
+    {
+        return this.movedBytes;
+    }
+    
+    /**
+     * Get difference between highest and lowest server utilization 
+     * before simulation.
+     * 
+     * @return utilization spread (0 - 1)
+     */
+    public double getInitialSpread()
+    {
+        return this.initialSpread;
+    }
+    
+    /**
+     * Get difference between highest and lowest server utilization 
+     * after simulation.
+     * 
+     * @return utilization spread (0 - 1)
+     */
+    public double getFinalSpread()
+    {
+        return this.finalSpread;
+    }
+    
+    /**
+     * Get intervals during which files were being moved.
+     * 
+     * @return busy intervals
+     */
+    public List<Pair<Long, Long>> getBusyIntervals()
+    {
+        return this.busyIntervals;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public String toString()
+    {
+        return this.movedFiles + " files (" + this.movedBytes + " B) moved, utilization spread " + 
+                String.format("%.1f", this.initialSpread * 100) + " % -> " + 
+                String.format("%.1f", this.finalSpread * 100) + " %";
+    }
+}
@@ -0,0 +1,586 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.balancer;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperationCallback;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotMountedException;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.ObjectRegistryEntry;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.PutSimulationTask;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationBackgroundProcess;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
+import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
+import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPathPicker;
+import cz.zcu.kiv.dfs_simulator.simulation.path.NoPathAvailableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cluster balancer. Periodically compares storage utilization of servers
+ * with cluster average and moves files from servers whose utilization
+ * exceeds the average by more than balancer threshold onto servers below
+ * the average. Moves are throttled and run alongside simulation tasks.
+ * File is removed from source server only after it has been written to 
+ * target server, so that it is always available. All moves are reverted 
+ * once simulation ends.
+ */
+public class ClusterBalancer implements SimulationBackgroundProcess
+{
+    /**
+     * Default interval between two balancing checks (ms)
+     */
+    public static final int DEFAULT_CHECK_INTERVAL = 10000;
+    /**
+     * Default move rate limit (of a single file)
+     */
+    public static final ByteSpeed DEFAULT_RATE_LIMIT = new ByteSpeed(10, ByteSpeedUnits.MBPS);
+    /**
+     * Default maximum number of files moved at once
+     */
+    public static final int DEFAULT_MAX_PARALLEL_MOVES = 2;
+    
+    /**
+     * Path picker used to select path from source to target server
+     */
+    private final DfsPathPicker pathPicker;
+    /**
+     * Running simulation type
+     */
+    private final SimulationType simType;
+    /**
+     * Maximum deviation of server utilization from cluster average
+     */
+    private final double threshold;
+    /**
+     * Interval between two balancing checks (ms)
+     */
+    private final int checkInterval;
+    /**
+     * Maximum speed of a single move
+     */
+    private final ByteSpeed rateLimit;
+    /**
+     * Maximum number of files moved at once
+     */
+    private final int maxParallelMoves;
+    
+    /**
+     * Running moves
+     */
+    private final List<FileMove> activeMoves = new ArrayList<>();
+    /**
+     * Finished moves (in order of finishing)
+     */
+    private final List<FileMove> finishedMoves = new ArrayList<>();
+    /**
+     * Simulation time of last check
+     */
+    private long lastCheck = 0;
+    /**
+     * Begin of current busy interval (-1 if no file is being moved)
+     */
+    private long busySince = -1;
+    /**
+     * Balancing summary
+     */
+    private BalancerReport report = new BalancerReport();
+    /**
+     * Simulation has ended flag - late operation callbacks are ignored
+     */
+    private boolean ended = false;
+    
+    /**
+     * Cluster balancer.
+     * 
+     * @param pathPicker path picker
+     * @param simType running simulation type
+     * @param threshold maximum deviation of server utilization from cluster average (0 - 1)
+     * @param checkInterval interval between two balancing checks (ms)
+     * @param rateLimit maximum speed of a single move
+     * @param maxParallelMoves maximum number of files moved at once
+     */
+    public ClusterBalancer(DfsPathPicker pathPicker, SimulationType simType, double threshold, int checkInterval, ByteSpeed rateLimit, int maxParallelMoves)
+    {
+        this.pathPicker = pathPicker;
+        this.simType = simType;
+        this.threshold = threshold;
+        this.checkInterval = checkInterval;
+        this.rateLimit = rateLimit;
+        this.maxParallelMoves = maxParallelMoves;
+    }
+    
+    /**
+     * Cluster balancer with default check interval, rate limit and parallelism.
+     * 
+     * @param pathPicker path picker
+     * @param simType running simulation type
+     */
+    public ClusterBalancer(DfsPathPicker pathPicker, SimulationType simType)
+    {
+        this(pathPicker, simType, simType.getBalancerThreshold(), DEFAULT_CHECK_INTERVAL, DEFAULT_RATE_LIMIT, DEFAULT_MAX_PARALLEL_MOVES);
+    }
+    
+    /**
+     * Get balancing summary of the last simulation.
+     * 
+     * @return balancer report
+     */
+    public BalancerReport getReport()
+    {
+        return this.report;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationStarted(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        this.activeMoves.clear();
+        this.finishedMoves.clear();
+        this.lastCheck = sTime - this.checkInterval;
+        this.busySince = -1;
+        this.ended = false;
+        
+        this.report = new BalancerReport();
+        this.report.setInitialSpread(this.getUtilizationSpread(servers));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationTimeAdvanced(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        if((sTime - this.lastCheck) < this.checkInterval)
+        {
+            return;
+        }
+        
+        this.lastCheck = sTime;
+        
+        Map<ModelServerNode, Double> utilization = this.getProjectedUtilization(servers);
+        
+        if(utilization.isEmpty())
+        {
+            return;
+        }
+        
+        double average = utilization.values().stream().mapToDouble(u -> u).average().getAsDouble();
+        
+        List<ModelServerNode> sources = new ArrayList<>(utilization.keySet());
+        // most over-utilized first
+        Collections.sort(sources, (a, b) -> Double.compare(utilization.get(b), utilization.get(a)));
+        
+        for(ModelServerNode source : sources)
+        {
+            if(this.activeMoves.size() >= this.maxParallelMoves || utilization.get(source) <= (average + this.threshold))
+            {
+                return;
+            }
+            
+            long excess = (long) ((utilization.get(source) - average) * this.getCapacity(source));
+            
+            this.startMove(source, excess, utilization, average, logger, sTime);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public boolean hasPendingWork()
+    {
+        return !this.activeMoves.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationEnded(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        this.ended = true;
+        
+        if(this.busySince >= 0)
+        {
+            this.report.addBusyInterval(this.busySince, sTime);
+            this.busySince = -1;
+        }
+        
+        this.report.setFinalSpread(this.getUtilizationSpread(servers));
+        
+        // revert model into its state before simulation
+        for(int i = (this.finishedMoves.size() - 1); i >= 0; i--)
+        {
+            this.revertMove(this.finishedMoves.get(i), logger, sTime);
+        }
+    }
+    
+    /**
+     * Start moving a file from {@code source} onto the least utilized server
+     * below cluster average. Largest file not exceeding {@code excess} is moved.
+     * 
+     * @param source over-utilized server
+     * @param excess amount of data above cluster average
+     * @param utilization projected utilization of servers
+     * @param average average cluster utilization
+     * @param logger simulation logger
+     * @param sTime simulation time
+     */
+    private void startMove(ModelServerNode source, long excess, Map<ModelServerNode, Double> utilization, double average, DfsSimulatorLogger logger, long sTime)
+    {
+        List<ModelServerNode> targets = new ArrayList<>();
+        
+        for(ModelServerNode server : utilization.keySet())
+        {
+            if(utilization.get(server) < average)
+            {
+                targets.add(server);
+            }
+        }
+        
+        // least utilized first
+        Collections.sort(targets, (a, b) -> Double.compare(utilization.get(a), utilization.get(b)));
+        
+        for(FsFile file : this.getMovableFiles(source, excess))
+        {
+            ServerStorage sourceStorage = source.getFsManager().getFsObjectMountDeviceByName(file);
+            ObjectRegistryEntry entry = FsGlobalObjectRegistry.getObjectEntry(file);
+            
+            if(sourceStorage == null || entry == null)
+            {
+                continue;
+            }
+            
+            for(ModelServerNode target : targets)
+            {
+                ServerStorage targetStorage = target.getFsManager().getFileTargetStorage(file);
+                
+                if(entry.servers.contains(target) || targetStorage == null)
+                {
+                    continue;
+                }
+                
+                try
+                {
+                    List<ModelServerNode> candidates = new ArrayList<>();
+                    candidates.add(target);
+                    
+                    DfsPath path = this.pathPicker.selectPathAmong(source, new PutSimulationTask(file), sTime, candidates, this.simType);
+                    
+                    FileMove move = new FileMove(file, source, sourceStorage, new ReplicaTarget(target, targetStorage));
+                    
+                    List<FsFile> transferList = new ArrayList<>();
+                    transferList.add(file);
+                    
+                    targetStorage.getOperationManager().addReplicationOperation(transferList, sourceStorage, path, this.rateLimit, 
+                            this.createCallback(move, logger), false);
+                    
+                    if(this.activeMoves.isEmpty())
+                    {
+                        this.busySince = sTime;
+                    }
+                    
+                    this.activeMoves.add(move);
+                    
+                    return;
+                }
+                catch(NoPathAvailableException | NotMountedException ex)
+                {
+                    // try another target
+                }
+            }
+        }
+    }
+    
+    /**
+     * Create callback of move write operation. File is added to target 
+     * server and removed from source server once all data have been written.
+     * 
+     * @param move file move
+     * @param logger simulation logger
+     * @return callback
+     */
+    private StorageOperationCallback createCallback(FileMove move, DfsSimulatorLogger logger)
+    {
+        return new StorageOperationCallback()
+        {
+            @Override public void onOperationStarted(long sTime)
+            {
+            }
+
+            @Override public void onOperationFinished(long sTime)
+            {
+                if(ended)
+                {
+                    return;
+                }
+                
+                activeMoves.remove(move);
+                
+                if(activeMoves.isEmpty())
+                {
+                    report.addBusyInterval(busySince, sTime);
+                    busySince = -1;
+                }
+                
+                move.createdPath = move.target.serverNode.getFsManager().getTopmostMissingPath(move.file);
+                
+                List<ReplicaTarget> targets = new ArrayList<>();
+                targets.add(move.target);
+                
+                FsGlobalReplicationManager.forceReplicateFile(move.file, targets);
+                
+                move.sourceObject = move.source.getFsManager().getObject(move.file.getFullPath());
+                
+                if(move.sourceObject != null)
+                {
+                    move.source.getFsManager().removeDirectoryChild(move.sourceObject);
+                }
+                
+                finishedMoves.add(move);
+                report.onFileMoved(move.file.getSize().bytesProperty().get());
+                logger.logFileMoved(move.file, move.source, move.target.serverNode, sTime);
+            }
+        };
+    }
+    
+    /**
+     * Move file back from target onto source server. If the file no longer
+     * fits its source server, error is logged and the file is left on 
+     * the target server so that no data are lost.
+     * 
+     * @param move finished move
+     * @param logger simulation logger
+     * @param sTime simulation time
+     */
+    private void revertMove(FileMove move, DfsSimulatorLogger logger, long sTime)
+    {
+        if(move.sourceObject == null)
+        {
+            move.target.serverNode.getFsManager().removeDirectoryChild(move.createdPath);
+            return;
+        }
+        
+        FsDirectory parent = (FsDirectory) move.source.getFsManager().getObject(move.sourceObject.getParent().getFullPath(), true);
+        
+        try
+        {
+            move.source.getFsManager().addDirectoryChild(parent, move.sourceObject);
+        }
+        catch(NotEnoughSpaceLeftException ex)
+        {
+            logger.logError("Unable to move file " + move.file.getFullPath() + " back to server " + 
+                    move.source.toString() + ", file is left on server " + move.target.serverNode.toString() + ".", sTime);
+            return;
+        }
+        
+        move.target.serverNode.getFsManager().removeDirectoryChild(move.createdPath);
+        
+        if(move.source.getFsManager().getFsObjectMountDevice(move.sourceObject) != move.sourceStorage)
+        {
+            move.source.getFsManager().forceMount(move.sourceStorage, move.sourceObject);
+        }
+    }
+    
+    /**
+     * Get files of {@code source} that can be moved, ordered so that the
+     * largest file not exceeding {@code excess} comes first.
+     * 
+     * @param source source server
+     * @param excess amount of data above cluster average
+     * @return movable files
+     */
+    private List<FsFile> getMovableFiles(ModelServerNode source, long excess)
+    {
+        Set<String> moving = new HashSet<>();
+        
+        for(FileMove move : this.activeMoves)
+        {
+            moving.add(move.file.getFullPath());
+        }
+        
+        List<FsFile> files = new ArrayList<>();
+        
+        for(ObjectRegistryEntry entry : FsGlobalObjectRegistry.getEntries())
+        {
+            if(!entry.servers.contains(source))
+            {
+                continue;
+            }
+            
+            for(FileSystemObject object : entry.fsObjects)
+            {
+                if(object instanceof FsFile && !moving.contains(object.getFullPath()) && 
+                        object.getSize().bytesProperty().get() <= excess)
+                {
+                    files.add((FsFile) object);
+                    
+                    break;
+                }
+            }
+        }
+        
+        Collections.sort(files, (a, b) -> Long.compare(b.getSize().bytesProperty().get(), a.getSize().bytesProperty().get()));
+        
+        return files;
+    }
+    
+    /**
+     * Get utilization of servers that have storage, including data 
+     * of running moves (as if they have already finished).
+     * 
+     * @param servers list of servers
+     * @return utilization of servers (0 - 1)
+     */
+    private Map<ModelServerNode, Double> getProjectedUtilization(List<ModelServerNode> servers)
+    {
+        Map<ModelServerNode, Long> inFlight = new HashMap<>();
+        
+        for(FileMove move : this.activeMoves)
+        {
+            long bytes = move.file.getSize().bytesProperty().get();
+            
+            inFlight.put(move.source, inFlight.getOrDefault(move.source, 0L) - bytes);
+            inFlight.put(move.target.serverNode, inFlight.getOrDefault(move.target.serverNode, 0L) + bytes);
+        }
+        
+        Map<ModelServerNode, Double> utilization = new HashMap<>();
+        
+        for(ModelServerNode server : servers)
+        {
+            long capacity = this.getCapacity(server);
+            
+            if(server.isFailed() || capacity <= 0)
+            {
+                continue;
+            }
+            
+            utilization.put(server, (this.getUsed(server) + inFlight.getOrDefault(server, 0L)) / (double) capacity);
+        }
+        
+        return utilization;
+    }
+    
+    /**
+     * Get difference between highest and lowest utilization of servers
+     * that have storage.
+     * 
+     * @param servers list of servers
+     * @return utilization spread (0 - 1)
+     */
+    private double getUtilizationSpread(List<ModelServerNode> servers)
+    {
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        
+        for(ModelServerNode server : servers)
+        {
+            long capacity = this.getCapacity(server);
+            
+            if(server.isFailed() || capacity <= 0)
+            {
+                continue;
+            }
+            
+            double utilization = this.getUsed(server) / (double) capacity;
+            
+            min = Math.min(min, utilization);
+            max = Math.max(max, utilization);
+        }
+        
+        return (max >= min) ? (max - min) : 0;
+    }
+    
+    /**
+     * Get total capacity of storage devices of {@code server}.
+     * 
+     * @param server server
+     * @return capacity (bytes)
+     */
+    private long getCapacity(ModelServerNode server)
+    {
+        return server.getStorageManager().getStorage().stream().mapToLong(s -> s.getSize().bytesProperty().get()).sum();
+    }
+    
+    /**
+     * Get used space of all storage devices of {@code server}.
+     * 
+     * @param server server
+     * @return used space (bytes)
+     */
+    private long getUsed(ModelServerNode server)
+    {
+        return server.getStorageManager().getStorage().stream()
+                .mapToLong(s -> server.getFsManager().getStorageUsedSize(s).bytesProperty().get()).sum();
+    }
+    
+    /**
+     * Single file move.
+     */
+    private static class FileMove
+    {
+        /**
+         * Moved file
+         */
+        final FsFile file;
+        /**
+         * Source server
+         */
+        final ModelServerNode source;
+        /**
+         * Storage of source server the file was mounted to
+         */
+        final ServerStorage sourceStorage;
+        /**
+         * Target server and storage
+         */
+        final ReplicaTarget target;
+        /**
+         * Instance of file removed from source server
+         */
+        FileSystemObject sourceObject = null;
+        /**
+         * Path of topmost object created on target server
+         */
+        String createdPath = null;
+        
+        /**
+         * Single file move.
+         * 
+         * @param file moved file
+         * @param source source server
+         * @param sourceStorage storage of source server
+         * @param target target server and storage
+         */
+        FileMove(FsFile file, ModelServerNode source, ServerStorage sourceStorage, ReplicaTarget target)
+        {
+            this.file = file;
+            this.source = source;
+            this.sourceStorage = sourceStorage;
+            this.target = target;
+        }
+    }
+}
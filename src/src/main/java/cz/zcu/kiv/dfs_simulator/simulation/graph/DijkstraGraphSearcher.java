@@ -157,6 +157,12 @@ public class DijkstraGraphSearcher implements GraphSearcher
         
         for(ModelNodeConnection conn : neighbourConnections)
         {
+            // failed servers can neither be reached nor route traffic
+            if(conn.getNeighbour() instanceof ModelServerNode && ((ModelServerNode) conn.getNeighbour()).isFailed())
+            {
+                continue;
+            }
+            
             if(!this.settled.contains(conn.getNeighbour()))
             {
                 filtered.add(conn);
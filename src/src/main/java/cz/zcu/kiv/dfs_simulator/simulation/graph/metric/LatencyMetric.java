@@ -0,0 +1,82 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.graph.metric;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import java.util.Comparator;
+
+/**
+ * Minimizing latency metric - used for requests that do not transfer 
+ * data (eg. metadata queries).
+ */
+public class LatencyMetric implements GraphMetric
+{
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public long getBestMetricValue()
+    {
+        return 0L;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public long getWorstMetricValue()
+    {
+        return Long.MAX_VALUE;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public long getCombinedEdgeWeight(long weightCurrent, long weightEdge, ModelNodeConnection conn)
+    {
+        return (weightCurrent + weightEdge);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public long getEdgeWeight(ModelNodeConnection connection, ByteSize transferSize, ByteSpeed diskBandwidth, long sTime)
+    {
+        return connection.getLatency();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public Comparator<Long> getComparator()
+    {
+        return (Long o1, Long o2) -> (o1.compareTo(o2));
+    }
+    
+    /**
+     * Requests do not access storage, disk bandwidth does not limit them.
+     * 
+     * @param server server
+     * @param targetObject target object
+     * @param type simulation type
+     * @return unlimited bandwidth
+     */
+    @Override public ByteSpeed getPossibleDiskBandwidth(ModelServerNode server, FileSystemObject targetObject, SimulationType type)
+    {
+        return new ByteSpeed(Long.MAX_VALUE);
+    }
+    
+}
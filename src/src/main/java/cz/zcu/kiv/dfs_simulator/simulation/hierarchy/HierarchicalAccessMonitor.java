@@ -21,6 +21,15 @@ import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
  */
 public interface HierarchicalAccessMonitor
 {
+    /**
+     * Will be called once before the first task of a simulation is processed.
+     * Monitor can discard any state collected during previous simulations.
+     * 
+     * @param logger current simulation logger
+     * @param sTime current simulation time
+     */
+    public void onSimulationStarted(DfsSimulatorLogger logger, long sTime);
+    
     /**
      * Will be called before file is accessed during a specific {@code SimulationTask}.
      * File can be accessed MULTIPLE times during single task when dynamic pathing is enabled.
@@ -14,6 +14,7 @@ package cz.zcu.kiv.dfs_simulator.simulation.hierarchy;
 import cz.zcu.kiv.dfs_simulator.helpers.Pair;
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
 import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger;
 import cz.zcu.kiv.dfs_simulator.simulation.GetSimulationTask;
@@ -134,7 +135,7 @@ public abstract class HierarchicalPlanner implements HierarchicalAccessMonitor
      * @param migrationPlanList migration plan
      * @return fastest possible storage
      */
-    private ServerStorage int_getHighestAvailableStorage(FsFile file, ModelServerNode server, List<MigrationPlan> migrationPlanList)
+    protected ServerStorage int_getHighestAvailableStorage(FsFile file, ModelServerNode server, List<MigrationPlan> migrationPlanList)
     {
         List<ServerStorage> accessibleStorage = new ArrayList<>(server.getStorageManager().getStorage());
 
@@ -164,6 +165,21 @@ public abstract class HierarchicalPlanner implements HierarchicalAccessMonitor
      * @param sTime simulation time
      */
     protected void beginMigrationProcess(List<MigrationPlan> migrationPlanList, ModelServerNode server, DfsSimulatorLogger logger, long sTime)
+    {
+        this.beginMigrationProcess(migrationPlanList, server, logger, sTime, null);
+    }
+    
+    /**
+     * Begin migration process given by {@code migrationPlanList}. Each 
+     * migration is limited to transfer speed of {@code rateLimit}.
+     * 
+     * @param migrationPlanList migration plan
+     * @param server target server
+     * @param logger simulator logger
+     * @param sTime simulation time
+     * @param rateLimit maximum migration speed or null if not limited
+     */
+    protected void beginMigrationProcess(List<MigrationPlan> migrationPlanList, ModelServerNode server, DfsSimulatorLogger logger, long sTime, ByteSpeed rateLimit)
     {
         Pair<StorageOperation, StorageOperation> prevPair = null;
         
@@ -182,7 +198,7 @@ public abstract class HierarchicalPlanner implements HierarchicalAccessMonitor
             mp.target.getOperationManager().reserveSpace(totalBytes);
             
             Pair<StorageOperation, StorageOperation> cPair = 
-                    mp.target.getOperationManager().addMigrationOperation(mp.subset, mp.source, new StorageOperationCallback()
+                    mp.target.getOperationManager().addMigrationOperation(mp.subset, mp.source, rateLimit, new StorageOperationCallback()
             {
                 @Override public void onOperationStarted(long sTime)
                 {
@@ -214,6 +230,11 @@ public abstract class HierarchicalPlanner implements HierarchicalAccessMonitor
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationStarted(DfsSimulatorLogger logger, long sTime) {}
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,287 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ *
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.hierarchy;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Pair;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationTask;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+/**
+ * Migration planner with predictive prefetching. Learns file-to-file
+ * transition probabilities (first-order Markov chain) from finished
+ * accesses and also tracks how often files are accessed in directory order.
+ * When a file is accessed, the file most likely to be accessed next is
+ * promoted onto faster storage ahead of demand, if the prediction confidence
+ * reaches the configured threshold.
+ */
+public class MarkovPrefetchPlanner extends LRUCascadeMigrationPlanner
+{
+    /**
+     * Default minimum prediction confidence
+     */
+    public static final double DEFAULT_CONFIDENCE_THRESHOLD = 0.6;
+    /**
+     * Default prefetch bandwidth budget
+     */
+    public static final ByteSpeed DEFAULT_BANDWIDTH_BUDGET = new ByteSpeed(100, ByteSpeedUnits.MBPS);
+    /**
+     * Minimum number of observed transitions before directory-sequential
+     * predictions are made
+     */
+    private static final int MIN_SEQUENTIAL_OBSERVATIONS = 2;
+
+    /**
+     * Minimum prediction confidence
+     */
+    private final double confidenceThreshold;
+    /**
+     * Maximum prefetch speed per server
+     */
+    private final ByteSpeed bandwidthBudget;
+
+    /**
+     * Observed transitions - path of accessed file to paths of files accessed
+     * right after it (and number of such transitions)
+     */
+    private final Map<String, Map<String, Integer>> transitions = new HashMap<>();
+    /**
+     * Total number of observed transitions from path
+     */
+    private final Map<String, Integer> transitionCounts = new HashMap<>();
+    /**
+     * Number of transitions to the next file in directory order
+     */
+    private int sequentialHits = 0;
+    /**
+     * Total number of transitions observed
+     */
+    private int sequentialObservations = 0;
+    /**
+     * Path of last accessed file
+     */
+    private String lastAccessedPath = null;
+
+    /**
+     * Files currently being prefetched on server
+     */
+    private final Map<ModelServerNode, List<FsFile>> runningPrefetches = new HashMap<>();
+
+    /**
+     * Prefetching migration planner.
+     *
+     * @param confidenceThreshold minimum prediction confidence (0 - 1)
+     * @param bandwidthBudget maximum prefetch speed per server
+     */
+    public MarkovPrefetchPlanner(double confidenceThreshold, ByteSpeed bandwidthBudget)
+    {
+        this.confidenceThreshold = confidenceThreshold;
+        this.bandwidthBudget = bandwidthBudget;
+    }
+
+    /**
+     * Prefetching migration planner with default confidence threshold
+     * and bandwidth budget.
+     */
+    public MarkovPrefetchPlanner()
+    {
+        this(DEFAULT_CONFIDENCE_THRESHOLD, DEFAULT_BANDWIDTH_BUDGET);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationStarted(DfsSimulatorLogger logger, long sTime)
+    {
+        super.onSimulationStarted(logger, sTime);
+
+        this.transitions.clear();
+        this.transitionCounts.clear();
+        this.sequentialHits = 0;
+        this.sequentialObservations = 0;
+        this.lastAccessedPath = null;
+        this.runningPrefetches.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onBeforeAccess(FsFile file, ModelServerNode server, SimulationTask task, DfsSimulatorLogger logger, long sTime)
+    {
+        super.onBeforeAccess(file, server, task, logger, sTime);
+
+        Pair<String, Double> prediction = this.predictNextAccess(file.getFullPath(), server);
+
+        if(prediction != null)
+        {
+            this.prefetch(prediction.first, prediction.second, server, logger, sTime);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onAfterAccess(FsFile file, ModelServerNode server, SimulationTask task, DfsSimulatorLogger logger, long sTime)
+    {
+        super.onAfterAccess(file, server, task, logger, sTime);
+
+        this.learnTransition(file.getFullPath(), server);
+    }
+
+    /**
+     * Record transition from last accessed file to file at {@code path}.
+     *
+     * @param path path of accessed file
+     * @param server server, on which the file is present
+     */
+    private void learnTransition(String path, ModelServerNode server)
+    {
+        if(this.lastAccessedPath != null && !this.lastAccessedPath.equals(path))
+        {
+            Map<String, Integer> next = this.transitions.computeIfAbsent(this.lastAccessedPath, k -> new HashMap<>());
+            next.merge(path, 1, Integer::sum);
+            this.transitionCounts.merge(this.lastAccessedPath, 1, Integer::sum);
+
+            this.sequentialObservations++;
+
+            if(path.equals(this.getSequentialSuccessor(this.lastAccessedPath, server)))
+            {
+                this.sequentialHits++;
+            }
+        }
+
+        this.lastAccessedPath = path;
+    }
+
+    /**
+     * Predict which file will be accessed after file at {@code path}. Learned
+     * transitions are preferred, directory order is used when there is
+     * no confident transition.
+     *
+     * @param path path of accessed file
+     * @param server server, on which the file is present
+     * @return pair of predicted path and prediction confidence or null
+     * if there is no prediction with sufficient confidence
+     */
+    private Pair<String, Double> predictNextAccess(String path, ModelServerNode server)
+    {
+        Map<String, Integer> next = this.transitions.get(path);
+
+        if(next != null && !next.isEmpty())
+        {
+            Entry<String, Integer> best = Collections.max(next.entrySet(), (a, b) -> Integer.compare(a.getValue(), b.getValue()));
+            double confidence = best.getValue() / (double) this.transitionCounts.get(path);
+
+            if(confidence >= this.confidenceThreshold)
+            {
+                return new Pair<>(best.getKey(), confidence);
+            }
+        }
+
+        if(this.sequentialObservations >= MIN_SEQUENTIAL_OBSERVATIONS)
+        {
+            double confidence = this.sequentialHits / (double) this.sequentialObservations;
+            String successor = this.getSequentialSuccessor(path, server);
+
+            if(successor != null && confidence >= this.confidenceThreshold)
+            {
+                return new Pair<>(successor, confidence);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get path of file that follows file at {@code path} in its directory
+     * (files ordered by name).
+     *
+     * @param path file path
+     * @param server server, on which the file is present
+     * @return path of following file or null
+     */
+    private String getSequentialSuccessor(String path, ModelServerNode server)
+    {
+        FileSystemObject object = server.getFsManager().getObject(path);
+
+        if(object == null || object.getParent() == null)
+        {
+            return null;
+        }
+
+        List<FileSystemObject> siblings = object.getParent().getChildren().stream().
+                filter(o -> (o instanceof FsFile)).collect(Collectors.toList());
+        Collections.sort(siblings, (a, b) -> a.nameProperty().get().compareTo(b.nameProperty().get()));
+
+        int index = siblings.indexOf(object);
+
+        if(index >= 0 && index < (siblings.size() - 1))
+        {
+            return siblings.get(index + 1).getFullPath();
+        }
+
+        return null;
+    }
+
+    /**
+     * Promote file at {@code path} onto fastest storage of {@code server}
+     * that can accommodate it. Only one prefetch runs on a server at a time
+     * and its speed is limited by bandwidth budget.
+     *
+     * @param path predicted path
+     * @param confidence prediction confidence
+     * @param server target server
+     * @param logger simulation logger
+     * @param sTime simulation time
+     */
+    private void prefetch(String path, double confidence, ModelServerNode server, DfsSimulatorLogger logger, long sTime)
+    {
+        List<FsFile> running = this.runningPrefetches.get(server);
+
+        if(running != null && running.stream().anyMatch(f -> f.isMigrating()))
+        {
+            return;
+        }
+
+        FileSystemObject object = server.getFsManager().getObject(path);
+
+        if(!(object instanceof FsFile) || object.isMigrating())
+        {
+            return;
+        }
+
+        FsFile file = (FsFile) object;
+        List<MigrationPlan> migrationPlanList = new ArrayList<>();
+        this.int_getHighestAvailableStorage(file, server, migrationPlanList);
+
+        if(!migrationPlanList.isEmpty())
+        {
+            logger.logHierarchicalPrefetch(file, server, confidence, sTime);
+
+            this.beginMigrationProcess(migrationPlanList, server, logger, sTime, this.bandwidthBudget);
+            this.runningPrefetches.put(server, migrationPlanList.stream().
+                    flatMap(mp -> mp.subset.stream()).collect(Collectors.toList()));
+        }
+    }
+
+}
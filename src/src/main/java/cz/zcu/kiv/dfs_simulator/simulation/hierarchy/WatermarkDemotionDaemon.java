@@ -0,0 +1,265 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ *
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.hierarchy;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationBackgroundProcess;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Background demotion process. Periodically checks fill level of all
+ * storage devices and when a storage is filled above its high watermark,
+ * least accessed (cold) files are moved onto slower storage until the fill
+ * level drops below low watermark. Demotion runs only while the storage
+ * is idle (no client operations) and at a throttled rate, so that faster
+ * storage devices keep headroom for promotions.
+ */
+public class WatermarkDemotionDaemon implements SimulationBackgroundProcess
+{
+    /**
+     * Default demotion rate limit
+     */
+    public static final ByteSpeed DEFAULT_RATE_LIMIT = new ByteSpeed(50, ByteSpeedUnits.MBPS);
+    /**
+     * Default interval between fill level checks
+     */
+    public static final long DEFAULT_CHECK_INTERVAL_MS = 1000;
+
+    /**
+     * Planner used to execute migrations
+     */
+    private final HierarchicalPlanner planner;
+    /**
+     * Maximum speed of a single demotion
+     */
+    private final ByteSpeed rateLimit;
+    /**
+     * Interval between fill level checks
+     */
+    private final long checkInterval;
+
+    /**
+     * Files currently being demoted from storage
+     */
+    private final Map<ServerStorage, List<FsFile>> runningDemotions = new HashMap<>();
+    /**
+     * Simulation time of last check
+     */
+    private long lastCheck;
+
+    /**
+     * Demotion daemon.
+     *
+     * @param planner planner used to execute migrations
+     * @param rateLimit maximum speed of a single demotion
+     * @param checkInterval interval between fill level checks (ms)
+     */
+    public WatermarkDemotionDaemon(HierarchicalPlanner planner, ByteSpeed rateLimit, long checkInterval)
+    {
+        this.planner = planner;
+        this.rateLimit = rateLimit;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Demotion daemon with default rate limit and check interval.
+     *
+     * @param planner planner used to execute migrations
+     */
+    public WatermarkDemotionDaemon(HierarchicalPlanner planner)
+    {
+        this(planner, DEFAULT_RATE_LIMIT, DEFAULT_CHECK_INTERVAL_MS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationStarted(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        this.runningDemotions.clear();
+        this.lastCheck = sTime - this.checkInterval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationTimeAdvanced(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        if((sTime - this.lastCheck) < this.checkInterval)
+        {
+            return;
+        }
+
+        this.lastCheck = sTime;
+
+        for(ModelServerNode server : servers)
+        {
+            List<ServerStorage> storageList = new ArrayList<>(server.getStorageManager().getStorage());
+            // sort them by speed (ASC - highest index highest speed)
+            Collections.sort(storageList, (a, b) -> Long.compare(a.getMaximumSpeed().bpsProperty().get(), b.getMaximumSpeed().bpsProperty().get()));
+
+            // slowest storage has nowhere to demote to
+            for(int i = (storageList.size() - 1); i > 0; i--)
+            {
+                ServerStorage storage = storageList.get(i);
+
+                if(this.isDemoting(storage) || storage.getOperationManager().hasClientOperations())
+                {
+                    continue;
+                }
+
+                long excess = this.getBytesAboveLowWatermark(storage, server);
+
+                if(excess > 0)
+                {
+                    this.demote(storage, storageList.subList(0, i), excess, server, logger, sTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public boolean hasPendingWork()
+    {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationEnded(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        this.runningDemotions.clear();
+    }
+
+    /**
+     * Checks if there is a running demotion from {@code storage}.
+     *
+     * @param storage storage
+     * @return true if demotion is running, false otherwise
+     */
+    private boolean isDemoting(ServerStorage storage)
+    {
+        List<FsFile> demoted = this.runningDemotions.get(storage);
+
+        if(demoted != null && demoted.stream().noneMatch(f -> f.isMigrating()))
+        {
+            this.runningDemotions.remove(storage);
+
+            return false;
+        }
+
+        return (demoted != null);
+    }
+
+    /**
+     * Calculates how many bytes have to be moved from {@code storage}
+     * in order to get its fill level to low watermark. Returns zero
+     * if storage is not filled above its high watermark.
+     *
+     * @param storage storage
+     * @param server server
+     * @return number of bytes to be demoted
+     */
+    private long getBytesAboveLowWatermark(ServerStorage storage, ModelServerNode server)
+    {
+        long capacity = storage.getSize().bytesProperty().get();
+
+        if(capacity <= 0)
+        {
+            return 0;
+        }
+
+        long used = capacity - this.planner.getStorageAvailableSpace(storage, server).bytesProperty().get();
+
+        if(used <= (capacity * storage.highWatermarkProperty().get()))
+        {
+            return 0;
+        }
+
+        return used - (long) (capacity * storage.lowWatermarkProperty().get());
+    }
+
+    /**
+     * Moves least accessed files of total size at least {@code bytes}
+     * (if possible) from {@code storage} onto fastest storage from
+     * {@code lowerStorageList} that can accommodate them.
+     *
+     * @param storage demoted storage
+     * @param lowerStorageList slower storage devices (ordered by speed ASC)
+     * @param bytes number of bytes to be demoted
+     * @param server server
+     * @param logger simulation logger
+     * @param sTime simulation time
+     */
+    private void demote(ServerStorage storage, List<ServerStorage> lowerStorageList, long bytes, ModelServerNode server, DfsSimulatorLogger logger, long sTime)
+    {
+        List<FsFile> candidates = server.getFsManager().getStorageMountedFiles(storage).stream().
+                filter(f -> !f.isMigrating()).collect(Collectors.toList());
+        // coldest files first
+        Collections.sort(candidates, (a, b) -> Integer.compare(a.getAccessCount(), b.getAccessCount()));
+
+        for(int i = (lowerStorageList.size() - 1); i >= 0; i--)
+        {
+            ServerStorage target = lowerStorageList.get(i);
+            long available = this.planner.getStorageAvailableSpace(target, server).bytesProperty().get();
+
+            List<FsFile> subset = new ArrayList<>();
+            long subsetBytes = 0;
+
+            for(FsFile f : candidates)
+            {
+                if(subsetBytes >= bytes)
+                {
+                    break;
+                }
+
+                long fBytes = f.getSize().bytesProperty().get();
+
+                if((subsetBytes + fBytes) <= available)
+                {
+                    subset.add(f);
+                    subsetBytes += fBytes;
+                }
+            }
+
+            if(!subset.isEmpty())
+            {
+                MigrationPlan mp = new MigrationPlan();
+                mp.source = storage;
+                mp.target = target;
+                mp.subset = subset;
+
+                List<MigrationPlan> migrationPlanList = new ArrayList<>();
+                migrationPlanList.add(mp);
+
+                this.planner.beginMigrationProcess(migrationPlanList, server, logger, sTime, this.rateLimit);
+                this.runningDemotions.put(storage, subset);
+
+                return;
+            }
+        }
+    }
+
+}
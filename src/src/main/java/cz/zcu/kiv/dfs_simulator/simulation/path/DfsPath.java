@@ -60,6 +60,16 @@ public class DfsPath
         this.runningOperation = runningOperation;
     }
     
+    /**
+     * Get running operation.
+     * 
+     * @return running operation or null
+     */
+    public StorageOperation getRunningOperation()
+    {
+        return this.runningOperation;
+    }
+    
     /**
      * Calculate amount of data that will be transfered with throughput {@code throughput}
      * in given time {@code timeMs}.
@@ -251,11 +261,11 @@ public class DfsPath
         
         if(sn != null)
         {
-            FileSystemObject obj = sn.getRootDir().getChildObject(this.task.getFile().getFullPath());
+            FileSystemObject obj = sn.getFsManager().getObject(this.task.getFile().getFullPath());
             // if it is an upload and the file does not exist we create a new one
             if(this.task instanceof PutSimulationTask && obj == null)
             {
-                obj = sn.getRootDir().getChildObject(this.task.getFile().getFullPath(), true);
+                obj = sn.getFsManager().getObject(this.task.getFile().getFullPath(), true);
             }
             
             if(obj instanceof FsFile)
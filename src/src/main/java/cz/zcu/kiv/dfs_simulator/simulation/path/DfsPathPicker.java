@@ -17,6 +17,7 @@ import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotMountedException;
 import cz.zcu.kiv.dfs_simulator.simulation.SimulationTask;
 import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
+import java.util.Collection;
 
 /**
  * Selecting (picking) path for data transfer.
@@ -43,6 +44,23 @@ public interface DfsPathPicker
      */
     public DfsPath selectPath(ModelNode origin, SimulationTask task, long sTime, ModelServerNode forceTarget, SimulationType simType) throws NoPathAvailableException, FsObjectNotFoundException, NotMountedException;
     
+    /**
+     * Select best path from {@code origin} to one of {@code serverNodes},
+     * based on simulation task {@code task}.
+     * 
+     * @param origin origin node
+     * @param task simulation task associated with this path select
+     * @param sTime simulation time
+     * @param serverNodes candidate destination servers
+     * @param simType simulation type
+     * @return selected path
+     * @throws NoPathAvailableException when there is no path from {@code origin} to
+     * any of {@code serverNodes}
+     * @throws NotMountedException when the file associated with {@code task}
+     * is not mounted
+     */
+    public DfsPath selectPathAmong(ModelNode origin, SimulationTask task, long sTime, Collection<ModelServerNode> serverNodes, SimulationType simType) throws NoPathAvailableException, NotMountedException;
+    
     /**
      * Get the amount of the required to query any registry (metadata server).
      * Usually used when we are asking if some file exists or not - this
@@ -54,4 +72,20 @@ public interface DfsPathPicker
      * server neighbours
      */
     public long getObjectRegistryQueryTime(ModelClientNode origin) throws NoNeighboursAvailableException;
+    
+    /**
+     * Get the lowest one-way latency of sending a request from {@code origin}
+     * to {@code target}. Unlike data transfer paths, the target does not
+     * have to hold any object (e.g. metadata server). Failed servers 
+     * can neither route nor receive requests.
+     * 
+     * @param origin origin node
+     * @param target target server
+     * @param task task the request is sent for
+     * @param sTime simulation time
+     * @return latency
+     * @throws NoPathAvailableException when there is no route from {@code origin}
+     * to {@code target} or {@code target} has failed
+     */
+    public long getQueryLatency(ModelNode origin, ModelServerNode target, SimulationTask task, long sTime) throws NoPathAvailableException;
 }
@@ -9,12 +9,14 @@ import cz.zcu.kiv.dfs_simulator.simulation.SimulationTask;
 import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
 import cz.zcu.kiv.dfs_simulator.simulation.graph.DijkstraGraphSearcher;
 import cz.zcu.kiv.dfs_simulator.simulation.graph.metric.DistanceMetric;
+import cz.zcu.kiv.dfs_simulator.simulation.graph.metric.LatencyMetric;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotMountedException;
 import java.util.List;
 import cz.zcu.kiv.dfs_simulator.simulation.graph.GraphSearcher;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
@@ -24,6 +26,8 @@ public class MetricDfsPathPicker implements DfsPathPicker
     
     private final GraphSearcher graphSearcher;
     
+    private final GraphSearcher queryGraphSearcher = new DijkstraGraphSearcher(new LatencyMetric());
+    
     public MetricDfsPathPicker(GraphSearcher graphSearcher)
     {
         this.graphSearcher = graphSearcher;
@@ -58,6 +62,14 @@ public class MetricDfsPathPicker implements DfsPathPicker
             throw new FsObjectNotFoundException("Couldn't find requested file in file registry.");
         }
         
+        return this.selectPathAmong(origin, task, sTime, serverNodes, simType);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override public DfsPath selectPathAmong(ModelNode origin, SimulationTask task, long sTime, Collection<ModelServerNode> serverNodes, SimulationType simType) throws NoPathAvailableException, NotMountedException
+    {
         // get metric comparator
         Comparator<Long> comparator = this.graphSearcher.getMetric().getComparator();
         
@@ -104,4 +116,30 @@ public class MetricDfsPathPicker implements DfsPathPicker
         return serverConnections.get(0).getLatency();
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override public long getQueryLatency(ModelNode origin, ModelServerNode target, SimulationTask task, long sTime) throws NoPathAvailableException
+    {
+        List<ModelNodeConnection> path = new ArrayList<>();
+        Long latency;
+        
+        try
+        {
+            latency = this.queryGraphSearcher.findPath(origin, target, task, sTime, path, null);
+        }
+        catch(NotMountedException ex)
+        {
+            throw new NoPathAvailableException(ex.getMessage());
+        }
+        
+        // failed target cannot be reached
+        if(latency == null)
+        {
+            throw new NoPathAvailableException("No path available");
+        }
+        
+        return latency;
+    }
+    
 }
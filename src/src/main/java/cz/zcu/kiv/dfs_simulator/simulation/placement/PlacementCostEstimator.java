@@ -0,0 +1,179 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.simulation.placement;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ModelNode;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotMountedException;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import cz.zcu.kiv.dfs_simulator.simulation.GetSimulationTask;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
+import cz.zcu.kiv.dfs_simulator.simulation.graph.DijkstraGraphSearcher;
+import cz.zcu.kiv.dfs_simulator.simulation.graph.metric.GraphMetric;
+import cz.zcu.kiv.dfs_simulator.simulation.graph.metric.PathThroughputLatencyMetric;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates transfer time of a file between a node and a candidate replica 
+ * target (server and its storage device), regardless of whether the file
+ * is currently placed there. Estimates use the same metric as 
+ * {@link SimulationType#PATH_THROUGHPUT_AND_LATENCY} and are cached, estimator
+ * can be used from multiple threads at once.
+ */
+public class PlacementCostEstimator
+{
+    /**
+     * Estimated transfer time to unreachable target
+     */
+    public static final long UNREACHABLE_TIME = 1000000000000L;
+    
+    /**
+     * Cached transfer times (origin -> target -> file size -> time)
+     */
+    private final Map<ModelNode, Map<ReplicaTarget, Map<Long, Long>>> transferTimes = new ConcurrentHashMap<>();
+    
+    /**
+     * Get estimated time of transferring {@code file} between {@code origin}
+     * and {@code target}.
+     * 
+     * @param origin origin node
+     * @param target candidate replica target
+     * @param file transfered file
+     * @return estimated transfer time (ms) or {@link #UNREACHABLE_TIME}
+     */
+    public long getTransferTime(ModelNode origin, ReplicaTarget target, FsFile file)
+    {
+        Map<Long, Long> sizeTimes = this.transferTimes
+                .computeIfAbsent(origin, o -> new ConcurrentHashMap<>())
+                .computeIfAbsent(target, t -> new ConcurrentHashMap<>());
+        
+        return sizeTimes.computeIfAbsent(file.getSize().bytesProperty().get(), 
+                s -> this.estimateTransferTime(origin, target, file));
+    }
+    
+    /**
+     * Estimate time of transferring {@code file} between {@code origin} 
+     * and {@code target} using best path between them.
+     * 
+     * @param origin origin node
+     * @param target candidate replica target
+     * @param file transfered file
+     * @return estimated transfer time (ms) or {@link #UNREACHABLE_TIME}
+     */
+    private long estimateTransferTime(ModelNode origin, ReplicaTarget target, FsFile file)
+    {
+        if(origin == target.serverNode)
+        {
+            return 0;
+        }
+        
+        // graph searcher keeps state of the last search, therefore it 
+        // cannot be shared between threads
+        DijkstraGraphSearcher searcher = new DijkstraGraphSearcher(new CandidateStorageMetric(target.storage));
+        
+        try
+        {
+            Long time = searcher.findPath(origin, target.serverNode, new GetSimulationTask(file), 0, 
+                    new ArrayList<>(), SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+            
+            return (time != null && time < UNREACHABLE_TIME) ? time : UNREACHABLE_TIME;
+        }
+        catch(NotMountedException ex)
+        {
+            return UNREACHABLE_TIME;
+        }
+    }
+    
+    /**
+     * Path throughput and latency metric with disk bandwidth given by 
+     * candidate storage device instead of the current mount device of object.
+     */
+    private static class CandidateStorageMetric implements GraphMetric
+    {
+        /**
+         * Underlying metric
+         */
+        private final GraphMetric metric = new PathThroughputLatencyMetric();
+        /**
+         * Candidate storage device
+         */
+        private final ServerStorage storage;
+        
+        /**
+         * Candidate storage metric.
+         * 
+         * @param storage candidate storage device
+         */
+        public CandidateStorageMetric(ServerStorage storage)
+        {
+            this.storage = storage;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override public long getBestMetricValue()
+        {
+            return this.metric.getBestMetricValue();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override public long getWorstMetricValue()
+        {
+            return this.metric.getWorstMetricValue();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override public long getCombinedEdgeWeight(long weightCurrent, long weightEdge, ModelNodeConnection conn)
+        {
+            return this.metric.getCombinedEdgeWeight(weightCurrent, weightEdge, conn);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override public long getEdgeWeight(ModelNodeConnection connection, ByteSize transferSize, ByteSpeed diskBandwidth, long sTime)
+        {
+            return this.metric.getEdgeWeight(connection, transferSize, diskBandwidth, sTime);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override public Comparator<Long> getComparator()
+        {
+            return this.metric.getComparator();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override public ByteSpeed getPossibleDiskBandwidth(ModelServerNode server, FileSystemObject targetObject, SimulationType type)
+        {
+            return this.storage.getMaximumSpeed();
+        }
+    }
+}
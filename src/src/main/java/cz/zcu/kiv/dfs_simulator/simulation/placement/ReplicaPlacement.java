@@ -0,0 +1,182 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.simulation.placement;
+
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replica placement of files - replica targets of each file together
+ * with estimated total transfer time of a simulation plan.
+ */
+public class ReplicaPlacement
+{
+    /**
+     * Replica targets of files
+     */
+    private final Map<FsFile, List<ReplicaTarget>> targets = new LinkedHashMap<>();
+    /**
+     * Estimated total transfer time
+     */
+    private long estimatedTime = 0;
+    
+    /**
+     * Set replica targets of {@code file}.
+     * 
+     * @param file file
+     * @param fileTargets replica targets
+     */
+    public void setTargets(FsFile file, List<ReplicaTarget> fileTargets)
+    {
+        this.targets.put(file, new ArrayList<>(fileTargets));
+    }
+    
+    /**
+     * Get replica targets of {@code file}.
+     * 
+     * @param file file
+     * @return replica targets or null if file is not part of placement
+     */
+    public List<ReplicaTarget> getTargets(FsFile file)
+    {
+        return this.targets.get(file);
+    }
+    
+    /**
+     * Get files in placement.
+     * 
+     * @return files
+     */
+    public Set<FsFile> getFiles()
+    {
+        return this.targets.keySet();
+    }
+    
+    /**
+     * Get estimated total transfer time of simulation plan with this placement.
+     * 
+     * @return estimated time (ms)
+     */
+    public long getEstimatedTime()
+    {
+        return this.estimatedTime;
+    }
+    
+    /**
+     * Set estimated total transfer time of simulation plan with this placement.
+     * 
+     * @param estimatedTime estimated time (ms)
+     */
+    public void setEstimatedTime(long estimatedTime)
+    {
+        this.estimatedTime = estimatedTime;
+    }
+    
+    /**
+     * Apply placement to the model - replace replica targets of all files.
+     * Replicas vacated by any file are removed before new replicas of any 
+     * file are added, so that space freed by one file can be used by another.
+     * If placement still cannot be applied, original replica targets 
+     * of all files are restored.
+     * 
+     * @throws NotEnoughSpaceLeftException thrown when some target does not
+     * have enough space (model is left unchanged)
+     */
+    public void apply() throws NotEnoughSpaceLeftException
+    {
+        Map<FsFile, List<ReplicaTarget>> original = new LinkedHashMap<>();
+        
+        for(FsFile file : this.targets.keySet())
+        {
+            original.put(file, FsGlobalReplicationManager.getReplicaTargets(file));
+        }
+        
+        try
+        {
+            int_apply(this.targets);
+        }
+        catch(NotEnoughSpaceLeftException ex)
+        {
+            try
+            {
+                int_apply(original);
+            }
+            catch(NotEnoughSpaceLeftException rollbackEx)
+            {
+                // original placement did fit, force it as a last resort
+                // so that no file is left without replicas
+                original.forEach((file, fileTargets) -> 
+                        FsGlobalReplicationManager.forceUpdateReplicaTargets(getInstance(file), fileTargets));
+            }
+            
+            throw ex;
+        }
+    }
+    
+    /**
+     * Internal method. Replace replica targets of files in two phases - first
+     * remove replicas that are not part of new targets (keeping at least 
+     * one replica of each file), then add new replicas.
+     * 
+     * @param placement replica targets of files
+     * @throws NotEnoughSpaceLeftException thrown when some target does not have enough space
+     */
+    private static void int_apply(Map<FsFile, List<ReplicaTarget>> placement) throws NotEnoughSpaceLeftException
+    {
+        for(Map.Entry<FsFile, List<ReplicaTarget>> entry : placement.entrySet())
+        {
+            FsFile instance = getInstance(entry.getKey());
+            List<ReplicaTarget> current = FsGlobalReplicationManager.getReplicaTargets(instance);
+            List<ReplicaTarget> kept = new ArrayList<>();
+            
+            for(ReplicaTarget rt : current)
+            {
+                if(entry.getValue().stream().anyMatch(t -> (t.serverNode == rt.serverNode && t.storage == rt.storage)))
+                {
+                    kept.add(rt);
+                }
+            }
+            
+            if(!kept.isEmpty() && kept.size() < current.size())
+            {
+                FsGlobalReplicationManager.updateReplicaTargets(instance, kept);
+            }
+        }
+        
+        for(Map.Entry<FsFile, List<ReplicaTarget>> entry : placement.entrySet())
+        {
+            FsGlobalReplicationManager.updateReplicaTargets(getInstance(entry.getKey()), entry.getValue());
+        }
+    }
+    
+    /**
+     * Get instance of {@code file} that is still part of the model - 
+     * {@code file} itself may have been removed from its server.
+     * 
+     * @param file file
+     * @return file instance
+     */
+    private static FsFile getInstance(FsFile file)
+    {
+        FsFile instance = FsGlobalReplicationManager.getReplicaInstance(file.getFullPath());
+        
+        return (instance != null) ? instance : file;
+    }
+}
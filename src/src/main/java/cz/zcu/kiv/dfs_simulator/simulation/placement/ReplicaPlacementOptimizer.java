@@ -0,0 +1,541 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.simulation.placement;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Pair;
+import cz.zcu.kiv.dfs_simulator.model.ModelClientNode;
+import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.SimulationContext;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsErasureCodingManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import cz.zcu.kiv.dfs_simulator.simulation.GetSimulationTask;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationPlan;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationTask;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Workload-aware replica placement optimizer. Searches for replica targets 
+ * of files accessed by a simulation plan that minimize estimated total 
+ * transfer time of the plan, while respecting capacity of storage devices.
+ * Placement is first built greedily (most accessed files first, replica 
+ * by replica) and then improved by local search (moving single replicas).
+ * Candidate targets are evaluated in parallel, workers are bound to 
+ * the context of optimized model.
+ * <p>
+ * Download of a file is estimated as transfer from its best replica, upload 
+ * as transfer to its best replica followed by fan-out replication 
+ * to the other replicas.
+ */
+public class ReplicaPlacementOptimizer
+{
+    /**
+     * Default maximum number of local search iterations
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 10;
+    
+    /**
+     * Context of optimized model
+     */
+    private final SimulationContext context;
+    /**
+     * Client executing simulation plan
+     */
+    private final ModelClientNode client;
+    /**
+     * Simulation plan
+     */
+    private final SimulationPlan plan;
+    /**
+     * Number of replicas of each file (0 keeps current number of replicas)
+     */
+    private final int replicationFactor;
+    /**
+     * Transfer time estimator
+     */
+    private final PlacementCostEstimator estimator = new PlacementCostEstimator();
+    /**
+     * Maximum number of local search iterations
+     */
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    
+    /**
+     * Replica placement optimizer of model in context of the calling thread,
+     * keeping current number of replicas of each file.
+     * 
+     * @param client client executing simulation plan
+     * @param plan simulation plan
+     */
+    public ReplicaPlacementOptimizer(ModelClientNode client, SimulationPlan plan)
+    {
+        this(SimulationContext.getCurrent(), client, plan, 0);
+    }
+    
+    /**
+     * Replica placement optimizer keeping current number of replicas of each file.
+     * 
+     * @param context context of optimized model
+     * @param client client executing simulation plan
+     * @param plan simulation plan
+     */
+    public ReplicaPlacementOptimizer(SimulationContext context, ModelClientNode client, SimulationPlan plan)
+    {
+        this(context, client, plan, 0);
+    }
+    
+    /**
+     * Replica placement optimizer.
+     * 
+     * @param context context of optimized model
+     * @param client client executing simulation plan
+     * @param plan simulation plan
+     * @param replicationFactor number of replicas of each file (0 keeps current number of replicas)
+     */
+    public ReplicaPlacementOptimizer(SimulationContext context, ModelClientNode client, SimulationPlan plan, int replicationFactor)
+    {
+        this.context = context;
+        this.client = client;
+        this.plan = plan;
+        this.replicationFactor = replicationFactor;
+    }
+    
+    /**
+     * Set maximum number of local search iterations.
+     * 
+     * @param maxIterations maximum number of iterations
+     */
+    public void setMaxIterations(int maxIterations)
+    {
+        this.maxIterations = maxIterations;
+    }
+    
+    /**
+     * Get current placement of files accessed by simulation plan with its 
+     * estimated total transfer time.
+     * 
+     * @return current placement
+     */
+    public ReplicaPlacement getCurrentPlacement()
+    {
+        return this.context.call(this::int_getCurrentPlacement);
+    }
+    
+    /**
+     * Internal method. Get current placement in context of the calling thread.
+     * 
+     * @return current placement
+     */
+    private ReplicaPlacement int_getCurrentPlacement()
+    {
+        ReplicaPlacement placement = new ReplicaPlacement();
+        long estimatedTime = 0;
+        
+        for(FileAccess access : this.getFileAccesses())
+        {
+            List<ReplicaTarget> targets = FsGlobalReplicationManager.getReplicaTargets(access.file);
+            
+            placement.setTargets(access.file, targets);
+            estimatedTime += this.getAccessTime(access, targets);
+        }
+        
+        placement.setEstimatedTime(estimatedTime);
+        
+        return placement;
+    }
+    
+    /**
+     * Search for placement of files accessed by simulation plan with 
+     * minimal estimated total transfer time.
+     * 
+     * @return optimized placement
+     */
+    public ReplicaPlacement optimize()
+    {
+        return this.context.call(this::int_optimize);
+    }
+    
+    /**
+     * Internal method. Search for optimal placement in context of the calling thread.
+     * 
+     * @return optimized placement
+     */
+    private ReplicaPlacement int_optimize()
+    {
+        List<FileAccess> accesses = this.getFileAccesses();
+        List<ReplicaTarget> candidates = this.getCandidateTargets();
+        Map<ServerStorage, Long> freeSpace = this.getFreeSpace(accesses, candidates);
+        Map<FileAccess, List<ReplicaTarget>> targets = new LinkedHashMap<>();
+        
+        // greedy - most demanding files first
+        accesses.sort(Comparator.comparingLong(FileAccess::getWeight).reversed());
+        
+        for(FileAccess access : accesses)
+        {
+            targets.put(access, this.placeGreedily(access, candidates, freeSpace));
+        }
+        
+        this.improveLocally(targets, candidates, freeSpace);
+        
+        ReplicaPlacement placement = new ReplicaPlacement();
+        long estimatedTime = 0;
+        
+        for(Map.Entry<FileAccess, List<ReplicaTarget>> entry : targets.entrySet())
+        {
+            placement.setTargets(entry.getKey().file, entry.getValue());
+            estimatedTime += this.getAccessTime(entry.getKey(), entry.getValue());
+        }
+        
+        placement.setEstimatedTime(estimatedTime);
+        
+        return placement;
+    }
+    
+    /**
+     * Place replicas of a single file one by one, each onto the candidate 
+     * target that minimizes estimated access time of the file.
+     * 
+     * @param access file access
+     * @param candidates candidate targets
+     * @param freeSpace free space of storage devices (updated)
+     * @return replica targets
+     */
+    private List<ReplicaTarget> placeGreedily(FileAccess access, List<ReplicaTarget> candidates, Map<ServerStorage, Long> freeSpace)
+    {
+        List<ReplicaTarget> targets = new ArrayList<>();
+        int replicas = (this.replicationFactor > 0) ? this.replicationFactor : access.currentReplicas;
+        long size = access.getSize();
+        
+        for(int r = 0; r < replicas; r++)
+        {
+            Optional<ReplicaTarget> best = candidates.parallelStream()
+                    .filter(c -> this.isTargetAllowed(c, targets, -1, size, freeSpace))
+                    .min(Comparator.comparingLong(c -> this.context.call(() -> this.getAccessTime(access, this.withTarget(targets, -1, c)))));
+            
+            if(!best.isPresent())
+            {
+                break;
+            }
+            
+            targets.add(best.get());
+            freeSpace.merge(best.get().storage, -size, Long::sum);
+        }
+        
+        return targets;
+    }
+    
+    /**
+     * Improve placement by moving single replicas to targets which lower
+     * estimated access time of their file, until no move improves it
+     * or maximum number of iterations is reached.
+     * 
+     * @param targets replica targets of files (updated)
+     * @param candidates candidate targets
+     * @param freeSpace free space of storage devices (updated)
+     */
+    private void improveLocally(Map<FileAccess, List<ReplicaTarget>> targets, List<ReplicaTarget> candidates, Map<ServerStorage, Long> freeSpace)
+    {
+        for(int it = 0; it < this.maxIterations; it++)
+        {
+            boolean improved = false;
+            
+            for(Map.Entry<FileAccess, List<ReplicaTarget>> entry : targets.entrySet())
+            {
+                FileAccess access = entry.getKey();
+                List<ReplicaTarget> fileTargets = entry.getValue();
+                long size = access.getSize();
+                long currentTime = this.getAccessTime(access, fileTargets);
+                
+                for(int i = 0; i < fileTargets.size(); i++)
+                {
+                    final int replaced = i;
+                    
+                    Optional<Pair<ReplicaTarget, Long>> best = candidates.parallelStream()
+                            .filter(c -> this.isTargetAllowed(c, fileTargets, replaced, size, freeSpace))
+                            .map(c -> new Pair<>(c, this.context.call(() -> this.getAccessTime(access, this.withTarget(fileTargets, replaced, c)))))
+                            .min(Comparator.comparingLong(p -> p.second));
+                    
+                    if(best.isPresent() && best.get().second < currentTime)
+                    {
+                        ReplicaTarget previous = fileTargets.set(replaced, best.get().first);
+                        
+                        freeSpace.merge(previous.storage, size, Long::sum);
+                        freeSpace.merge(best.get().first.storage, -size, Long::sum);
+                        
+                        currentTime = best.get().second;
+                        improved = true;
+                    }
+                }
+            }
+            
+            if(!improved)
+            {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Checks if {@code candidate} can hold replica of file of size {@code size}.
+     * Replicas of a single file have to be placed on different servers.
+     * 
+     * @param candidate candidate target
+     * @param targets current replica targets of file
+     * @param replaced index of replaced target (-1 if candidate would be added)
+     * @param size file size
+     * @param freeSpace free space of storage devices
+     * @return true if candidate can be used, false otherwise
+     */
+    private boolean isTargetAllowed(ReplicaTarget candidate, List<ReplicaTarget> targets, int replaced, long size, Map<ServerStorage, Long> freeSpace)
+    {
+        for(int i = 0; i < targets.size(); i++)
+        {
+            if(i == replaced)
+            {
+                if(targets.get(i).equals(candidate))
+                {
+                    return false;
+                }
+            }
+            else if(targets.get(i).serverNode == candidate.serverNode)
+            {
+                return false;
+            }
+        }
+        
+        return freeSpace.getOrDefault(candidate.storage, 0L) >= size;
+    }
+    
+    /**
+     * Get copy of {@code targets} with {@code candidate} added 
+     * (or replacing target at {@code replaced}).
+     * 
+     * @param targets replica targets
+     * @param replaced index of replaced target (-1 to add candidate)
+     * @param candidate candidate target
+     * @return new replica targets
+     */
+    private List<ReplicaTarget> withTarget(List<ReplicaTarget> targets, int replaced, ReplicaTarget candidate)
+    {
+        List<ReplicaTarget> newTargets = new ArrayList<>(targets);
+        
+        if(replaced < 0)
+        {
+            newTargets.add(candidate);
+        }
+        else
+        {
+            newTargets.set(replaced, candidate);
+        }
+        
+        return newTargets;
+    }
+    
+    /**
+     * Get estimated time of all accesses to a file placed onto {@code targets}.
+     * 
+     * @param access file access
+     * @param targets replica targets
+     * @return estimated access time (ms)
+     */
+    private long getAccessTime(FileAccess access, List<ReplicaTarget> targets)
+    {
+        if(targets.isEmpty())
+        {
+            return (access.gets + access.puts) * PlacementCostEstimator.UNREACHABLE_TIME;
+        }
+        
+        ReplicaTarget primary = null;
+        long transferTime = 0;
+        
+        for(ReplicaTarget target : targets)
+        {
+            long time = this.estimator.getTransferTime(this.client, target, access.file);
+            
+            if(primary == null || time < transferTime)
+            {
+                primary = target;
+                transferTime = time;
+            }
+        }
+        
+        long accessTime = access.gets * transferTime;
+        
+        if(access.puts > 0)
+        {
+            long replicationTime = 0;
+            
+            for(ReplicaTarget target : targets)
+            {
+                if(target != primary)
+                {
+                    replicationTime = Math.max(replicationTime, 
+                            this.estimator.getTransferTime(primary.serverNode, target, access.file));
+                }
+            }
+            
+            accessTime += access.puts * (transferTime + replicationTime);
+        }
+        
+        return accessTime;
+    }
+    
+    /**
+     * Get all candidate targets - every storage device of every server.
+     * 
+     * @return candidate targets
+     */
+    private List<ReplicaTarget> getCandidateTargets()
+    {
+        List<ReplicaTarget> candidates = new ArrayList<>();
+        
+        for(ModelServerNode server : ModelNodeRegistry.getServerNodes())
+        {
+            for(ServerStorage storage : server.getStorageManager().getStorage())
+            {
+                candidates.add(new ReplicaTarget(server, storage));
+            }
+        }
+        
+        return candidates;
+    }
+    
+    /**
+     * Get free space of candidate storage devices. Space occupied by replicas
+     * of optimized files is considered free, because they are placed anew.
+     * 
+     * @param accesses optimized file accesses
+     * @param candidates candidate targets
+     * @return free space of storage devices in bytes
+     */
+    private Map<ServerStorage, Long> getFreeSpace(List<FileAccess> accesses, List<ReplicaTarget> candidates)
+    {
+        Map<ServerStorage, Long> freeSpace = new HashMap<>();
+        
+        for(ReplicaTarget candidate : candidates)
+        {
+            freeSpace.put(candidate.storage, 
+                    candidate.serverNode.getFsManager().getStorageUnusedSize(candidate.storage).bytesProperty().get());
+        }
+        
+        for(FileAccess access : accesses)
+        {
+            for(ReplicaTarget target : FsGlobalReplicationManager.getReplicaTargets(access.file))
+            {
+                freeSpace.merge(target.storage, access.getSize(), Long::sum);
+            }
+        }
+        
+        return freeSpace;
+    }
+    
+    /**
+     * Get access distribution of simulation plan - number of downloads 
+     * and uploads of each existing file. Files split into blocks or erasure
+     * coded are skipped, their placement is given by their parts.
+     * 
+     * @return file accesses
+     */
+    private List<FileAccess> getFileAccesses()
+    {
+        Map<String, FileAccess> accesses = new LinkedHashMap<>();
+        
+        for(SimulationTask task : this.plan.getTasks())
+        {
+            FsFile file = task.getFile();
+            
+            if(FsGlobalObjectRegistry.getObjectEntry(file) == null || 
+                    FsBlockManager.isFileBlocked(file) || FsErasureCodingManager.isFileEncoded(file))
+            {
+                continue;
+            }
+            
+            FileAccess access = accesses.computeIfAbsent(file.getFullPath(), p -> new FileAccess(file));
+            
+            if(task instanceof GetSimulationTask)
+            {
+                access.gets++;
+            }
+            else
+            {
+                access.puts++;
+            }
+        }
+        
+        return new ArrayList<>(accesses.values());
+    }
+    
+    /**
+     * Number of accesses to a single file by simulation plan.
+     */
+    private static class FileAccess
+    {
+        /**
+         * Accessed file
+         */
+        private final FsFile file;
+        /**
+         * Current number of replicas
+         */
+        private final int currentReplicas;
+        /**
+         * Number of downloads
+         */
+        private int gets = 0;
+        /**
+         * Number of uploads
+         */
+        private int puts = 0;
+        
+        /**
+         * File access.
+         * 
+         * @param file accessed file
+         */
+        public FileAccess(FsFile file)
+        {
+            this.file = file;
+            this.currentReplicas = Math.max(1, FsGlobalReplicationManager.getReplicaTargets(file).size());
+        }
+        
+        /**
+         * Get accessed file size.
+         * 
+         * @return size in bytes
+         */
+        public long getSize()
+        {
+            return this.file.getSize().bytesProperty().get();
+        }
+        
+        /**
+         * Get access weight - amount of transfered data.
+         * 
+         * @return weight
+         */
+        public long getWeight()
+        {
+            return (this.gets + this.puts) * this.getSize();
+        }
+    }
+}
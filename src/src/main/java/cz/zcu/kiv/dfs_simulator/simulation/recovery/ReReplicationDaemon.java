@@ -0,0 +1,380 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.recovery;
+
+import cz.zcu.kiv.dfs_simulator.helpers.Pair;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperationCallback;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotMountedException;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.ObjectRegistryEntry;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.PutSimulationTask;
+import cz.zcu.kiv.dfs_simulator.simulation.ServerFailure;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationBackgroundProcess;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
+import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
+import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPathPicker;
+import cz.zcu.kiv.dfs_simulator.simulation.path.NoPathAvailableException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Re-replication process. Fails servers at times given by server failure
+ * events and restores replica count of every file that lost a replica
+ * by copying it from a surviving replica onto another server. At most
+ * {@link #maxParallelTransfers} files are re-replicated at once, each
+ * at a throttled rate, while simulation tasks keep running. Failed servers
+ * and re-replicated files are reverted once simulation ends.
+ */
+public class ReReplicationDaemon implements SimulationBackgroundProcess
+{
+    /**
+     * Default re-replication rate limit (of a single file)
+     */
+    public static final ByteSpeed DEFAULT_RATE_LIMIT = new ByteSpeed(50, ByteSpeedUnits.MBPS);
+    /**
+     * Default maximum number of files re-replicated at once
+     */
+    public static final int DEFAULT_MAX_PARALLEL_TRANSFERS = 4;
+    
+    /**
+     * Server failure events
+     */
+    private final List<ServerFailure> failures;
+    /**
+     * Path picker used to select path from surviving replica to new target
+     */
+    private final DfsPathPicker pathPicker;
+    /**
+     * Running simulation type
+     */
+    private final SimulationType simType;
+    /**
+     * Maximum speed of a single re-replication
+     */
+    private final ByteSpeed rateLimit;
+    /**
+     * Maximum number of files re-replicated at once
+     */
+    private final int maxParallelTransfers;
+    
+    /**
+     * Failure events that have not happened yet (ordered by time)
+     */
+    private final List<ServerFailure> pendingFailures = new ArrayList<>();
+    /**
+     * Recoveries of failed servers
+     */
+    private final List<ServerRecovery> recoveries = new ArrayList<>();
+    /**
+     * Files waiting to be re-replicated
+     */
+    private final ArrayDeque<Pair<FsFile, ServerRecovery>> queue = new ArrayDeque<>();
+    /**
+     * Re-replicated files - server and path of topmost object created on it
+     */
+    private final List<Pair<ModelServerNode, String>> createdReplicas = new ArrayList<>();
+    /**
+     * Number of running re-replications
+     */
+    private int activeTransfers = 0;
+    /**
+     * Simulation has ended flag - late operation callbacks are ignored
+     */
+    private boolean ended = false;
+    
+    /**
+     * Re-replication process.
+     * 
+     * @param failures server failure events
+     * @param pathPicker path picker
+     * @param simType running simulation type
+     * @param rateLimit maximum speed of a single re-replication
+     * @param maxParallelTransfers maximum number of files re-replicated at once
+     */
+    public ReReplicationDaemon(List<ServerFailure> failures, DfsPathPicker pathPicker, SimulationType simType, ByteSpeed rateLimit, int maxParallelTransfers)
+    {
+        this.failures = failures;
+        this.pathPicker = pathPicker;
+        this.simType = simType;
+        this.rateLimit = rateLimit;
+        this.maxParallelTransfers = maxParallelTransfers;
+    }
+    
+    /**
+     * Re-replication process with default rate limit and parallelism.
+     * 
+     * @param failures server failure events
+     * @param pathPicker path picker
+     * @param simType running simulation type
+     */
+    public ReReplicationDaemon(List<ServerFailure> failures, DfsPathPicker pathPicker, SimulationType simType)
+    {
+        this(failures, pathPicker, simType, DEFAULT_RATE_LIMIT, DEFAULT_MAX_PARALLEL_TRANSFERS);
+    }
+    
+    /**
+     * Get recoveries of servers that have failed during simulation.
+     * 
+     * @return recoveries
+     */
+    public List<ServerRecovery> getRecoveries()
+    {
+        return this.recoveries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationStarted(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        this.pendingFailures.clear();
+        this.pendingFailures.addAll(this.failures);
+        Collections.sort(this.pendingFailures, (a, b) -> Long.compare(a.getTime(), b.getTime()));
+        
+        this.recoveries.clear();
+        this.queue.clear();
+        this.createdReplicas.clear();
+        this.activeTransfers = 0;
+        this.ended = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationTimeAdvanced(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        while(!this.pendingFailures.isEmpty() && this.pendingFailures.get(0).getTime() <= sTime)
+        {
+            this.failServer(this.pendingFailures.remove(0), logger, sTime);
+        }
+        
+        while(this.activeTransfers < this.maxParallelTransfers && !this.queue.isEmpty())
+        {
+            Pair<FsFile, ServerRecovery> item = this.queue.poll();
+            
+            if(!this.startReReplication(item.first, item.second, logger, sTime))
+            {
+                item.second.onFileLost(sTime);
+                this.logRecoveryFinished(item.second, logger, sTime);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public boolean hasPendingWork()
+    {
+        return (!this.pendingFailures.isEmpty() || !this.queue.isEmpty() || this.activeTransfers > 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void onSimulationEnded(List<ModelServerNode> servers, DfsSimulatorLogger logger, long sTime)
+    {
+        this.ended = true;
+        
+        // revert model into its state before simulation
+        for(Pair<ModelServerNode, String> replica : this.createdReplicas)
+        {
+            replica.first.getFsManager().removeDirectoryChild(replica.second);
+        }
+        
+        for(ServerRecovery recovery : this.recoveries)
+        {
+            recovery.getServer().setFailed(false);
+        }
+    }
+    
+    /**
+     * Fail server of {@code failure} and queue all files that lost
+     * a replica for re-replication.
+     * 
+     * @param failure server failure event
+     * @param logger simulation logger
+     * @param sTime simulation time
+     */
+    private void failServer(ServerFailure failure, DfsSimulatorLogger logger, long sTime)
+    {
+        ModelServerNode server = failure.getServer();
+        
+        if(server == null || server.isFailed())
+        {
+            logger.logError("Unable to fail server " + failure.getServerID() + ", it does not exist or has already failed.", sTime);
+            
+            return;
+        }
+        
+        server.setFailed(true);
+        logger.logServerFailed(server, sTime);
+        
+        ServerRecovery recovery = new ServerRecovery(server, sTime);
+        this.recoveries.add(recovery);
+        
+        for(ObjectRegistryEntry entry : FsGlobalObjectRegistry.getEntries())
+        {
+            if(!entry.servers.contains(server))
+            {
+                continue;
+            }
+            
+            FsFile file = entry.fsObjects.stream().filter(o -> (o instanceof FsFile)).map(o -> (FsFile) o).findFirst().orElse(null);
+            
+            if(file == null)
+            {
+                continue;
+            }
+            
+            recovery.addUnderReplicatedFile(file.getSize().bytesProperty().get());
+            this.queue.add(new Pair<>(file, recovery));
+        }
+        
+        recovery.checkFinished(sTime);
+        this.logRecoveryFinished(recovery, logger, sTime);
+    }
+    
+    /**
+     * Start re-replication of {@code file} from its best reachable surviving 
+     * replica onto a server that does not have it yet.
+     * 
+     * @param file re-replicated file
+     * @param recovery recovery the file belongs to
+     * @param logger simulation logger
+     * @param sTime simulation time
+     * @return true if re-replication has started, false if file cannot be re-replicated
+     */
+    private boolean startReReplication(FsFile file, ServerRecovery recovery, DfsSimulatorLogger logger, long sTime)
+    {
+        ObjectRegistryEntry entry = FsGlobalObjectRegistry.getObjectEntry(file);
+        
+        if(entry == null)
+        {
+            return false;
+        }
+        
+        List<ModelServerNode> candidates = ModelNodeRegistry.getServerNodes().stream()
+                .filter(s -> !s.isFailed() && !entry.servers.contains(s) && s.getFsManager().getFileTargetStorage(file) != null)
+                .collect(Collectors.toList());
+        
+        if(candidates.isEmpty())
+        {
+            return false;
+        }
+        
+        PutSimulationTask dummyTask = new PutSimulationTask(file);
+        
+        for(ModelServerNode source : entry.servers)
+        {
+            ServerStorage sourceStorage = source.getFsManager().getFsObjectMountDeviceByName(file);
+            
+            if(source.isFailed() || sourceStorage == null)
+            {
+                continue;
+            }
+            
+            try
+            {
+                DfsPath path = this.pathPicker.selectPathAmong(source, dummyTask, sTime, candidates, this.simType);
+                ModelServerNode target = path.getTarget();
+                ServerStorage targetStorage = target.getFsManager().getFileTargetStorage(file);
+                
+                List<FsFile> transferList = new ArrayList<>();
+                transferList.add(file);
+                
+                targetStorage.getOperationManager().addReplicationOperation(transferList, sourceStorage, path, this.rateLimit, 
+                        this.createCallback(file, source, new ReplicaTarget(target, targetStorage), recovery, logger), false);
+                
+                this.activeTransfers++;
+                
+                return true;
+            }
+            catch(NoPathAvailableException | NotMountedException ex)
+            {
+                // try another surviving replica
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Create callback of re-replication write operation. Replica is added
+     * to target server once all data have been written.
+     * 
+     * @param file re-replicated file
+     * @param source server sending the data
+     * @param target new replica
+     * @param recovery recovery the file belongs to
+     * @param logger simulation logger
+     * @return callback
+     */
+    private StorageOperationCallback createCallback(FsFile file, ModelServerNode source, ReplicaTarget target, ServerRecovery recovery, DfsSimulatorLogger logger)
+    {
+        return new StorageOperationCallback()
+        {
+            @Override public void onOperationStarted(long sTime)
+            {
+                logger.logReplicationStart(file, source, target.serverNode, sTime);
+            }
+
+            @Override public void onOperationFinished(long sTime)
+            {
+                if(ended)
+                {
+                    return;
+                }
+                
+                activeTransfers--;
+                
+                String createdPath = target.serverNode.getFsManager().getTopmostMissingPath(file);
+                List<ReplicaTarget> targets = new ArrayList<>();
+                targets.add(target);
+                
+                FsGlobalReplicationManager.forceReplicateFile(file, targets);
+                createdReplicas.add(new Pair<>(target.serverNode, createdPath));
+                
+                recovery.onFileRestored(file.getSize().bytesProperty().get(), sTime);
+                logger.logReplicationFinish(file, source, target.serverNode, sTime);
+                logRecoveryFinished(recovery, logger, sTime);
+            }
+        };
+    }
+    
+    /**
+     * Log finish of {@code recovery} if it has just finished.
+     * 
+     * @param recovery recovery
+     * @param logger simulation logger
+     * @param sTime simulation time
+     */
+    private void logRecoveryFinished(ServerRecovery recovery, DfsSimulatorLogger logger, long sTime)
+    {
+        if(recovery.isFinished() && recovery.getFinishTime() == sTime && 
+                (recovery.getRestoredFiles() + recovery.getLostFiles()) == recovery.getUnderReplicatedFiles())
+        {
+            logger.logRecoveryFinished(recovery, sTime);
+        }
+    }
+}
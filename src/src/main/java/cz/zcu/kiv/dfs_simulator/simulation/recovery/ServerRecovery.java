@@ -0,0 +1,228 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.recovery;
+
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+
+/**
+ * Progress of restoring replica count of files that were stored
+ * on a failed server.
+ */
+public class ServerRecovery
+{
+    /**
+     * Failed server
+     */
+    private final ModelServerNode server;
+    /**
+     * Simulation time of failure
+     */
+    private final long failureTime;
+    
+    /**
+     * Number of files that lost a replica and have to be re-replicated
+     */
+    private int underReplicatedFiles = 0;
+    /**
+     * Total size of files that have to be re-replicated
+     */
+    private long underReplicatedBytes = 0;
+    /**
+     * Number of re-replicated files
+     */
+    private int restoredFiles = 0;
+    /**
+     * Total size of re-replicated files
+     */
+    private long restoredBytes = 0;
+    /**
+     * Number of files that could not be re-replicated (no other replica 
+     * or no available target)
+     */
+    private int lostFiles = 0;
+    /**
+     * Simulation time at which all files have been processed (-1 if recovery is running)
+     */
+    private long finishTime = -1;
+    
+    /**
+     * Recovery after failure of {@code server}.
+     * 
+     * @param server failed server
+     * @param failureTime simulation time of failure
+     */
+    public ServerRecovery(ModelServerNode server, long failureTime)
+    {
+        this.server = server;
+        this.failureTime = failureTime;
+    }
+    
+    /**
+     * Record file that lost a replica and will be re-replicated.
+     * 
+     * @param bytes file size
+     */
+    public void addUnderReplicatedFile(long bytes)
+    {
+        this.underReplicatedFiles++;
+        this.underReplicatedBytes += bytes;
+    }
+    
+    /**
+     * Record re-replicated file.
+     * 
+     * @param bytes file size
+     * @param sTime simulation time
+     */
+    public void onFileRestored(long bytes, long sTime)
+    {
+        this.restoredFiles++;
+        this.restoredBytes += bytes;
+        this.checkFinished(sTime);
+    }
+    
+    /**
+     * Record file that lost a replica and cannot be re-replicated.
+     * 
+     * @param sTime simulation time
+     */
+    public void onFileLost(long sTime)
+    {
+        this.lostFiles++;
+        this.checkFinished(sTime);
+    }
+    
+    /**
+     * Finish recovery if all under-replicated files have been processed.
+     * 
+     * @param sTime simulation time
+     */
+    public void checkFinished(long sTime)
+    {
+        if(this.finishTime < 0 && (this.restoredFiles + this.lostFiles) >= this.underReplicatedFiles)
+        {
+            this.finishTime = sTime;
+        }
+    }
+    
+    /**
+     * Get failed server.
+     * 
+     * @return failed server
+     */
+    public ModelServerNode getServer()
+    {
+        return this.server;
+    }
+    
+    /**
+     * Get simulation time of failure.
+     * 
+     * @return failure time
+     */
+    public long getFailureTime()
+    {
+        return this.failureTime;
+    }
+    
+    /**
+     * Get simulation time at which recovery finished.
+     * 
+     * @return finish time or -1 if recovery is running
+     */
+    public long getFinishTime()
+    {
+        return this.finishTime;
+    }
+    
+    /**
+     * Checks if all under-replicated files have been processed.
+     * 
+     * @return true if finished, false otherwise
+     */
+    public boolean isFinished()
+    {
+        return (this.finishTime >= 0);
+    }
+    
+    /**
+     * Get time from failure until all files that could be re-replicated
+     * have regained their replica count.
+     * 
+     * @return time to full redundancy or -1 if recovery has not finished
+     */
+    public long getTimeToFullRedundancy()
+    {
+        return this.isFinished() ? (this.finishTime - this.failureTime) : -1;
+    }
+    
+    /**
+     * Get number of files that lost a replica.
+     * 
+     * @return number of under-replicated files
+     */
+    public int getUnderReplicatedFiles()
+    {
+        return this.underReplicatedFiles;
+    }
+    
+    /**
+     * Get total size of files that lost a replica.
+     * 
+     * @return under-replicated bytes
+     */
+    public long getUnderReplicatedBytes()
+    {
+        return this.underReplicatedBytes;
+    }
+    
+    /**
+     * Get number of re-replicated files.
+     * 
+     * @return number of restored files
+     */
+    public int getRestoredFiles()
+    {
+        return this.restoredFiles;
+    }
+    
+    /**
+     * Get total size of re-replicated files.
+     * 
+     * @return restored bytes
+     */
+    public long getRestoredBytes()
+    {
+        return this.restoredBytes;
+    }
+    
+    /**
+     * Get number of files that could not be re-replicated.
+     * 
+     * @return number of lost files
+     */
+    public int getLostFiles()
+    {
+        return this.lostFiles;
+    }
+    
+    /**
+     * Textual representation of recovery.
+     * 
+     * @return string representation
+     */
+    @Override public String toString()
+    {
+        return "Recovery of server " + this.server.toString() + " (" + this.restoredFiles + "/" + 
+                this.underReplicatedFiles + " files restored, " + this.lostFiles + " lost)";
+    }
+}
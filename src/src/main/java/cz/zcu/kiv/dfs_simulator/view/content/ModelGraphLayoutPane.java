@@ -13,13 +13,18 @@ package cz.zcu.kiv.dfs_simulator.view.content;
 
 import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistable;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableAttribute;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistenceLogger;
 import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
 import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
 import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationConsistency;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationMode;
 import cz.zcu.kiv.dfs_simulator.view.DragContainer;
 import cz.zcu.kiv.dfs_simulator.view.content.events.FxNodeEvent;
 import cz.zcu.kiv.dfs_simulator.view.content.events.FxNodeLabelEvent;
@@ -723,9 +728,55 @@ public class ModelGraphLayoutPane extends ScrollPane implements StatePersistable
         
         StatePersistableElement element = new StatePersistableElement(this.getPersistableName());
         
+        // global replication settings
+        element.addAttribute(new StatePersistableAttribute("replication_mode", FsGlobalReplicationManager.getReplicationMode().name()));
+        element.addAttribute(new StatePersistableAttribute("replication_consistency", FsGlobalReplicationManager.getConsistency().name()));
+        element.addAttribute(new StatePersistableAttribute("write_quorum", "" + FsGlobalReplicationManager.getWriteQuorum()));
+        
         return element;
     }
 
+    /**
+     * Restore global replication settings from {@code state}.
+     * 
+     * @param state persisted content state
+     * @throws InvalidPersistedStateException invalid replication settings
+     */
+    private void restoreReplicationSettings(StatePersistableElement state) throws InvalidPersistedStateException
+    {
+        // replication settings are optional (older saved states)
+        StatePersistableAttribute modeAttr = state.getAttribute("replication_mode");
+        StatePersistableAttribute consistencyAttr = state.getAttribute("replication_consistency");
+        StatePersistableAttribute quorumAttr = state.getAttribute("write_quorum");
+        
+        try
+        {
+            if(modeAttr != null)
+            {
+                FsGlobalReplicationManager.setReplicationMode(ReplicationMode.valueOf(modeAttr.getValue()));
+            }
+            
+            if(consistencyAttr != null)
+            {
+                FsGlobalReplicationManager.setConsistency(ReplicationConsistency.valueOf(consistencyAttr.getValue()));
+            }
+        }
+        catch(IllegalArgumentException ex)
+        {
+            throw new InvalidPersistedStateException("Unknown replication mode or consistency: " + state);
+        }
+        
+        if(quorumAttr != null)
+        {
+            if(!Helper.isInteger(quorumAttr.getValue()) || Integer.parseInt(quorumAttr.getValue()) < 0)
+            {
+                throw new InvalidPersistedStateException("Expected write_quorum attribute of non-negative numeric type: " + state);
+            }
+            
+            FsGlobalReplicationManager.setWriteQuorum(Integer.parseInt(quorumAttr.getValue()));
+        }
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -734,7 +785,9 @@ public class ModelGraphLayoutPane extends ScrollPane implements StatePersistable
         logger.logOperation(PERSISTABLE_NAME, "Restoring content.", true);
         
         if(state != null)
-        {            
+        {
+            this.restoreReplicationSettings(state);
+            
             int i = 0;
             for(StatePersistableElement childState : state.getElements())
             {
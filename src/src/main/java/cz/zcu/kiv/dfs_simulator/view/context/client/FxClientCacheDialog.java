@@ -0,0 +1,285 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.view.context.client;
+
+import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.cache.CacheEvictionPolicy;
+import cz.zcu.kiv.dfs_simulator.model.cache.ClientCache;
+import cz.zcu.kiv.dfs_simulator.model.cache.ClientMetadataCache;
+import cz.zcu.kiv.dfs_simulator.view.BaseInputDialog;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.TextField;
+
+/**
+ * Client cache configuration dialog. Configures both the data cache and
+ * the metadata (file location) cache.
+ */
+public class FxClientCacheDialog extends BaseInputDialog
+{
+    /**
+     * Cache maximum capacity
+     */
+    public static final ByteSize MAX_CAPACITY = new ByteSize(1000, ByteSizeUnits.GB);
+    /**
+     * Metadata cache maximum number of entries
+     */
+    public static final int MAX_METADATA_CAPACITY = 1000000;
+    
+    /**
+     * Cache enabled checkbox
+     */
+    @FXML private CheckBox enabledCheckBox;
+    /**
+     * Write through checkbox
+     */
+    @FXML private CheckBox writeThroughCheckBox;
+    
+    /**
+     * Cache capacity input
+     */
+    @FXML private TextField capacityInput;
+    /**
+     * Cache capacity unit select
+     */
+    @FXML private ChoiceBox<ByteSizeUnits> capacityUnitSelect;
+    
+    /**
+     * Local bandwidth input
+     */
+    @FXML private TextField bandwidthInput;
+    /**
+     * Local bandwidth unit select
+     */
+    @FXML private ChoiceBox<ByteSpeedUnits> bandwidthUnitSelect;
+    
+    /**
+     * Eviction policy select
+     */
+    @FXML private ChoiceBox<CacheEvictionPolicy> policySelect;
+    /**
+     * Entry time to live input (ms)
+     */
+    @FXML private TextField ttlInput;
+    
+    /**
+     * Metadata cache enabled checkbox
+     */
+    @FXML private CheckBox metadataEnabledCheckBox;
+    /**
+     * Metadata cache capacity (number of entries) input
+     */
+    @FXML private TextField metadataCapacityInput;
+    /**
+     * Metadata cache eviction policy select
+     */
+    @FXML private ChoiceBox<CacheEvictionPolicy> metadataPolicySelect;
+    /**
+     * Metadata cache entry time to live input (ms)
+     */
+    @FXML private TextField metadataTtlInput;
+    
+    /**
+     * Client cache configuration dialog
+     */
+    public FxClientCacheDialog()
+    {
+        super(FxClientCacheDialog.class.getClassLoader().getResource("fxml/view/context/client/FxClientCacheDialog.fxml"));
+    }
+    
+    /**
+     * Set existing cache - inputs will be filled from this cache's settings.
+     * 
+     * @param cache client cache
+     */
+    public void setCache(ClientCache cache)
+    {
+        this.enabledCheckBox.setSelected(cache.isEnabled());
+        this.writeThroughCheckBox.setSelected(cache.isWriteThrough());
+        
+        this.capacityInput.setText(FxHelper.getNominalSize(cache.getCapacity()));
+        this.capacityUnitSelect.getSelectionModel().select(cache.getCapacity().getNominalUnits());
+        
+        this.bandwidthInput.setText(FxHelper.getNominalSpeed(cache.getLocalBandwidth()));
+        this.bandwidthUnitSelect.getSelectionModel().select(cache.getLocalBandwidth().getNominalUnits());
+        
+        this.policySelect.getSelectionModel().select(cache.evictionPolicyProperty().get());
+        this.ttlInput.setText("" + cache.timeToLiveProperty().get());
+    }
+    
+    /**
+     * Set existing metadata cache - inputs will be filled from this cache's settings.
+     * 
+     * @param cache client metadata cache
+     */
+    public void setMetadataCache(ClientMetadataCache cache)
+    {
+        this.metadataEnabledCheckBox.setSelected(cache.isEnabled());
+        this.metadataCapacityInput.setText("" + cache.capacityProperty().get());
+        this.metadataPolicySelect.getSelectionModel().select(cache.evictionPolicyProperty().get());
+        this.metadataTtlInput.setText("" + cache.timeToLiveProperty().get());
+    }
+    
+    /**
+     * Set settings from dialog input to {@code cache}. Cached entries are 
+     * dropped so that the new capacity and policy apply from the start
+     * of the next simulation.
+     * 
+     * @param cache client cache
+     */
+    public void applySettings(ClientCache cache)
+    {
+        cache.clear();
+        
+        cache.enabledProperty().set(this.enabledCheckBox.isSelected());
+        cache.writeThroughProperty().set(this.writeThroughCheckBox.isSelected());
+        cache.getCapacity().setBytes(this.getCapacity().bytesProperty().get());
+        cache.getLocalBandwidth().setBps(this.getBandwidth().bpsProperty().get());
+        cache.evictionPolicyProperty().set(this.policySelect.getSelectionModel().getSelectedItem());
+        cache.timeToLiveProperty().set(Long.parseLong(this.ttlInput.getText().trim()));
+    }
+    
+    /**
+     * Set metadata settings from dialog input to {@code cache}. Cached 
+     * locations are dropped as well.
+     * 
+     * @param cache client metadata cache
+     */
+    public void applyMetadataSettings(ClientMetadataCache cache)
+    {
+        cache.clear();
+        
+        cache.enabledProperty().set(this.metadataEnabledCheckBox.isSelected());
+        cache.capacityProperty().set(Integer.parseInt(this.metadataCapacityInput.getText().trim()));
+        cache.evictionPolicyProperty().set(this.metadataPolicySelect.getSelectionModel().getSelectedItem());
+        cache.timeToLiveProperty().set(Long.parseLong(this.metadataTtlInput.getText().trim()));
+    }
+    
+    /**
+     * Get cache capacity from dialog input.
+     * 
+     * @return cache capacity or null if input is not a number
+     */
+    public ByteSize getCapacity()
+    {
+        if(Helper.isDouble(this.capacityInput.getText()))
+        {
+            return new ByteSize(Double.parseDouble(this.capacityInput.getText()), 
+                    this.capacityUnitSelect.getSelectionModel().getSelectedItem());
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get local bandwidth from dialog input.
+     * 
+     * @return local bandwidth or null if input is not a number
+     */
+    public ByteSpeed getBandwidth()
+    {
+        if(Helper.isDouble(this.bandwidthInput.getText()))
+        {
+            return new ByteSpeed(Double.parseDouble(this.bandwidthInput.getText()), 
+                    this.bandwidthUnitSelect.getSelectionModel().getSelectedItem());
+        }
+        
+        return null;
+    }
+    
+    /**
+     *{@inheritDoc}
+     */
+    @Override public boolean validateInput()
+    {
+        ByteSize capacity = this.getCapacity();
+        
+        if(capacity == null || 
+                capacity.bytesProperty().get() <= 0 || 
+                capacity.bytesProperty().get() > MAX_CAPACITY.bytesProperty().get())
+        {
+            return false;
+        }
+        
+        ByteSpeed bandwidth = this.getBandwidth();
+        
+        if(bandwidth == null || bandwidth.bpsProperty().get() <= 0)
+        {
+            return false;
+        }
+        
+        if(!Helper.isLong(this.ttlInput.getText().trim()) || 
+                Long.parseLong(this.ttlInput.getText().trim()) < 0)
+        {
+            return false;
+        }
+        
+        String metadataCapacity = this.metadataCapacityInput.getText().trim();
+        
+        if(!Helper.isInteger(metadataCapacity) || 
+                Integer.parseInt(metadataCapacity) <= 0 || 
+                Integer.parseInt(metadataCapacity) > MAX_METADATA_CAPACITY)
+        {
+            return false;
+        }
+        
+        return (Helper.isLong(this.metadataTtlInput.getText().trim()) && 
+                Long.parseLong(this.metadataTtlInput.getText().trim()) >= 0);
+    }
+    
+    /**
+     * Initialize unit and eviction policy choice boxes.
+     */
+    @Override public void initialize()
+    {
+        FxHelper.initByteSizeChoiceBox(this.capacityUnitSelect);
+        FxHelper.initByteSpeedChoiceBox(this.bandwidthUnitSelect);
+        
+        this.policySelect.getItems().addAll(CacheEvictionPolicy.values());
+        this.policySelect.getSelectionModel().select(CacheEvictionPolicy.LRU);
+        this.ttlInput.setText("0");
+        
+        this.metadataPolicySelect.getItems().addAll(CacheEvictionPolicy.values());
+        this.metadataPolicySelect.getSelectionModel().select(CacheEvictionPolicy.LRU);
+        this.metadataCapacityInput.setText("" + ClientMetadataCache.DEFAULT_CAPACITY);
+        this.metadataTtlInput.setText("" + ClientMetadataCache.DEFAULT_TIME_TO_LIVE);
+    }
+    
+    /**
+     *{@inheritDoc}
+     */
+    @Override protected void handleConfirm()
+    {
+        if(this.validateInput())
+        {
+            confirmed = true;
+            stage.close();
+        }
+        else
+        {
+            Alert alert = FxHelper.getErrorDialog("Cache input error", 
+                    "Error while validating client cache", 
+                    "Capacity has to be greater than 0 and less than " + MAX_CAPACITY.getHumanReadableFormat() + ", local bandwidth has to be greater than 0. Time to live has to be a non-negative number of milliseconds (0 = entries never expire). "
+                            + "Metadata cache capacity has to be between 1 and " + MAX_METADATA_CAPACITY + " entries, its time to live has to be a non-negative number of milliseconds.");
+            
+            alert.showAndWait();
+        }
+    }
+    
+}
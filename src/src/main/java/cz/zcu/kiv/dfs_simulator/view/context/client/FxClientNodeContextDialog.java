@@ -18,7 +18,11 @@ import cz.zcu.kiv.dfs_simulator.persistence.NullStatePersistenceLogger;
 import cz.zcu.kiv.dfs_simulator.persistence.StatePersistor;
 import cz.zcu.kiv.dfs_simulator.persistence.StateRestorer;
 import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
 import cz.zcu.kiv.dfs_simulator.helpers.SimulatorPreferences;
+import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.SimulationContext;
 import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
 import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulator;
 import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorSimulationResult;
@@ -29,8 +33,14 @@ import cz.zcu.kiv.dfs_simulator.simulation.SimulationTaskType;
 import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
 import cz.zcu.kiv.dfs_simulator.simulation.graph.DijkstraGraphSearcher;
 import cz.zcu.kiv.dfs_simulator.simulation.path.MetricDfsPathPicker;
+import cz.zcu.kiv.dfs_simulator.simulation.placement.ReplicaPlacement;
+import cz.zcu.kiv.dfs_simulator.simulation.placement.ReplicaPlacementOptimizer;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationConsistency;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationMode;
 import cz.zcu.kiv.dfs_simulator.view.content.FxModelClientNode;
 import cz.zcu.kiv.dfs_simulator.view.context.FxConnectionTable;
 import cz.zcu.kiv.dfs_simulator.view.context.FxNodeContextDialog;
@@ -52,12 +62,14 @@ import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.DialogPane;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
+import javafx.scene.control.TextField;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
@@ -120,10 +132,34 @@ public class FxClientNodeContextDialog extends FxNodeContextDialog
      * Clear simulation plan button
      */
     @FXML private Button clearSimulationPlanButton;
+    /**
+     * Optimize replica placement button
+     */
+    @FXML private Button optimizePlacementButton;
+    /**
+     * Add server failure button
+     */
+    @FXML private Button addFailureButton;
+    /**
+     * Client cache settings button
+     */
+    @FXML private Button clientCacheButton;
     /**
      * Multi-selectbox of simulation type
      */
     @FXML private CheckComboBox<SimulationType> simulationTypeSelect;
+    /**
+     * Selectbox of global replication mode
+     */
+    @FXML private ChoiceBox<ReplicationMode> replicationModeSelect;
+    /**
+     * Selectbox of global replication consistency
+     */
+    @FXML private ChoiceBox<ReplicationConsistency> replicationConsistencySelect;
+    /**
+     * Input of global write quorum (0 for majority)
+     */
+    @FXML private TextField writeQuorumInput;
     
     /**
      * Connection table
@@ -199,7 +235,8 @@ public class FxClientNodeContextDialog extends FxNodeContextDialog
     }
     
     /**
-     * Initiate simulation graphic controls - simulation type multi select.
+     * Initiate simulation graphic controls - simulation type multi select
+     * and replication mode select.
      */
     private void initSimulationControls()
     {
@@ -211,11 +248,39 @@ public class FxClientNodeContextDialog extends FxNodeContextDialog
                 SimulationType.PATH_THROUGHPUT, 
                 SimulationType.PATH_THROUGHPUT_AND_LATENCY, 
                 SimulationType.DYNAMIC_PATH_THROUGHPUT_AND_LATENCY,
+                SimulationType.STRIPED_PATH_THROUGHPUT_AND_LATENCY,
+                SimulationType.HEDGED_PATH_THROUGHPUT_AND_LATENCY,
+                SimulationType.BALANCED_PATH_THROUGHPUT_AND_LATENCY,
                 SimulationType.HIERARCHICAL_DYNAMIC_PATH_THROUGHPUT_AND_LATENCY,
-                SimulationType.HIERARCHICAL_DYNAMIC_PATH_THROUGHPUT_LATENCY_ADVANCED);
+                SimulationType.HIERARCHICAL_DYNAMIC_PATH_THROUGHPUT_LATENCY_ADVANCED,
+                SimulationType.HIERARCHICAL_BACKGROUND_DEMOTION,
+                SimulationType.HIERARCHICAL_PREFETCH);
         
         simulationTypeSelect.getItems().addAll(choices);
         simulationTypeSelect.getCheckModel().checkIndices(0);
+        
+        replicationModeSelect.getItems().addAll(ReplicationMode.values());
+        replicationModeSelect.getSelectionModel().select(FsGlobalReplicationManager.getReplicationMode());
+        replicationModeSelect.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            FsGlobalReplicationManager.setReplicationMode(newValue);
+        });
+        
+        replicationConsistencySelect.getItems().addAll(ReplicationConsistency.values());
+        replicationConsistencySelect.getSelectionModel().select(FsGlobalReplicationManager.getConsistency());
+        replicationConsistencySelect.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            FsGlobalReplicationManager.setConsistency(newValue);
+            writeQuorumInput.setDisable(newValue != ReplicationConsistency.QUORUM);
+        });
+        
+        writeQuorumInput.setText("" + FsGlobalReplicationManager.getWriteQuorum());
+        writeQuorumInput.setDisable(FsGlobalReplicationManager.getConsistency() != ReplicationConsistency.QUORUM);
+        writeQuorumInput.textProperty().addListener((observable, oldValue, newValue) -> {
+            // invalid values are ignored and the last valid quorum is kept
+            if(Helper.isInteger(newValue) && Integer.parseInt(newValue) >= 0)
+            {
+                FsGlobalReplicationManager.setWriteQuorum(Integer.parseInt(newValue));
+            }
+        });
     }
     
     /**
@@ -304,6 +369,16 @@ public class FxClientNodeContextDialog extends FxNodeContextDialog
             displayTaskDialog(SimulationTaskType.PUT);
         });
         
+        this.addFailureButton.setOnAction(event ->
+        {
+            displayFailureDialog();
+        });
+        
+        this.clientCacheButton.setOnAction(event ->
+        {
+            displayClientCacheDialog();
+        });
+        
         this.bindSimulationItemsProp();
     }
     
@@ -331,6 +406,17 @@ public class FxClientNodeContextDialog extends FxNodeContextDialog
         this.clearSimulationPlanButton.setOnAction(event ->
         {
             simulationTable.getItems().clear();
+            simulationTable.getPlan().getFailures().clear();
+            updateFailureButton();
+        });
+        
+        this.updateFailureButton();
+        
+        this.optimizePlacementButton.disableProperty().bind(lstProp.emptyProperty());
+        
+        this.optimizePlacementButton.setOnAction(event ->
+        {
+            optimizePlacement();
         });
     }
     
@@ -365,6 +451,59 @@ public class FxClientNodeContextDialog extends FxNodeContextDialog
         }
     }
     
+    /**
+     * Display new server failure dialog - failed server, time of failure 
+     * and re-replication settings.
+     */
+    private void displayFailureDialog()
+    {
+        List<ModelServerNode> servers = ModelNodeRegistry.getServerNodes();
+        
+        if(servers.isEmpty())
+        {
+            return;
+        }
+        
+        FxServerFailureDialog dialog = new FxServerFailureDialog();
+        
+        dialog.setPlan(this.simulationTable.getPlan());
+        FxServerFailureDialog.setUpAndShowDialog(dialog, getScene().getWindow(), "Add server failure");
+        
+        if(dialog.isConfirmed())
+        {
+            dialog.applySettings(this.simulationTable.getPlan());
+            this.updateFailureButton();
+        }
+    }
+    
+    /**
+     * Display client cache settings dialog and apply confirmed settings.
+     */
+    private void displayClientCacheDialog()
+    {
+        FxClientCacheDialog dialog = new FxClientCacheDialog();
+        
+        dialog.setCache(this.clientNode.getClientNode().getClientCache());
+        dialog.setMetadataCache(this.clientNode.getClientNode().getMetadataCache());
+        FxClientCacheDialog.setUpAndShowDialog(dialog, getScene().getWindow(), "Client cache");
+        
+        if(dialog.isConfirmed())
+        {
+            dialog.applySettings(this.clientNode.getClientNode().getClientCache());
+            dialog.applyMetadataSettings(this.clientNode.getClientNode().getMetadataCache());
+        }
+    }
+    
+    /**
+     * Show number of planned server failures on add failure button.
+     */
+    private void updateFailureButton()
+    {
+        int failures = this.simulationTable.getPlan().getFailures().size();
+        
+        this.addFailureButton.setText((failures > 0) ? ("+ Failure (" + failures + ")") : "+ Failure");
+    }
+    
     /**
      * Get path picker used for simulation.
      * 
@@ -408,14 +547,15 @@ public class FxClientNodeContextDialog extends FxNodeContextDialog
                 
                 for(SimulationType type : selected)
                 {
-                    DfsSimulator simulator = new DfsTimeSliceSimulator(clientNode.getClientNode(),
+                    DfsSimulator simulator = new DfsTimeSliceSimulator(SimulationContext.getDefault(), clientNode.getClientNode(),
                             simulationTable.getPlan(), getPathBuilder(type), type);
                     DfsStringSimulatorLogger logger = new DfsStringSimulatorLogger();
                     
                     simulator.run(logger);
                     
                     resultSet.add(new FxSimulatorTaskResultSet(
-                            new DfsSimulatorSimulationResult(type, simulator.getResults()), logger));
+                            new DfsSimulatorSimulationResult(type, simulator.getResults(), 
+                                    simulator.getRecoveries(), simulator.getBalancerReport()), logger));
                     
                     pbDone += 1;
                     updateProgress(pbDone, pbMax);
@@ -482,6 +622,114 @@ public class FxClientNodeContextDialog extends FxNodeContextDialog
         this.simulationTable.getItems().addAll(tasks);
     }
     
+    /**
+     * Optimize replica placement of files accessed by simulation plan
+     * of this client in background and apply it if confirmed.
+     */
+    private void optimizePlacement()
+    {
+        List<ReplicaPlacement> placements = new ArrayList<>();
+        VBox box = new VBox();
+        
+        Task t = new Task<Void>() {
+            
+            @Override public Void call()
+            {
+                ReplicaPlacementOptimizer optimizer = new ReplicaPlacementOptimizer(SimulationContext.getDefault(), 
+                        clientNode.getClientNode(), simulationTable.getPlan());
+                
+                placements.add(optimizer.getCurrentPlacement());
+                placements.add(optimizer.optimize());
+                
+                return null;
+            }
+            
+        };
+        
+        // placement is applied to the model on FX thread
+        t.setOnSucceeded(e -> {
+            dialogPane.setDisable(false);
+            contextStackPane.getChildren().remove(box);
+            
+            confirmPlacement(placements.get(0), placements.get(1));
+        });
+        
+        t.setOnFailed(e -> {
+            dialogPane.setDisable(false);
+            contextStackPane.getChildren().remove(box);
+            
+            Alert a = FxHelper.getErrorDialog("Placement error", 
+                    "There was an internal error during placement optimization.", 
+                    "Placement optimization didn't finish correctly.");
+            
+            if(t.getException() != null)
+            {
+                t.getException().printStackTrace();
+            }
+            
+            a.showAndWait();
+        });
+        
+        t.setOnRunning(e -> {
+            Text text = new Text("Optimizing placement...");
+            text.setFont(new Font(22));
+            
+            box.setSpacing(15d);
+            box.setAlignment(Pos.CENTER);
+            
+            box.getChildren().add(text);
+            box.getChildren().add(new ProgressBar());
+            
+            dialogPane.setDisable(true);
+            contextStackPane.getChildren().add(box);
+        });
+        
+        (new Thread(t)).start();
+    }
+    
+    /**
+     * Display optimized placement and apply it if confirmed.
+     * 
+     * @param current current placement
+     * @param optimized optimized placement
+     */
+    private void confirmPlacement(ReplicaPlacement current, ReplicaPlacement optimized)
+    {
+        if(optimized.getFiles().isEmpty())
+        {
+            Alert a = FxHelper.getErrorDialog("Placement error", 
+                    "No files to place.", 
+                    "Simulation plan does not access any existing replicated file.");
+            
+            a.showAndWait();
+            
+            return;
+        }
+        
+        Dialog dialog = FxHelper.getConfirmationDialog("Confirm placement", 
+                "Apply optimized replica placement?", 
+                "Estimated transfer time of simulation plan would change from " + current.getEstimatedTime() + 
+                        " ms to " + optimized.getEstimatedTime() + " ms (" + optimized.getFiles().size() + " files).");
+        
+        Optional<ButtonType> result = dialog.showAndWait();
+        
+        if(result.isPresent() && result.get() == ButtonType.OK)
+        {
+            try
+            {
+                optimized.apply();
+            }
+            catch(NotEnoughSpaceLeftException ex)
+            {
+                Alert a = FxHelper.getErrorDialog("Placement error", 
+                        "Couldn't apply placement.", 
+                        "One or more targets does not have enough space, original placement has been kept.");
+                
+                a.showAndWait();
+            }
+        }
+    }
+    
     /**
      * Import simulation plan from external XMP file.
      */
@@ -0,0 +1,183 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.view.context.client;
+
+import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.simulation.ServerFailure;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationPlan;
+import cz.zcu.kiv.dfs_simulator.view.BaseInputDialog;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.TextField;
+
+/**
+ * Server failure dialog - failed server, time of failure and re-replication
+ * settings of the simulation plan.
+ */
+public class FxServerFailureDialog extends BaseInputDialog
+{
+    /**
+     * Failed server select
+     */
+    @FXML private ChoiceBox<ModelServerNode> serverSelect;
+    /**
+     * Failure time input (ms)
+     */
+    @FXML private TextField timeInput;
+    
+    /**
+     * Re-replication parallelism input
+     */
+    @FXML private TextField parallelismInput;
+    /**
+     * Re-replication rate limit input
+     */
+    @FXML private TextField rateLimitInput;
+    /**
+     * Re-replication rate limit unit select
+     */
+    @FXML private ChoiceBox<ByteSpeedUnits> rateLimitUnitSelect;
+    
+    /**
+     * Server failure dialog
+     */
+    public FxServerFailureDialog()
+    {
+        super(FxServerFailureDialog.class.getClassLoader().getResource("fxml/view/context/client/FxServerFailureDialog.fxml"));
+    }
+    
+    /**
+     * Set simulation plan - re-replication inputs will be filled from 
+     * the plan's settings.
+     * 
+     * @param plan simulation plan
+     */
+    public void setPlan(SimulationPlan plan)
+    {
+        this.parallelismInput.setText("" + plan.getReReplicationParallelism());
+        this.rateLimitInput.setText(FxHelper.getNominalSpeed(plan.getReReplicationRateLimit()));
+        this.rateLimitUnitSelect.getSelectionModel().select(plan.getReReplicationRateLimit().getNominalUnits());
+    }
+    
+    /**
+     * Add failure from dialog input to {@code plan} and set its 
+     * re-replication settings.
+     * 
+     * @param plan simulation plan
+     */
+    public void applySettings(SimulationPlan plan)
+    {
+        plan.getFailures().add(new ServerFailure(
+                this.serverSelect.getSelectionModel().getSelectedItem().getNodeID(), this.getFailureTime()));
+        
+        plan.setReReplicationParallelism(this.getParallelism());
+        plan.getReReplicationRateLimit().setBps(this.getRateLimit().bpsProperty().get());
+    }
+    
+    /**
+     * Get failure time from dialog input.
+     * 
+     * @return failure time or -1 if input is not a number
+     */
+    public long getFailureTime()
+    {
+        if(Helper.isLong(this.timeInput.getText().trim()))
+        {
+            return Long.parseLong(this.timeInput.getText().trim());
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Get re-replication parallelism from dialog input.
+     * 
+     * @return parallelism or -1 if input is not a number
+     */
+    public int getParallelism()
+    {
+        if(Helper.isInteger(this.parallelismInput.getText().trim()))
+        {
+            return Integer.parseInt(this.parallelismInput.getText().trim());
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Get re-replication rate limit from dialog input.
+     * 
+     * @return rate limit or null if input is not a number
+     */
+    public ByteSpeed getRateLimit()
+    {
+        if(Helper.isDouble(this.rateLimitInput.getText()))
+        {
+            return new ByteSpeed(Double.parseDouble(this.rateLimitInput.getText()), 
+                    this.rateLimitUnitSelect.getSelectionModel().getSelectedItem());
+        }
+        
+        return null;
+    }
+    
+    /**
+     *{@inheritDoc}
+     */
+    @Override public boolean validateInput()
+    {
+        ByteSpeed rateLimit = this.getRateLimit();
+        
+        return (this.serverSelect.getSelectionModel().getSelectedItem() != null &&
+                this.getFailureTime() >= 0 && this.getParallelism() > 0 &&
+                rateLimit != null && rateLimit.bpsProperty().get() > 0);
+    }
+    
+    /**
+     * Initialize server and unit choice boxes.
+     */
+    @Override public void initialize()
+    {
+        FxHelper.initByteSpeedChoiceBox(this.rateLimitUnitSelect);
+        
+        this.serverSelect.getItems().addAll(ModelNodeRegistry.getServerNodes());
+        this.serverSelect.getSelectionModel().selectFirst();
+        this.timeInput.setText("0");
+    }
+    
+    /**
+     *{@inheritDoc}
+     */
+    @Override protected void handleConfirm()
+    {
+        if(this.validateInput())
+        {
+            confirmed = true;
+            stage.close();
+        }
+        else
+        {
+            Alert alert = FxHelper.getErrorDialog("Server failure input error", 
+                    "Error while validating server failure", 
+                    "Failure time has to be a non-negative number of milliseconds. Re-replication parallelism has to be a positive integer and bandwidth cap has to be greater than 0.");
+            
+            alert.showAndWait();
+        }
+    }
+    
+}
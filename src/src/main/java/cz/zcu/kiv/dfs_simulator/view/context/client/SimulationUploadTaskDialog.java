@@ -60,6 +60,10 @@ public class SimulationUploadTaskDialog extends SimulationTaskDialog
      * Upload task file size unit selectbox
      */
     @FXML protected ChoiceBox<ByteSizeUnits> fileSizeUnitSelect;
+    /**
+     * Upload task content fingerprint (optional)
+     */
+    @FXML protected TextField fingerprintInput;
 
     /**
      * Upload task dialog.
@@ -118,6 +122,11 @@ public class SimulationUploadTaskDialog extends SimulationTaskDialog
             return false;
         }
         
+        if(!this.fingerprintInput.getText().isEmpty() && !this.fingerprintInput.getText().matches("[A-Za-z0-9]+"))
+        {
+            return false;
+        }
+        
         ByteSize size = this.getSize();
         
         return (size.bytesProperty().get() > 0 && size.bytesProperty().get() <= MAX_SIZE.bytesProperty().get());
@@ -155,6 +164,7 @@ public class SimulationUploadTaskDialog extends SimulationTaskDialog
         {
             FsDirectory parent = (FsDirectory) treeItem.getValue();
             FsFile file = new FsFile(this.fileNameInput.getText(), this.getSize(), parent);
+            file.setFingerprint(this.fingerprintInput.getText());
             
             tasks.add(new PutSimulationTask(file));
         }
@@ -197,7 +207,8 @@ public class SimulationUploadTaskDialog extends SimulationTaskDialog
                     "Error creating upload task", 
                     "Couldn't create upload task", 
                     "File name has to be between " + FsFile.NAME_MIN_LENGTH + " and " + FsFile.NAME_MAX_LENGTH + " characters long and has to consist only of alphanumeric characters. "
-                            + "Size has to be greater than 0B and less or equal than " + MAX_SIZE.getHumanReadableFormat());
+                            + "Size has to be greater than 0B and less or equal than " + MAX_SIZE.getHumanReadableFormat() + ". "
+                            + "Content fingerprint is optional and has to consist only of alphanumeric characters.");
             
             errDialog.showAndWait();
             
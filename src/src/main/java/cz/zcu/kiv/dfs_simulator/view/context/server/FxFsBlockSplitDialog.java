@@ -0,0 +1,132 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.view.context.server;
+
+import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockManager;
+import cz.zcu.kiv.dfs_simulator.view.BaseInputDialog;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.TextField;
+
+/**
+ * Dialog for splitting file into blocks.
+ */
+public class FxFsBlockSplitDialog extends BaseInputDialog
+{
+    /**
+     * Default number of replicas of each block
+     */
+    public static final int DEFAULT_REPLICATION_FACTOR = 3;
+    
+    /**
+     * Block size input
+     */
+    @FXML private TextField blockSizeInput;
+    /**
+     * Block size unit select
+     */
+    @FXML private ChoiceBox<ByteSizeUnits> blockSizeUnitSelect;
+    
+    /**
+     * Replication factor input
+     */
+    @FXML private TextField replicationFactorInput;
+    
+    /**
+     * Block split dialog
+     */
+    public FxFsBlockSplitDialog()
+    {
+        super(FxFsBlockSplitDialog.class.getClassLoader().getResource("fxml/view/context/server/FxFsBlockSplitDialog.fxml"));
+    }
+    
+    /**
+     * Get block size from dialog input.
+     * 
+     * @return block size or null if input is not a number
+     */
+    public ByteSize getBlockSize()
+    {
+        if(Helper.isDouble(this.blockSizeInput.getText()))
+        {
+            return new ByteSize(Double.parseDouble(this.blockSizeInput.getText()), 
+                    this.blockSizeUnitSelect.getSelectionModel().getSelectedItem());
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get replication factor from dialog input.
+     * 
+     * @return replication factor or -1 if input is not a number
+     */
+    public int getReplicationFactor()
+    {
+        if(Helper.isInteger(this.replicationFactorInput.getText()))
+        {
+            return Integer.parseInt(this.replicationFactorInput.getText());
+        }
+        
+        return -1;
+    }
+    
+    /**
+     *{@inheritDoc}
+     */
+    @Override public boolean validateInput()
+    {
+        ByteSize blockSize = this.getBlockSize();
+        
+        return (blockSize != null && blockSize.bytesProperty().get() > 0 && 
+                this.getReplicationFactor() > 0);
+    }
+    
+    /**
+     * Initialize unit choice box and fill default block size and 
+     * replication factor.
+     */
+    @Override public void initialize()
+    {
+        FxHelper.initByteSizeChoiceBox(this.blockSizeUnitSelect);
+        
+        this.blockSizeInput.setText(FxHelper.getNominalSize(FsBlockManager.DEFAULT_BLOCK_SIZE));
+        this.blockSizeUnitSelect.getSelectionModel().select(FsBlockManager.DEFAULT_BLOCK_SIZE.getNominalUnits());
+        this.replicationFactorInput.setText(String.valueOf(DEFAULT_REPLICATION_FACTOR));
+    }
+    
+    /**
+     *{@inheritDoc}
+     */
+    @Override protected void handleConfirm()
+    {
+        if(this.validateInput())
+        {
+            confirmed = true;
+            stage.close();
+        }
+        else
+        {
+            Alert alert = FxHelper.getErrorDialog("Block split input error", 
+                    "Error while validating block split", 
+                    "Block size has to be greater than 0 and replication factor has to be a positive integer.");
+            
+            alert.showAndWait();
+        }
+    }
+    
+}
@@ -12,9 +12,14 @@
 package cz.zcu.kiv.dfs_simulator.view.context.server;
 
 import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.ErasureCodingPolicy;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsErasureCodingManager;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
 import cz.zcu.kiv.dfs_simulator.view.BaseInputDialog;
 import javafx.fxml.FXML;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.TextField;
 
@@ -37,6 +42,19 @@ public class FxFsDirectoryDialog extends BaseInputDialog
      */
     @FXML private TextField nameInput;
     
+    /**
+     * Erasure coding enabled checkbox
+     */
+    @FXML private CheckBox ecEnabledCheckBox;
+    /**
+     * Number of erasure coding data fragments input
+     */
+    @FXML private TextField ecDataInput;
+    /**
+     * Number of erasure coding parity fragments input
+     */
+    @FXML private TextField ecParityInput;
+    
     /**
      * Existing directory instance
      */
@@ -60,6 +78,15 @@ public class FxFsDirectoryDialog extends BaseInputDialog
         this.directory = directory;
         
         this.nameInput.setText(directory.nameProperty().get());
+        
+        ErasureCodingPolicy policy = directory.getErasureCodingPolicy();
+        
+        if(policy != null)
+        {
+            this.ecEnabledCheckBox.setSelected(true);
+            this.ecDataInput.setText(String.valueOf(policy.getDataFragments()));
+            this.ecParityInput.setText(String.valueOf(policy.getParityFragments()));
+        }
     }
     
     /**
@@ -73,11 +100,45 @@ public class FxFsDirectoryDialog extends BaseInputDialog
     }
     
     /**
-     * Save changes to existing directory.
+     * Get erasure coding policy from dialog input. Reconstruction speed 
+     * of existing directory policy is kept.
+     * 
+     * @return policy or null if erasure coding is disabled or input is invalid
+     */
+    public ErasureCodingPolicy getErasureCodingPolicy()
+    {
+        if(!this.ecEnabledCheckBox.isSelected() || 
+                !Helper.isInteger(this.ecDataInput.getText()) || !Helper.isInteger(this.ecParityInput.getText()))
+        {
+            return null;
+        }
+        
+        int dataFragments = Integer.parseInt(this.ecDataInput.getText());
+        int parityFragments = Integer.parseInt(this.ecParityInput.getText());
+        
+        if(dataFragments < 1 || parityFragments < 0)
+        {
+            return null;
+        }
+        
+        ErasureCodingPolicy existing = (this.directory != null) ? this.directory.getErasureCodingPolicy() : null;
+        
+        return new ErasureCodingPolicy(dataFragments, parityFragments, 
+                (existing != null) ? existing.getReconstructionSpeed() : ErasureCodingPolicy.DEFAULT_RECONSTRUCTION_SPEED);
+    }
+    
+    /**
+     * Save changes to existing directory. Blocks and erasure coded fragments
+     * of files in the directory are renamed to match their new paths.
      */
     protected void saveDirectoryChanges()
     {
+        String oldPath = this.directory.getFullPath();
+        
         this.directory.nameProperty().set(this.getName());
+        FsBlockManager.renameObjectBlocks(this.directory, oldPath);
+        FsErasureCodingManager.renameObjectFragments(this.directory, oldPath);
+        FsErasureCodingManager.setPolicy(this.directory, this.getErasureCodingPolicy());
     }
     
     /**
@@ -87,15 +148,17 @@ public class FxFsDirectoryDialog extends BaseInputDialog
     {
         return (
                 (this.nameInput.getText().length() >= NAME_MIN_LENGTH && this.nameInput.getText().length() <= NAME_MAX_LENGTH) && 
-                this.nameInput.getText().matches("[A-Za-z0-9]+"));
+                this.nameInput.getText().matches("[A-Za-z0-9]+") && 
+                (!this.ecEnabledCheckBox.isSelected() || this.getErasureCodingPolicy() != null));
     }
     
     /**
-     * {@inheritDoc}
+     * Enable erasure coding inputs only when erasure coding is enabled.
      */
     @Override public void initialize()
     {
-        
+        this.ecDataInput.disableProperty().bind(this.ecEnabledCheckBox.selectedProperty().not());
+        this.ecParityInput.disableProperty().bind(this.ecEnabledCheckBox.selectedProperty().not());
     }
     
     /**
@@ -118,7 +181,8 @@ public class FxFsDirectoryDialog extends BaseInputDialog
             Dialog errDialog = FxHelper.getErrorDialog(
                     "Error creating directory", 
                     "Couldn't create directory", 
-                    "Directory name has to be between " + NAME_MIN_LENGTH + " and " + NAME_MAX_LENGTH + " characters long and has to consist only of alphanumeric characters.");
+                    "Directory name has to be between " + NAME_MIN_LENGTH + " and " + NAME_MAX_LENGTH + " characters long and has to consist only of alphanumeric characters. "
+                            + "Erasure coding needs at least 1 data fragment and 0 or more parity fragments.");
             
             errDialog.showAndWait();
         }
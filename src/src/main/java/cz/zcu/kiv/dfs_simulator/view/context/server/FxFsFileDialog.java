@@ -19,6 +19,8 @@ import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
 import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.ErasureCodingPolicy;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsErasureCodingManager;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
@@ -34,6 +36,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Dialog;
@@ -72,6 +75,19 @@ public class FxFsFileDialog extends BaseInputDialog
      */
     @FXML private ChoiceBox<ServerStorage> storageChoiceBox;
     
+    /**
+     * Erasure coding enabled checkbox
+     */
+    @FXML private CheckBox ecEnabledCheckBox;
+    /**
+     * Number of erasure coding data fragments input
+     */
+    @FXML private TextField ecDataInput;
+    /**
+     * Number of erasure coding parity fragments input
+     */
+    @FXML private TextField ecParityInput;
+    
     @FXML private Label replicationConfigLabel;
     /**
      * Add replica button
@@ -195,6 +211,15 @@ public class FxFsFileDialog extends BaseInputDialog
         replicaTargets.removeIf(rt -> rt.serverNode == this.serverNode);
         
         this.replicationTable.getItems().addAll(replicaTargets);
+        
+        ErasureCodingPolicy policy = this.file.getErasureCodingPolicy();
+        
+        if(policy != null)
+        {
+            this.ecEnabledCheckBox.setSelected(true);
+            this.ecDataInput.setText(String.valueOf(policy.getDataFragments()));
+            this.ecParityInput.setText(String.valueOf(policy.getParityFragments()));
+        }
     }
     
     /**
@@ -233,6 +258,34 @@ public class FxFsFileDialog extends BaseInputDialog
         return this.storageChoiceBox.getSelectionModel().getSelectedItem();
     }
     
+    /**
+     * Get erasure coding policy from dialog input. Reconstruction speed 
+     * of existing file policy is kept.
+     * 
+     * @return policy or null if erasure coding is disabled or input is invalid
+     */
+    public ErasureCodingPolicy getErasureCodingPolicy()
+    {
+        if(!this.ecEnabledCheckBox.isSelected() || 
+                !Helper.isInteger(this.ecDataInput.getText()) || !Helper.isInteger(this.ecParityInput.getText()))
+        {
+            return null;
+        }
+        
+        int dataFragments = Integer.parseInt(this.ecDataInput.getText());
+        int parityFragments = Integer.parseInt(this.ecParityInput.getText());
+        
+        if(dataFragments < 1 || parityFragments < 0)
+        {
+            return null;
+        }
+        
+        ErasureCodingPolicy existing = (this.file != null) ? this.file.getErasureCodingPolicy() : null;
+        
+        return new ErasureCodingPolicy(dataFragments, parityFragments, 
+                (existing != null) ? existing.getReconstructionSpeed() : ErasureCodingPolicy.DEFAULT_RECONSTRUCTION_SPEED);
+    }
+    
     /**
      * Get dialog file.
      * 
@@ -456,6 +509,11 @@ public class FxFsFileDialog extends BaseInputDialog
             return false;
         }
         
+        if(this.ecEnabledCheckBox.isSelected() && this.getErasureCodingPolicy() == null)
+        {
+            return false;
+        }
+        
         ByteSize size = new ByteSize(Double.parseDouble(this.sizeInput.getText()), 
                     this.sizeUnitSelect.getSelectionModel().getSelectedItem());
         
@@ -483,6 +541,8 @@ public class FxFsFileDialog extends BaseInputDialog
             
             if(opResult)
             {
+                FsErasureCodingManager.setPolicy(this.file, this.getErasureCodingPolicy());
+                
                 confirmed = true;
                 stage.close();
             }
@@ -493,7 +553,8 @@ public class FxFsFileDialog extends BaseInputDialog
                     "Error creating file", 
                     "Couldn't create file", 
                     "File name has to be between " + FsFile.NAME_MIN_LENGTH + " and " + FsFile.NAME_MAX_LENGTH + " characters long and has to consist only of alphanumeric characters. "
-                            + "Size has to be greater than 0B and less or equal than " + MAX_SIZE.getHumanReadableFormat());
+                            + "Size has to be greater than 0B and less or equal than " + MAX_SIZE.getHumanReadableFormat() + ". "
+                            + "Erasure coding needs at least 1 data fragment and 0 or more parity fragments.");
             
             errDialog.showAndWait();
         }
@@ -541,6 +602,9 @@ public class FxFsFileDialog extends BaseInputDialog
         this.createReplicaTableContextMenu();
         FxHelper.initByteSizeChoiceBox(this.sizeUnitSelect);
         
+        this.ecDataInput.disableProperty().bind(this.ecEnabledCheckBox.selectedProperty().not());
+        this.ecParityInput.disableProperty().bind(this.ecEnabledCheckBox.selectedProperty().not());
+        
         this.replicationTable.setRowFactory(this::rowFactory);
         
         this.storageChoiceBox.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
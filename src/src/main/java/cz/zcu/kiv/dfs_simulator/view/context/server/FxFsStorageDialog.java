@@ -18,6 +18,7 @@ import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.scheduler.StorageIoSchedulerType;
 import cz.zcu.kiv.dfs_simulator.view.BaseInputDialog;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -57,6 +58,15 @@ public class FxFsStorageDialog extends BaseInputDialog
      */
     @FXML private ChoiceBox<ByteSpeedUnits> speedUnitSelect;
     
+    /**
+     * I/O scheduling policy select
+     */
+    @FXML private ChoiceBox<StorageIoSchedulerType> schedulerSelect;
+    /**
+     * Background operations limit input (MB/s)
+     */
+    @FXML private TextField backgroundLimitInput;
+    
     /**
      * Storage configuration dialog
      */
@@ -83,6 +93,25 @@ public class FxFsStorageDialog extends BaseInputDialog
         
         this.speedInput.setText(speedInputText);
         this.speedUnitSelect.getSelectionModel().select(nominalSpeedUnits);
+        
+        this.schedulerSelect.getSelectionModel().select(storage.ioSchedulerTypeProperty().get());
+        this.backgroundLimitInput.setText("" + storage.getBackgroundLimit().mBpsProperty().get());
+    }
+    
+    /**
+     * Set I/O scheduling policy and background operations limit from dialog
+     * input to {@code storage}. Background limit burst allows one second 
+     * of transfer at limit speed.
+     * 
+     * @param storage storage
+     */
+    public void applySchedulingSettings(ServerStorage storage)
+    {
+        ByteSpeed limit = new ByteSpeed(Double.parseDouble(this.backgroundLimitInput.getText()), ByteSpeedUnits.MBPS);
+        
+        storage.ioSchedulerTypeProperty().set(this.schedulerSelect.getSelectionModel().getSelectedItem());
+        storage.getBackgroundLimit().setBps(limit.bpsProperty().get());
+        storage.getBackgroundBurst().setBytes(limit.bpsProperty().get());
     }
     
     /**
@@ -126,6 +155,12 @@ public class FxFsStorageDialog extends BaseInputDialog
             return false;
         }
         
+        if(!Helper.isDouble(this.backgroundLimitInput.getText()) || 
+                Double.parseDouble(this.backgroundLimitInput.getText()) < 0)
+        {
+            return false;
+        }
+        
         if(Helper.isDouble(this.speedInput.getText()))
         {
             ByteSpeed speed = this.getSpeed();
@@ -137,12 +172,16 @@ public class FxFsStorageDialog extends BaseInputDialog
     }
     
     /**
-     * Initialize capacity and speed unit choice boxes.
+     * Initialize capacity and speed unit choice boxes and I/O scheduling inputs.
      */
     @Override public void initialize()
     {
         FxHelper.initByteSizeChoiceBox(this.capacityUnitSelect);        
         FxHelper.initByteSpeedChoiceBox(this.speedUnitSelect);
+        
+        this.schedulerSelect.getItems().addAll(StorageIoSchedulerType.values());
+        this.schedulerSelect.getSelectionModel().select(StorageIoSchedulerType.FAIR_SHARE);
+        this.backgroundLimitInput.setText("0");
     }
     
     /**
@@ -159,7 +198,7 @@ public class FxFsStorageDialog extends BaseInputDialog
         {
             Alert alert = FxHelper.getErrorDialog("Storage input error", 
                     "Error while validating storage", 
-                    "Capacity has to be greater than 0 and less than " + (ServerStorage.MAX_CAPACITY.getHumanReadableFormat()) + " and speed has to be greater than 0 and less than " + ServerStorage.MAX_SPEED.getHumanReadableFormat() + ".");
+                    "Capacity has to be greater than 0 and less than " + (ServerStorage.MAX_CAPACITY.getHumanReadableFormat()) + " and speed has to be greater than 0 and less than " + ServerStorage.MAX_SPEED.getHumanReadableFormat() + ". Background limit has to be a non-negative number (0 = unlimited).");
             
             alert.showAndWait();
         }
@@ -12,8 +12,11 @@
 package cz.zcu.kiv.dfs_simulator.view.context.server;
 
 import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
+import cz.zcu.kiv.dfs_simulator.model.ModelNodeRegistry;
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsErasureCodingManager;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
@@ -22,6 +25,7 @@ import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationMan
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javafx.beans.binding.Bindings;
+import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Dialog;
@@ -127,7 +131,7 @@ public class FxFsTable extends TreeTableView<FileSystemObject>
         {
             FsDirectory dir = (FsDirectory) object;
             
-            tObject = new TreeItem<>(dir, new ImageView(dirIconImage));
+            tObject = this.createDirectoryItem(dir);
             
             // add to parent if its not null
             if(parent != null)
@@ -155,6 +159,43 @@ public class FxFsTable extends TreeTableView<FileSystemObject>
         }
     }
     
+    /**
+     * Create tree item of {@code dir}. Items of unloaded directories load
+     * the directory when their children are requested (on first expand).
+     * 
+     * @param dir directory
+     * @return tree item
+     */
+    private TreeItem<FileSystemObject> createDirectoryItem(FsDirectory dir)
+    {
+        if(dir.isLoaded())
+        {
+            return new TreeItem<>(dir, new ImageView(dirIconImage));
+        }
+        
+        return new TreeItem<FileSystemObject>(dir, new ImageView(dirIconImage))
+        {
+            private boolean loaded = false;
+            
+            @Override public ObservableList<TreeItem<FileSystemObject>> getChildren()
+            {
+                if(!this.loaded)
+                {
+                    this.loaded = true;
+                    serverNode.getFsManager().loadDirectory(dir);
+                    dir.getChildren().forEach(c -> addFileStructureItem(c, this));
+                }
+                
+                return super.getChildren();
+            }
+            
+            @Override public boolean isLeaf()
+            {
+                return this.loaded && super.getChildren().isEmpty();
+            }
+        };
+    }
+    
     /**
      * Row factory for FS structure table rows - adds context menu.
      * 
@@ -175,10 +216,12 @@ public class FxFsTable extends TreeTableView<FileSystemObject>
                     final MenuItem newFile = getFileStructureNewFileMenuItem();
                     final MenuItem edit = getEditMenuItem();
                     final MenuItem selectMountDevice = getFileStructureSelectMountDeviceMenuItem();
+                    final MenuItem splitBlocks = getFileStructureSplitBlocksMenuItem();
+                    final MenuItem unload = getFileStructureUnloadMenuItem();
                     final MenuItem delete = getFileStructureDeleteMenuItem();
                     final ContextMenu cm;
                     
-                    cm = new ContextMenu(newDirectory, newFile, edit, selectMountDevice, delete);
+                    cm = new ContextMenu(newDirectory, newFile, edit, selectMountDevice, splitBlocks, unload, delete);
                     
                     row.contextMenuProperty().bind(
                             Bindings.when(row.emptyProperty())
@@ -236,6 +279,7 @@ public class FxFsTable extends TreeTableView<FileSystemObject>
                 try
                 {
                     serverNode.getFsManager().addDirectoryChild(parentDir, directory);
+                    FsErasureCodingManager.setPolicy(directory, dialog.getErasureCodingPolicy());
                     parentItem.getChildren().add(new TreeItem<>(directory, dirIcon));
 
                     ServerStorage parentStor = serverNode.getFsManager().getFsObjectMountDevice(parentDir);
@@ -360,6 +404,101 @@ public class FxFsTable extends TreeTableView<FileSystemObject>
         return edit;
     }
     
+    /**
+     * Returns split into blocks menu item - split selected file into blocks
+     * placed across all servers.
+     * 
+     * @return split into blocks menu item
+     */
+    private MenuItem getFileStructureSplitBlocksMenuItem()
+    {
+        final MenuItem splitBlocks = new MenuItem("Split into blocks");
+        
+        splitBlocks.setOnAction(event ->
+        {
+            TreeItem<FileSystemObject> selected = getSelectionModel().getSelectedItem();
+            
+            if(selected == null)
+            {
+                return;
+            }
+            
+            if(!(selected.getValue() instanceof FsFile))
+            {
+                Alert alert = FxHelper.getErrorDialog("Block split error", 
+                        "Cannot split directory", "Only files can be split into blocks.");
+                alert.showAndWait();
+                
+                return;
+            }
+            
+            FxFsBlockSplitDialog dialog = new FxFsBlockSplitDialog();
+            FxFsBlockSplitDialog.setUpAndShowDialog(dialog, getScene().getWindow(), "Split into blocks");
+            
+            if(dialog.isConfirmed())
+            {
+                try
+                {
+                    FsBlockManager.splitFile((FsFile) selected.getValue(), dialog.getBlockSize(), 
+                            dialog.getReplicationFactor(), ModelNodeRegistry.getServerNodes());
+                }
+                catch(NotEnoughSpaceLeftException ex)
+                {
+                    Alert alert = FxHelper.getErrorDialog("Block split error", 
+                            "Not enough space left", ex.getMessage());
+                    alert.showAndWait();
+                }
+            }
+        });
+        
+        return splitBlocks;
+    }
+    
+    /**
+     * Returns unload menu item - replace children of selected directory
+     * by their compact representation until they are needed again.
+     * 
+     * @return unload menu item
+     */
+    private MenuItem getFileStructureUnloadMenuItem()
+    {
+        final MenuItem unload = new MenuItem("Unload directory");
+        
+        unload.setOnAction(event ->
+        {
+            TreeItem<FileSystemObject> selected = getSelectionModel().getSelectedItem();
+            
+            if(selected == null || !(selected.getValue() instanceof FsDirectory))
+            {
+                return;
+            }
+            
+            FsDirectory dir = (FsDirectory) selected.getValue();
+            
+            if(!serverNode.getFsManager().unloadDirectory(dir))
+            {
+                Alert alert = FxHelper.getErrorDialog("Unload error", 
+                        "Cannot unload directory", "Directories containing mount entries, deduplicated, stub or erasure coded files cannot be unloaded.");
+                alert.showAndWait();
+                return;
+            }
+            
+            // replace item so that the directory is loaded again on expand
+            TreeItem<FileSystemObject> item = this.createDirectoryItem(dir);
+            
+            if(getRoot() == selected)
+            {
+                setRoot(item);
+            }
+            else
+            {
+                selected.getParent().getChildren().set(selected.getParent().getChildren().indexOf(selected), item);
+            }
+        });
+        
+        return unload;
+    }
+    
     /**
      * Returns delete menu item - delete selected FS object.
      * 
@@ -14,6 +14,7 @@ package cz.zcu.kiv.dfs_simulator.view.context.server;
 import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
+import cz.zcu.kiv.dfs_simulator.model.cache.ServerPageCache;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.TotalSizeBinding;
@@ -236,8 +237,27 @@ public class FxServerNodeContextDialog extends FxNodeContextDialog
         
         if(dialog.isConfirmed())
         {
-            this.serverNode.getFxStorageManager().addStorage(
+            ServerStorage storage = this.serverNode.getFxStorageManager().addStorage(
                     dialog.getSize(), dialog.getSpeed());
+            dialog.applySchedulingSettings(storage);
+        }
+    }
+    
+    /**
+     * Handle action when page cache settings dialog is requested and if
+     * confirmed, apply settings to page cache of this server.
+     */
+    public void handlePageCacheSettings()
+    {
+        ServerPageCache pageCache = this.serverNode.getServerNode().getStorageManager().getPageCache();
+        FxServerPageCacheDialog dialog = new FxServerPageCacheDialog();
+        
+        dialog.setCache(pageCache);
+        FxServerPageCacheDialog.setUpAndShowDialog(dialog, getScene().getWindow(), "Page cache");
+        
+        if(dialog.isConfirmed())
+        {
+            dialog.applySettings(pageCache);
         }
     }
     
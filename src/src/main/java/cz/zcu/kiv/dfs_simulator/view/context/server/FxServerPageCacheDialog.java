@@ -0,0 +1,189 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.view.context.server;
+
+import cz.zcu.kiv.dfs_simulator.helpers.FxHelper;
+import cz.zcu.kiv.dfs_simulator.helpers.Helper;
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.cache.CacheEvictionPolicy;
+import cz.zcu.kiv.dfs_simulator.model.cache.ServerPageCache;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.view.BaseInputDialog;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.TextField;
+
+/**
+ * Server page cache configuration dialog.
+ */
+public class FxServerPageCacheDialog extends BaseInputDialog
+{
+    /**
+     * Cache enabled checkbox
+     */
+    @FXML private CheckBox enabledCheckBox;
+    
+    /**
+     * Cache capacity input
+     */
+    @FXML private TextField capacityInput;
+    /**
+     * Cache capacity unit select
+     */
+    @FXML private ChoiceBox<ByteSizeUnits> capacityUnitSelect;
+    
+    /**
+     * Memory bandwidth input
+     */
+    @FXML private TextField bandwidthInput;
+    /**
+     * Memory bandwidth unit select
+     */
+    @FXML private ChoiceBox<ByteSpeedUnits> bandwidthUnitSelect;
+    
+    /**
+     * Eviction policy select
+     */
+    @FXML private ChoiceBox<CacheEvictionPolicy> policySelect;
+    
+    /**
+     * Page cache configuration dialog
+     */
+    public FxServerPageCacheDialog()
+    {
+        super(FxServerPageCacheDialog.class.getClassLoader().getResource("fxml/view/context/server/FxServerPageCacheDialog.fxml"));
+    }
+    
+    /**
+     * Set existing cache - inputs will be filled from this cache's settings.
+     * 
+     * @param cache page cache
+     */
+    public void setCache(ServerPageCache cache)
+    {
+        this.enabledCheckBox.setSelected(cache.isEnabled());
+        
+        this.capacityInput.setText(FxHelper.getNominalSize(cache.getCapacity()));
+        this.capacityUnitSelect.getSelectionModel().select(cache.getCapacity().getNominalUnits());
+        
+        this.bandwidthInput.setText(FxHelper.getNominalSpeed(cache.getBandwidth()));
+        this.bandwidthUnitSelect.getSelectionModel().select(cache.getBandwidth().getNominalUnits());
+        
+        this.policySelect.getSelectionModel().select(cache.evictionPolicyProperty().get());
+    }
+    
+    /**
+     * Set settings from dialog input to {@code cache}. Cached entries are 
+     * dropped so that the new capacity and policy apply from the start
+     * of the next simulation.
+     * 
+     * @param cache page cache
+     */
+    public void applySettings(ServerPageCache cache)
+    {
+        cache.clear();
+        
+        cache.enabledProperty().set(this.enabledCheckBox.isSelected());
+        cache.getCapacity().setBytes(this.getCapacity().bytesProperty().get());
+        cache.getBandwidth().setBps(this.getBandwidth().bpsProperty().get());
+        cache.evictionPolicyProperty().set(this.policySelect.getSelectionModel().getSelectedItem());
+    }
+    
+    /**
+     * Get cache capacity from dialog input.
+     * 
+     * @return cache capacity or null if input is not a number
+     */
+    public ByteSize getCapacity()
+    {
+        if(Helper.isDouble(this.capacityInput.getText()))
+        {
+            return new ByteSize(Double.parseDouble(this.capacityInput.getText()), 
+                    this.capacityUnitSelect.getSelectionModel().getSelectedItem());
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get memory bandwidth from dialog input.
+     * 
+     * @return memory bandwidth or null if input is not a number
+     */
+    public ByteSpeed getBandwidth()
+    {
+        if(Helper.isDouble(this.bandwidthInput.getText()))
+        {
+            return new ByteSpeed(Double.parseDouble(this.bandwidthInput.getText()), 
+                    this.bandwidthUnitSelect.getSelectionModel().getSelectedItem());
+        }
+        
+        return null;
+    }
+    
+    /**
+     *{@inheritDoc}
+     */
+    @Override public boolean validateInput()
+    {
+        ByteSize capacity = this.getCapacity();
+        
+        if(capacity == null || 
+                capacity.bytesProperty().get() <= 0 || 
+                capacity.bytesProperty().get() > ServerStorage.MAX_CAPACITY.bytesProperty().get())
+        {
+            return false;
+        }
+        
+        ByteSpeed bandwidth = this.getBandwidth();
+        
+        return (bandwidth != null && bandwidth.bpsProperty().get() > 0);
+    }
+    
+    /**
+     * Initialize unit and eviction policy choice boxes.
+     */
+    @Override public void initialize()
+    {
+        FxHelper.initByteSizeChoiceBox(this.capacityUnitSelect);
+        FxHelper.initByteSpeedChoiceBox(this.bandwidthUnitSelect);
+        
+        this.policySelect.getItems().addAll(CacheEvictionPolicy.values());
+        this.policySelect.getSelectionModel().select(CacheEvictionPolicy.LRU);
+    }
+    
+    /**
+     *{@inheritDoc}
+     */
+    @Override protected void handleConfirm()
+    {
+        if(this.validateInput())
+        {
+            confirmed = true;
+            stage.close();
+        }
+        else
+        {
+            Alert alert = FxHelper.getErrorDialog("Cache input error", 
+                    "Error while validating page cache", 
+                    "Capacity has to be greater than 0 and less than " + ServerStorage.MAX_CAPACITY.getHumanReadableFormat() + " and memory bandwidth has to be greater than 0.");
+            
+            alert.showAndWait();
+        }
+    }
+    
+}
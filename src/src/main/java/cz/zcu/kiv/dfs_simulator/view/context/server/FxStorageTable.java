@@ -130,6 +130,7 @@ public class FxStorageTable extends TableView<ServerStorage>
                     {
                         storage.getMaximumSpeed().bpsProperty().set(dialog.getSpeed().bpsProperty().get());
                         storage.getSize().bytesProperty().set(newSize.bytesProperty().get());
+                        dialog.applySchedulingSettings(storage);
                     }
                     else
                     {
@@ -14,8 +14,6 @@ package cz.zcu.kiv.dfs_simulator.view.context.server;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.LongSumBinding;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.ServerFileSystemManager;
-import java.util.ArrayList;
-import java.util.List;
 import javafx.beans.property.LongProperty;
 import javafx.collections.ObservableList;
 
@@ -54,21 +52,9 @@ public class UsedSizeBinding extends LongSumBinding<ServerStorage>
     /**
      * {@inheritDoc}
      */
-    @Override protected void refreshBinding()
+    @Override protected LongProperty getObservedProperty(ServerStorage child)
     {
-        unbind(observedProperties);
-        
-        // load new properties
-        List<LongProperty> tmp = new ArrayList<>();
-        children.stream().map((x) -> fsManager.getStorageUsedSize(x).bytesProperty()).forEach((ip) ->
-                {
-                    tmp.add(ip);
-                });
-        
-        observedProperties = tmp.toArray(new LongProperty[0]);
-        
-        super.bind(observedProperties);
-        this.invalidate();
+        return this.fsManager.getStorageUsedSize(child).bytesProperty();
     }
     
 }
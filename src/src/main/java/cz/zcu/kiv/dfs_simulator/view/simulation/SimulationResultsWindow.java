@@ -22,6 +22,7 @@ import cz.zcu.kiv.dfs_simulator.helpers.SimulatorPreferences;
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
 import cz.zcu.kiv.dfs_simulator.simulation.DfsStringSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.balancer.BalancerReport;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
@@ -80,6 +81,21 @@ public class SimulationResultsWindow extends StackPane
     @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsAvgSpeedCol;
     @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsDownloadedCol;
     @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsUploadedCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsPageCacheCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsSavedDeviceTimeCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsReplicationTimeCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsWriteLatencyCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsConvergenceLagCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsDegradedReadsCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsTailTimeCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsHedgedReadsCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsRedundancyTimeCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsRecoverySpeedCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsHotspotLoadCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsBalancerCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsDeduplicatedWritesCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsMetadataTimeCol;
+    @FXML private TableColumn<FxSimulatorTaskResultSet, String> resultsMetadataCacheCol;
     
     /**
      * Results time unit choice box
@@ -197,6 +213,46 @@ public class SimulationResultsWindow extends StackPane
         this.resultsTimeCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
             return new ReadOnlyStringWrapper(getConvertedResultTime(p.getValue()));
         });
+        
+        this.resultsSavedDeviceTimeCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedTime(p.getValue().getSimulationResult().getSavedDeviceTime()));
+        });
+        
+        this.resultsReplicationTimeCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedTime(p.getValue().getSimulationResult().getAverageReplicationTime()));
+        });
+        
+        this.resultsWriteLatencyCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedTime(p.getValue().getSimulationResult().getAverageWriteLatency()));
+        });
+        
+        this.resultsMetadataTimeCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedMetadataTime(p.getValue()));
+        });
+        
+        this.resultsMetadataCacheCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedMetadataCache(p.getValue()));
+        });
+        
+        this.resultsConvergenceLagCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedTime(p.getValue().getSimulationResult().getAverageConvergenceLag()));
+        });
+        
+        this.resultsDegradedReadsCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedDegradedReads(p.getValue()));
+        });
+        
+        this.resultsTailTimeCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedTime(p.getValue().getSimulationResult().getTailTaskTime()));
+        });
+        
+        this.resultsHedgedReadsCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedHedgedReads(p.getValue()));
+        });
+        
+        this.resultsRedundancyTimeCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedRedundancyTime(p.getValue()));
+        });
                 
         this.forceUpdateTable();
     }
@@ -210,6 +266,14 @@ public class SimulationResultsWindow extends StackPane
             return new ReadOnlyStringWrapper(getConvertedResultSpeed(p.getValue().getSimulationResult().getTotalAverageSpeed()));
         });
         
+        this.resultsRecoverySpeedCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedRecoverySpeed(p.getValue()));
+        });
+        
+        this.resultsBalancerCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedBalancer(p.getValue()));
+        });
+        
         this.forceUpdateTable();
     }
     
@@ -226,6 +290,10 @@ public class SimulationResultsWindow extends StackPane
             return new ReadOnlyStringWrapper(getConvertedResultSize(p.getValue().getSimulationResult().getTotalUploaded()));
         });
         
+        this.resultsDeduplicatedWritesCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> {
+            return new ReadOnlyStringWrapper(getConvertedDeduplicatedWrites(p.getValue()));
+        });
+        
         this.forceUpdateTable();
     }
     
@@ -588,8 +656,17 @@ public class SimulationResultsWindow extends StackPane
      */
     private String getConvertedResultTime(FxSimulatorTaskResultSet result)
     {
-        long totalElapsedTime = result.getSimulationResult().getTotalElapsedTime().get();
-        
+        return this.getConvertedTime(result.getSimulationResult().getTotalElapsedTime().get());
+    }
+    
+    /**
+     * Convert time to string based on currently set time unit.
+     * 
+     * @param totalElapsedTime time (ms)
+     * @return converted time
+     */
+    private String getConvertedTime(long totalElapsedTime)
+    {
         switch(this.timeUnitChoiceBox.getValue())
         {
             case MILLISECOND:
@@ -655,6 +732,150 @@ public class SimulationResultsWindow extends StackPane
         }
     }
     
+    /**
+     * Convert page cache hit ratio to string (percentage).
+     * 
+     * @param result task result
+     * @return converted hit ratio
+     */
+    private String getConvertedPageCacheHitRatio(FxSimulatorTaskResultSet result)
+    {
+        return String.format("%.1f", result.getSimulationResult().getPageCacheHitRatio() * 100);
+    }
+    
+    /**
+     * Convert number of degraded reads and their total reconstruction time to string.
+     * 
+     * @param result task result
+     * @return converted degraded reads
+     */
+    private String getConvertedDegradedReads(FxSimulatorTaskResultSet result)
+    {
+        return result.getSimulationResult().getDegradedReads() + " (" + 
+                getConvertedTime(result.getSimulationResult().getTotalReconstructionTime()) + ")";
+    }
+    
+    /**
+     * Convert number of hedged reads and total data wasted by their cancelled
+     * requests to string.
+     * 
+     * @param result task result
+     * @return converted hedged reads
+     */
+    private String getConvertedHedgedReads(FxSimulatorTaskResultSet result)
+    {
+        return result.getSimulationResult().getHedgedReads() + " (" + 
+                getConvertedResultSize(result.getSimulationResult().getTotalWastedData()) + ")";
+    }
+    
+    /**
+     * Convert number of deduplicated writes and total data they did not
+     * have to transfer to string.
+     * 
+     * @param result task result
+     * @return converted deduplicated writes
+     */
+    private String getConvertedDeduplicatedWrites(FxSimulatorTaskResultSet result)
+    {
+        return result.getSimulationResult().getDeduplicatedWrites() + " (" + 
+                getConvertedResultSize(result.getSimulationResult().getTotalDeduplicatedData()) + " saved)";
+    }
+    
+    /**
+     * Convert average metadata time and average time spent in metadata 
+     * server's queue to string.
+     * 
+     * @param result task result
+     * @return converted metadata time
+     */
+    private String getConvertedMetadataTime(FxSimulatorTaskResultSet result)
+    {
+        return getConvertedTime(result.getSimulationResult().getAverageMetadataTime()) + " (" + 
+                getConvertedTime(result.getSimulationResult().getAverageMetadataQueueTime()) + " queued)";
+    }
+    
+    /**
+     * Convert client metadata cache hit ratio (percentage), saved metadata
+     * time and number of misroutes to string.
+     * 
+     * @param result task result
+     * @return converted metadata cache statistics
+     */
+    private String getConvertedMetadataCache(FxSimulatorTaskResultSet result)
+    {
+        return String.format("%.1f", result.getSimulationResult().getMetadataCacheHitRatio() * 100) + " % (saved " + 
+                getConvertedTime(result.getSimulationResult().getTotalMetadataSavedTime()) + ", " + 
+                result.getSimulationResult().getMetadataMisroutes() + " misroutes)";
+    }
+    
+    /**
+     * Convert time to full redundancy after server failures and number
+     * of lost files to string.
+     * 
+     * @param result task result
+     * @return converted time to full redundancy
+     */
+    private String getConvertedRedundancyTime(FxSimulatorTaskResultSet result)
+    {
+        if(result.getSimulationResult().getRecoveries().isEmpty())
+        {
+            return "-";
+        }
+        
+        long time = result.getSimulationResult().getTimeToFullRedundancy();
+        
+        return ((time >= 0) ? getConvertedTime(time) : "not reached") + 
+                " (" + result.getSimulationResult().getLostFiles() + " lost)";
+    }
+    
+    /**
+     * Convert average speed of tasks during and outside of server recovery
+     * to string.
+     * 
+     * @param result task result
+     * @return converted speed during recovery / outside of recovery and balancing
+     */
+    private String getConvertedRecoverySpeed(FxSimulatorTaskResultSet result)
+    {
+        if(result.getSimulationResult().getRecoveries().isEmpty())
+        {
+            return "-";
+        }
+        
+        return getConvertedResultSpeed(result.getSimulationResult().getRecoveryAverageSpeed()) + " / " + 
+                getConvertedResultSpeed(result.getSimulationResult().getNormalAverageSpeed());
+    }
+    
+    /**
+     * Convert amount of data moved by cluster balancer and average speed 
+     * of tasks during balancing to string.
+     * 
+     * @param result task result
+     * @return converted balancer summary
+     */
+    private String getConvertedBalancer(FxSimulatorTaskResultSet result)
+    {
+        if(result.getSimulationResult().getBalancerReport() == null)
+        {
+            return "-";
+        }
+        
+        return result.getSimulationResult().getBalancerReport().getMovedFiles() + " (" + 
+                getConvertedResultSize(new ByteSize(result.getSimulationResult().getBalancerReport().getMovedBytes())) + "), " + 
+                getConvertedResultSpeed(result.getSimulationResult().getBalancingAverageSpeed());
+    }
+    
+    /**
+     * Convert hotspot load to string (percentage).
+     * 
+     * @param result task result
+     * @return converted hotspot load
+     */
+    private String getConvertedHotspotLoad(FxSimulatorTaskResultSet result)
+    {
+        return String.format("%.1f", result.getSimulationResult().getHotspotLoad() * 100);
+    }
+    
     /**
      * Convert results using currently set unit options for time, speed and size
      * into a CSV string.
@@ -679,6 +900,39 @@ public class SimulationResultsWindow extends StackPane
         sb.append(sizeUnitShort);
         sb.append(",uploaded");
         sb.append(sizeUnitShort);
+        sb.append(",page_cache_hits(%),saved_device_time");
+        sb.append(timeUnitShort);
+        sb.append(",avg.replication_time");
+        sb.append(timeUnitShort);
+        sb.append(",avg.write_latency");
+        sb.append(timeUnitShort);
+        sb.append(",avg.convergence_lag");
+        sb.append(timeUnitShort);
+        sb.append(",degraded_reads,reconstruction_time");
+        sb.append(timeUnitShort);
+        sb.append(",p99_time");
+        sb.append(timeUnitShort);
+        sb.append(",hedged_reads,wasted_data");
+        sb.append(sizeUnitShort);
+        sb.append(",time_to_full_redundancy");
+        sb.append(timeUnitShort);
+        sb.append(",lost_files,avg.speed_in_recovery");
+        sb.append(speedUnitShort);
+        sb.append(",avg.speed_normal");
+        sb.append(speedUnitShort);
+        sb.append(",hotspot_load(%),balancer_moved_files,balancer_moved_data");
+        sb.append(sizeUnitShort);
+        sb.append(",avg.speed_in_balancing");
+        sb.append(speedUnitShort);
+        sb.append(",deduplicated_writes,deduplicated_data");
+        sb.append(sizeUnitShort);
+        sb.append(",avg.metadata_time");
+        sb.append(timeUnitShort);
+        sb.append(",avg.metadata_queue_time");
+        sb.append(timeUnitShort);
+        sb.append(",metadata_cache_hit_ratio,metadata_cache_saved_time");
+        sb.append(timeUnitShort);
+        sb.append(",metadata_misroutes");
         sb.append("\n");
         
         this.resultsSorted.stream().forEach(res -> {
@@ -691,7 +945,60 @@ public class SimulationResultsWindow extends StackPane
             sb.append(getConvertedResultSize(res.getSimulationResult().getTotalDownloaded()));
             sb.append("\",\"");
             sb.append(getConvertedResultSize(res.getSimulationResult().getTotalUploaded()));
-            sb.append("\"\n");
+            sb.append("\",\"");
+            sb.append(getConvertedPageCacheHitRatio(res));
+            sb.append("\",");
+            sb.append(getConvertedTime(res.getSimulationResult().getSavedDeviceTime()));
+            sb.append(",");
+            sb.append(getConvertedTime(res.getSimulationResult().getAverageReplicationTime()));
+            sb.append(",");
+            sb.append(getConvertedTime(res.getSimulationResult().getAverageWriteLatency()));
+            sb.append(",");
+            sb.append(getConvertedTime(res.getSimulationResult().getAverageConvergenceLag()));
+            sb.append(",");
+            sb.append(res.getSimulationResult().getDegradedReads());
+            sb.append(",");
+            sb.append(getConvertedTime(res.getSimulationResult().getTotalReconstructionTime()));
+            sb.append(",");
+            sb.append(getConvertedTime(res.getSimulationResult().getTailTaskTime()));
+            sb.append(",");
+            sb.append(res.getSimulationResult().getHedgedReads());
+            sb.append(",\"");
+            sb.append(getConvertedResultSize(res.getSimulationResult().getTotalWastedData()));
+            sb.append("\",");
+            sb.append(getConvertedTime(res.getSimulationResult().getTimeToFullRedundancy()));
+            sb.append(",");
+            sb.append(res.getSimulationResult().getLostFiles());
+            sb.append(",\"");
+            sb.append(getConvertedResultSpeed(res.getSimulationResult().getRecoveryAverageSpeed()));
+            sb.append("\",\"");
+            sb.append(getConvertedResultSpeed(res.getSimulationResult().getNormalAverageSpeed()));
+            sb.append("\",\"");
+            sb.append(getConvertedHotspotLoad(res));
+            sb.append("\",");
+            
+            BalancerReport balancerReport = res.getSimulationResult().getBalancerReport();
+            
+            sb.append((balancerReport != null) ? balancerReport.getMovedFiles() : 0);
+            sb.append(",\"");
+            sb.append(getConvertedResultSize(new ByteSize((balancerReport != null) ? balancerReport.getMovedBytes() : 0)));
+            sb.append("\",\"");
+            sb.append(getConvertedResultSpeed(res.getSimulationResult().getBalancingAverageSpeed()));
+            sb.append("\",");
+            sb.append(res.getSimulationResult().getDeduplicatedWrites());
+            sb.append(",\"");
+            sb.append(getConvertedResultSize(res.getSimulationResult().getTotalDeduplicatedData()));
+            sb.append("\",");
+            sb.append(getConvertedTime(res.getSimulationResult().getAverageMetadataTime()));
+            sb.append(",");
+            sb.append(getConvertedTime(res.getSimulationResult().getAverageMetadataQueueTime()));
+            sb.append(",");
+            sb.append(String.format("%.1f", res.getSimulationResult().getMetadataCacheHitRatio() * 100));
+            sb.append(",");
+            sb.append(getConvertedTime(res.getSimulationResult().getTotalMetadataSavedTime()));
+            sb.append(",");
+            sb.append(res.getSimulationResult().getMetadataMisroutes());
+            sb.append("\n");
         });
 
         return sb.toString();
@@ -772,6 +1079,12 @@ public class SimulationResultsWindow extends StackPane
         this.resultsMethodCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> 
                 new ReadOnlyStringWrapper(p.getValue().getSimulationResult().getType().toString()));
         
+        this.resultsPageCacheCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> 
+                new ReadOnlyStringWrapper(getConvertedPageCacheHitRatio(p.getValue()) + " %"));
+        
+        this.resultsHotspotLoadCol.setCellValueFactory((TableColumn.CellDataFeatures<FxSimulatorTaskResultSet, String> p) -> 
+                new ReadOnlyStringWrapper(getConvertedHotspotLoad(p.getValue()) + " %"));
+        
         this.resultsTable.getItems().addAll(this.resultsSorted);
         
         this.initUnitChoiceListeners();
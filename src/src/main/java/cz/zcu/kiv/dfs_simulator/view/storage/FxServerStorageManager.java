@@ -54,9 +54,13 @@ public class FxServerStorageManager
      * 
      * @param capacity storage capacity
      * @param speed storage speed
+     * @return created storage
      */
-    public void addStorage(ByteSize capacity, ByteSpeed speed)
+    public ServerStorage addStorage(ByteSize capacity, ByteSpeed speed)
     {
-        this.storage.add(new ServerStorage(capacity, speed));
+        ServerStorage stor = new ServerStorage(capacity, speed);
+        this.storage.add(stor);
+        
+        return stor;
     }
 }
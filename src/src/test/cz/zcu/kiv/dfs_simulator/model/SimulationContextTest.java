@@ -0,0 +1,102 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model;
+
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link SimulationContext}.
+ */
+public class SimulationContextTest
+{
+    /**
+     * Test that registries of separate contexts do not share entries.
+     */
+    @Test public void testSeparateRegistries()
+    {
+        SimulationContext context = new SimulationContext();
+        List<ModelServerNode> nodes = new ArrayList<>();
+        
+        context.run(() ->
+        {
+            ModelServerNode node = new ModelServerNode();
+            FsFile file = new FsFile("context_test_file", new ByteSize(1), node.getRootDir());
+            
+            FsGlobalObjectRegistry.addEntry(file, node);
+            nodes.add(node);
+            
+            assertSame(node, ModelNodeRegistry.getNode(node.getNodeID()));
+            assertNotNull(FsGlobalObjectRegistry.getObjectEntry("/context_test_file"));
+        });
+        
+        assertSame(SimulationContext.getDefault(), SimulationContext.getCurrent());
+        assertNull(FsGlobalObjectRegistry.getObjectEntry("/context_test_file"));
+        assertFalse(ModelNodeRegistry.getServerNodes().contains(nodes.get(0)));
+        assertSame(nodes.get(0), context.getNodeRegistry().getNode(nodes.get(0).getNodeID()));
+    }
+    
+    /**
+     * Test method {@link SimulationContext#call} - task result is returned
+     * and context of the calling thread is restored.
+     */
+    @Test public void testCall()
+    {
+        SimulationContext context = new SimulationContext();
+        
+        SimulationContext bound = context.call(SimulationContext::getCurrent);
+        
+        assertSame(context, bound);
+        assertSame(SimulationContext.getDefault(), SimulationContext.getCurrent());
+    }
+    
+    /**
+     * Test that parallel workers can register objects into a shared context.
+     */
+    @Test public void testSharedContext() throws InterruptedException
+    {
+        SimulationContext context = new SimulationContext();
+        List<Thread> workers = new ArrayList<>();
+        
+        for(int w = 0; w < 4; w++)
+        {
+            workers.add(new Thread(() -> context.run(() ->
+            {
+                ModelServerNode node = new ModelServerNode();
+                
+                for(int i = 0; i < 200; i++)
+                {
+                    FsFile file = new FsFile("shared_" + i, new ByteSize(1), node.getRootDir());
+                    FsGlobalObjectRegistry.addEntry(file, node);
+                }
+            })));
+        }
+        
+        for(Thread worker : workers)
+        {
+            worker.start();
+        }
+        
+        for(Thread worker : workers)
+        {
+            worker.join();
+        }
+        
+        assertEquals(4, context.getNodeRegistry().getServerNodes().size());
+        assertEquals(200, context.getObjectRegistry().getEntries().size());
+        assertEquals(4, context.getObjectRegistry().getObjectEntry("/shared_0").servers.size());
+    }
+}
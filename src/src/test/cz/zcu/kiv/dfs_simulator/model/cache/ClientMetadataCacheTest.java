@@ -0,0 +1,93 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link ClientMetadataCache}.
+ */
+public class ClientMetadataCacheTest
+{
+    private FsDirectory dir;
+    private FsFile f1;
+    private FsFile f2;
+    private FsFile f3;
+    private List<ModelServerNode> locations;
+    
+    @Before public void setUp()
+    {
+        this.dir = new FsDirectory("umisteni", null);
+        
+        this.f1 = new FsFile("f1", new ByteSize(1, ByteSizeUnits.KB), this.dir);
+        this.f2 = new FsFile("f2", new ByteSize(1, ByteSizeUnits.KB), this.dir);
+        this.f3 = new FsFile("f3", new ByteSize(1, ByteSizeUnits.KB), this.dir);
+        
+        this.locations = Arrays.asList(new ModelServerNode(false), new ModelServerNode(false));
+    }
+    
+    /**
+     * Test method {@link ClientMetadataCache#lookup(cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject, long)}.
+     */
+    @Test public void testLookup()
+    {
+        ClientMetadataCache cache = new ClientMetadataCache();
+        cache.timeToLiveProperty().set(100);
+        
+        assertNull(cache.lookup(this.f1, 0));
+        cache.insert(this.f1, this.locations, 0);
+        
+        MetadataCacheEntry entry = cache.lookup(this.f1, 50);
+        assertNotNull(entry);
+        assertEquals(this.locations, entry.getLocations());
+        
+        // expired entry is removed
+        assertNull(cache.lookup(this.f1, 150));
+        assertEquals(0, cache.getEntryCount());
+        
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        
+        cache.insert(this.f2, this.locations, 200);
+        cache.invalidate(this.f2.getFullPath());
+        assertNull(cache.lookup(this.f2, 200));
+    }
+    
+    /**
+     * Test method {@link ClientMetadataCache#insert(cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject, java.util.Collection, long)}.
+     */
+    @Test public void testEvictLru()
+    {
+        ClientMetadataCache cache = new ClientMetadataCache();
+        cache.capacityProperty().set(2);
+        
+        cache.insert(this.f1, this.locations, 0);
+        cache.insert(this.f2, this.locations, 10);
+        // f1 becomes most recently used
+        cache.lookup(this.f1, 20);
+        cache.insert(this.f3, this.locations, 30);
+        
+        assertEquals(2, cache.getEntryCount());
+        assertNotNull(cache.lookup(this.f1, 40));
+        assertNull(cache.lookup(this.f2, 40));
+        assertNotNull(cache.lookup(this.f3, 40));
+    }
+}
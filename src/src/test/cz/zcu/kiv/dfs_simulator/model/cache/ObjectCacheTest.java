@@ -0,0 +1,109 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.cache;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link ObjectCache}.
+ */
+public class ObjectCacheTest
+{
+    private FsDirectory dir;
+    private FsFile f1;
+    private FsFile f2;
+    private FsFile f3;
+    
+    @Before public void setUp()
+    {
+        this.dir = new FsDirectory("data", null);
+        
+        this.f1 = new FsFile("f1", new ByteSize(40, ByteSizeUnits.MB), this.dir);
+        this.f2 = new FsFile("f2", new ByteSize(40, ByteSizeUnits.MB), this.dir);
+        this.f3 = new FsFile("f3", new ByteSize(40, ByteSizeUnits.MB), this.dir);
+    }
+    
+    /**
+     * Test method {@link ObjectCache#lookup(cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject, long)}.
+     */
+    @Test public void testLookup()
+    {
+        ObjectCache cache = new ObjectCache(new ByteSize(100, ByteSizeUnits.MB), CacheEvictionPolicy.LRU, 0);
+        
+        assertFalse(cache.lookup(this.f1, 0));
+        cache.insert(this.f1, 0);
+        assertTrue(cache.lookup(this.f1, 10));
+        
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio(), 0.0001);
+        
+        // resized object is stale
+        this.f1.setSize(new ByteSize(10, ByteSizeUnits.MB));
+        assertFalse(cache.lookup(this.f1, 20));
+        assertEquals(0, cache.getUsedBytes());
+    }
+    
+    /**
+     * Test method {@link ObjectCache#insert(cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject, long)}.
+     */
+    @Test public void testEvictLru()
+    {
+        ObjectCache cache = new ObjectCache(new ByteSize(100, ByteSizeUnits.MB), CacheEvictionPolicy.LRU, 0);
+        
+        cache.insert(this.f1, 0);
+        cache.insert(this.f2, 10);
+        // f1 becomes most recently used
+        cache.lookup(this.f1, 20);
+        cache.insert(this.f3, 30);
+        
+        assertTrue(cache.contains(this.f1, 40));
+        assertFalse(cache.contains(this.f2, 40));
+        assertTrue(cache.contains(this.f3, 40));
+    }
+    
+    /**
+     * Test method {@link ObjectCache#insert(cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject, long)}.
+     */
+    @Test public void testEvictFifo()
+    {
+        ObjectCache cache = new ObjectCache(new ByteSize(100, ByteSizeUnits.MB), CacheEvictionPolicy.FIFO, 0);
+        
+        cache.insert(this.f1, 0);
+        cache.insert(this.f2, 10);
+        cache.lookup(this.f1, 20);
+        cache.insert(this.f3, 30);
+        
+        assertFalse(cache.contains(this.f1, 40));
+        assertTrue(cache.contains(this.f2, 40));
+        assertTrue(cache.contains(this.f3, 40));
+    }
+    
+    /**
+     * Test method {@link ObjectCache#lookup(cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject, long)}.
+     */
+    @Test public void testTimeToLive()
+    {
+        ObjectCache cache = new ObjectCache(new ByteSize(100, ByteSizeUnits.MB), CacheEvictionPolicy.LRU, 1000);
+        
+        cache.insert(this.f1, 0);
+        
+        assertTrue(cache.lookup(this.f1, 500));
+        assertFalse(cache.lookup(this.f1, 1500));
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.metadata;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link MetadataService}.
+ */
+public class MetadataServiceTest
+{
+    /**
+     * Test that operations arriving while the service is busy wait in queue
+     * and are served in FIFO order.
+     */
+    @Test public void testQueueing()
+    {
+        MetadataService service = new MetadataService();
+        service.lookupTimeProperty().set(2);
+        service.updateTimeProperty().set(10);
+        
+        assertEquals(10, service.submit(MetadataOperation.CREATE, 0));
+        assertEquals(20, service.submit(MetadataOperation.REPLICA_UPDATE, 0));
+        assertEquals(22, service.submit(MetadataOperation.LOOKUP, 5));
+        
+        assertEquals(3, service.getQueueLength(5));
+        assertEquals(1, service.getQueueLength(20));
+        assertEquals(10 + 15, service.getTotalQueueTime());
+        
+        // idle service serves operation immediately
+        assertEquals(102, service.submit(MetadataOperation.LOOKUP, 100));
+        assertEquals(3, service.getMaxQueueLength());
+        
+        service.reset();
+        assertEquals(0, service.getProcessedOperations());
+        assertEquals(2, service.submit(MetadataOperation.LOOKUP, 0));
+    }
+}
@@ -54,7 +54,25 @@ public class DfsSimulatorSimulationResultTest
         this.result.buildCumulativeStats();
 
         assertEquals(50000, this.result.getTotalElapsedTime().get());
+        assertEquals(40000, this.result.getTailTaskTime());
         
     }
     
+    /**
+     * Test method {@link DfsSimulatorSimulationResult#getPercentile(java.util.List, double)}.
+     */
+    @Test public void getPercentileTest()
+    {
+        ArrayList<Long> values = new ArrayList<>();
+        
+        for(long i = 100; i > 0; i--)
+        {
+            values.add(i);
+        }
+        
+        assertEquals(99, DfsSimulatorSimulationResult.getPercentile(values, 0.99));
+        assertEquals(50, DfsSimulatorSimulationResult.getPercentile(values, 0.5));
+        assertEquals(0, DfsSimulatorSimulationResult.getPercentile(new ArrayList<>(), 0.99));
+    }
+    
 }
@@ -17,8 +17,15 @@ import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
 import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorTaskResultState;
 import cz.zcu.kiv.dfs_simulator.simulation.PutSimulationTask;
 import cz.zcu.kiv.dfs_simulator.simulation.DfsStringSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorSimulationResult;
 import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorTaskResult;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationBackgroundProcess;
+import cz.zcu.kiv.dfs_simulator.simulation.ServerFailure;
 import cz.zcu.kiv.dfs_simulator.simulation.SimulationPlan;
+import cz.zcu.kiv.dfs_simulator.simulation.StripedTransferSource;
+import cz.zcu.kiv.dfs_simulator.model.cache.CacheLookupResult;
+import cz.zcu.kiv.dfs_simulator.model.metadata.MetadataService;
 import cz.zcu.kiv.dfs_simulator.model.ByteSize;
 import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
 import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
@@ -27,12 +34,25 @@ import cz.zcu.kiv.dfs_simulator.model.ModelClientNode;
 import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
 import cz.zcu.kiv.dfs_simulator.model.connection.LineConnectionCharacteristic;
 import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
+import cz.zcu.kiv.dfs_simulator.simulation.path.DfsPath;
 import cz.zcu.kiv.dfs_simulator.simulation.path.MetricDfsPathPicker;
+import cz.zcu.kiv.dfs_simulator.simulation.graph.DijkstraGraphSearcher;
 import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlock;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockLayout;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsBlockManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.ErasureCodingPolicy;
+import cz.zcu.kiv.dfs_simulator.model.storage.block.FsErasureCodingManager;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
 import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationConsistency;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationMode;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationProgress;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -214,4 +234,871 @@ public class DfsTimeSliceSimulatorTest
         assertEquals(estTime, l.get(0).getTotalTime());
     }
     
+    /**
+     * Test method {@link DfsTimeSliceSimulator#executeDownloadTask(
+     * cz.zcu.kiv.dfs_simulator.simulation.SimulationTask, 
+     * long, 
+     * java.util.List, 
+     * cz.zcu.kiv.dfs_simulator.simulation.SimulationThroughputSampler, 
+     * cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger)}
+     * with repeated reads served from server page cache.
+     * 
+     * @throws NotEnoughSpaceLeftException when target storage does not have
+     * enough space available - cannot be thrown here
+     */
+    @Test public void testPageCacheRun() throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s1 = new ModelServerNode();
+        ModelClientNode c1 = new ModelClientNode();
+        
+        ByteSpeed bw = new ByteSpeed(1000, ByteSpeedUnits.MBPS);
+        ModelNodeConnection conn1 = new ModelNodeConnection(c1, s1, bw, 10);
+        
+        s1.getConnectionManager().addConnection(conn1);
+        c1.getConnectionManager().addConnection(conn1);
+        
+        ServerStorage stor1 = new ServerStorage(
+                new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        s1.getStorageManager().getStorage().add(stor1);
+        s1.getStorageManager().getPageCache().enabledProperty().set(true);
+        
+        FsFile f = new FsFile("stahnout", new ByteSize(500, ByteSizeUnits.MB), s1.getRootDir());
+        
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), f);
+        s1.getFsManager().mount(stor1, s1.getRootDir());
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        
+        MetricDfsPathPicker pathBuilder = new MetricDfsPathPicker();
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, pathBuilder, SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+        
+        DfsStringSimulatorLogger logger = new DfsStringSimulatorLogger();
+        sim.run(logger);
+        
+        List<DfsSimulatorTaskResult> l = sim.getResults();
+        
+        assertEquals(2, l.size());
+        assertEquals(DfsSimulatorTaskResultState.SUCCESS, l.get(1).getState());
+        assertEquals(CacheLookupResult.MISS, l.get(0).getPageCacheResult());
+        assertEquals(CacheLookupResult.HIT, l.get(1).getPageCacheResult());
+        assertTrue(l.get(1).getSavedDeviceTime() > 0);
+        // second read is not limited by storage device speed
+        assertTrue(l.get(1).getTotalTime() < l.get(0).getTotalTime());
+    }
+    
+    
+    /**
+     * Test method {@link DfsTimeSliceSimulator#executeDownloadTask(
+     * cz.zcu.kiv.dfs_simulator.simulation.SimulationTask, 
+     * long, 
+     * java.util.List, 
+     * cz.zcu.kiv.dfs_simulator.simulation.SimulationThroughputSampler, 
+     * java.util.List, 
+     * cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger)}
+     * with download striped across two replicas.
+     * 
+     * @throws NotEnoughSpaceLeftException when target storage does not have
+     * enough space available - cannot be thrown here
+     */
+    @Test public void testStripedDownloadRun() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ByteSpeed bw = new ByteSpeed(10, ByteSpeedUnits.MBPS);
+        ByteSize size = new ByteSize(1000, ByteSizeUnits.MB);
+        FsFile f = null;
+        
+        for(int i = 0; i < 2; i++)
+        {
+            ModelServerNode s = new ModelServerNode();
+            ModelNodeConnection conn = new ModelNodeConnection(c1, s, bw, 10);
+            
+            s.getConnectionManager().addConnection(conn);
+            c1.getConnectionManager().addConnection(conn);
+            
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+            s.getStorageManager().getStorage().add(stor);
+            
+            f = new FsFile("prouzkovat", size, s.getRootDir());
+            
+            s.getFsManager().addDirectoryChild(s.getRootDir(), f);
+            s.getFsManager().mount(stor, s.getRootDir());
+        }
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        
+        MetricDfsPathPicker pathBuilder = new MetricDfsPathPicker();
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, pathBuilder, SimulationType.STRIPED_PATH_THROUGHPUT_AND_LATENCY);
+        
+        DfsStringSimulatorLogger logger = new DfsStringSimulatorLogger();
+        sim.run(logger);
+        
+        List<DfsSimulatorTaskResult> l = sim.getResults();
+        
+        assertEquals(1, l.size());
+        assertEquals(DfsSimulatorTaskResultState.SUCCESS, l.get(0).getState());
+        
+        List<StripedTransferSource> sources = l.get(0).getStripeSources();
+        
+        assertEquals(2, sources.size());
+        assertTrue(sources.stream().allMatch(s -> s.getTransferedBytes() > 0));
+        assertEquals(size.bytesProperty().get(), sources.stream().mapToLong(s -> s.getTransferedBytes()).sum());
+        
+        // both links are used at once
+        long singleSourceTime = (size.bytesProperty().get() / bw.bpsProperty().get()) * 1000;
+        
+        assertTrue(l.get(0).getTotalTime() < singleSourceTime);
+    }
+    
+    /**
+     * Test method {@link DfsTimeSliceSimulator#run}, file split into blocks.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testBlockDownloadRun() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ByteSpeed bw = new ByteSpeed(10, ByteSpeedUnits.MBPS);
+        ByteSize size = new ByteSize(300, ByteSizeUnits.MB);
+        List<ModelServerNode> servers = new ArrayList<>();
+        
+        for(int i = 0; i < 3; i++)
+        {
+            ModelServerNode s = new ModelServerNode();
+            ModelNodeConnection conn = new ModelNodeConnection(c1, s, bw, 10);
+            
+            s.getConnectionManager().addConnection(conn);
+            c1.getConnectionManager().addConnection(conn);
+            
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+            s.getStorageManager().getStorage().add(stor);
+            s.getFsManager().mount(stor, s.getRootDir());
+            
+            servers.add(s);
+        }
+        
+        ModelServerNode s1 = servers.get(0);
+        FsFile f = new FsFile("blokovat", size, s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), f);
+        
+        FsBlockLayout layout = FsBlockManager.splitFile(f, new ByteSize(100, ByteSizeUnits.MB), 2, servers);
+        
+        assertTrue(FsBlockManager.isFileBlocked(f));
+        assertEquals(3, layout.getBlocks().size());
+        assertEquals(size.bytesProperty().get(), layout.getTotalSize());
+        
+        for(FsBlock block : layout.getBlocks())
+        {
+            assertEquals(2, block.getReplicaTargets().size());
+        }
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        
+        MetricDfsPathPicker pathBuilder = new MetricDfsPathPicker();
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, pathBuilder, SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+        
+        DfsStringSimulatorLogger logger = new DfsStringSimulatorLogger();
+        sim.run(logger);
+        
+        List<DfsSimulatorTaskResult> l = sim.getResults();
+        
+        assertEquals(1, l.size());
+        assertEquals(DfsSimulatorTaskResultState.SUCCESS, l.get(0).getState());
+        assertEquals(3, l.get(0).getStripeSources().size());
+        assertEquals(size.bytesProperty().get(), 
+                l.get(0).getStripeSources().stream().mapToLong(s -> s.getTransferedBytes()).sum());
+        
+        // blocks are transfered from different servers at once
+        long singleSourceTime = (size.bytesProperty().get() / bw.bpsProperty().get()) * 1000;
+        
+        assertTrue(l.get(0).getTotalTime() < singleSourceTime);
+        
+        FsBlockManager.removeBlocks(f);
+        
+        assertFalse(FsBlockManager.isFileBlocked(f));
+    }
+    
+    /**
+     * Test method {@link DfsTimeSliceSimulator#run}, erasure coded file.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testErasureCodedDownloadRun() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ByteSpeed bw = new ByteSpeed(10, ByteSpeedUnits.MBPS);
+        ByteSize size = new ByteSize(200, ByteSizeUnits.MB);
+        List<ModelServerNode> servers = new ArrayList<>();
+        
+        for(int i = 0; i < 3; i++)
+        {
+            ModelServerNode s = new ModelServerNode();
+            ModelNodeConnection conn = new ModelNodeConnection(c1, s, bw, 10);
+            
+            s.getConnectionManager().addConnection(conn);
+            c1.getConnectionManager().addConnection(conn);
+            
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+            s.getStorageManager().getStorage().add(stor);
+            s.getFsManager().mount(stor, s.getRootDir());
+            
+            servers.add(s);
+        }
+        
+        ModelServerNode s1 = servers.get(0);
+        FsFile f = new FsFile("kodovat", size, s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), f);
+        
+        ErasureCodingPolicy policy = new ErasureCodingPolicy(2, 1);
+        FsErasureCodingManager.encodeFile(f, policy, servers);
+        
+        assertTrue(FsErasureCodingManager.isFileEncoded(f));
+        assertEquals(3, FsErasureCodingManager.getFragments(f).size());
+        assertEquals((long) (size.bytesProperty().get() * policy.getStorageOverhead()), FsErasureCodingManager.getStoredSize(f));
+        // logical file is not counted on top of its fragments
+        assertEquals(0, f.getMountSize().bytesProperty().get());
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+        sim.run(new DfsStringSimulatorLogger());
+        
+        DfsSimulatorTaskResult r = sim.getResults().get(0);
+        
+        assertEquals(DfsSimulatorTaskResultState.SUCCESS, r.getState());
+        assertEquals(2, r.getStripeSources().size());
+        assertFalse(r.isDegradedRead());
+        
+        // server holding first data fragment becomes unreachable
+        ModelServerNode holder = FsErasureCodingManager.getFragments(f).get(0).getReplicaTargets().get(0).serverNode;
+        c1.getConnectionManager().removeConnectionWithNode(holder);
+        holder.getConnectionManager().removeConnectionWithNode(c1);
+        
+        sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+        sim.run(new DfsStringSimulatorLogger());
+        
+        DfsSimulatorTaskResult degraded = sim.getResults().get(0);
+        
+        assertEquals(DfsSimulatorTaskResultState.SUCCESS, degraded.getState());
+        assertTrue(degraded.isDegradedRead());
+        assertEquals(policy.getReconstructionTime(size.bytesProperty().get()), degraded.getReconstructionTime());
+        assertTrue(degraded.getTotalTime() > r.getTotalTime());
+        
+        FsErasureCodingManager.removeFragments(f);
+        
+        assertFalse(FsErasureCodingManager.isFileEncoded(f));
+        assertEquals(size.bytesProperty().get(), f.getMountSize().bytesProperty().get());
+    }
+    
+    /**
+     * Test method {@link DfsTimeSliceSimulator#run}, upload of replicated 
+     * file with asynchronous and synchronous replication consistency.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testReplicationConsistency() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode s1 = new ModelServerNode();
+        ModelServerNode s2 = new ModelServerNode();
+        
+        ModelNodeConnection conn1 = new ModelNodeConnection(c1, s1, new ByteSpeed(10, ByteSpeedUnits.MBPS), 10);
+        c1.getConnectionManager().addConnection(conn1);
+        s1.getConnectionManager().addConnection(conn1);
+        
+        ModelNodeConnection conn2 = new ModelNodeConnection(s1, s2, new ByteSpeed(1, ByteSpeedUnits.MBPS), 10);
+        s1.getConnectionManager().addConnection(conn2);
+        s2.getConnectionManager().addConnection(conn2);
+        
+        ServerStorage stor1 = new ServerStorage(
+                new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        s1.getStorageManager().getStorage().add(stor1);
+        s1.getFsManager().mount(stor1, s1.getRootDir());
+        
+        ServerStorage stor2 = new ServerStorage(
+                new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        s2.getStorageManager().getStorage().add(stor2);
+        s2.getFsManager().mount(stor2, s2.getRootDir());
+        
+        FsDirectory parentDir = new FsDirectory("zapisy", s1.getRootDir());
+        FsFile f = new FsFile("zapsat", new ByteSize(10, ByteSizeUnits.MB), parentDir);
+        
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), parentDir);
+        s1.getFsManager().addDirectoryChild(parentDir, f);
+        
+        List<ReplicaTarget> targets = new ArrayList<>();
+        targets.add(new ReplicaTarget(s2, stor2));
+        FsGlobalReplicationManager.replicateFile(f, targets);
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new PutSimulationTask(f));
+        
+        try
+        {
+            FsGlobalReplicationManager.setConsistency(ReplicationConsistency.ASYNC);
+            
+            DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+            sim.run(new DfsStringSimulatorLogger());
+            
+            DfsSimulatorTaskResult async = sim.getResults().get(0);
+            
+            FsGlobalReplicationManager.setConsistency(ReplicationConsistency.SYNC);
+            
+            sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+            sim.run(new DfsStringSimulatorLogger());
+            
+            DfsSimulatorTaskResult sync = sim.getResults().get(0);
+            
+            assertEquals(DfsSimulatorTaskResultState.SUCCESS, async.getState());
+            assertEquals(DfsSimulatorTaskResultState.SUCCESS, sync.getState());
+            
+            // asynchronous write does not wait for slow replica
+            assertTrue(async.getConvergenceLag() > 0);
+            assertEquals(0, sync.getConvergenceLag());
+            assertTrue(sync.getWriteLatency() > async.getWriteLatency());
+            
+            assertEquals(1, FsGlobalReplicationManager.getRequiredReplicaAcks(2));
+            
+            FsGlobalReplicationManager.setConsistency(ReplicationConsistency.QUORUM);
+            
+            assertEquals(0, FsGlobalReplicationManager.getRequiredReplicaAcks(1));
+            assertEquals(1, FsGlobalReplicationManager.getRequiredReplicaAcks(3));
+        }
+        finally
+        {
+            FsGlobalReplicationManager.setConsistency(ReplicationConsistency.ASYNC);
+        }
+    }
+    
+    /**
+     * Test method {@link FsGlobalReplicationManager#propagateReplicaResize} 
+     * with fan-out and pipeline replication modes. Servers are connected 
+     * in a chain s1 - s2 - s3 - s4 and s1 holds the uploaded file. Fan-out 
+     * sends all three replicas from s1 (sharing its storage bandwidth), 
+     * pipeline forwards data hop by hop along the chain.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testReplicationMode() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode[] servers = new ModelServerNode[4];
+        
+        for(int i = 0; i < servers.length; i++)
+        {
+            servers[i] = new ModelServerNode();
+            
+            // origin storage is slower than links to replicas
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed((i == 0) ? 15 : 30, ByteSpeedUnits.MBPS));
+            servers[i].getStorageManager().getStorage().add(stor);
+            servers[i].getFsManager().mount(stor, servers[i].getRootDir());
+            
+            if(i > 0)
+            {
+                ModelNodeConnection conn = new ModelNodeConnection(servers[i - 1], servers[i], new ByteSpeed(10, ByteSpeedUnits.MBPS), 10);
+                servers[i - 1].getConnectionManager().addConnection(conn);
+                servers[i].getConnectionManager().addConnection(conn);
+            }
+        }
+        
+        ModelNodeConnection conn = new ModelNodeConnection(c1, servers[0], new ByteSpeed(100, ByteSpeedUnits.MBPS), 10);
+        c1.getConnectionManager().addConnection(conn);
+        servers[0].getConnectionManager().addConnection(conn);
+        
+        FsDirectory parentDir = new FsDirectory("retez", servers[0].getRootDir());
+        FsFile f = new FsFile("replika", new ByteSize(30, ByteSizeUnits.MB), parentDir);
+        
+        servers[0].getFsManager().addDirectoryChild(servers[0].getRootDir(), parentDir);
+        servers[0].getFsManager().addDirectoryChild(parentDir, f);
+        
+        List<ReplicaTarget> targets = new ArrayList<>();
+        
+        for(int i = 1; i < servers.length; i++)
+        {
+            targets.add(new ReplicaTarget(servers[i], servers[i].getStorageManager().getStorage().get(0)));
+        }
+        
+        FsGlobalReplicationManager.replicateFile(f, targets);
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new PutSimulationTask(f));
+        
+        try
+        {
+            List<ModelServerNode[]> fanOutHops = new ArrayList<>();
+            
+            // wait for all replicas so that replication is part of the task
+            FsGlobalReplicationManager.setConsistency(ReplicationConsistency.SYNC);
+            FsGlobalReplicationManager.setReplicationMode(ReplicationMode.FAN_OUT);
+            
+            DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+            sim.run(this.createHopLogger(fanOutHops));
+            
+            ReplicationProgress fanOut = sim.getResults().get(0).getReplicationProgress();
+            
+            List<ModelServerNode[]> pipelineHops = new ArrayList<>();
+            
+            FsGlobalReplicationManager.setReplicationMode(ReplicationMode.PIPELINE);
+            
+            sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+            sim.run(this.createHopLogger(pipelineHops));
+            
+            ReplicationProgress pipeline = sim.getResults().get(0).getReplicationProgress();
+            
+            assertEquals(ReplicationMode.FAN_OUT, fanOut.getMode());
+            assertEquals(ReplicationMode.PIPELINE, pipeline.getMode());
+            assertEquals(3, fanOut.getReplicaCount());
+            assertEquals(3, pipeline.getReplicaCount());
+            assertTrue(fanOut.isFinished());
+            assertTrue(pipeline.isFinished());
+            
+            // fan-out sends every replica from the origin
+            assertEquals(3, fanOutHops.size());
+            
+            for(int i = 0; i < 3; i++)
+            {
+                assertEquals(servers[0], fanOutHops.get(i)[0]);
+            }
+            
+            // pipeline forwards data along the chain (all hops start in the same slice, in any order)
+            assertEquals(3, pipelineHops.size());
+            
+            for(int i = 0; i < 3; i++)
+            {
+                ModelServerNode from = servers[i];
+                ModelServerNode to = servers[i + 1];
+                
+                assertTrue(pipelineHops.stream().anyMatch(h -> h[0] == from && h[1] == to));
+            }
+            
+            // 15 MB/s origin storage: fan-out reads file three times (5 MB/s each),
+            // pipeline reads it once and is limited by 10 MB/s links
+            assertEquals(2010, fanOut.getStartTime());
+            assertEquals(2010, pipeline.getStartTime());
+            assertEquals(6000, fanOut.getReplicationTime());
+            assertEquals(3000, pipeline.getReplicationTime());
+            
+            for(int i = 1; i <= 3; i++)
+            {
+                assertEquals(8010, fanOut.getReplicasFinishTime(i));
+                assertEquals(5010, pipeline.getReplicasFinishTime(i));
+            }
+        }
+        finally
+        {
+            FsGlobalReplicationManager.setReplicationMode(ReplicationMode.FAN_OUT);
+            FsGlobalReplicationManager.setConsistency(ReplicationConsistency.ASYNC);
+        }
+    }
+    
+    /**
+     * Create logger that records replication hops (source and target server)
+     * in order in which they started.
+     * 
+     * @param hops recorded hops
+     * @return simulator logger
+     */
+    private DfsStringSimulatorLogger createHopLogger(List<ModelServerNode[]> hops)
+    {
+        return new DfsStringSimulatorLogger()
+        {
+            @Override public void logReplicationStart(FsFile file, ModelServerNode origin, ModelServerNode target, long sTime)
+            {
+                super.logReplicationStart(file, origin, target, sTime);
+                
+                hops.add(new ModelServerNode[] { origin, target });
+            }
+        };
+    }
+    
+    /**
+     * Test method {@link DfsTimeSliceSimulator#run} with download that falls
+     * behind its expected rate and is hedged by request to another replica.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testHedgedDownloadRun() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ByteSize size = new ByteSize(200, ByteSizeUnits.MB);
+        ByteSpeed[] bws = { new ByteSpeed(20, ByteSpeedUnits.MBPS), new ByteSpeed(10, ByteSpeedUnits.MBPS) };
+        List<ModelServerNode> servers = new ArrayList<>();
+        List<ServerStorage> storages = new ArrayList<>();
+        FsFile f = null;
+        
+        for(int i = 0; i < 2; i++)
+        {
+            ModelServerNode s = new ModelServerNode();
+            ModelNodeConnection conn = new ModelNodeConnection(c1, s, bws[i], 10);
+            
+            s.getConnectionManager().addConnection(conn);
+            c1.getConnectionManager().addConnection(conn);
+            
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+            s.getStorageManager().getStorage().add(stor);
+            
+            f = new FsFile("zajistit", size, s.getRootDir());
+            
+            s.getFsManager().addDirectoryChild(s.getRootDir(), f);
+            s.getFsManager().mount(stor, s.getRootDir());
+            
+            servers.add(s);
+            storages.add(stor);
+        }
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        
+        SimulationType type = SimulationType.HEDGED_PATH_THROUGHPUT_AND_LATENCY;
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, 
+                new MetricDfsPathPicker(new DijkstraGraphSearcher(type.getMetric())), type);
+        
+        // storage of faster server becomes a straggler shortly after transfer begins
+        sim.addBackgroundProcess(new SimulationBackgroundProcess()
+        {
+            @Override public void onSimulationStarted(List<ModelServerNode> nodes, DfsSimulatorLogger logger, long sTime)
+            {
+            }
+
+            @Override public void onSimulationTimeAdvanced(List<ModelServerNode> nodes, DfsSimulatorLogger logger, long sTime)
+            {
+                if(sTime >= 500)
+                {
+                    storages.get(0).getMaximumSpeed().setBps(new ByteSpeed(100, ByteSpeedUnits.KBPS).bpsProperty().get());
+                }
+            }
+
+            @Override public boolean hasPendingWork()
+            {
+                return false;
+            }
+
+            @Override public void onSimulationEnded(List<ModelServerNode> nodes, DfsSimulatorLogger logger, long sTime)
+            {
+            }
+        });
+        
+        sim.run(new DfsStringSimulatorLogger());
+        
+        DfsSimulatorTaskResult result = sim.getResults().get(0);
+        List<DfsPath> paths = result.getPathHistory();
+        
+        assertEquals(DfsSimulatorTaskResultState.SUCCESS, result.getState());
+        assertTrue(result.isHedgedRead());
+        assertTrue(result.getWastedBytes() > 0 && result.getWastedBytes() < size.bytesProperty().get());
+        assertEquals(servers.get(1), paths.get(paths.size() - 1).getTarget());
+        
+        // straggler alone would need more than half an hour
+        long hedgeSourceTime = (size.bytesProperty().get() / bws[1].bpsProperty().get()) * 1000;
+        
+        assertTrue(result.getTotalTime() < hedgeSourceTime + 5000);
+    }
+    
+    /**
+     * Test method {@link DfsTimeSliceSimulator#run} with download whose
+     * source stops transfering before the hedge delay passes - the hedge
+     * request is still sent and completes the download.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testHedgedStalledDownloadRun() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ByteSize size = new ByteSize(50, ByteSizeUnits.MB);
+        ByteSpeed[] bws = { new ByteSpeed(20, ByteSpeedUnits.MBPS), new ByteSpeed(10, ByteSpeedUnits.MBPS) };
+        List<ModelServerNode> servers = new ArrayList<>();
+        List<ServerStorage> storages = new ArrayList<>();
+        FsFile f = null;
+        
+        for(int i = 0; i < 2; i++)
+        {
+            ModelServerNode s = new ModelServerNode();
+            ModelNodeConnection conn = new ModelNodeConnection(c1, s, bws[i], 10);
+            
+            s.getConnectionManager().addConnection(conn);
+            c1.getConnectionManager().addConnection(conn);
+            
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+            s.getStorageManager().getStorage().add(stor);
+            
+            f = new FsFile("zaseknout", size, s.getRootDir());
+            
+            s.getFsManager().addDirectoryChild(s.getRootDir(), f);
+            s.getFsManager().mount(stor, s.getRootDir());
+            
+            servers.add(s);
+            storages.add(stor);
+        }
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        
+        SimulationType type = SimulationType.HEDGED_PATH_THROUGHPUT_AND_LATENCY;
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, 
+                new MetricDfsPathPicker(new DijkstraGraphSearcher(type.getMetric())), type);
+        
+        // storage of faster server stops transfering as soon as transfer begins
+        sim.addBackgroundProcess(new SimulationBackgroundProcess()
+        {
+            @Override public void onSimulationStarted(List<ModelServerNode> nodes, DfsSimulatorLogger logger, long sTime)
+            {
+            }
+
+            @Override public void onSimulationTimeAdvanced(List<ModelServerNode> nodes, DfsSimulatorLogger logger, long sTime)
+            {
+                storages.get(0).getMaximumSpeed().setBps(0);
+            }
+
+            @Override public boolean hasPendingWork()
+            {
+                return false;
+            }
+
+            @Override public void onSimulationEnded(List<ModelServerNode> nodes, DfsSimulatorLogger logger, long sTime)
+            {
+                // stalled storage would slow down servers of other tests
+                storages.get(0).getMaximumSpeed().setBps(new ByteSpeed(100, ByteSpeedUnits.MBPS).bpsProperty().get());
+            }
+        });
+        
+        sim.run(new DfsStringSimulatorLogger());
+        
+        DfsSimulatorTaskResult result = sim.getResults().get(0);
+        List<DfsPath> paths = result.getPathHistory();
+        
+        assertEquals(DfsSimulatorTaskResultState.SUCCESS, result.getState());
+        assertTrue(result.isHedgedRead());
+        assertEquals(servers.get(1), paths.get(paths.size() - 1).getTarget());
+        
+        // hedge delay and transfer from the other replica
+        long hedgeSourceTime = (size.bytesProperty().get() / bws[1].bpsProperty().get()) * 1000;
+        
+        assertTrue(result.getTotalTime() >= type.getHedgeDelay());
+        assertTrue(result.getTotalTime() < type.getHedgeDelay() + hedgeSourceTime + 2000);
+    }
+    
+    /**
+     * Test that tasks wait for metadata server when metadata service is
+     * enabled - request and response travel over client link and the
+     * operation takes the configured service time.
+     * 
+     * @throws NotEnoughSpaceLeftException when target storage does not have
+     * enough space available - cannot be thrown here
+     */
+    @Test public void testMetadataServerRun() throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s1 = new ModelServerNode();
+        ModelClientNode c1 = new ModelClientNode();
+        
+        ModelNodeConnection conn1 = new ModelNodeConnection(c1, s1, new ByteSpeed(10, ByteSpeedUnits.MBPS), 10);
+        
+        s1.getConnectionManager().addConnection(conn1);
+        c1.getConnectionManager().addConnection(conn1);
+        
+        ServerStorage stor1 = new ServerStorage(
+                new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        s1.getStorageManager().getStorage().add(stor1);
+        s1.getFsManager().mount(stor1, s1.getRootDir());
+        
+        FsDirectory parentDir = new FsDirectory("metadata", s1.getRootDir());
+        FsFile f = new FsFile("vyhledat", new ByteSize(1, ByteSizeUnits.KB), parentDir);
+        
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), parentDir);
+        s1.getFsManager().addDirectoryChild(parentDir, f);
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        simPlan.getTasks().add(new PutSimulationTask(f));
+        
+        s1.getMetadataService().enabledProperty().set(true);
+        s1.getMetadataService().lookupTimeProperty().set(5);
+        s1.getMetadataService().updateTimeProperty().set(50);
+        
+        try
+        {
+            DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.DYNAMIC_PATH_THROUGHPUT_AND_LATENCY);
+            sim.run(new DfsStringSimulatorLogger());
+            
+            List<DfsSimulatorTaskResult> l = sim.getResults();
+            
+            assertEquals(DfsSimulatorTaskResultState.SUCCESS, l.get(0).getState());
+            assertEquals(DfsSimulatorTaskResultState.SUCCESS, l.get(1).getState());
+            
+            // latency there and back + service time
+            assertEquals(25, l.get(0).getMetadataTime());
+            assertEquals(70, l.get(1).getMetadataTime());
+            assertEquals(0, l.get(1).getMetadataQueueTime());
+            assertTrue(l.get(1).getTotalTime() >= 70);
+            assertEquals(2, s1.getMetadataService().getProcessedOperations());
+        }
+        finally
+        {
+            // servers stay registered for other tests
+            s1.getMetadataService().enabledProperty().set(false);
+        }
+    }
+    
+    /**
+     * Test that a server without any storage can act as metadata server -
+     * metadata queries only need a route to the server, not the object.
+     * 
+     * @throws NotEnoughSpaceLeftException when target storage does not have
+     * enough space available - cannot be thrown here
+     */
+    @Test public void testMetadataServerWithoutStorage() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode s1 = new ModelServerNode();
+        ModelServerNode s2 = new ModelServerNode();
+        
+        for(ModelServerNode s : new ModelServerNode[] { s1, s2 })
+        {
+            ModelNodeConnection conn = new ModelNodeConnection(c1, s, new ByteSpeed(10, ByteSpeedUnits.MBPS), 10);
+            s.getConnectionManager().addConnection(conn);
+            c1.getConnectionManager().addConnection(conn);
+        }
+        
+        ServerStorage stor1 = new ServerStorage(
+                new ByteSize(100, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        s1.getStorageManager().getStorage().add(stor1);
+        s1.getFsManager().mount(stor1, s1.getRootDir());
+        
+        FsDirectory parentDir = new FsDirectory("bez_uloziste", s1.getRootDir());
+        FsFile f = new FsFile("dotazat", new ByteSize(1, ByteSizeUnits.KB), parentDir);
+        
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), parentDir);
+        s1.getFsManager().addDirectoryChild(parentDir, f);
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        simPlan.getTasks().add(new PutSimulationTask(f));
+        
+        s2.getMetadataService().enabledProperty().set(true);
+        
+        try
+        {
+            DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.DYNAMIC_PATH_THROUGHPUT_AND_LATENCY);
+            sim.run(new DfsStringSimulatorLogger());
+            
+            List<DfsSimulatorTaskResult> l = sim.getResults();
+            
+            assertEquals(DfsSimulatorTaskResultState.SUCCESS, l.get(0).getState());
+            assertEquals(DfsSimulatorTaskResultState.SUCCESS, l.get(1).getState());
+            
+            // latency there and back + lookup / update service time
+            assertEquals(20 + MetadataService.DEFAULT_LOOKUP_TIME, l.get(0).getMetadataTime());
+            assertEquals(20 + MetadataService.DEFAULT_UPDATE_TIME, l.get(1).getMetadataTime());
+            assertEquals(2, s2.getMetadataService().getProcessedOperations());
+        }
+        finally
+        {
+            // servers stay registered for other tests
+            s2.getMetadataService().enabledProperty().set(false);
+        }
+    }
+    
+    /**
+     * Test that downloads with cached object locations skip the metadata 
+     * server query and that a stale cached location (failed server) is 
+     * tried first before the request reaches a valid replica.
+     * 
+     * @throws NotEnoughSpaceLeftException when target storage does not have
+     * enough space available - cannot be thrown here
+     */
+    @Test public void testMetadataCacheRun() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode s1 = new ModelServerNode();
+        ModelServerNode s2 = new ModelServerNode();
+        // metadata server without storage - it cannot receive new replicas
+        ModelServerNode s3 = new ModelServerNode();
+        
+        for(ModelServerNode s : new ModelServerNode[] { s1, s2, s3 })
+        {
+            ModelNodeConnection conn = new ModelNodeConnection(c1, s, new ByteSpeed(100, ByteSpeedUnits.MBPS), 10);
+            s.getConnectionManager().addConnection(conn);
+            c1.getConnectionManager().addConnection(conn);
+        }
+        
+        for(ModelServerNode s : new ModelServerNode[] { s1, s2 })
+        {
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(10, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+            s.getStorageManager().getStorage().add(stor);
+            s.getFsManager().mount(stor, s.getRootDir());
+        }
+        
+        FsFile f = new FsFile("adresovat", new ByteSize(1, ByteSizeUnits.KB), s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), f);
+        
+        List<ReplicaTarget> targets = new ArrayList<>();
+        targets.add(new ReplicaTarget(s2, s2.getStorageManager().getStorage().get(0)));
+        FsGlobalReplicationManager.forceReplicateFile(f, targets);
+        
+        FsFile g = new FsFile("cekat", new ByteSize(100, ByteSizeUnits.MB), s2.getRootDir());
+        s2.getFsManager().addDirectoryChild(s2.getRootDir(), g);
+        
+        SimulationPlan simPlan = new SimulationPlan();
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        simPlan.getTasks().add(new GetSimulationTask(g));
+        simPlan.getTasks().add(new GetSimulationTask(f));
+        simPlan.getFailures().add(new ServerFailure(s1.getNodeID(), 500));
+        
+        s3.getMetadataService().enabledProperty().set(true);
+        c1.getMetadataCache().enabledProperty().set(true);
+        
+        try
+        {
+            DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, simPlan, new MetricDfsPathPicker(), SimulationType.DYNAMIC_PATH_THROUGHPUT_AND_LATENCY);
+            sim.run(new DfsStringSimulatorLogger());
+            
+            List<DfsSimulatorTaskResult> l = sim.getResults();
+            
+            for(DfsSimulatorTaskResult result : l)
+            {
+                assertEquals(DfsSimulatorTaskResultState.SUCCESS, result.getState());
+            }
+            
+            assertEquals(CacheLookupResult.MISS, l.get(0).getMetadataCacheResult());
+            assertEquals(21, l.get(0).getMetadataTime());
+            
+            // second download does not query metadata server
+            assertEquals(CacheLookupResult.HIT, l.get(1).getMetadataCacheResult());
+            assertEquals(-1, l.get(1).getMetadataTime());
+            assertEquals(21, l.get(1).getMetadataSavedTime());
+            assertEquals(0, l.get(1).getMetadataMisroutes());
+            assertTrue(l.get(1).getTotalTime() < l.get(0).getTotalTime());
+            
+            // s1 has failed in the meantime, request goes to s2 after misroute
+            assertEquals(CacheLookupResult.HIT, l.get(3).getMetadataCacheResult());
+            assertEquals(1, l.get(3).getMetadataMisroutes());
+            // request to failed server fails immediately, no round trip is lost
+            assertEquals(21, l.get(3).getMetadataSavedTime());
+            assertEquals(1, c1.getMetadataCache().getMisrouteCount());
+            assertEquals(2, c1.getMetadataCache().getHitCount());
+            
+            DfsSimulatorSimulationResult simResult = new DfsSimulatorSimulationResult(SimulationType.DYNAMIC_PATH_THROUGHPUT_AND_LATENCY, l);
+            simResult.buildCumulativeStats();
+            
+            assertEquals(2, simResult.getMetadataCacheHits());
+            assertEquals(2, simResult.getMetadataCacheMisses());
+            assertEquals(1, simResult.getMetadataMisroutes());
+        }
+        finally
+        {
+            // servers stay registered for other tests
+            s3.getMetadataService().enabledProperty().set(false);
+        }
+    }
 }
@@ -106,4 +106,59 @@ public class MetricDfsPathPickerTest
         assertEquals(this.origin, result.getPath().get(0).getOrigin());
     }
     
+    /**
+     * Test method {@link MetricDfsPathPicker#getQueryLatency} - route with
+     * the lowest latency is used regardless of number of hops, failed servers 
+     * neither route nor receive the query.
+     * 
+     * @throws NoPathAvailableException when there is no route to metadata server
+     */
+    @Test public void testQueryLatency() throws NoPathAvailableException
+    {
+        ModelServerNode s1 = new ModelServerNode();
+        ModelServerNode s2 = new ModelServerNode();
+        ModelServerNode s3 = new ModelServerNode();
+        // metadata server without storage
+        ModelServerNode m = new ModelServerNode();
+        
+        ByteSpeed bandwidth = new ByteSpeed(12, ByteSpeedUnits.MBPS);
+        
+        this.origin.getConnectionManager().addConnection(new ModelNodeConnection(origin, s1, bandwidth, 10));
+        s1.getConnectionManager().addConnection(new ModelNodeConnection(s1, m, bandwidth, 10));
+        
+        this.origin.getConnectionManager().addConnection(new ModelNodeConnection(origin, s2, bandwidth, 5));
+        s2.getConnectionManager().addConnection(new ModelNodeConnection(s2, s3, bandwidth, 5));
+        s3.getConnectionManager().addConnection(new ModelNodeConnection(s3, m, bandwidth, 5));
+        
+        FsFile file = new FsFile("dotaz", new ByteSize(1, ByteSizeUnits.GB), s1.getRootDir());
+        GetSimulationTask task = new GetSimulationTask(file);
+        
+        try
+        {
+            assertEquals(15, this.finder.getQueryLatency(this.origin, m, task, 0));
+            
+            s2.setFailed(true);
+            
+            assertEquals(20, this.finder.getQueryLatency(this.origin, m, task, 0));
+            
+            m.setFailed(true);
+            
+            try
+            {
+                this.finder.getQueryLatency(this.origin, m, task, 0);
+                fail("Failed metadata server cannot be queried");
+            }
+            catch(NoPathAvailableException ex)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            // servers stay registered for other tests
+            s2.setFailed(false);
+            m.setFailed(false);
+        }
+    }
+    
 }
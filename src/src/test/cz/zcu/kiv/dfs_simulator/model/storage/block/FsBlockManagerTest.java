@@ -0,0 +1,160 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.block;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link FsBlockManager}.
+ */
+public class FsBlockManagerTest
+{
+    private List<ModelServerNode> servers;
+    private List<ServerStorage> storages;
+    
+    @Before public void setUp() throws NotEnoughSpaceLeftException
+    {
+        FsGlobalObjectRegistry.purge();
+        
+        this.servers = new ArrayList<>();
+        this.storages = new ArrayList<>();
+        
+        for(int i = 0; i < 2; i++)
+        {
+            ModelServerNode s = new ModelServerNode();
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(10, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+            
+            s.getStorageManager().getStorage().add(stor);
+            s.getFsManager().mount(stor, s.getRootDir());
+            
+            this.servers.add(s);
+            this.storages.add(stor);
+        }
+    }
+    
+    /**
+     * Test method {@link FsBlockManager#getBlockPath(java.lang.String, int)}.
+     */
+    @Test public void testGetBlockPathUnique()
+    {
+        assertNotEquals(FsBlockManager.getBlockPath("/a/b_c", 0), FsBlockManager.getBlockPath("/a_b/c", 0));
+        assertNotEquals(FsBlockManager.getBlockPath("/a/b%5Fc", 0), FsBlockManager.getBlockPath("/a/b_c", 0));
+        
+        // paths without escaped characters keep their original block names
+        assertEquals("/" + FsBlockManager.BLOCK_DIR_NAME + "/a_b" + FsBlockManager.BLOCK_INDEX_SEPARATOR + "1", 
+                FsBlockManager.getBlockPath("/a/b", 1));
+    }
+    
+    /**
+     * Test that split file is not counted on top of its blocks.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testSplitFileStub() throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s1 = this.servers.get(0);
+        FsFile f = new FsFile("stub", new ByteSize(300, ByteSizeUnits.MB), s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), f);
+        
+        long fileBytes = f.getSize().bytesProperty().get();
+        
+        assertEquals(fileBytes, s1.getFsManager().getStorageUsedSize(this.storages.get(0)).bytesProperty().get());
+        
+        FsBlockManager.splitFile(f, new ByteSize(100, ByteSizeUnits.MB), 2, this.servers);
+        
+        assertTrue(f.isStub());
+        assertEquals(0, f.getMountSize().bytesProperty().get());
+        
+        // every server holds one replica of each block, logical file takes no space
+        for(int i = 0; i < this.servers.size(); i++)
+        {
+            assertEquals(fileBytes, this.servers.get(i).getFsManager()
+                    .getStorageUsedSize(this.storages.get(i)).bytesProperty().get());
+        }
+        
+        FsBlockManager.removeBlocks(f);
+        
+        assertFalse(f.isStub());
+        assertEquals(fileBytes, f.getMountSize().bytesProperty().get());
+        assertEquals(fileBytes, s1.getFsManager().getStorageUsedSize(this.storages.get(0)).bytesProperty().get());
+    }
+    
+    /**
+     * Test that deleting split file removes its blocks.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testDeleteRemovesBlocks() throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s1 = this.servers.get(0);
+        FsDirectory dir = new FsDirectory("dir", s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), dir);
+        
+        FsFile f = new FsFile("smazat", new ByteSize(200, ByteSizeUnits.MB), dir);
+        s1.getFsManager().addDirectoryChild(dir, f);
+        
+        FsBlockManager.splitFile(f, new ByteSize(100, ByteSizeUnits.MB), 2, this.servers);
+        assertTrue(FsBlockManager.isFileBlocked(f));
+        
+        FsGlobalReplicationManager.deleteReplicatedObject(dir);
+        
+        assertNull(FsBlockManager.getBlockLayout("/dir/smazat"));
+        
+        for(int i = 0; i < this.servers.size(); i++)
+        {
+            assertEquals(0, this.servers.get(i).getFsManager()
+                    .getStorageUsedSize(this.storages.get(i)).bytesProperty().get());
+        }
+    }
+    
+    /**
+     * Test that renaming split file renames its blocks.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testRenameMovesBlocks() throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s1 = this.servers.get(0);
+        FsFile f = new FsFile("stary", new ByteSize(200, ByteSizeUnits.MB), s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), f);
+        
+        FsBlockManager.splitFile(f, new ByteSize(100, ByteSizeUnits.MB), 2, this.servers);
+        
+        FsGlobalReplicationManager.renameReplicatedObject(f, "novy");
+        
+        assertNull(FsBlockManager.getBlockLayout("/stary"));
+        
+        FsBlockLayout layout = FsBlockManager.getBlockLayout(f);
+        
+        assertNotNull(layout);
+        assertEquals(2, layout.getBlocks().size());
+        assertEquals(f.getSize().bytesProperty().get(), layout.getTotalSize());
+        assertTrue(f.isStub());
+    }
+    
+}
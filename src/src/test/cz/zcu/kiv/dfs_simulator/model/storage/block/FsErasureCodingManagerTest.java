@@ -0,0 +1,148 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.block;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.persistence.StatePersistableElement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link FsErasureCodingManager}.
+ */
+public class FsErasureCodingManagerTest
+{
+    private List<ModelServerNode> servers;
+    
+    @Before public void setUp() throws NotEnoughSpaceLeftException
+    {
+        FsGlobalObjectRegistry.purge();
+        
+        this.servers = new ArrayList<>();
+        
+        for(int i = 0; i < 4; i++)
+        {
+            ModelServerNode s = new ModelServerNode();
+            ServerStorage stor = new ServerStorage(
+                    new ByteSize(10, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+            
+            s.getStorageManager().getStorage().add(stor);
+            s.getFsManager().mount(stor, s.getRootDir());
+            
+            this.servers.add(s);
+        }
+    }
+    
+    /**
+     * Test method {@link FsErasureCodingManager#getFragmentPath(java.lang.String, int)}.
+     */
+    @Test public void testGetFragmentPathUnique()
+    {
+        assertNotEquals(FsErasureCodingManager.getFragmentPath("/a/b_c", 0), FsErasureCodingManager.getFragmentPath("/a_b/c", 0));
+    }
+    
+    /**
+     * Test method {@link FsErasureCodingManager#encodeFile(cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile, cz.zcu.kiv.dfs_simulator.model.storage.block.ErasureCodingPolicy, java.util.List)},
+     * fragment placement starts at server given by file path.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testEncodeFileRotatesStartServer() throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s1 = this.servers.get(0);
+        ErasureCodingPolicy policy = new ErasureCodingPolicy(2, 1);
+        
+        for(String name : new String[] { "prvni", "druhy", "treti", "ctvrty" })
+        {
+            FsFile f = new FsFile(name, new ByteSize(100, ByteSizeUnits.MB), s1.getRootDir());
+            s1.getFsManager().addDirectoryChild(s1.getRootDir(), f);
+            
+            List<FsBlock> fragments = FsErasureCodingManager.encodeFile(f, policy, this.servers);
+            int start = Math.floorMod(f.getFullPath().hashCode(), this.servers.size());
+            
+            assertEquals(3, fragments.size());
+            assertSame(this.servers.get(start), fragments.get(0).getReplicaTargets().get(0).serverNode);
+            assertTrue(f.isStub());
+        }
+    }
+    
+    /**
+     * Test that erasure coding policy and encoding state are persisted
+     * with the file.
+     * 
+     * @throws InvalidPersistedStateException when persisted state is invalid
+     */
+    @Test public void testPolicyPersisted() throws InvalidPersistedStateException
+    {
+        ErasureCodingPolicy policy = new ErasureCodingPolicy(6, 3, new ByteSpeed(50, ByteSpeedUnits.MBPS));
+        FsFile f = new FsFile("ulozit", new ByteSize(1), null);
+        
+        f.setErasureCodingPolicy(policy);
+        f.setEncodingPolicy(policy);
+        
+        StatePersistableElement element = f.export(null);
+        FsFile restored = new FsFile("ulozit", new ByteSize(0), null);
+        restored.restoreState(element, null);
+        
+        assertEquals(policy.toPersistableValue(), restored.getErasureCodingPolicy().toPersistableValue());
+        assertEquals(policy.toPersistableValue(), restored.getEncodingPolicy().toPersistableValue());
+        assertEquals(policy.getReconstructionSpeed().bpsProperty().get(), 
+                restored.getErasureCodingPolicy().getReconstructionSpeed().bpsProperty().get());
+        
+        FsFile plain = new FsFile("plain", new ByteSize(1), null);
+        FsFile restoredPlain = new FsFile("plain", new ByteSize(0), null);
+        restoredPlain.restoreState(plain.export(null), null);
+        
+        assertNull(restoredPlain.getErasureCodingPolicy());
+        assertNull(restoredPlain.getEncodingPolicy());
+    }
+    
+    /**
+     * Test that deleting and renaming encoded file removes and renames 
+     * its fragments.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testDeleteAndRenameFragments() throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s1 = this.servers.get(0);
+        FsFile f = new FsFile("stary", new ByteSize(100, ByteSizeUnits.MB), s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), f);
+        
+        FsErasureCodingManager.encodeFile(f, new ErasureCodingPolicy(2, 1), this.servers);
+        FsGlobalReplicationManager.renameReplicatedObject(f, "novy");
+        
+        assertNull(FsGlobalObjectRegistry.getObjectEntry(FsErasureCodingManager.getFragmentPath("/stary", 0)));
+        assertEquals(3, FsErasureCodingManager.getFragments(f).size());
+        
+        FsGlobalReplicationManager.deleteReplicatedObject(f);
+        
+        for(int i = 0; i < 3; i++)
+        {
+            assertNull(FsGlobalObjectRegistry.getObjectEntry(FsErasureCodingManager.getFragmentPath("/novy", i)));
+        }
+    }
+    
+}
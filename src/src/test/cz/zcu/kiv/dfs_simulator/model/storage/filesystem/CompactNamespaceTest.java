@@ -0,0 +1,100 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link CompactNamespace}.
+ */
+public class CompactNamespaceTest
+{
+    private CompactNamespace namespace;
+    
+    @Before public void setUp()
+    {
+        this.namespace = new CompactNamespace();
+    }
+    
+    /**
+     * Test path resolution and aggregated directory sizes.
+     */
+    @Test public void testResolveAndSizes()
+    {
+        int mnt = this.namespace.addDirectory(CompactNamespace.ROOT_ID, "mnt");
+        int data = this.namespace.addDirectory(mnt, "data");
+        int file = this.namespace.addFile(data, "soubor", 100);
+        int sameName = this.namespace.addFile(mnt, "data", 50);
+        
+        assertEquals(CompactNamespace.NO_OBJECT, this.namespace.addFile(data, "soubor", 1));
+        
+        assertEquals(file, this.namespace.resolve("/mnt/data/soubor"));
+        assertEquals(data, this.namespace.resolve("/mnt/data/"));
+        assertEquals(sameName, this.namespace.resolve("/mnt/data"));
+        assertEquals(CompactNamespace.NO_OBJECT, this.namespace.resolve("/mnt/nic"));
+        assertEquals("/mnt/data/soubor", this.namespace.getFullPath(file));
+        
+        assertEquals(150, this.namespace.getSize(CompactNamespace.ROOT_ID));
+        
+        this.namespace.setSize(file, 200);
+        assertEquals(250, this.namespace.getSize(mnt));
+        
+        this.namespace.remove(data);
+        assertEquals(50, this.namespace.getSize(CompactNamespace.ROOT_ID));
+        assertEquals(CompactNamespace.NO_OBJECT, this.namespace.resolve("/mnt/data/soubor"));
+        assertEquals(3, this.namespace.getObjectCount());
+    }
+    
+    /**
+     * Test renaming of objects.
+     */
+    @Test public void testRename()
+    {
+        int dir = this.namespace.addDirectory(CompactNamespace.ROOT_ID, "dir");
+        int file = this.namespace.addFile(dir, "a", 1);
+        this.namespace.addFile(dir, "b", 1);
+        
+        assertFalse(this.namespace.rename(file, "b"));
+        assertTrue(this.namespace.rename(file, "delsi_nazev"));
+        
+        assertEquals(file, this.namespace.resolve("/dir/delsi_nazev"));
+        assertEquals(CompactNamespace.NO_OBJECT, this.namespace.resolve("/dir/a"));
+    }
+    
+    /**
+     * Test copying of a file tree and relative resolution.
+     */
+    @Test public void testFromTree()
+    {
+        FsDirectory root = new FsDirectory(FsDirectory.DIR_PATH_SEPARATOR);
+        FsDirectory mnt = new FsDirectory("mnt", root);
+        FsFile file = new FsFile("soubor", new ByteSize(10), mnt);
+        
+        root.getChildren().add(mnt);
+        mnt.getChildren().add(file);
+        file.incrementAccessCounter();
+        
+        CompactNamespace ns = CompactNamespace.fromTree(root);
+        int mntId = ns.resolve("/mnt/");
+        
+        assertEquals(ns.resolve("/mnt/soubor"), ns.resolve(mntId, "soubor"));
+        assertEquals(1, ns.getAccessCount(ns.resolve("/mnt/soubor")));
+        assertTrue(ns.hasChildren(mntId));
+        
+        ns.resetAccessCounts();
+        assertEquals(0, ns.getAccessCount(ns.resolve("/mnt/soubor")));
+        assertEquals(10, ns.getSize(CompactNamespace.ROOT_ID));
+    }
+}
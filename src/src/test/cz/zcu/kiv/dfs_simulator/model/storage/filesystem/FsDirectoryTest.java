@@ -67,6 +67,37 @@ public class FsDirectoryTest
         assertEquals("soubor", found.nameProperty().get());
     }
     
+    /**
+     * Test method {@link FsDirectory#getChildObject(java.lang.String)} after
+     * children have been renamed or removed, and with a file and a directory
+     * sharing the same name.
+     */
+    @Test public void testGetRenamedChildObject()
+    {
+        FsDirectory subdir = new FsDirectory("logs", this.root);
+        FsFile file = new FsFile("logs", new ByteSize(1, ByteSizeUnits.B), this.root);
+        
+        this.root.getChildren().addAll(subdir, file);
+        
+        assertEquals(subdir, this.root.getChildObject("/logs/"));
+        assertEquals(file, this.root.getChildObject("/logs"));
+        
+        subdir.nameProperty().set("archive");
+        
+        assertNull(this.root.getChildObject("/logs/"));
+        assertEquals(subdir, this.root.getChildObject("/archive/"));
+        
+        this.root.getChildren().remove(file);
+        
+        assertNull(this.root.getChildObject("/logs"));
+        
+        // created path has to be found again
+        FileSystemObject created = this.root.getChildObject("/archive/2017/app", true);
+        
+        assertEquals(created, this.root.getChildObject("/archive/2017/app"));
+        assertEquals(subdir, created.getParent().getParent());
+    }
+    
     /**
      * Test method {@link FsDirectory#getFullPath()}.
      */
@@ -79,6 +110,39 @@ public class FsDirectoryTest
         assertEquals("/mnt/", mnt.getFullPath());
     }
     
+    /**
+     * Test that cached full paths and path identifiers follow renamed
+     * and moved objects.
+     */
+    @Test public void testGetCachedFullPath()
+    {
+        FsDirectory mnt = new FsDirectory("mnt", this.root);
+        FsDirectory tmp = new FsDirectory("tmp", this.root);
+        FsFile file = new FsFile("soubor", new ByteSize(1, ByteSizeUnits.B), mnt);
+        
+        this.root.getChildren().addAll(mnt, tmp);
+        mnt.getChildren().add(file);
+        
+        assertEquals("/mnt/soubor", file.getFullPath());
+        int pathId = file.getPathId();
+        
+        mnt.nameProperty().set("data");
+        
+        assertEquals("/data/soubor", file.getFullPath());
+        assertNotEquals(pathId, file.getPathId());
+        
+        mnt.getChildren().remove(file);
+        tmp.getChildren().add(file);
+        file.setParent(tmp);
+        
+        assertEquals("/tmp/soubor", file.getFullPath());
+        
+        FsFile copy = new FsFile("soubor", new ByteSize(1, ByteSizeUnits.B), tmp);
+        
+        assertEquals(file.getPathId(), copy.getPathId());
+        assertEquals("/tmp/soubor", FsPathIdentifiers.getPath(copy.getPathId()));
+    }
+    
     /**
      * Test method {@link FsDirectory#getChildObject(java.lang.String)} with
      * child file and directory with same name - whether method can distinguish
@@ -156,4 +156,35 @@ public class FsObjectChildContainerTest
         assertEquals(30.0, d1.getMountSize().gigaBytesProperty().get(), 0.0);
     }
     
+    /**
+     * Test that sizes of directories up the tree follow resized and removed
+     * children and that removed children no longer affect them.
+     */
+    @Test public void testDirectorySizePropagation()
+    {
+        FsDirectory d1 = new FsDirectory("dir1", this.node.getRootDir());
+        FsDirectory d2 = new FsDirectory("dir2", d1);
+        
+        // node -> d1 -> d2
+        this.node.getRootDir().getChildren().add(d1);
+        d1.getChildren().add(d2);
+        
+        FsFile f1 = new FsFile("file1", new ByteSize(1, ByteSizeUnits.GB), d2);
+        FsFile f2 = new FsFile("file2", new ByteSize(2, ByteSizeUnits.GB), d2);
+        d2.getChildren().addAll(f1, f2);
+        
+        assertEquals(3.0, d1.getSize().gigaBytesProperty().get(), 0.0);
+        
+        f1.getSize().setGigaBytes(5);
+        
+        assertEquals(7.0, d1.getSize().gigaBytesProperty().get(), 0.0);
+        assertEquals(7.0, d1.getMountSize().gigaBytesProperty().get(), 0.0);
+        
+        d2.getChildren().remove(f2);
+        f2.getSize().setGigaBytes(100);
+        
+        assertEquals(5.0, d1.getSize().gigaBytesProperty().get(), 0.0);
+        assertEquals(5.0, d1.getMountSize().gigaBytesProperty().get(), 0.0);
+    }
+    
 }
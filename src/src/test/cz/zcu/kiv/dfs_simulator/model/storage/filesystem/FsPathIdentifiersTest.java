@@ -0,0 +1,106 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.SimulationContext;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link FsPathIdentifiers}.
+ */
+public class FsPathIdentifiersTest
+{
+    /**
+     * Test that identifier is released once the last registry entry 
+     * of its path is removed.
+     */
+    @Test public void testReleaseWithLastEntry()
+    {
+        FsObjectRegistry registry = new FsObjectRegistry();
+        ModelServerNode s1 = new ModelServerNode();
+        ModelServerNode s2 = new ModelServerNode();
+        FsFile f1 = new FsFile("uvolnit", new ByteSize(1), s1.getRootDir());
+        FsFile f2 = new FsFile("uvolnit", new ByteSize(1), s2.getRootDir());
+        
+        registry.addEntry(f1, s1);
+        registry.addEntry(f2, s2);
+        
+        int id = FsPathIdentifiers.findId("/uvolnit");
+        
+        assertNotEquals(FsPathIdentifiers.UNKNOWN_PATH_ID, id);
+        assertEquals(id, f1.getPathId());
+        
+        registry.removeEntry(f1, s1);
+        
+        assertEquals(id, FsPathIdentifiers.findId("/uvolnit"));
+        
+        registry.removeEntry(f2, s2);
+        
+        assertEquals(FsPathIdentifiers.UNKNOWN_PATH_ID, FsPathIdentifiers.findId("/uvolnit"));
+        assertNull(FsPathIdentifiers.getPath(id));
+    }
+    
+    /**
+     * Test that identifiers are reused after release and cached
+     * identifiers of objects do not point to other paths.
+     */
+    @Test public void testReuse()
+    {
+        FsObjectRegistry registry = new FsObjectRegistry();
+        ModelServerNode s1 = new ModelServerNode();
+        FsFile first = new FsFile("prvni", new ByteSize(1), s1.getRootDir());
+        FsFile second = new FsFile("druhy", new ByteSize(1), s1.getRootDir());
+        
+        registry.addEntry(first, s1);
+        int id = first.getPathId();
+        
+        registry.removePath("/prvni");
+        registry.addEntry(second, s1);
+        
+        assertEquals(id, second.getPathId());
+        assertEquals("/druhy", FsPathIdentifiers.getPath(second.getPathId()));
+        assertEquals("/prvni", FsPathIdentifiers.getPath(first.getPathId()));
+        assertNull(registry.getObjectEntry(first));
+        
+        registry.purge();
+    }
+    
+    /**
+     * Test that cleared context releases identifiers of its paths, while
+     * paths referenced by another context are kept.
+     */
+    @Test public void testClearContext()
+    {
+        SimulationContext context = new SimulationContext();
+        SimulationContext other = new SimulationContext();
+        ModelServerNode s1 = new ModelServerNode();
+        FsFile shared = new FsFile("sdileny", new ByteSize(1), s1.getRootDir());
+        FsFile own = new FsFile("vlastni", new ByteSize(1), s1.getRootDir());
+        
+        context.getObjectRegistry().addEntry(shared, s1);
+        context.getObjectRegistry().addEntry(own, s1);
+        other.getObjectRegistry().addEntry(shared, s1);
+        
+        context.clear();
+        
+        assertEquals(FsPathIdentifiers.UNKNOWN_PATH_ID, FsPathIdentifiers.findId("/vlastni"));
+        assertNotNull(other.getObjectRegistry().getObjectEntry(shared));
+        
+        other.clear();
+        
+        assertEquals(FsPathIdentifiers.UNKNOWN_PATH_ID, FsPathIdentifiers.findId("/sdileny"));
+    }
+}
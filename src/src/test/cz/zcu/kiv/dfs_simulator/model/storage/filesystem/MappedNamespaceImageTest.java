@@ -0,0 +1,171 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.filesystem;
+
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.SimulationContext;
+import cz.zcu.kiv.dfs_simulator.persistence.FileXmlStatePersistor;
+import cz.zcu.kiv.dfs_simulator.persistence.FileXmlStateRestorer;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.persistence.NullStatePersistenceLogger;
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link MappedNamespaceImage}.
+ */
+public class MappedNamespaceImageTest
+{
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Test that a written image can be mapped and queried.
+     */
+    @Test public void testWriteAndOpen() throws Exception
+    {
+        CompactNamespace namespace = new CompactNamespace();
+        
+        int mnt = namespace.addDirectory(CompactNamespace.ROOT_ID, "mnt");
+        int data = namespace.addDirectory(mnt, "data");
+        int removed = namespace.addFile(mnt, "smazany", 1000);
+        int file = namespace.addFile(data, "soubor", 100);
+        namespace.addFile(mnt, "data", 50);
+        
+        namespace.remove(removed);
+        namespace.incrementAccessCount(file);
+        namespace.setMigrating(file, true);
+        
+        File imageFile = this.folder.newFile("namespace.img");
+        MappedNamespaceImage.write(namespace, imageFile);
+        
+        MappedNamespaceImage image = MappedNamespaceImage.open(imageFile);
+        
+        assertEquals(5, image.getObjectCount());
+        
+        int imageFileId = image.resolve("/mnt/data/soubor");
+        
+        assertNotEquals(CompactNamespace.NO_OBJECT, imageFileId);
+        assertEquals("/mnt/data/soubor", image.getFullPath(imageFileId));
+        assertEquals(100, image.getSize(imageFileId));
+        assertEquals(1, image.getAccessCount(imageFileId));
+        assertTrue(image.isMigrating(imageFileId));
+        assertEquals(150, image.getSize(CompactNamespace.ROOT_ID));
+        assertFalse(image.isDirectory(image.resolve("/mnt/data")));
+        assertEquals(CompactNamespace.NO_OBJECT, image.resolve("/mnt/smazany"));
+        assertEquals(2, image.getChildIds(image.resolve("/mnt/")).length);
+        
+        CompactNamespace loaded = image.toNamespace();
+        
+        assertEquals(imageFileId, loaded.resolve("/mnt/data/soubor"));
+        assertEquals(150, loaded.getSize(CompactNamespace.ROOT_ID));
+    }
+    
+    /**
+     * Test that unloaded directories are saved into namespace images next 
+     * to the project file and attached unloaded again when restored.
+     */
+    @Test public void testProjectSidecar() throws Exception
+    {
+        ModelServerNode server = new ModelServerNode();
+        FsDirectory data = new FsDirectory("data", server.getRootDir());
+        server.getFsManager().addDirectoryChild(server.getRootDir(), data);
+        
+        CompactNamespace namespace = new CompactNamespace();
+        int logs = namespace.addDirectory(CompactNamespace.ROOT_ID, "logs");
+        namespace.addFile(logs, "log", 1000);
+        server.getFsManager().attachUnloadedNamespace(data, namespace);
+        
+        File project = new File(this.folder.getRoot(), "project.xml");
+        new FileXmlStatePersistor(project, new NullStatePersistenceLogger()).persist(server);
+        
+        assertFalse(new String(Files.readAllBytes(project.toPath())).contains("\"log\""));
+        assertEquals(2, this.folder.getRoot().list().length);
+        
+        SimulationContext.getCurrent().clear();
+        
+        ModelServerNode restored = new ModelServerNode();
+        assertTrue(new FileXmlStateRestorer(new NullStatePersistenceLogger()).restore(project, restored));
+        
+        FsDirectory restoredData = (FsDirectory) restored.getRootDir().getChildObject("data/");
+        
+        assertFalse(restoredData.isLoaded());
+        assertEquals(1000, restoredData.getSize().bytesProperty().get());
+        assertNotNull(restored.getFsManager().getObject("/data/logs/log"));
+    }
+    
+    /**
+     * Test that restored directories are read from the mapped image and
+     * the image is loaded into a namespace only when it is edited.
+     */
+    @Test public void testMappedUnloadedNamespace() throws Exception
+    {
+        ModelServerNode server = new ModelServerNode();
+        FsDirectory data = new FsDirectory("data", server.getRootDir());
+        server.getFsManager().addDirectoryChild(server.getRootDir(), data);
+        
+        CompactNamespace namespace = new CompactNamespace();
+        int logs = namespace.addDirectory(CompactNamespace.ROOT_ID, "logs");
+        int archive = namespace.addDirectory(CompactNamespace.ROOT_ID, "archiv");
+        namespace.setAccessCount(namespace.addFile(logs, "log", 1000), 3);
+        namespace.setAccessCount(namespace.addFile(archive, "stary", 300), 2);
+        server.getFsManager().attachUnloadedNamespace(data, namespace);
+        
+        File project = new File(this.folder.getRoot(), "project.xml");
+        new FileXmlStatePersistor(project, new NullStatePersistenceLogger()).persist(server);
+        
+        SimulationContext.getCurrent().clear();
+        
+        ModelServerNode restored = new ModelServerNode();
+        assertTrue(new FileXmlStateRestorer(new NullStatePersistenceLogger()).restore(project, restored));
+        
+        FsDirectory restoredData = (FsDirectory) restored.getRootDir().getChildObject("data/");
+        UnloadedNamespace unloaded = restoredData.unloadedNamespace;
+        
+        assertFalse(unloaded.isEdited());
+        assertEquals(1300, restoredData.getSize().bytesProperty().get());
+        
+        // image that is still mapped is replaced when saved over
+        new FileXmlStatePersistor(project, new NullStatePersistenceLogger()).persist(restored);
+        
+        FsFile log = (FsFile) restored.getFsManager().getObject("/data/logs/log");
+        
+        assertEquals(3, log.accessCounterProperty().get());
+        assertFalse(unloaded.isEdited());
+        
+        restored.getFsManager().resetUnloadedAccessCounters();
+        
+        assertTrue(unloaded.isEdited());
+        assertEquals(0, ((FsFile) restored.getFsManager().getObject("/data/archiv/stary")).accessCounterProperty().get());
+        
+        SimulationContext.getCurrent().clear();
+        
+        ModelServerNode resaved = new ModelServerNode();
+        assertTrue(new FileXmlStateRestorer(new NullStatePersistenceLogger()).restore(project, resaved));
+        
+        assertEquals(2, ((FsFile) resaved.getFsManager().getObject("/data/archiv/stary")).accessCounterProperty().get());
+    }
+    
+    /**
+     * Test that files which are not images are refused.
+     */
+    @Test(expected = InvalidPersistedStateException.class) public void testOpenInvalid() throws Exception
+    {
+        File imageFile = this.folder.newFile("invalid.img");
+        Files.write(imageFile.toPath(), "<xml/>".getBytes());
+        
+        MappedNamespaceImage.open(imageFile);
+    }
+}
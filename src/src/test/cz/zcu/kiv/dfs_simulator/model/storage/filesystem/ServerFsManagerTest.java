@@ -164,4 +164,215 @@ public class ServerFsManagerTest
         
         assertFalse(this.manager.canFileFitStorage(f1, new ByteSize(10, ByteSizeUnits.GB)));
     }
+    
+    /**
+     * Test method {@link ServerFileSystemManager#getFsObjectMountDeviceByName(
+     * cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FileSystemObject)}.
+     * Mount device is resolved from the longest mounted path prefix, also 
+     * after mounted directory is renamed.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testGetFsObjectMountDeviceByName() throws NotEnoughSpaceLeftException
+    {
+        ServerStorage st1 = new ServerStorage(new ByteSize(1, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ServerStorage st2 = new ServerStorage(new ByteSize(1, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        this.manager.mount(st1, this.server.getRootDir());
+        
+        FsDirectory dir = new FsDirectory("byname", this.server.getRootDir());
+        this.manager.addDirectoryChild(this.server.getRootDir(), dir);
+        this.manager.mount(st2, dir);
+        
+        // object from another namespace with the same path
+        FsDirectory otherDir = new FsDirectory("byname", new FsDirectory(ModelServerNode.ROOT_DIR_NAME));
+        FsFile f1 = new FsFile("f1", new ByteSize(1), otherDir);
+        
+        assertEquals(st2, this.manager.getFsObjectMountDeviceByName(f1));
+        assertEquals(st1, this.manager.getFsObjectMountDeviceByName(this.server.getRootDir()));
+        
+        dir.nameProperty().set("renamed");
+        
+        assertEquals(st1, this.manager.getFsObjectMountDeviceByName(f1));
+        
+        this.manager.umount(dir);
+        otherDir.nameProperty().set("renamed");
+        
+        assertEquals(st1, this.manager.getFsObjectMountDeviceByName(f1));
+    }
+    
+    /**
+     * Test method {@link ServerFileSystemManager#getStorageMountedFiles(
+     * cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage)}. Index has to
+     * follow added, removed and remounted files, including those inheriting
+     * mount device from their directory.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testGetStorageMountedFiles() throws NotEnoughSpaceLeftException
+    {
+        ServerStorage st1 = new ServerStorage(new ByteSize(1, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ServerStorage st2 = new ServerStorage(new ByteSize(1, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        this.manager.mount(st1, this.server.getRootDir());
+        
+        FsDirectory dir = new FsDirectory("storfiles", this.server.getRootDir());
+        this.manager.addDirectoryChild(this.server.getRootDir(), dir);
+        
+        FsFile f1 = new FsFile("f1", new ByteSize(100, ByteSizeUnits.MB), dir);
+        FsFile f2 = new FsFile("f2", new ByteSize(200, ByteSizeUnits.MB), dir);
+        this.manager.addDirectoryChild(dir, f1);
+        this.manager.addDirectoryChild(dir, f2);
+        // created outside of manager
+        FileSystemObject f3 = this.server.getRootDir().getChildObject("/storfiles/sub/f3", true);
+        
+        assertEquals(3, this.manager.getStorageMountedFiles(st1).size());
+        assertTrue(this.manager.isStorageUsed(st1));
+        assertFalse(this.manager.isStorageUsed(st2));
+        
+        this.manager.mount(st2, f2);
+        ((FsFile) f3).setSize(new ByteSize(50, ByteSizeUnits.MB));
+        
+        assertEquals(2, this.manager.getStorageMountedFiles(st1).size());
+        assertTrue(this.manager.getStorageMountedFiles(st2).contains(f2));
+        assertEquals(150, this.manager.getStorageMountedFilesSize(st1).megaBytesProperty().get(), 0.0);
+        
+        this.manager.umount(f2);
+        this.manager.removeDirectoryChild(f1);
+        
+        assertEquals(0, this.manager.getStorageMountedFiles(st2).size());
+        assertFalse(this.manager.getStorageMountedFiles(st1).contains(f1));
+        assertEquals(250, this.manager.getStorageMountedFilesSize(st1).megaBytesProperty().get(), 0.0);
+    }
+    
+    /**
+     * Test deduplication of files with identical content fingerprint - 
+     * only unique content occupies storage space.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testDeduplicatedStorage() throws NotEnoughSpaceLeftException
+    {
+        ServerStorage st1 = new ServerStorage(new ByteSize(1, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        this.manager.mount(st1, this.server.getRootDir());
+        
+        FsDirectory dir = new FsDirectory("dedupdir", this.server.getRootDir());
+        this.manager.addDirectoryChild(this.server.getRootDir(), dir);
+        
+        FsFile f1 = new FsFile("backup1", new ByteSize(600, ByteSizeUnits.MB), dir);
+        f1.setFingerprint("abc");
+        this.manager.addDirectoryChild(dir, f1);
+        
+        // second copy would not fit without deduplication
+        FsFile f2 = new FsFile("backup2", new ByteSize(600, ByteSizeUnits.MB), dir);
+        f2.setFingerprint("abc");
+        this.manager.addDirectoryChild(dir, f2);
+        
+        assertTrue(this.manager.isContentStored("abc"));
+        assertFalse(f1.isDeduplicated());
+        assertTrue(f2.isDeduplicated());
+        assertEquals(600, this.manager.getStorageUsedSize(st1).megaBytesProperty().get(), 0.0);
+        assertEquals(600, this.manager.getDeduplicatedSize().megaBytesProperty().get(), 0.0);
+        
+        // removing stored copy hands storage over to the duplicate
+        this.manager.removeDirectoryChild(f1);
+        
+        assertFalse(f2.isDeduplicated());
+        assertEquals(600, this.manager.getStorageUsedSize(st1).megaBytesProperty().get(), 0.0);
+        
+        // changed content is no longer deduplicated
+        FsFile f3 = new FsFile("backup3", new ByteSize(300, ByteSizeUnits.MB), dir);
+        f3.setFingerprint("abc");
+        this.manager.addDirectoryChild(dir, f3);
+        this.manager.setFileFingerprint(f3, "def");
+        
+        assertFalse(f3.isDeduplicated());
+        assertEquals(900, this.manager.getStorageUsedSize(st1).megaBytesProperty().get(), 0.0);
+    }
+    
+    /**
+     * Test methods {@link ServerFileSystemManager#getFileTargetStorage} and
+     * {@link ServerFileSystemManager#getTopmostMissingPath} for file copied
+     * from another server.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testFileTarget() throws NotEnoughSpaceLeftException
+    {
+        ServerStorage stor = new ServerStorage(new ByteSize(1, ByteSizeUnits.GB), new ByteSpeed(200, ByteSpeedUnits.MBPS));
+        ServerFileSystemManager target = this.server.getFsManager();
+        target.mount(stor, this.server.getRootDir());
+        
+        FsDirectory dirA = new FsDirectory("a", this.server.getRootDir());
+        target.addDirectoryChild(this.server.getRootDir(), dirA);
+        
+        // same hierarchy on another server
+        FsDirectory root = new FsDirectory("/", null);
+        FsDirectory a = new FsDirectory("a", root);
+        FsDirectory b = new FsDirectory("b", a);
+        FsFile small = new FsFile("small", new ByteSize(500, ByteSizeUnits.MB), b);
+        FsFile large = new FsFile("large", new ByteSize(2, ByteSizeUnits.GB), b);
+        FsFile direct = new FsFile("direct", new ByteSize(1, ByteSizeUnits.MB), a);
+        
+        assertSame(stor, target.getFileTargetStorage(small));
+        assertNull(target.getFileTargetStorage(large));
+        
+        // a exists, b has to be created
+        assertEquals(b.getFullPath(), target.getTopmostMissingPath(small));
+        assertEquals(direct.getFullPath(), target.getTopmostMissingPath(direct));
+    }
+    
+    /**
+     * Test that objects of attached namespace are only created when they 
+     * are looked up and that directory can be unloaded again.
+     * 
+     * @throws NotEnoughSpaceLeftException when storage does not have enough space for test object
+     */
+    @Test public void testUnloadedNamespace() throws NotEnoughSpaceLeftException
+    {
+        ServerStorage stor = new ServerStorage(new ByteSize(1, ByteSizeUnits.GB), new ByteSpeed(200, ByteSpeedUnits.MBPS));
+        ServerFileSystemManager fsManager = this.server.getFsManager();
+        fsManager.mount(stor, this.server.getRootDir());
+        
+        FsDirectory data = new FsDirectory("data", this.server.getRootDir());
+        fsManager.addDirectoryChild(this.server.getRootDir(), data);
+        
+        CompactNamespace namespace = new CompactNamespace();
+        int logs = namespace.addDirectory(CompactNamespace.ROOT_ID, "logs");
+        
+        for(int i = 0; i < 1000; i++)
+        {
+            namespace.addFile(logs, "log" + i, 1000);
+        }
+        
+        fsManager.attachUnloadedNamespace(data, namespace);
+        
+        // unloaded objects take space but are not created
+        assertFalse(data.isLoaded());
+        assertTrue(data.getChildren().isEmpty());
+        assertEquals(1000 * 1000, fsManager.getStorageUsedSize(stor).bytesProperty().get());
+        assertNull(fsManager.getObject("/data/nic"));
+        assertFalse(data.isLoaded());
+        
+        // lookup loads directories on the path only
+        FsDirectory logsDir = (FsDirectory) fsManager.getObject("/data/logs/");
+        
+        assertTrue(data.isLoaded());
+        assertFalse(logsDir.isLoaded());
+        assertEquals(1000 * 1000, logsDir.getSize().bytesProperty().get());
+        
+        // registry lookup loads the path as well
+        assertNotNull(FsGlobalObjectRegistry.getObjectEntry("/data/logs/log5"));
+        assertTrue(logsDir.isLoaded());
+        assertEquals(1000, logsDir.getChildren().size());
+        assertFalse(fsManager.hasUnloadedDirectories());
+        
+        // unloaded directory keeps it's size
+        assertTrue(fsManager.unloadDirectory(data));
+        assertFalse(data.isLoaded());
+        assertTrue(data.getChildren().isEmpty());
+        assertEquals(1000 * 1000, fsManager.getStorageUsedSize(stor).bytesProperty().get());
+        
+        // files of the storage are loaded when listed
+        assertEquals(1000, fsManager.getStorageMountedFiles(stor).size());
+        assertTrue(data.isLoaded());
+    }
 }
@@ -0,0 +1,67 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.model.storage.replication;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Replication progress tests.
+ */
+public class ReplicationProgressTest
+{
+    /**
+     * Test method {@link ReplicationProgress#createPart}. Parts track their
+     * own replicas, the whole progress sums replicas of all parts.
+     */
+    @Test public void testParts()
+    {
+        ModelServerNode s1 = new ModelServerNode();
+        FsFile f = new FsFile("soubor", new ByteSize(20, ByteSizeUnits.MB), s1.getRootDir());
+        FsFile b1 = new FsFile("blok1", new ByteSize(10, ByteSizeUnits.MB), s1.getRootDir());
+        FsFile b2 = new FsFile("blok2", new ByteSize(10, ByteSizeUnits.MB), s1.getRootDir());
+        
+        ReplicationProgress progress = new ReplicationProgress(f, ReplicationMode.FAN_OUT, 0);
+        ReplicationProgress p1 = progress.createPart(b1, 0);
+        ReplicationProgress p2 = progress.createPart(b2, 5);
+        
+        p1.addReplica();
+        p1.addReplica();
+        p2.addReplica();
+        p2.addReplica();
+        
+        p1.onReplicaFinished(10);
+        p1.onReplicaFinished(20);
+        p2.onReplicaFinished(50);
+        
+        assertEquals(2, progress.getParts().size());
+        assertEquals(4, progress.getReplicaCount());
+        assertEquals(3, progress.getFinishedCount());
+        
+        // two replicas of the whole file do not mean two replicas of each block
+        assertEquals(20, progress.getReplicasFinishTime(2));
+        assertEquals(20, p1.getReplicasFinishTime(2));
+        assertEquals(-1, p2.getReplicasFinishTime(2));
+        assertEquals(5, p2.getReplicasFinishTime(0));
+        
+        p2.onReplicaFinished(60);
+        
+        assertEquals(60, p2.getReplicasFinishTime(2));
+        assertEquals(4, progress.getFinishedCount());
+        assertTrue(progress.getParts().stream().allMatch(p -> p.getFinishedCount() == 2));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.model.storage.scheduler;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperation;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperationTransferLimiter;
+import cz.zcu.kiv.dfs_simulator.model.storage.StorageOperationType;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link StorageIoScheduler} implementations.
+ */
+public class StorageIoSchedulerTest
+{
+    private ServerStorage storage;
+    
+    private StorageOperation clientOp;
+    private StorageOperation backgroundOp;
+    private final List<StorageOperation> operations = new ArrayList<>();
+    
+    @Before public void setUp()
+    {
+        this.storage = new ServerStorage(new ByteSize(10, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        
+        List<FsFile> transferList = new ArrayList<>();
+        transferList.add(new FsFile("soubor", new ByteSize(1, ByteSizeUnits.GB), null));
+        
+        StorageOperationTransferLimiter unlimited = new StorageOperationTransferLimiter()
+        {
+            @Override public ByteSpeed getTransferLimit(long sTime)
+            {
+                return new ByteSpeed(1000, ByteSpeedUnits.MBPS);
+            }
+        };
+        
+        this.clientOp = new StorageOperation(this.storage, StorageOperationType.CLIENT_READ, transferList, unlimited, false);
+        this.backgroundOp = new StorageOperation(this.storage, StorageOperationType.READ, transferList, unlimited, false);
+        
+        this.operations.add(this.clientOp);
+        this.operations.add(this.backgroundOp);
+    }
+    
+    /**
+     * Test method {@link WeightedFairIoScheduler#allocateThroughput(java.util.List, 
+     * cz.zcu.kiv.dfs_simulator.model.ByteSpeed, long)}.
+     */
+    @Test public void testWeightedFair()
+    {
+        new WeightedFairIoScheduler().allocateThroughput(this.operations, this.storage.getMaximumSpeed(), 0);
+        
+        long total = this.storage.getMaximumSpeed().bpsProperty().get();
+        
+        assertEquals(total * 4 / 5, this.clientOp.getAvailableThroughput().bpsProperty().get(), 1);
+        assertEquals(total / 5, this.backgroundOp.getAvailableThroughput().bpsProperty().get(), 1);
+    }
+    
+    /**
+     * Test method {@link ClientPriorityIoScheduler#allocateThroughput(java.util.List, 
+     * cz.zcu.kiv.dfs_simulator.model.ByteSpeed, long)}.
+     */
+    @Test public void testClientPriority()
+    {
+        new ClientPriorityIoScheduler().allocateThroughput(this.operations, this.storage.getMaximumSpeed(), 0);
+        
+        assertEquals(this.storage.getMaximumSpeed().bpsProperty().get(), this.clientOp.getAvailableThroughput().bpsProperty().get());
+        assertEquals(0, this.backgroundOp.getAvailableThroughput().bpsProperty().get());
+    }
+    
+    /**
+     * Test method {@link TokenBucketIoScheduler#allocateThroughput(java.util.List, 
+     * cz.zcu.kiv.dfs_simulator.model.ByteSpeed, long)}.
+     */
+    @Test public void testTokenBucket()
+    {
+        ByteSpeed limit = new ByteSpeed(10, ByteSpeedUnits.MBPS);
+        TokenBucketIoScheduler scheduler = new TokenBucketIoScheduler(new FairShareIoScheduler(), limit, new ByteSize(0));
+        
+        scheduler.allocateThroughput(this.operations, this.storage.getMaximumSpeed(), 0);
+        
+        long total = this.storage.getMaximumSpeed().bpsProperty().get();
+        
+        assertEquals(limit.bpsProperty().get(), this.backgroundOp.getAvailableThroughput().bpsProperty().get(), 1);
+        assertEquals(total - limit.bpsProperty().get(), this.clientOp.getAvailableThroughput().bpsProperty().get(), 1);
+    }
+}
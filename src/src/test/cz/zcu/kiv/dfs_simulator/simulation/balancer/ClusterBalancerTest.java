@@ -0,0 +1,126 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.balancer;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelClientNode;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorSimulationResult;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsStringSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsTimeSliceSimulator;
+import cz.zcu.kiv.dfs_simulator.simulation.GetSimulationTask;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationPlan;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
+import cz.zcu.kiv.dfs_simulator.simulation.graph.DijkstraGraphSearcher;
+import cz.zcu.kiv.dfs_simulator.simulation.path.MetricDfsPathPicker;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link ClusterBalancer}.
+ */
+public class ClusterBalancerTest
+{
+    /**
+     * Create server with storage of {@code capacity} connected to {@code client}.
+     * 
+     * @param client client
+     * @param capacity storage capacity
+     * @return server
+     * @throws NotEnoughSpaceLeftException 
+     */
+    private ModelServerNode createServer(ModelClientNode client, ByteSize capacity) throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s = new ModelServerNode();
+        ModelNodeConnection conn = new ModelNodeConnection(client, s, new ByteSpeed(100, ByteSpeedUnits.MBPS), 10);
+        
+        s.getConnectionManager().addConnection(conn);
+        client.getConnectionManager().addConnection(conn);
+        
+        ServerStorage stor = new ServerStorage(capacity, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        s.getStorageManager().getStorage().add(stor);
+        s.getFsManager().mount(stor, s.getRootDir());
+        
+        return s;
+    }
+    
+    /**
+     * Test balancing - files are moved from over-utilized server onto
+     * empty server while foreground task runs and moves are reverted
+     * after simulation.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testBalance() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode full = this.createServer(c1, new ByteSize(1, ByteSizeUnits.GB));
+        ModelServerNode empty = this.createServer(c1, new ByteSize(1, ByteSizeUnits.GB));
+        
+        ModelNodeConnection conn = new ModelNodeConnection(full, empty, new ByteSpeed(100, ByteSpeedUnits.MBPS), 10);
+        full.getConnectionManager().addConnection(conn);
+        empty.getConnectionManager().addConnection(conn);
+        
+        List<FsFile> files = new ArrayList<>();
+        
+        for(int i = 0; i < 3; i++)
+        {
+            FsFile f = new FsFile("vyvazit" + i, new ByteSize(300, ByteSizeUnits.MB), full.getRootDir());
+            full.getFsManager().addDirectoryChild(full.getRootDir(), f);
+            files.add(f);
+        }
+        
+        SimulationType type = SimulationType.BALANCED_PATH_THROUGHPUT_AND_LATENCY;
+        SimulationPlan plan = new SimulationPlan();
+        plan.getTasks().add(new GetSimulationTask(files.get(0)));
+        
+        ClusterBalancer balancer = new ClusterBalancer(new MetricDfsPathPicker(new DijkstraGraphSearcher(type.getMetric())), 
+                type, 0.1, 1000, new ByteSpeed(50, ByteSpeedUnits.MBPS), 2);
+        
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, plan, 
+                new MetricDfsPathPicker(new DijkstraGraphSearcher(type.getMetric())), SimulationType.PATH_THROUGHPUT_AND_LATENCY);
+        sim.addBackgroundProcess(balancer);
+        
+        DfsStringSimulatorLogger logger = new DfsStringSimulatorLogger();
+        sim.run(logger);
+        
+        BalancerReport report = balancer.getReport();
+        
+        assertTrue(report.getMovedFiles() > 0);
+        assertEquals(report.getMovedFiles() * files.get(0).getSize().bytesProperty().get(), report.getMovedBytes());
+        assertFalse(report.getBusyIntervals().isEmpty());
+        assertTrue(logger.getMessages().stream().anyMatch(m -> m.contains("BALANCER MOVE") && m.endsWith(empty.toString())));
+        
+        DfsSimulatorSimulationResult result = new DfsSimulatorSimulationResult(type, sim.getResults(), sim.getRecoveries(), report);
+        result.buildCumulativeStats();
+        
+        assertEquals(1.0, result.getHotspotLoad(), 0.0001);
+        
+        // moves are reverted
+        for(FsFile f : files)
+        {
+            assertEquals(1, FsGlobalObjectRegistry.getObjectEntry(f).servers.size());
+            assertSame(full, FsGlobalObjectRegistry.getObjectEntry(f).servers.get(0));
+            assertNull(empty.getRootDir().getChildObject(f.getFullPath()));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.hierarchy;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsStringSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.GetSimulationTask;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link MarkovPrefetchPlanner}.
+ */
+public class MarkovPrefetchPlannerTest
+{
+    /**
+     * Create server with slow storage holding files {@code names} and empty
+     * fast storage.
+     * 
+     * @param names file names
+     * @param files map that will be filled with created files (name to file)
+     * @return server
+     * @throws NotEnoughSpaceLeftException 
+     */
+    private ModelServerNode createServer(String[] names, Map<String, FsFile> files) throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode server = new ModelServerNode();
+        
+        ServerStorage slowStor = new ServerStorage(new ByteSize(10, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ServerStorage fastStor = new ServerStorage(new ByteSize(10, ByteSizeUnits.GB), new ByteSpeed(500, ByteSpeedUnits.MBPS));
+        
+        server.getStorageManager().getStorage().add(slowStor);
+        server.getStorageManager().getStorage().add(fastStor);
+        
+        FsDirectory dir = new FsDirectory("predikce", server.getRootDir());
+        server.getFsManager().addDirectoryChild(server.getRootDir(), dir);
+        
+        for(String name : names)
+        {
+            FsFile f = new FsFile(name, new ByteSize(100, ByteSizeUnits.MB), dir);
+            server.getFsManager().addDirectoryChild(dir, f);
+            files.put(name, f);
+        }
+        
+        server.getFsManager().mount(slowStor, server.getRootDir());
+        
+        return server;
+    }
+    
+    /**
+     * Access {@code file} on {@code server}.
+     * 
+     * @param planner planner
+     * @param file accessed file
+     * @param server server
+     * @param logger logger
+     * @param sTime simulation time
+     */
+    private void access(MarkovPrefetchPlanner planner, FsFile file, ModelServerNode server, DfsStringSimulatorLogger logger, long sTime)
+    {
+        GetSimulationTask task = new GetSimulationTask(file);
+        
+        planner.onBeforeAccess(file, server, task, logger, sTime);
+        planner.onAfterAccess(file, server, task, logger, sTime);
+    }
+    
+    /**
+     * Let running migrations of {@code server} finish.
+     * 
+     * @param server server
+     * @param sTime simulation time
+     * @return simulation time after migrations finished
+     */
+    private long finishMigrations(ModelServerNode server, long sTime)
+    {
+        for(int i = 0; i < 20; i++, sTime += 500)
+        {
+            server.getStorageManager().updateStorageAvailableThroughput(sTime);
+            server.getStorageManager().updateStorageTransferedSize(500, sTime);
+        }
+        
+        return sTime;
+    }
+    
+    /**
+     * Get speed of storage {@code file} is mounted on.
+     * 
+     * @param server server
+     * @param file file
+     * @return storage speed
+     */
+    private long getStorageSpeed(ModelServerNode server, FsFile file)
+    {
+        return server.getFsManager().getFsObjectMountDevice(file).getMaximumSpeed().bpsProperty().get();
+    }
+    
+    /**
+     * Test that after learning a repeating access sequence, the predicted
+     * next file is promoted onto fast storage before it is read.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testPrefetchPredictedFile() throws NotEnoughSpaceLeftException
+    {
+        // access order differs from directory order (a, m, x)
+        String[] sequence = { "x", "m", "a" };
+        
+        Map<String, FsFile> learnFiles = new HashMap<>();
+        ModelServerNode learnServer = this.createServer(sequence, learnFiles);
+        
+        Map<String, FsFile> files = new HashMap<>();
+        ModelServerNode server = this.createServer(sequence, files);
+        
+        MarkovPrefetchPlanner planner = new MarkovPrefetchPlanner();
+        DfsStringSimulatorLogger logger = new DfsStringSimulatorLogger();
+        planner.onSimulationStarted(logger, 0);
+        
+        long sTime = 0;
+        
+        // learn transitions x -> m -> a -> x
+        for(int cycle = 0; cycle < 3; cycle++)
+        {
+            for(String name : sequence)
+            {
+                this.access(planner, learnFiles.get(name), learnServer, logger, sTime);
+                sTime = this.finishMigrations(learnServer, sTime);
+            }
+        }
+        
+        long slowSpeed = new ByteSpeed(100, ByteSpeedUnits.MBPS).bpsProperty().get();
+        long fastSpeed = new ByteSpeed(500, ByteSpeedUnits.MBPS).bpsProperty().get();
+        
+        // access x on a server with all files on slow storage
+        this.access(planner, files.get("x"), server, logger, sTime);
+        sTime = this.finishMigrations(server, sTime);
+        
+        // m was promoted ahead of its read, a was not predicted
+        assertEquals(fastSpeed, this.getStorageSpeed(server, files.get("m")));
+        assertEquals(slowSpeed, this.getStorageSpeed(server, files.get("a")));
+        assertTrue(logger.getMessages().stream().anyMatch(m -> m.contains("PREFETCH: Promoting file " + files.get("m").getFullPath())));
+    }
+    
+    /**
+     * Test that nothing is prefetched when prediction confidence is below
+     * the default threshold.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testNoPrefetchBelowThreshold() throws NotEnoughSpaceLeftException
+    {
+        String[] names = { "x", "m", "a" };
+        // x is followed by m and a equally often (confidence 0.5)
+        String[] sequence = { "x", "m", "x", "a", "x", "m", "x", "a" };
+        
+        Map<String, FsFile> learnFiles = new HashMap<>();
+        ModelServerNode learnServer = this.createServer(names, learnFiles);
+        
+        Map<String, FsFile> files = new HashMap<>();
+        ModelServerNode server = this.createServer(names, files);
+        
+        MarkovPrefetchPlanner planner = new MarkovPrefetchPlanner();
+        DfsStringSimulatorLogger logger = new DfsStringSimulatorLogger();
+        planner.onSimulationStarted(logger, 0);
+        
+        long sTime = 0;
+        
+        for(String name : sequence)
+        {
+            this.access(planner, learnFiles.get(name), learnServer, logger, sTime);
+            sTime = this.finishMigrations(learnServer, sTime);
+        }
+        
+        int messages = logger.getMessages().size();
+        long slowSpeed = new ByteSpeed(100, ByteSpeedUnits.MBPS).bpsProperty().get();
+        
+        this.access(planner, files.get("x"), server, logger, sTime);
+        this.finishMigrations(server, sTime);
+        
+        assertEquals(slowSpeed, this.getStorageSpeed(server, files.get("m")));
+        assertEquals(slowSpeed, this.getStorageSpeed(server, files.get("a")));
+        assertTrue(logger.getMessages().subList(messages, logger.getMessages().size()).stream().noneMatch(m -> m.contains("PREFETCH")));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.hierarchy;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsStringSimulatorLogger;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link WatermarkDemotionDaemon}.
+ */
+public class WatermarkDemotionDaemonTest
+{
+    private ModelServerNode server;
+    private ServerStorage fastStor;
+    private ServerStorage slowStor;
+    private final List<FsFile> files = new ArrayList<>();
+    
+    @Before public void setUp() throws NotEnoughSpaceLeftException
+    {
+        this.server = new ModelServerNode();
+        
+        this.slowStor = new ServerStorage(new ByteSize(10, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        this.fastStor = new ServerStorage(new ByteSize(1000, ByteSizeUnits.MB), new ByteSpeed(500, ByteSpeedUnits.MBPS));
+        
+        this.server.getStorageManager().getStorage().add(this.slowStor);
+        this.server.getStorageManager().getStorage().add(this.fastStor);
+        
+        FsDirectory hot = new FsDirectory("hot", this.server.getRootDir());
+        this.server.getFsManager().addDirectoryChild(this.server.getRootDir(), hot);
+        
+        // 10 files, 950 MB in total - fast storage is filled above high watermark
+        for(int i = 0; i < 10; i++)
+        {
+            FsFile f = new FsFile("file" + i, new ByteSize(95, ByteSizeUnits.MB), hot);
+            this.server.getFsManager().addDirectoryChild(hot, f);
+            
+            // file with higher index is accessed more often
+            for(int j = 0; j < i; j++)
+            {
+                f.incrementAccessCounter();
+            }
+            
+            this.files.add(f);
+        }
+        
+        this.server.getFsManager().mount(this.slowStor, this.server.getRootDir());
+        this.server.getFsManager().mount(this.fastStor, hot);
+    }
+    
+    /**
+     * Test method {@link WatermarkDemotionDaemon#onSimulationTimeAdvanced(
+     * java.util.List, cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorLogger, long)}.
+     */
+    @Test public void testDemoteColdFiles()
+    {
+        List<ModelServerNode> servers = new ArrayList<>();
+        servers.add(this.server);
+        
+        WatermarkDemotionDaemon daemon = new WatermarkDemotionDaemon(new LRUCascadeMigrationPlanner());
+        DfsStringSimulatorLogger logger = new DfsStringSimulatorLogger();
+        
+        daemon.onSimulationStarted(servers, logger, 0);
+        
+        for(long sTime = 0; sTime < 30000; sTime += 500)
+        {
+            daemon.onSimulationTimeAdvanced(servers, logger, sTime);
+            this.server.getStorageManager().updateStorageAvailableThroughput(sTime);
+            this.server.getStorageManager().updateStorageTransferedSize(500, sTime);
+        }
+        
+        long fastUsed = this.server.getFsManager().getStorageUsedSize(this.fastStor).bytesProperty().get();
+        long lowWatermarkBytes = (long) (this.fastStor.getSize().bytesProperty().get() * this.fastStor.lowWatermarkProperty().get());
+        
+        // fast storage got below low watermark
+        assertTrue(fastUsed <= lowWatermarkBytes);
+        
+        // coldest files were demoted, hottest file stayed
+        assertEquals(this.slowStor, this.server.getFsManager().getFsObjectMountDevice(this.files.get(0)));
+        assertEquals(this.slowStor, this.server.getFsManager().getFsObjectMountDevice(this.files.get(1)));
+        assertEquals(this.fastStor, this.server.getFsManager().getFsObjectMountDevice(this.files.get(9)));
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+
+package cz.zcu.kiv.dfs_simulator.simulation.placement;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelClientNode;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.SimulationContext;
+import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import cz.zcu.kiv.dfs_simulator.simulation.GetSimulationTask;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationPlan;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link ReplicaPlacementOptimizer}.
+ */
+public class ReplicaPlacementOptimizerTest
+{
+    /**
+     * Create server connected to {@code client} with link of bandwidth {@code bw}.
+     * 
+     * @param client client
+     * @param bw link bandwidth
+     * @return server
+     * @throws NotEnoughSpaceLeftException 
+     */
+    private ModelServerNode createServer(ModelClientNode client, ByteSpeed bw) throws NotEnoughSpaceLeftException
+    {
+        return this.createServer(client, bw, new ByteSize(10, ByteSizeUnits.GB));
+    }
+    
+    /**
+     * Create server connected to {@code client} with link of bandwidth {@code bw}
+     * and storage of capacity {@code capacity}.
+     * 
+     * @param client client
+     * @param bw link bandwidth
+     * @param capacity storage capacity
+     * @return server
+     * @throws NotEnoughSpaceLeftException 
+     */
+    private ModelServerNode createServer(ModelClientNode client, ByteSpeed bw, ByteSize capacity) throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s = new ModelServerNode();
+        ModelNodeConnection conn = new ModelNodeConnection(client, s, bw, 10);
+        
+        s.getConnectionManager().addConnection(conn);
+        client.getConnectionManager().addConnection(conn);
+        
+        ServerStorage stor = new ServerStorage(capacity, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        s.getStorageManager().getStorage().add(stor);
+        s.getFsManager().mount(stor, s.getRootDir());
+        
+        return s;
+    }
+    
+    /**
+     * Test method {@link ReplicaPlacementOptimizer#optimize} - frequently
+     * downloaded file is moved to server with faster link.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testOptimize() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode slow = this.createServer(c1, new ByteSpeed(1, ByteSpeedUnits.MBPS));
+        ModelServerNode fast = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        
+        FsFile f = new FsFile("umistit", new ByteSize(100, ByteSizeUnits.MB), slow.getRootDir());
+        slow.getFsManager().addDirectoryChild(slow.getRootDir(), f);
+        
+        SimulationPlan plan = new SimulationPlan();
+        
+        for(int i = 0; i < 3; i++)
+        {
+            plan.getTasks().add(new GetSimulationTask(f));
+        }
+        
+        ReplicaPlacementOptimizer optimizer = new ReplicaPlacementOptimizer(c1, plan);
+        
+        ReplicaPlacement current = optimizer.getCurrentPlacement();
+        ReplicaPlacement optimized = optimizer.optimize();
+        
+        assertEquals(1, optimized.getFiles().size());
+        assertEquals(1, optimized.getTargets(f).size());
+        assertSame(fast, optimized.getTargets(f).get(0).serverNode);
+        assertTrue(optimized.getEstimatedTime() < current.getEstimatedTime());
+        
+        optimized.apply();
+        
+        List<ReplicaTarget> targets = FsGlobalReplicationManager.getReplicaTargets(
+                FsGlobalReplicationManager.getReplicaInstance(f.getFullPath()));
+        
+        assertEquals(1, targets.size());
+        assertSame(fast, targets.get(0).serverNode);
+    }
+    
+    /**
+     * Test method {@link ReplicaPlacementOptimizer#optimize} - model of
+     * separate context is optimized from thread bound to default context.
+     */
+    @Test public void testOptimizeInContext()
+    {
+        SimulationContext context = new SimulationContext();
+        List<ModelServerNode> servers = new ArrayList<>();
+        
+        ModelClientNode c1 = context.call(ModelClientNode::new);
+        FsFile f = context.call(() ->
+        {
+            try
+            {
+                servers.add(this.createServer(c1, new ByteSpeed(1, ByteSpeedUnits.MBPS)));
+                servers.add(this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS)));
+                
+                FsFile file = new FsFile("umistitKontext", new ByteSize(100, ByteSizeUnits.MB), servers.get(0).getRootDir());
+                servers.get(0).getFsManager().addDirectoryChild(servers.get(0).getRootDir(), file);
+                
+                return file;
+            }
+            catch(NotEnoughSpaceLeftException ex)
+            {
+                throw new IllegalStateException(ex);
+            }
+        });
+        
+        SimulationPlan plan = new SimulationPlan();
+        
+        for(int i = 0; i < 3; i++)
+        {
+            plan.getTasks().add(new GetSimulationTask(f));
+        }
+        
+        assertNull(FsGlobalObjectRegistry.getObjectEntry("/umistitKontext"));
+        
+        ReplicaPlacement optimized = new ReplicaPlacementOptimizer(context, c1, plan, 0).optimize();
+        
+        assertEquals(1, optimized.getTargets(f).size());
+        assertSame(servers.get(1), optimized.getTargets(f).get(0).serverNode);
+    }
+    
+    /**
+     * Get server nodes holding replicas of file at {@code path}.
+     * 
+     * @param path file path
+     * @return server nodes
+     */
+    private List<ModelServerNode> getReplicaServers(String path)
+    {
+        return FsGlobalReplicationManager.getReplicaTargets(FsGlobalReplicationManager.getReplicaInstance(path))
+                .stream().map(rt -> rt.serverNode).collect(Collectors.toList());
+    }
+    
+    /**
+     * Create placement of files {@code a} and {@code b} onto single servers.
+     * 
+     * @param a first file
+     * @param aServer target of first file
+     * @param b second file
+     * @param bServer target of second file
+     * @return placement
+     */
+    private ReplicaPlacement createPlacement(FsFile a, ModelServerNode aServer, FsFile b, ModelServerNode bServer)
+    {
+        ReplicaPlacement placement = new ReplicaPlacement();
+        
+        placement.setTargets(a, Arrays.asList(new ReplicaTarget(aServer, aServer.getStorageManager().getStorage().get(0))));
+        placement.setTargets(b, Arrays.asList(new ReplicaTarget(bServer, bServer.getStorageManager().getStorage().get(0))));
+        
+        return placement;
+    }
+    
+    /**
+     * Test method {@link ReplicaPlacement#apply()} - space vacated by later
+     * file is used by earlier file.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testApplyVacatesFirst() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ByteSpeed bw = new ByteSpeed(10, ByteSpeedUnits.MBPS);
+        ByteSize capacity = new ByteSize(150, ByteSizeUnits.MB);
+        ModelServerNode s1 = this.createServer(c1, bw, capacity);
+        ModelServerNode s2 = this.createServer(c1, bw, capacity);
+        ModelServerNode s3 = this.createServer(c1, bw, capacity);
+        
+        FsFile a = new FsFile("presunA", new ByteSize(100, ByteSizeUnits.MB), s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), a);
+        
+        FsFile b = new FsFile("presunB", new ByteSize(100, ByteSizeUnits.MB), s2.getRootDir());
+        s2.getFsManager().addDirectoryChild(s2.getRootDir(), b);
+        FsGlobalReplicationManager.replicateFile(b, Arrays.asList(new ReplicaTarget(s3, s3.getStorageManager().getStorage().get(0))));
+        
+        // a can move to s2 only after b leaves it
+        this.createPlacement(a, s2, b, s3).apply();
+        
+        assertEquals(Arrays.asList(s2), this.getReplicaServers("/presunA"));
+        assertEquals(Arrays.asList(s3), this.getReplicaServers("/presunB"));
+    }
+    
+    /**
+     * Test method {@link ReplicaPlacement#apply()} - placement that cannot
+     * be applied leaves the model unchanged.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testApplyRollback() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ByteSpeed bw = new ByteSpeed(10, ByteSpeedUnits.MBPS);
+        ByteSize capacity = new ByteSize(150, ByteSizeUnits.MB);
+        ModelServerNode s1 = this.createServer(c1, bw, capacity);
+        ModelServerNode s2 = this.createServer(c1, bw, capacity);
+        
+        FsFile a = new FsFile("vymenaA", new ByteSize(100, ByteSizeUnits.MB), s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), a);
+        
+        FsFile b = new FsFile("vymenaB", new ByteSize(100, ByteSizeUnits.MB), s2.getRootDir());
+        s2.getFsManager().addDirectoryChild(s2.getRootDir(), b);
+        
+        try
+        {
+            // swap needs temporary space on either server
+            this.createPlacement(a, s2, b, s1).apply();
+            fail("Swap should not fit");
+        }
+        catch(NotEnoughSpaceLeftException ex)
+        {
+            // expected
+        }
+        
+        assertEquals(Arrays.asList(s1), this.getReplicaServers("/vymenaA"));
+        assertEquals(Arrays.asList(s2), this.getReplicaServers("/vymenaB"));
+    }
+}
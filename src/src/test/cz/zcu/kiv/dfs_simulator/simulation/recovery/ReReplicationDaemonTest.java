@@ -0,0 +1,266 @@
+/**
+ * This program is part of master's thesis "Distributed file system simulator"
+ * at University of West Bohemia
+ * ---------------------------------------------------------------------------
+ * Discrete simulation of distributed file systems.
+ * 
+ * Author: Martin Kucera
+ * Date: April, 2017
+ * Version: 1.0
+ */
+
+package cz.zcu.kiv.dfs_simulator.simulation.recovery;
+
+import cz.zcu.kiv.dfs_simulator.model.ByteSize;
+import cz.zcu.kiv.dfs_simulator.model.ByteSizeUnits;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeed;
+import cz.zcu.kiv.dfs_simulator.model.ByteSpeedUnits;
+import cz.zcu.kiv.dfs_simulator.model.ModelClientNode;
+import cz.zcu.kiv.dfs_simulator.model.ModelServerNode;
+import cz.zcu.kiv.dfs_simulator.model.connection.ModelNodeConnection;
+import cz.zcu.kiv.dfs_simulator.model.storage.ServerStorage;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsDirectory;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsFile;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.FsGlobalObjectRegistry;
+import cz.zcu.kiv.dfs_simulator.model.storage.filesystem.NotEnoughSpaceLeftException;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.FsGlobalReplicationManager;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicaTarget;
+import cz.zcu.kiv.dfs_simulator.model.storage.replication.ReplicationProgress;
+import cz.zcu.kiv.dfs_simulator.persistence.InvalidPersistedStateException;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorSimulationResult;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorTaskResult;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsSimulatorTaskResultState;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsStringSimulatorLogger;
+import cz.zcu.kiv.dfs_simulator.simulation.DfsTimeSliceSimulator;
+import cz.zcu.kiv.dfs_simulator.simulation.GetSimulationTask;
+import cz.zcu.kiv.dfs_simulator.simulation.PutSimulationTask;
+import cz.zcu.kiv.dfs_simulator.simulation.ServerFailure;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationPlan;
+import cz.zcu.kiv.dfs_simulator.simulation.SimulationType;
+import cz.zcu.kiv.dfs_simulator.simulation.graph.DijkstraGraphSearcher;
+import cz.zcu.kiv.dfs_simulator.simulation.path.MetricDfsPathPicker;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link ReReplicationDaemon}.
+ */
+public class ReReplicationDaemonTest
+{
+    /**
+     * Create server connected to {@code client} with link of bandwidth {@code bw}.
+     * 
+     * @param client client
+     * @param bw link bandwidth
+     * @return server
+     * @throws NotEnoughSpaceLeftException 
+     */
+    private ModelServerNode createServer(ModelClientNode client, ByteSpeed bw) throws NotEnoughSpaceLeftException
+    {
+        ModelServerNode s = new ModelServerNode();
+        ModelNodeConnection conn = new ModelNodeConnection(client, s, bw, 10);
+        
+        s.getConnectionManager().addConnection(conn);
+        client.getConnectionManager().addConnection(conn);
+        
+        ServerStorage stor = new ServerStorage(
+                new ByteSize(10, ByteSizeUnits.GB), new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        s.getStorageManager().getStorage().add(stor);
+        s.getFsManager().mount(stor, s.getRootDir());
+        
+        return s;
+    }
+    
+    /**
+     * Connect servers {@code a} and {@code b}.
+     * 
+     * @param a server
+     * @param b server
+     */
+    private void connect(ModelServerNode a, ModelServerNode b)
+    {
+        ModelNodeConnection conn = new ModelNodeConnection(a, b, new ByteSpeed(100, ByteSpeedUnits.MBPS), 10);
+        
+        a.getConnectionManager().addConnection(conn);
+        b.getConnectionManager().addConnection(conn);
+    }
+    
+    /**
+     * Create file {@code name} on {@code servers}.
+     * 
+     * @param name file name
+     * @param size file size
+     * @param servers servers holding file
+     * @return file
+     * @throws NotEnoughSpaceLeftException 
+     */
+    private FsFile createFile(String name, ByteSize size, ModelServerNode... servers) throws NotEnoughSpaceLeftException
+    {
+        FsFile f = new FsFile(name, size, servers[0].getRootDir());
+        servers[0].getFsManager().addDirectoryChild(servers[0].getRootDir(), f);
+        
+        List<ReplicaTarget> targets = new ArrayList<>();
+        
+        for(int i = 1; i < servers.length; i++)
+        {
+            targets.add(new ReplicaTarget(servers[i], servers[i].getStorageManager().getStorage().get(0)));
+        }
+        
+        FsGlobalReplicationManager.forceReplicateFile(f, targets);
+        
+        return f;
+    }
+    
+    /**
+     * Test re-replication after server failure - replicated file regains
+     * its replica count while foreground tasks keep running, file without
+     * surviving replica is lost and model is reverted after simulation.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testReReplication() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode s1 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ModelServerNode s2 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ModelServerNode s3 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        this.connect(s1, s2);
+        this.connect(s2, s3);
+        
+        FsFile replicated = this.createFile("obnovit", new ByteSize(100, ByteSizeUnits.MB), s1, s2);
+        this.createFile("ztratit", new ByteSize(10, ByteSizeUnits.MB), s1);
+        FsFile foreground = this.createFile("popredi", new ByteSize(500, ByteSizeUnits.MB), s2, s3);
+        
+        SimulationType type = SimulationType.PATH_THROUGHPUT;
+        SimulationPlan plan = new SimulationPlan();
+        plan.getTasks().add(new GetSimulationTask(foreground));
+        plan.getFailures().add(new ServerFailure(s1.getNodeID(), 0));
+        
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, plan, 
+                new MetricDfsPathPicker(new DijkstraGraphSearcher(type.getMetric())), type);
+        sim.run(new DfsStringSimulatorLogger());
+        
+        assertEquals(1, sim.getRecoveries().size());
+        
+        ServerRecovery recovery = sim.getRecoveries().get(0);
+        
+        assertSame(s1, recovery.getServer());
+        assertEquals(2, recovery.getUnderReplicatedFiles());
+        assertEquals(1, recovery.getRestoredFiles());
+        assertEquals(1, recovery.getLostFiles());
+        assertTrue(recovery.isFinished());
+        
+        // 100 MB at 50 MBps default rate limit
+        assertTrue(recovery.getTimeToFullRedundancy() >= 2000);
+        
+        DfsSimulatorSimulationResult result = new DfsSimulatorSimulationResult(type, sim.getResults(), sim.getRecoveries());
+        result.buildCumulativeStats();
+        
+        assertEquals(recovery.getTimeToFullRedundancy(), result.getTimeToFullRedundancy());
+        assertEquals(1, result.getLostFiles());
+        assertTrue(result.getRecoveryAverageSpeed().bpsProperty().get() > 0);
+        
+        // failure and re-replicated copy are reverted
+        assertFalse(s1.isFailed());
+        assertNull(s3.getRootDir().getChildObject(replicated.getFullPath()));
+        assertEquals(2, FsGlobalObjectRegistry.getObjectEntry(replicated).servers.size());
+    }
+    
+    /**
+     * Test re-replication settings of simulation plan - rate limit of 
+     * the plan is used by the re-replication process and settings are 
+     * persisted with the plan.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     * @throws InvalidPersistedStateException 
+     */
+    @Test public void testPlanSettings() throws NotEnoughSpaceLeftException, InvalidPersistedStateException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode s1 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ModelServerNode s2 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ModelServerNode s3 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        this.connect(s1, s2);
+        this.connect(s2, s3);
+        
+        this.createFile("omezit", new ByteSize(100, ByteSizeUnits.MB), s1, s2);
+        
+        SimulationType type = SimulationType.PATH_THROUGHPUT;
+        SimulationPlan plan = new SimulationPlan();
+        plan.getFailures().add(new ServerFailure(s1.getNodeID(), 0));
+        plan.getReReplicationRateLimit().setBps(new ByteSpeed(20, ByteSpeedUnits.MBPS).bpsProperty().get());
+        plan.setReReplicationParallelism(2);
+        
+        SimulationPlan restored = new SimulationPlan();
+        restored.restoreState(plan.export(null), null);
+        
+        assertEquals(plan.getReReplicationRateLimit().bpsProperty().get(), restored.getReReplicationRateLimit().bpsProperty().get());
+        assertEquals(2, restored.getReReplicationParallelism());
+        
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, plan, 
+                new MetricDfsPathPicker(new DijkstraGraphSearcher(type.getMetric())), type);
+        sim.run(new DfsStringSimulatorLogger());
+        
+        ServerRecovery recovery = sim.getRecoveries().get(0);
+        
+        // 100 MB at 20 MBps plan rate limit, more than twice the default time
+        assertEquals(1, recovery.getRestoredFiles());
+        assertTrue(recovery.getTimeToFullRedundancy() >= 4000);
+    }
+    
+    /**
+     * Test upload of file that had a replica on failed server - failed 
+     * replica is not updated, it is counted as lost and the simulation
+     * continues.
+     * 
+     * @throws NotEnoughSpaceLeftException 
+     */
+    @Test public void testUploadAfterFailure() throws NotEnoughSpaceLeftException
+    {
+        ModelClientNode c1 = new ModelClientNode();
+        ModelServerNode s1 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ModelServerNode s2 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        ModelServerNode s3 = this.createServer(c1, new ByteSpeed(100, ByteSpeedUnits.MBPS));
+        this.connect(s1, s2);
+        this.connect(s1, s3);
+        this.connect(s2, s3);
+        
+        // uploaded file is looked up by its parent directory
+        FsDirectory dir = new FsDirectory("nahravani", s1.getRootDir());
+        s1.getFsManager().addDirectoryChild(s1.getRootDir(), dir);
+        
+        FsFile updated = new FsFile("aktualizovat", new ByteSize(100, ByteSizeUnits.MB), dir);
+        s1.getFsManager().addDirectoryChild(dir, updated);
+        FsGlobalReplicationManager.forceReplicateFile(updated, 
+                Arrays.asList(new ReplicaTarget(s2, s2.getStorageManager().getStorage().get(0))));
+        
+        FsFile foreground = this.createFile("nejdrive", new ByteSize(50, ByteSizeUnits.MB), s3);
+        
+        SimulationType type = SimulationType.PATH_THROUGHPUT;
+        SimulationPlan plan = new SimulationPlan();
+        // upload starts after the failure has been noticed
+        plan.getTasks().add(new GetSimulationTask(foreground));
+        plan.getTasks().add(new PutSimulationTask(updated));
+        plan.getFailures().add(new ServerFailure(s2.getNodeID(), 0));
+        
+        DfsTimeSliceSimulator sim = new DfsTimeSliceSimulator(c1, plan, 
+                new MetricDfsPathPicker(new DijkstraGraphSearcher(type.getMetric())), type);
+        sim.run(new DfsStringSimulatorLogger());
+        
+        assertEquals(2, sim.getResults().size());
+        
+        DfsSimulatorTaskResult upload = sim.getResults().get(1);
+        ReplicationProgress progress = upload.getReplicationProgress();
+        
+        assertEquals(DfsSimulatorTaskResultState.SUCCESS, upload.getState());
+        assertSame(s1, upload.getPathHistory().get(upload.getPathHistory().size() - 1).getTarget());
+        assertNotNull(progress);
+        assertEquals(1, progress.getLostCount());
+        
+        // failure is reverted after simulation
+        assertFalse(s2.isFailed());
+    }
+}